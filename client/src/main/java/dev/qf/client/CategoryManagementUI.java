@@ -3,8 +3,8 @@ package dev.qf.client;
 import com.google.common.collect.Lists;
 import common.Category;
 import common.MenuService;
+import common.registry.RegistryEntryChange;
 import common.registry.RegistryManager;
-import dev.qf.client.event.DataReceivedEvent;
 
 import javax.swing.*;
 import java.awt.*;
@@ -27,40 +27,30 @@ public class CategoryManagementUI extends JFrame {
 
 
     private final Set<String> deletedCategoryIds = new HashSet<>();
-    private Timer updateTimer;
 
     public CategoryManagementUI() {
         initComponents();
         initEventHandlers();
         refreshCategories();
 
-        // DataReceivedEvent 등록
-        DataReceivedEvent.EVENT.register((handler, registry) -> {
-            if (!registry.getClazz().equals(Category.class)) {
-                return;
-            }
-
+        // 카테고리가 바뀔 때만 갱신한다. 한 번의 쓰기에서 생긴 변경이 한꺼번에 오므로 따로 디바운싱하지 않는다.
+        RegistryManager.CATEGORIES.getChangeEvent().register((registry, changes) -> {
             if (this.isVisible()) {
-                SwingUtilities.invokeLater(() -> {
-                    scheduleUpdate();
-                });
+                SwingUtilities.invokeLater(() -> this.onCategoriesChanged(changes));
             }
         });
     }
 
-    private void scheduleUpdate() {
-        if (updateTimer != null) {
-            updateTimer.stop();
+    private void onCategoriesChanged(List<RegistryEntryChange<Category>> changes) {
+        for (RegistryEntryChange<Category> change : changes) {
+            // 삭제를 요청한 카테고리가 실제로 제거되었다면 더 이상 숨길 필요가 없다.
+            if (change.type() == RegistryEntryChange.Type.REMOVED) {
+                this.deletedCategoryIds.remove(change.id());
+            }
         }
-
-        updateTimer = new Timer(100, e -> { // 100ms 지연
-            onServerUpdate();
-            this.categoryList.clear();
-            this.categoryList.addAll(getAllCategoriesForDisplay());
-            this.refreshCategories();
-        });
-        updateTimer.setRepeats(false);
-        updateTimer.start();
+        this.categoryList.clear();
+        this.categoryList.addAll(getAllCategoriesForDisplay());
+        this.refreshCategories();
     }
 
     public List<Category> getAllCategoriesForDisplay() {
@@ -69,14 +59,6 @@ public class CategoryManagementUI extends JFrame {
                 .collect(Collectors.toList());
     }
 
-    public void onServerUpdate() {
-        // 현재 존재하는 카테고리 ID들 가져오기
-        Set<String> currentCategoryIds = RegistryManager.CATEGORIES.getAll().stream()
-                .map(Category::cateId)
-                .collect(Collectors.toSet());
-        deletedCategoryIds.removeIf(categoryId -> !currentCategoryIds.contains(categoryId));
-    }
-
     private void initComponents() {
         categoriesPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 10));
         JScrollPane scrollPane = new JScrollPane(categoriesPanel);
@@ -37,7 +37,7 @@ public class ClientOrderService implements OrderService {
 
     public void requestOrderListUpdate() {
         if (kioskClient != null && kioskClient.isConnected()) {
-            UpdateDataPacket.RequestDataC2SPacket requestOrdersPacket = new UpdateDataPacket.RequestDataC2SPacket(RegistryManager.ORDERS.getRegistryId());
+            UpdateDataPacket.RequestDataC2SPacket requestOrdersPacket = kioskClient.createDataRequest(RegistryManager.ORDERS.getRegistryId());
             ChannelFuture future = kioskClient.sendSerializable(requestOrdersPacket);
             if (future != null) {
                 future.addListener(f -> {
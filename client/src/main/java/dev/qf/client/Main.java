@@ -59,7 +59,7 @@ public class Main {
         }
 
         LOGGER.info("서버에 연결됨. HandShake 전송...");
-        INSTANCE.sendSerializable(new HandShakeC2SInfo(Config.getInstance().getKioskId()));
+        INSTANCE.sendSerializable(new HandShakeC2SInfo(Config.getInstance().getKioskId(), Config.getInstance().getPacketFormat()));
 
         clientOrderService = new ClientOrderService();
 
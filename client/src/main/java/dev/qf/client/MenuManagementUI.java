@@ -3,7 +3,6 @@ package dev.qf.client;
 import common.*;
 import common.Menu;
 import common.registry.RegistryManager;
-import dev.qf.client.event.DataReceivedEvent;
 
 import javax.swing.*;
 import javax.swing.table.AbstractTableModel;
@@ -44,10 +43,9 @@ public class MenuManagementUI extends JFrame {
         initComponents();
         initEventHandlers();
 
-        // DataReceivedEvent로 자동 업데이트
-        DataReceivedEvent.EVENT.register((handler, registry) -> {
-            this.scheduleUpdate();
-        });
+        // 메뉴와 카테고리가 바뀔 때만 자동 업데이트. 주문 변경에는 반응하지 않는다.
+        RegistryManager.MENUS.getChangeEvent().register((registry, changes) -> this.scheduleUpdate());
+        RegistryManager.CATEGORIES.getChangeEvent().register((registry, changes) -> this.scheduleUpdate());
 
         refreshMenuList();
         refreshCategoryComboBox();
@@ -262,7 +260,7 @@ public class MenuManagementUI extends JFrame {
                     return RegistryManager.CATEGORIES.getAll().stream()
                             .anyMatch(category ->
                                     category.cateName().equals(categoryName) &&
-                                            category.menus().stream().anyMatch(catMenu -> catMenu.id().equals(menu.id()))
+                                            category.containsMenu(menu.id())
                             );
                 })
                 .collect(Collectors.toList());
@@ -309,7 +307,7 @@ public class MenuManagementUI extends JFrame {
     private String getCategoryNameForMenu(Menu menu) {
         return RegistryManager.CATEGORIES.getAll()
                 .stream()
-                .filter(cate -> cate.menus().contains(menu))
+                .filter(cate -> cate.containsMenu(menu.id()))
                 .findFirst()
                 .orElse(Category.UNKNOWN)
                 .cateName();
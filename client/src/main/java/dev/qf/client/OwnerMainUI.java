@@ -2,9 +2,11 @@ package dev.qf.client;
 
 import common.Order;
 import common.OrderService;
+import common.registry.RegistryEntryChange;
 import common.registry.RegistryManager;
-import dev.qf.client.event.DataReceivedEvent;
-import org.jetbrains.annotations.Nullable;
+import common.util.KioskLoggerFactory;
+import org.slf4j.Logger;
+
 import javax.swing.*;
 import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.DefaultTableModel;
@@ -15,14 +17,18 @@ import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ExecutionException;
 
 public class OwnerMainUI extends JFrame {
+    private static final Logger LOGGER = KioskLoggerFactory.getLogger();
     private JTable orderTable;
     private DefaultTableModel tableModel;
     private final OrderService orderService;
     private final String userRole;
     private final String userId;
     private JLabel welcomeLabel;
+    // 전체 목록을 읽는 동안 도착한 변경. null 이면 읽고 있지 않다. EDT 에서만 접근한다.
+    private List<RegistryEntryChange<Order>> pendingChanges;
 
     private static final DateTimeFormatter TIME_FORMATTER =
             DateTimeFormatter.ofPattern("yyyy년 M월 d일 (E) a h시 mm분", Locale.KOREAN);
@@ -35,11 +41,9 @@ public class OwnerMainUI extends JFrame {
         initializeUI();
         loadOrderData();
 
-        DataReceivedEvent.EVENT.register((handler, registry) -> {
-            if (registry == RegistryManager.ORDERS) {
-                SwingUtilities.invokeLater(this::loadOrderData);
-            }
-        });
+        // 주문이 바뀔 때마다 전체 목록을 다시 그리지 않고 바뀐 행만 고친다.
+        RegistryManager.ORDERS.getChangeEvent().register((registry, changes) ->
+                SwingUtilities.invokeLater(() -> this.onOrdersChanged(changes)));
     }
 
     private void initializeUI() {
@@ -256,23 +260,102 @@ public class OwnerMainUI extends JFrame {
             System.exit(0);
         }
     }
+    /**
+     * 전체 목록을 EDT 밖에서 읽은 뒤 EDT 에서 표를 다시 그린다. <br>
+     * 읽는 동안 도착한 변경은 모아 두었다가, 읽기 전 버전보다 새로운 것만 다시 그린 표 위에 적용한다.
+     * 변경 적용은 같은 주문에 여러 번 해도 결과가 같으므로 목록에 이미 반영된 변경이 섞여도 괜찮다.
+     */
     public void loadOrderData() {
-        SwingWorker<List<Order>, Void> worker = new SwingWorker<>() {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(this::loadOrderData);
+            return;
+        }
+        if (this.pendingChanges != null) {
+            return;
+        }
+        this.pendingChanges = new ArrayList<>();
+        new SwingWorker<List<Order>, Void>() {
+            private long version;
+
             @Override
-            protected @Nullable List<Order> doInBackground() {
+            protected List<Order> doInBackground() {
+                this.version = RegistryManager.ORDERS.getVersion();
                 return orderService.getOrderList();
             }
 
             @Override
             protected void done() {
+                List<RegistryEntryChange<Order>> changes = pendingChanges;
+                pendingChanges = null;
                 try {
-                    updateOrderTable(get());
-                } catch (Exception e) {
-                    e.printStackTrace();
+                    updateOrderTable(this.get());
+                } catch (InterruptedException | ExecutionException e) {
+                    LOGGER.error("주문 목록을 불러오지 못했습니다.", e);
                 }
+                for (RegistryEntryChange<Order> change : changes) {
+                    if (change.version() > this.version) {
+                        applyOrderChange(change);
+                    }
+                }
+            }
+        }.execute();
+    }
+
+    private void onOrdersChanged(List<RegistryEntryChange<Order>> changes) {
+        if (this.pendingChanges != null) {
+            this.pendingChanges.addAll(changes);
+        } else {
+            changes.forEach(this::applyOrderChange);
+        }
+    }
+
+    private void applyOrderChange(RegistryEntryChange<Order> change) {
+        Order order = change.newValue() != null ? change.newValue() : change.oldValue();
+        int row = findRow(order.orderId());
+        if (change.type() == RegistryEntryChange.Type.REMOVED) {
+            if (row >= 0) {
+                tableModel.removeRow(row);
+            }
+            return;
+        }
+
+        Object[] rowData = createRow(change.newValue());
+        if (row >= 0) {
+            for (int column = 0; column < rowData.length; column++) {
+                tableModel.setValueAt(rowData[column], row, column);
+            }
+        } else {
+            tableModel.insertRow(-row - 1, rowData);
+        }
+    }
+
+    /**
+     * 행은 주문 번호 내림차순이므로 이진 탐색한다.
+     * @return 행 번호. 없다면 <code>-(삽입할 위치) - 1</code>
+     */
+    private int findRow(int orderId) {
+        int low = 0;
+        int high = tableModel.getRowCount() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midId = (Integer) tableModel.getValueAt(mid, 0);
+            if (midId == orderId) {
+                return mid;
+            } else if (midId > orderId) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
             }
+        }
+        return -(low + 1);
+    }
+
+    private Object[] createRow(Order order) {
+        return new Object[]{
+                order.orderId(),
+                order.orderTime().format(TIME_FORMATTER),
+                convertStatusToKorean(order.status())
         };
-        worker.execute();
     }
 
     private String convertStatusToKorean(common.OrderStatus status) {
@@ -288,12 +371,7 @@ public class OwnerMainUI extends JFrame {
         tableModel.setRowCount(0);
         if (orders != null) {
             for (Order order : orders) {
-                Object[] rowData = {
-                        order.orderId(),
-                        order.orderTime().format(TIME_FORMATTER),
-                        convertStatusToKorean(order.status())
-                };
-                tableModel.addRow(rowData);
+                tableModel.addRow(createRow(order));
             }
         }
     }
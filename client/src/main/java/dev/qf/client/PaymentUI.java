@@ -5,16 +5,18 @@ import common.network.Connection;
 import common.registry.RegistryManager;
 import common.util.Container;
 import common.util.KioskLoggerFactory;
+import dev.qf.client.network.KioskNettyClient;
 import org.slf4j.Logger;
 
 import javax.swing.*;
 import java.awt.*;
 import java.time.LocalDateTime;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 public class PaymentUI extends JFrame {
     private static final Logger LOGGER = KioskLoggerFactory.getLogger();
-    private static final AtomicInteger ORDER_ID_COUNTER = new AtomicInteger(1000);
+    private static final long ORDER_ID_TIMEOUT_SECONDS = 3;
 
     private final int totalPrice;
     private final Cart cart;
@@ -168,8 +170,24 @@ public class PaymentUI extends JFrame {
                 customerName = "고객" + System.currentTimeMillis() % 1000;
             }
 
-            // ID 증가
-            int orderId = ORDER_ID_COUNTER.getAndIncrement();
+            // 서버에게 빌린 구간에서 ID 발급. 구간을 기다려야 할 수 있으므로 EDT 를 막지 않고 받은 뒤 이어서 처리한다.
+            String customer = customerName.trim();
+            this.allocateOrderId().whenComplete((orderId, error) -> SwingUtilities.invokeLater(() -> {
+                if (error != null) {
+                    LOGGER.error("주문 번호를 발급받지 못했습니다", error);
+                    showPaymentError();
+                    return;
+                }
+                this.completeOrder(orderId, customer);
+            }));
+        } catch (Exception e) {
+            LOGGER.error("결제 처리 중 오류 발생", e);
+            showPaymentError();
+        }
+    }
+
+    private void completeOrder(int orderId, String customerName) {
+        try {
             LocalDateTime orderTime = LocalDateTime.now();
 
             // 장바구니 복사
@@ -178,7 +196,7 @@ public class PaymentUI extends JFrame {
                 orderCart.addItem(item);
             }
 
-            Order newOrder = new Order(orderId, customerName.trim(), orderTime, OrderStatus.PENDING, orderCart);
+            Order newOrder = new Order(orderId, customerName, orderTime, OrderStatus.PENDING, orderCart);
 
             // 로컬 레지스트리에 주문 추가
             RegistryManager.ORDERS.unfreeze();
@@ -197,6 +215,13 @@ public class PaymentUI extends JFrame {
         }
     }
 
+    private CompletableFuture<Integer> allocateOrderId() {
+        if (!(Container.get(Connection.class) instanceof KioskNettyClient client)) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Kiosk client is not initialized"));
+        }
+        return client.getOrderIdAllocator().allocate().orTimeout(ORDER_ID_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
     private void sendOrderToServer(Order order) {
         Connection connection = Container.get(Connection.class);
         if (connection != null) {
@@ -5,6 +5,7 @@ import com.google.gson.JsonObject;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.JsonOps;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
+import common.network.encoding.PacketFormat;
 import common.util.KioskLoggerFactory;
 import org.slf4j.Logger;
 
@@ -18,17 +19,20 @@ public class Config {
     private static final Codec<Config> CODEC = RecordCodecBuilder.create(instance -> instance.group(
             Codec.STRING.fieldOf("host_addr").forGetter(Config::getHost),
             Codec.INT.fieldOf("port").forGetter(Config::getPort),
-            Codec.STRING.fieldOf("kiosk_id").forGetter(Config::getKioskId)
+            Codec.STRING.fieldOf("kiosk_id").forGetter(Config::getKioskId),
+            PacketFormat.CODEC.optionalFieldOf("packet_format", PacketFormat.BINARY).forGetter(Config::getPacketFormat)
     ).apply(instance, Config::new));
 
     private String host;
     private int port;
     private String kioskId;
+    private PacketFormat packetFormat;
 
-    public Config(String host, int port, String kioskId) {
+    public Config(String host, int port, String kioskId, PacketFormat packetFormat) {
         this.host = host;
         this.port = port;
         this.kioskId = kioskId;
+        this.packetFormat = packetFormat;
     }
 
     public String getHost() {
@@ -43,6 +47,13 @@ public class Config {
         return kioskId;
     }
 
+    /**
+     * 서버와 주고받을 패킷의 형식. 디버깅 시 패킷 내용을 확인해야 한다면 <code>json</code>으로 변경하라.
+     */
+    public PacketFormat getPacketFormat() {
+        return packetFormat;
+    }
+
     public static Config load() {
         File configFile = new File("config.json");
         Config config;
@@ -76,6 +87,6 @@ public class Config {
     }
 
     private static Config getDefault() {
-        return new Config("localhost", 8192, "kiosk1");
+        return new Config("localhost", 8192, "kiosk1", PacketFormat.BINARY);
     }
 }
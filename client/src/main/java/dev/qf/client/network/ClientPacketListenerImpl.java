@@ -1,30 +1,36 @@
 package dev.qf.client.network;
 
 import common.Menu;
-import common.Order;
 import common.network.SynchronizeData;
+import common.network.encryption.EncryptionMode;
 import common.network.encryption.NetworkEncryptionUtils;
 import common.network.handler.SerializableHandler;
 import common.network.handler.listener.ClientPacketListener;
 import common.network.packet.*;
 import common.registry.Registry;
 import common.registry.RegistryManager;
+import common.registry.RegistryTransaction;
 import common.util.KioskLoggerFactory;
 import dev.qf.client.event.DataReceivedEvent;
 import org.slf4j.Logger;
 import common.Category;
 
-import javax.crypto.Cipher;
 import javax.crypto.SecretKey;
 import java.security.PublicKey;
 import java.util.Map;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.OptionalLong;
 
 public class ClientPacketListenerImpl implements ClientPacketListener {
     private final SerializableHandler handler;
     private final Logger logger = KioskLoggerFactory.getLogger();
+    private final RegistrySnapshotAssembler snapshotAssembler = new RegistrySnapshotAssembler();
+    /**
+     * {@link #onHello(HelloS2CPacket)}에서 고른 방식. 암호화가 시작된 뒤 서버가 다시 보낸 목록과 비교한다.
+     */
+    private volatile EncryptionMode encryptionMode;
 
     public ClientPacketListenerImpl(SerializableHandler channel) {
         this.handler = channel;
@@ -33,7 +39,9 @@ public class ClientPacketListenerImpl implements ClientPacketListener {
     /**
      * Client가 처음으로 Server 와 연결 된 이후, Client 가 Server에게 HandShakeC2SPacket 을 보낼 떄 서버가 callback 으로 전달하는 패킷이다.<br>
      * 해당 패킷에는 서버의 public 키가 암호화 된 상태로 들어있다. <br>
-     * 또한 nonce 역시 존재한다. Client 에서는 nonce를 사용할 일이 딱히 없으나, 클라이언트가 서버로 같은 nonce 값을 보내지 않으면 연결이 거절된다.
+     * 또한 nonce 역시 존재한다. Client 에서는 nonce를 사용할 일이 딱히 없으나, 클라이언트가 서버로 같은 nonce 값을 보내지 않으면 연결이 거절된다. <br>
+     * 서버가 알려준 암호화 방식 중 클라이언트도 지원하는 방식을 고르고, 방향별 IV 를 생성해 비밀 키와 함께 전달한다.
+     * 겹치는 방식이 없다면 연결을 끊는다.
      * @param packet
      */
     @Override
@@ -41,24 +49,18 @@ public class ClientPacketListenerImpl implements ClientPacketListener {
         SecretKey secretKey = NetworkEncryptionUtils.generateSecretKey();
         PublicKey publicKey = packet.getPublicKey();
 
-        Cipher encrpytionCipher = NetworkEncryptionUtils.cipherFromKey(Cipher.ENCRYPT_MODE, secretKey);
-        Cipher decryptionCipher = NetworkEncryptionUtils.cipherFromKey(Cipher.DECRYPT_MODE, secretKey);
+        EncryptionMode mode = EncryptionMode.negotiate(packet.encryptionModes());
+        byte[] clientIv = NetworkEncryptionUtils.generateIv();
+        byte[] serverIv = NetworkEncryptionUtils.generateIv();
 
-        KeyC2SPacket secretPacket = new KeyC2SPacket(secretKey, publicKey, packet.nonce());
-        logger.info("Client public key sent");
+        this.encryptionMode = mode;
+
+        KeyC2SPacket secretPacket = new KeyC2SPacket(secretKey, publicKey, packet.nonce(), mode, clientIv, serverIv);
+        logger.info("Client public key sent. encryption mode : {}", mode.asString());
         this.handler.send(secretPacket);
-        this.handler.encrypt(encrpytionCipher, decryptionCipher);
+        this.handler.encrypt(mode, secretKey, clientIv, serverIv);
     }
 
-    /*
-    서버로부터 어떤 종류의 데이터(options, menus, orders 등)를 받든 상관없이
-    데이터를 업데이트한 후 finally 블록에서 무조건 해당 레지스트리를 동결시킴.
-    이 때문에 초기 데이터 동기화 과정에서 orders 데이터가 들어올 때 OrderRegistry
-    동결 처리. 그 이후에 사용자가 주문 상태를 변경하면, onOrderStatusChanged
-    메소드가 호출되어 이미 동결된 OrderRegistry에 데이터를 추가하려고 시도하면서
-    Registry is frozen 예외가 발생.
-    */
-
     @Override
     public void onReceivedData(UpdateDataPacket.ResponseDataS2CPacket packet) {
         if (!this.handler.isEncrypted()) {
@@ -66,22 +68,152 @@ public class ClientPacketListenerImpl implements ClientPacketListener {
         }
         logger.info("Received data : {}", packet.registryId());
         logger.info("data info : {}", packet);
-        Registry<? extends SynchronizeData<?>> registry =  RegistryManager.getAsId(packet.registryId());
+        // 버전 정보가 없는 스냅샷이므로 이후의 변경 사항은 다음 스냅샷을 받을 때까지 적용할 수 없다.
+        this.getVersionTracker().invalidate(packet.registryId());
+        this.applySnapshot(packet.registryId(), packet.data());
+    }
+
+    @Override
+    public void onReceivedDataChunk(UpdateDataPacket.ResponseDataChunkS2CPacket packet) {
+        if (!this.handler.isEncrypted()) {
+            throw new IllegalStateException("Client is not encrypted");
+        }
+        logger.debug("Received chunk {}/{} of {} (transfer {})", packet.chunkIndex() + 1, packet.chunkCount(), packet.registryId(), packet.transferId());
+        List<SynchronizeData<?>> data;
+        try {
+            data = this.snapshotAssembler.accept(packet);
+        } catch (IllegalStateException e) {
+            logger.warn(e.getMessage());
+            logger.warn("requesting full snapshot of {} again...", packet.registryId());
+            this.handler.send(this.getClient().createDataRequest(packet.registryId()));
+            return;
+        }
+        if (data != null) {
+            logger.info("Received data : {} ({} chunks, {} entries, version {})", packet.registryId(), packet.chunkCount(), data.size(), packet.version());
+            this.applySnapshot(packet.registryId(), data);
+            this.getVersionTracker().set(packet.registryId(), packet.version());
+        }
+    }
+
+    /**
+     * 서버가 보낸 변경 사항을 적용한다. 이미 반영된 변경이라면 무시하고, 중간의 변경을 놓친 경우 전체 스냅샷을 다시 요청한다. <br>
+     * fromVersion 이 반영된 버전보다 작더라도 변경 사항은 각 ID 의 최종 상태이므로 그대로 적용해도 안전하다.
+     */
+    @Override
+    public void onReceivedDelta(UpdateDataPacket.RegistryDeltaS2CPacket packet) {
+        if (!this.handler.isEncrypted()) {
+            throw new IllegalStateException("Client is not encrypted");
+        }
+        RegistryVersionTracker tracker = this.getVersionTracker();
+        OptionalLong synced = tracker.get(packet.registryId());
+        if (synced.isEmpty()) {
+            logger.debug("Snapshot of {} is not received yet. skipping delta {} -> {}", packet.registryId(), packet.fromVersion(), packet.toVersion());
+            return;
+        }
+        if (packet.toVersion() <= synced.getAsLong()) {
+            return;
+        }
+        if (packet.fromVersion() > synced.getAsLong()) {
+            logger.warn("Missed changes of {} ({} -> {}, synced {}). requesting full snapshot...", packet.registryId(), packet.fromVersion(), packet.toVersion(), synced.getAsLong());
+            tracker.invalidate(packet.registryId());
+            this.handler.send(this.getClient().createDataRequest(packet.registryId()));
+            return;
+        }
+
+        Registry<? extends SynchronizeData<?>> registry = RegistryManager.getAsId(packet.registryId());
         if (registry == null) {
             logger.error("Received data from unknown registry : {}", packet.registryId());
             return;
         }
+        try (registry) {
+            registry.unfreeze();
+            registry.applyChanges(packet.upserts(), packet.removals());
+        }
+        tracker.set(packet.registryId(), packet.toVersion());
+        logger.info("Applied delta of {} : {} upserts, {} removals (version {})", packet.registryId(), packet.upserts().size(), packet.removals().size(), packet.toVersion());
+        DataReceivedEvent.EVENT.invoker().onRegistryChanged(this.handler, registry);
+    }
+
+    /**
+     * 한 트랜잭션에서 바뀐 여러 레지스트리의 변경을 한번에 적용한다. 각 변경의 적용 여부는 {@link #onReceivedDelta}와 같은 기준으로 판단하며,
+     * 적용 가능한 변경들은 하나의 {@link RegistryTransaction}으로 반영되어 화면이 중간 상태를 보지 않는다.
+     */
+    @Override
+    public void onReceivedTransaction(UpdateDataPacket.RegistryTransactionS2CPacket packet) {
+        if (!this.handler.isEncrypted()) {
+            throw new IllegalStateException("Client is not encrypted");
+        }
+        RegistryVersionTracker tracker = this.getVersionTracker();
+        RegistryTransaction transaction = RegistryManager.transaction();
+        List<UpdateDataPacket.RegistryDeltaS2CPacket> applied = new ArrayList<>();
+        for (UpdateDataPacket.RegistryDeltaS2CPacket delta : packet.deltas()) {
+            OptionalLong synced = tracker.get(delta.registryId());
+            if (synced.isEmpty() || delta.toVersion() <= synced.getAsLong()) {
+                continue;
+            }
+            if (delta.fromVersion() > synced.getAsLong()) {
+                logger.warn("Missed changes of {} ({} -> {}, synced {}). requesting full snapshot...", delta.registryId(), delta.fromVersion(), delta.toVersion(), synced.getAsLong());
+                tracker.invalidate(delta.registryId());
+                this.handler.send(this.getClient().createDataRequest(delta.registryId()));
+                continue;
+            }
+            Registry<? extends SynchronizeData<?>> registry = RegistryManager.getAsId(delta.registryId());
+            if (registry == null) {
+                logger.error("Received data from unknown registry : {}", delta.registryId());
+                continue;
+            }
+            delta.upserts().forEach(entry -> transaction.put(registry, entry));
+            delta.removals().forEach(id -> transaction.remove(registry, id));
+            applied.add(delta);
+        }
+        if (applied.isEmpty()) {
+            return;
+        }
+        transaction.commit();
+        for (UpdateDataPacket.RegistryDeltaS2CPacket delta : applied) {
+            tracker.set(delta.registryId(), delta.toVersion());
+            logger.info("Applied delta of {} : {} upserts, {} removals (version {})", delta.registryId(), delta.upserts().size(), delta.removals().size(), delta.toVersion());
+        }
+        for (UpdateDataPacket.RegistryDeltaS2CPacket delta : applied) {
+            DataReceivedEvent.EVENT.invoker().onRegistryChanged(this.handler, RegistryManager.getAsId(delta.registryId()));
+        }
+    }
+
+    @Override
+    public void onRegistryUnchanged(UpdateDataPacket.RegistryUnchangedS2CPacket packet) {
+        logger.info("Registries are up to date : {}", packet.registryIds());
+    }
+
+    private KioskNettyClient getClient() {
+        return (KioskNettyClient) this.handler.connection;
+    }
+
+    private RegistryVersionTracker getVersionTracker() {
+        return this.getClient().getVersionTracker();
+    }
+
+    private void applySnapshot(String registryId, List<SynchronizeData<?>> data) {
+        Registry<? extends SynchronizeData<?>> registry =  RegistryManager.getAsId(registryId);
+        if (registry == null) {
+            logger.error("Received data from unknown registry : {}", registryId);
+            return;
+        }
         try(registry) {
             registry.unfreeze();
-            registry.clear();
-            registry.addAll(packet.data());
+            registry.replaceAll(data);
         }
         DataReceivedEvent.EVENT.invoker().onRegistryChanged(this.handler, registry);
     }
 
     @Override
     public void onEncryptCompleted(EncryptCompleteS2CPacket packet) {
-        handler.send(new UpdateDataPacket.RequestDataC2SPacket("all"));
+        // Hello 의 목록은 인증되지 않았으므로, 중간에서 목록을 줄여 약한 방식을 고르게 했다면 여기서 드러난다.
+        EncryptionMode expected = EncryptionMode.negotiate(packet.encryptionModes());
+        if (expected != this.encryptionMode) {
+            throw new IllegalStateException("Encryption mode was downgraded from " + expected.asString() + " to " + this.encryptionMode.asString());
+        }
+        handler.send(this.getClient().createDataRequest("all"));
+        this.getClient().getOrderIdAllocator().onConnected();
     }
 
     @Override
@@ -91,27 +223,12 @@ public class ClientPacketListenerImpl implements ClientPacketListener {
         }
     }
 
-        /*
-        서버로부터 받은 최신 주문 정보(packet.order())를 사용하지 않고
-        로컬에 저장된 옛날 주문 정보를 다시 addOrder 메소드에 전달.
-        주문 상태가 업데이트되지 않고 이전 상태로 덮어쓰기되는 오류가 있음.
-         */
-
     @Override
-    public void onOrderStatusChanged(OrderUpdatedS2CPacket packet) {
-        Order updatedOrder = packet.order();
-        Order existingOrder = RegistryManager.ORDERS.get(updatedOrder.orderId());
-
-        if (existingOrder != null && !existingOrder.cart().equals(updatedOrder.cart())) {
-            logger.warn("Order data seems different. Overriding. Before: {}, After: {}", existingOrder, updatedOrder);
-        }
-        try (var reg = RegistryManager.ORDERS){
-            reg.unfreeze();
-            reg.addOrder(updatedOrder);
+    public void onOrderIdsLeased(OrderIdLeasePackets.OrderIdsLeasedS2CPacket packet) {
+        if (!this.handler.isEncrypted()) {
+            throw new IllegalStateException("Client is not encrypted");
         }
-
-        logger.info("Order ID {} has been updated to status: {}", updatedOrder.orderId(), updatedOrder.status());
-        DataReceivedEvent.EVENT.invoker().onRegistryChanged(this.handler, RegistryManager.ORDERS);
+        this.getClient().getOrderIdAllocator().accept(packet.start(), packet.end());
     }
 
     @Override
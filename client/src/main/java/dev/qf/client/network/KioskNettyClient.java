@@ -38,6 +38,8 @@ public final class KioskNettyClient implements Connection {
     private volatile SerializableHandler handler;
     private final ReentrantLock lock = new ReentrantLock();
     private PriorityQueue<Serializable<?>> pendingQueue = new ObjectArrayFIFOQueue<>();
+    private final RegistryVersionTracker versionTracker = new RegistryVersionTracker();
+    private final OrderIdAllocator orderIdAllocator = new OrderIdAllocator(this);
 
     public KioskNettyClient() {
         if (Container.get(Connection.class) != null) {
@@ -80,7 +82,7 @@ public final class KioskNettyClient implements Connection {
                         if (future1.isSuccess()) {
                             LOGGER.info("Reconnected to server.");
                             LOGGER.info("Sending HandShakeC2SInfo...");
-                            this.sendSerializable(new HandShakeC2SInfo(config.getKioskId()));
+                            this.sendSerializable(new HandShakeC2SInfo(config.getKioskId(), config.getPacketFormat()));
                         } else {
                             LOGGER.error("Reconnect failed. retry after 5 seconds...", future1.cause());
                         }
@@ -164,6 +166,7 @@ public final class KioskNettyClient implements Connection {
     @Override
     public void onEstablishedChannel(ChannelHandlerContext ctx, SerializableHandler handler) {
         LOGGER.info("Connection is established. : {}", ctx.channel().remoteAddress());
+        handler.setPacketFormat(Config.getInstance().getPacketFormat());
         this.handler = handler;
     }
 
@@ -186,7 +189,7 @@ public final class KioskNettyClient implements Connection {
                             if (future.isSuccess()) {
                                 LOGGER.info("Connected to server.");
                                 LOGGER.info("Sending HandShakeC2SInfo...");
-                                this.sendSerializable(new HandShakeC2SInfo(Config.getInstance().getKioskId()));
+                                this.sendSerializable(new HandShakeC2SInfo(Config.getInstance().getKioskId(), Config.getInstance().getPacketFormat()));
                             }
                         });
             }
@@ -200,9 +203,25 @@ public final class KioskNettyClient implements Connection {
         return bootstrap.connect(host, port).syncUninterruptibly();
     }
 
+    public RegistryVersionTracker getVersionTracker() {
+        return versionTracker;
+    }
+
+    public OrderIdAllocator getOrderIdAllocator() {
+        return orderIdAllocator;
+    }
+
+    /**
+     * 이미 반영한 버전을 담은 데이터 요청 패킷을 만든다. 서버는 바뀌지 않은 레지스트리에 대해서는 데이터를 보내지 않는다.
+     * @param registryId 요청할 레지스트리 ID 또는 <code>all</code>
+     */
+    public UpdateDataPacket.RequestDataC2SPacket createDataRequest(String registryId) {
+        return new UpdateDataPacket.RequestDataC2SPacket(registryId, this.versionTracker.snapshot());
+    }
+
     public void sendSyncPacket() {
         LOGGER.info("Requesting All Synchronization items");
-        this.sendSerializable(new UpdateDataPacket.RequestDataC2SPacket("all"));
+        this.sendSerializable(this.createDataRequest("all"));
     }
 
     private void addPendingPacket(Serializable<?> packet) {
@@ -0,0 +1,145 @@
+package dev.qf.client.network;
+
+import common.network.packet.OrderIdLeasePackets;
+import common.util.KioskLoggerFactory;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import org.slf4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+/**
+ * 서버에게 빌린 ID 구간에서 주문 ID 를 발급한다. 주문마다 서버와 통신하지 않으며,
+ * 남은 ID 가 {@link #LOW_WATER_MARK}보다 적어지면 다음 구간을 미리 요청해 둔다. <br>
+ * 구간은 프로세스 메모리에만 있으므로 재시작하면 남은 ID 는 버려지고 새 구간을 빌린다. <br>
+ * 발급은 기다리지 않는다. 남은 ID 가 없다면 구간을 받을 때 완료되는 future 를 반환하므로 EDT 에서 호출해도 된다.
+ */
+public class OrderIdAllocator {
+    public static final int BLOCK_SIZE = 100;
+    public static final int LOW_WATER_MARK = BLOCK_SIZE / 4;
+    private static final Logger LOGGER = KioskLoggerFactory.getLogger();
+    private final IntConsumer requester;
+    /**
+     * 구간을 기다리는 발급 요청. 요청한 순서대로 ID 를 받는다.
+     */
+    private final Deque<CompletableFuture<Integer>> waiters = new ArrayDeque<>();
+
+    private int next;
+    private int end;
+    private int reservedStart;
+    private int reservedEnd;
+    private boolean requested;
+
+    public OrderIdAllocator(KioskNettyClient client) {
+        this(size -> client.sendSerializable(new OrderIdLeasePackets.RequestOrderIdsC2SPacket(size)));
+    }
+
+    /**
+     * @param requester 주어진 개수의 ID 구간을 서버에 요청한다
+     */
+    public OrderIdAllocator(IntConsumer requester) {
+        this.requester = requester;
+    }
+
+    /**
+     * 다음 주문 ID 를 발급한다. 남은 ID 가 있다면 완료된 future 를, 없다면 새 구간을 받을 때 완료되는 future 를 반환한다. <br>
+     * 기다리는 시간은 호출자가 {@link CompletableFuture#orTimeout(long, TimeUnit)}으로 정한다.
+     * 시간이 지나 완료된 요청에는 이후에 받은 ID 를 주지 않는다.
+     */
+    public synchronized CompletableFuture<Integer> allocate() {
+        this.waiters.removeIf(CompletableFuture::isDone);
+        if (this.waiters.isEmpty() && this.remaining() > 0) {
+            return CompletableFuture.completedFuture(this.take());
+        }
+        CompletableFuture<Integer> waiter = new CompletableFuture<>();
+        this.waiters.add(waiter);
+        this.requestBlock();
+        return waiter;
+    }
+
+    private int take() {
+        int id = this.next++;
+        if (this.next == this.end) {
+            this.promoteReserved();
+        }
+        if (this.remaining() < LOW_WATER_MARK) {
+            this.requestBlock();
+        }
+        return id;
+    }
+
+    /**
+     * 서버가 빌려준 구간을 받는다. 현재 구간을 다 쓴 경우 바로 사용하고, 그렇지 않다면 다음 구간으로 보관한다. <br>
+     * 기다리던 요청은 잠금을 놓은 뒤 완료하므로, 완료 콜백에서 다시 발급을 요청해도 된다.
+     */
+    public void accept(int start, int end) {
+        List<CompletableFuture<Integer>> completed = new ArrayList<>();
+        IntList ids = new IntArrayList();
+        synchronized (this) {
+            this.requested = false;
+            if (start >= end) {
+                LOGGER.warn("Ignoring empty order id lease [{}, {})", start, end);
+                return;
+            }
+            if (this.next == this.end) {
+                this.next = start;
+                this.end = end;
+            } else {
+                this.reservedStart = start;
+                this.reservedEnd = end;
+            }
+            LOGGER.info("Order ids [{}, {}) leased. remaining {}", start, end, this.remaining());
+            while (!this.waiters.isEmpty() && this.remaining() > 0) {
+                CompletableFuture<Integer> waiter = this.waiters.poll();
+                if (!waiter.isDone()) {
+                    completed.add(waiter);
+                    ids.add(this.take());
+                }
+            }
+            if (!this.waiters.isEmpty()) {
+                this.requestBlock();
+            }
+        }
+        for (int i = 0; i < completed.size(); i++) {
+            completed.get(i).complete(ids.getInt(i));
+        }
+    }
+
+    /**
+     * 연결이 (다시) 수립되었을 때 호출한다. 연결이 끊기며 잃어버렸을 수 있는 요청을 다시 보낸다.
+     */
+    public synchronized void onConnected() {
+        this.requested = false;
+        if (this.reservedStart == this.reservedEnd) {
+            this.requestBlock();
+        }
+    }
+
+    /**
+     * @return 다음 구간을 포함한 남은 ID 개수
+     */
+    public synchronized int remaining() {
+        return (this.end - this.next) + (this.reservedEnd - this.reservedStart);
+    }
+
+    private void promoteReserved() {
+        this.next = this.reservedStart;
+        this.end = this.reservedEnd;
+        this.reservedStart = 0;
+        this.reservedEnd = 0;
+    }
+
+    private void requestBlock() {
+        if (this.requested || this.reservedStart != this.reservedEnd) {
+            return;
+        }
+        this.requested = true;
+        this.requester.accept(BLOCK_SIZE);
+    }
+}
@@ -0,0 +1,57 @@
+package dev.qf.client.network;
+
+import common.network.SynchronizeData;
+import common.network.packet.UpdateDataPacket;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 서버가 나눠 보낸 {@link UpdateDataPacket.ResponseDataChunkS2CPacket}을 레지스트리 별로 모은다. <br>
+ * 각 청크는 도착하는 즉시 디코딩되어 있으므로, 여기서는 디코딩된 요소만 모아둘 뿐 전체 Json 문자열을 들고 있지 않는다.
+ * 순서가 어긋나거나 다른 transferId 의 청크가 들어오면 모으던 데이터는 버려진다.
+ */
+public class RegistrySnapshotAssembler {
+    private final Map<String, PendingSnapshot> pending = new HashMap<>();
+
+    /**
+     * 청크를 추가한다.
+     * @param chunk 수신한 청크
+     * @return 마지막 청크까지 모두 모인 경우 전체 데이터, 아직 모이지 않은 경우 null
+     * @throws IllegalStateException 청크가 순서대로 들어오지 않은 경우
+     */
+    @Nullable
+    public synchronized List<SynchronizeData<?>> accept(UpdateDataPacket.ResponseDataChunkS2CPacket chunk) {
+        PendingSnapshot snapshot = this.pending.get(chunk.registryId());
+        if (chunk.chunkIndex() == 0) {
+            snapshot = new PendingSnapshot(chunk.transferId(), chunk.chunkCount());
+            this.pending.put(chunk.registryId(), snapshot);
+        } else if (snapshot == null || snapshot.transferId != chunk.transferId() || snapshot.nextIndex != chunk.chunkIndex()) {
+            this.pending.remove(chunk.registryId());
+            throw new IllegalStateException("Received out of order snapshot chunk %d/%d (transfer %d) for %s"
+                    .formatted(chunk.chunkIndex(), chunk.chunkCount(), chunk.transferId(), chunk.registryId()));
+        }
+
+        snapshot.data.addAll(chunk.data());
+        snapshot.nextIndex++;
+        if (!chunk.isLast()) {
+            return null;
+        }
+        this.pending.remove(chunk.registryId());
+        return snapshot.data;
+    }
+
+    private static final class PendingSnapshot {
+        private final int transferId;
+        private final List<SynchronizeData<?>> data;
+        private int nextIndex = 0;
+
+        private PendingSnapshot(int transferId, int chunkCount) {
+            this.transferId = transferId;
+            this.data = new ArrayList<>(chunkCount);
+        }
+    }
+}
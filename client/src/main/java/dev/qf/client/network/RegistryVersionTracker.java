@@ -0,0 +1,40 @@
+package dev.qf.client.network;
+
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 클라이언트가 각 레지스트리를 서버의 어떤 버전까지 반영했는지 기록한다. 클라이언트 레지스트리의 {@link common.registry.Registry#getVersion()}은
+ * 로컬에서 증가하는 값이므로 서버의 버전과는 다름을 유의하라. <br>
+ * 재연결 시에도 레지스트리 내용은 유지되므로 이 기록 역시 {@link KioskNettyClient}와 수명을 같이 한다.
+ */
+public class RegistryVersionTracker {
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+
+    /**
+     * @return 반영된 서버 버전. 아직 스냅샷을 받지 못했다면 비어 있다.
+     */
+    public OptionalLong get(String registryId) {
+        Long version = this.versions.get(registryId);
+        return version == null ? OptionalLong.empty() : OptionalLong.of(version);
+    }
+
+    public void set(String registryId, long version) {
+        this.versions.put(registryId, version);
+    }
+
+    /**
+     * 버전을 알 수 없게 되었음을 기록한다. 이후의 변경 사항은 스냅샷을 받기 전까지 무시된다.
+     */
+    public void invalidate(String registryId) {
+        this.versions.remove(registryId);
+    }
+
+    /**
+     * @return 현재까지 반영된 버전들의 복사본. {@link common.network.packet.UpdateDataPacket.RequestDataC2SPacket}에 담아 보낸다.
+     */
+    public Map<String, Long> snapshot() {
+        return Map.copyOf(this.versions);
+    }
+}
@@ -0,0 +1,77 @@
+import dev.qf.client.network.OrderIdAllocator;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+public class OrderIdAllocatorTest {
+    @Test
+    public void waitersCompleteWhenBlockArrives() {
+        IntList requests = new IntArrayList();
+        OrderIdAllocator allocator = new OrderIdAllocator(requests::add);
+
+        CompletableFuture<Integer> first = allocator.allocate();
+        CompletableFuture<Integer> second = allocator.allocate();
+        Assertions.assertFalse(first.isDone());
+        // 이미 요청한 구간을 기다리는 동안에는 다시 요청하지 않는다.
+        Assertions.assertEquals(IntList.of(OrderIdAllocator.BLOCK_SIZE), requests);
+
+        allocator.accept(1000, 1000 + OrderIdAllocator.BLOCK_SIZE);
+        Assertions.assertEquals(1000, first.join());
+        Assertions.assertEquals(1001, second.join());
+        Assertions.assertEquals(1002, allocator.allocate().join());
+    }
+
+    @Test
+    public void timedOutWaiterDoesNotConsumeId() {
+        OrderIdAllocator allocator = new OrderIdAllocator(size -> {});
+        CompletableFuture<Integer> expired = allocator.allocate();
+        expired.completeExceptionally(new TimeoutException());
+        CompletableFuture<Integer> waiting = allocator.allocate();
+
+        allocator.accept(1000, 1000 + OrderIdAllocator.BLOCK_SIZE);
+        Assertions.assertEquals(1000, waiting.join());
+        Assertions.assertEquals(OrderIdAllocator.BLOCK_SIZE - 1, allocator.remaining());
+    }
+
+    @Test
+    public void emptyLeaseAllowsRetry() {
+        IntList requests = new IntArrayList();
+        OrderIdAllocator allocator = new OrderIdAllocator(requests::add);
+        CompletableFuture<Integer> waiter = allocator.allocate();
+
+        // 서버가 구간을 기록하지 못하면 빈 구간을 보낸다.
+        allocator.accept(0, 0);
+        Assertions.assertFalse(waiter.isDone());
+        Assertions.assertEquals(1, requests.size());
+        // 곧바로 다시 요청하지 않고 다음 발급 때 요청한다.
+        allocator.allocate();
+        Assertions.assertEquals(2, requests.size());
+    }
+
+    @Test
+    public void requestsNextBlockBeforeRunningOut() {
+        IntList requests = new IntArrayList();
+        OrderIdAllocator allocator = new OrderIdAllocator(requests::add);
+        allocator.onConnected();
+        allocator.accept(1000, 1000 + OrderIdAllocator.BLOCK_SIZE);
+        Assertions.assertEquals(1, requests.size());
+
+        for (int i = 0; i <= OrderIdAllocator.BLOCK_SIZE - OrderIdAllocator.LOW_WATER_MARK; i++) {
+            allocator.allocate().join();
+        }
+        Assertions.assertEquals(2, requests.size());
+        allocator.accept(5000, 5000 + OrderIdAllocator.BLOCK_SIZE);
+
+        // 현재 구간을 다 쓰면 보관한 구간으로 넘어간다.
+        int last = 0;
+        for (int i = 1; i < OrderIdAllocator.LOW_WATER_MARK; i++) {
+            last = allocator.allocate().join();
+        }
+        Assertions.assertEquals(1000 + OrderIdAllocator.BLOCK_SIZE - 1, last);
+        Assertions.assertEquals(5000, allocator.allocate().join());
+    }
+}
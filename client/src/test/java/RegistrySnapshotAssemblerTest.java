@@ -0,0 +1,59 @@
+import common.Option;
+import common.network.SynchronizeData;
+import common.network.packet.UpdateDataPacket;
+import common.network.packet.UpdateDataPacket.ResponseDataChunkS2CPacket;
+import dev.qf.client.network.RegistrySnapshotAssembler;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class RegistrySnapshotAssemblerTest {
+    private static List<ResponseDataChunkS2CPacket> createChunks(int count) {
+        List<Option> options = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            options.add(new Option("opt_" + i, "샷 추가 " + i, i * 100));
+        }
+        return UpdateDataPacket.splitSnapshot("options", 1, options);
+    }
+
+    @Test
+    public void assemblesChunksInOrder() {
+        List<ResponseDataChunkS2CPacket> chunks = createChunks(3000);
+        Assertions.assertTrue(chunks.size() > 1);
+
+        RegistrySnapshotAssembler assembler = new RegistrySnapshotAssembler();
+        List<SynchronizeData<?>> assembled = null;
+        for (ResponseDataChunkS2CPacket chunk : chunks) {
+            Assertions.assertNull(assembled);
+            assembled = assembler.accept(chunk);
+        }
+        Assertions.assertNotNull(assembled);
+        Assertions.assertEquals(3000, assembled.size());
+        Assertions.assertEquals("opt_2999", assembled.getLast().getRegistryElementId());
+    }
+
+    @Test
+    public void outOfOrderChunkDiscardsTransfer() {
+        List<ResponseDataChunkS2CPacket> chunks = createChunks(3000);
+        RegistrySnapshotAssembler assembler = new RegistrySnapshotAssembler();
+        assembler.accept(chunks.getFirst());
+        Assertions.assertThrows(IllegalStateException.class, () -> assembler.accept(chunks.get(2)));
+        // 버려졌으므로 이어지는 청크도 받지 않는다.
+        Assertions.assertThrows(IllegalStateException.class, () -> assembler.accept(chunks.get(1)));
+    }
+
+    @Test
+    public void newTransferRestartsAssembly() {
+        List<ResponseDataChunkS2CPacket> first = createChunks(3000);
+        List<ResponseDataChunkS2CPacket> second = createChunks(10);
+        RegistrySnapshotAssembler assembler = new RegistrySnapshotAssembler();
+        assembler.accept(first.getFirst());
+
+        List<SynchronizeData<?>> assembled = assembler.accept(second.getFirst());
+        Assertions.assertNotNull(assembled);
+        Assertions.assertEquals(10, assembled.size());
+        Assertions.assertThrows(IllegalStateException.class, () -> assembler.accept(first.get(1)));
+    }
+}
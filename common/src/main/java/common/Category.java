@@ -5,20 +5,64 @@ import com.mojang.serialization.codecs.RecordCodecBuilder;
 import common.network.SynchronizeData;
 import common.registry.RegistryManager;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
+import java.util.Optional;
 
 
-public record Category(String cateId, String cateName, List<Menu> menus) implements SynchronizeData<Category> {
+/**
+ * 카테고리는 메뉴를 직접 담지 않고 메뉴 ID만 가진다. 메뉴는 {@link #menus()}를 호출할 때 {@link RegistryManager#MENUS}에서 찾으므로,
+ * 메뉴가 바뀌어도 카테고리는 바뀌지 않는다.
+ * @param menuIds 카테고리에 속한 메뉴 ID. 직렬화 형식은 이전과 같은 메뉴 ID 목록이다.
+ */
+public record Category(String cateId, String cateName, List<String> menuIds) implements SynchronizeData<Category> {
     public static final Codec<Category> SYNC_CODEC = Codec.lazyInitialized(() -> RecordCodecBuilder.create(instance -> instance.group(
                     Codec.STRING.fieldOf("cateId").forGetter(Category::cateId),
                     Codec.STRING.fieldOf("cateName").forGetter(Category::cateName),
-                    Menu.CODEC.listOf().fieldOf("categories").forGetter(Category::menus)
+                    Codec.STRING.listOf().fieldOf("categories").forGetter(Category::menuIds)
             ).apply(instance, Category::new)
     ));
 
     public static final Category UNKNOWN = new Category("unknown", "Unknown", List.of());
 
+    public Category {
+        menuIds = List.copyOf(menuIds);
+    }
+
+    public static Category of(String cateId, String cateName, List<Menu> menus) {
+        return new Category(cateId, cateName, menus.stream().map(Menu::id).toList());
+    }
+
+    /**
+     * 메뉴 ID를 현재 {@link RegistryManager#MENUS}에서 찾아 반환한다. 레지스트리에 없는 메뉴는 제외된다.
+     * @return 호출 시점의 메뉴들
+     */
+    public List<Menu> menus() {
+        return this.menuIds.stream()
+                .map(RegistryManager.MENUS::getById)
+                .flatMap(Optional::stream)
+                .toList();
+    }
+
+    public boolean containsMenu(String menuId) {
+        return this.menuIds.contains(menuId);
+    }
+
+    public Category withMenu(String menuId) {
+        if (this.containsMenu(menuId)) {
+            return this;
+        }
+        List<String> menuIds = new ArrayList<>(this.menuIds);
+        menuIds.add(menuId);
+        return new Category(this.cateId, this.cateName, menuIds);
+    }
+
+    public Category withoutMenu(String menuId) {
+        List<String> menuIds = new ArrayList<>(this.menuIds);
+        menuIds.remove(menuId);
+        return new Category(this.cateId, this.cateName, menuIds);
+    }
+
     @Override
     public Codec<Category> getSyncCodec() {
         return SYNC_CODEC;
@@ -30,13 +74,10 @@ public record Category(String cateId, String cateName, List<Menu> menus) impleme
     }
 
     public static Category getMenuById(String menuId) {
-        Menu menu = RegistryManager.MENUS.getById(menuId).orElseThrow(() -> new IllegalArgumentException("Menu not found"));
-        for (var category : RegistryManager.CATEGORIES) {
-            if (category.menus.contains(menu)) {
-                return category;
-            }
+        if (RegistryManager.MENUS.getById(menuId).isEmpty()) {
+            throw new IllegalArgumentException("Menu not found");
         }
-
-        return null;
+        List<Category> categories = RegistryManager.CATEGORIES.getCategoriesOf(menuId);
+        return categories.isEmpty() ? null : categories.getFirst();
     }
 }
@@ -0,0 +1,240 @@
+package common;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import common.registry.RegistryManager;
+import common.util.SymbolTable;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 저장용으로 압축한 {@link Order}. 메뉴, 옵션 그룹, 옵션은 {@link SymbolTable}의 번호로, 가격은 주문 당시의 값으로 기록하여
+ * 주문마다 {@link Menu}와 그 문자열, {@link Path}를 복사해 두지 않는다. <br>
+ * 주문자는 메뉴와 달리 끝없이 늘어날 수 있으므로 번호를 부여하지 않고, 약한 참조로 중복만 제거하여 더 이상 주문이 없는 주문자는 회수되도록 한다. <br>
+ * 장바구니는 하나의 int 배열에 담긴다. 항목마다 <code>[메뉴, 메뉴 가격, 수량, 옵션 수]</code> 다음에
+ * 옵션마다 <code>[옵션 그룹, 옵션, 추가 금액]</code>이 이어진다. <br>
+ * {@link #toOrder()}는 현재 레지스트리의 메뉴와 옵션을 재사용하여 주문을 복원한다. 가격이 바뀌었거나 삭제된 메뉴는 주문 당시의 가격으로 새로 만든다.
+ */
+public final class CompactOrder {
+    private static final SymbolTable SYMBOLS = new SymbolTable();
+    private static final Interner<String> CUSTOMERS = Interners.newWeakInterner();
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+    private static final int ITEM_HEADER = 4;
+    private static final int OPTION_SIZE = 3;
+
+    private final int orderId;
+    private final String customer;
+    private final long epochSecond;
+    private final int nano;
+    private final byte status;
+    private final int[] items;
+
+    private CompactOrder(int orderId, String customer, long epochSecond, int nano, byte status, int[] items) {
+        this.orderId = orderId;
+        this.customer = customer;
+        this.epochSecond = epochSecond;
+        this.nano = nano;
+        this.status = status;
+        this.items = items;
+    }
+
+    public static CompactOrder of(Order order) {
+        IntArrayList items = new IntArrayList();
+        for (OrderItem item : order.cart().getItems()) {
+            Menu menu = item.getMenuItem();
+            items.add(SYMBOLS.intern(menu.id()));
+            items.add(menu.price());
+            items.add(item.getQuantity());
+            items.add(item.getSelectedOptions().size());
+            // Map 의 순회 순서는 정해져 있지 않으므로 그룹 ID 순으로 기록하여 같은 주문은 같은 배열이 되도록 한다.
+            item.getSelectedOptions().entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey(Comparator.comparing(OptionGroup::id)))
+                    .forEach(entry -> {
+                        items.add(SYMBOLS.intern(entry.getKey().id()));
+                        items.add(SYMBOLS.intern(entry.getValue().id()));
+                        items.add(entry.getValue().extraCost());
+                    });
+        }
+        LocalDateTime time = order.orderTime();
+        return new CompactOrder(
+                order.orderId(),
+                CUSTOMERS.intern(order.customer()),
+                time.toEpochSecond(ZoneOffset.UTC),
+                time.getNano(),
+                (byte) order.status().ordinal(),
+                items.toIntArray()
+        );
+    }
+
+    public int orderId() {
+        return this.orderId;
+    }
+
+    public String customer() {
+        return this.customer;
+    }
+
+    public OrderStatus status() {
+        return STATUSES[this.status];
+    }
+
+    public LocalDateTime orderTime() {
+        return LocalDateTime.ofEpochSecond(this.epochSecond, this.nano, ZoneOffset.UTC);
+    }
+
+    public long epochSecond() {
+        return this.epochSecond;
+    }
+
+    public int nano() {
+        return this.nano;
+    }
+
+    /**
+     * @return 상태만 바꾼 주문. 장바구니 배열은 공유한다.
+     */
+    public CompactOrder withStatus(OrderStatus status) {
+        return new CompactOrder(this.orderId, this.customer, this.epochSecond, this.nano, (byte) status.ordinal(), this.items);
+    }
+
+    /**
+     * @return 주문 당시 가격으로 계산한 총액. 주문을 복원하지 않는다.
+     */
+    public int totalPrice() {
+        int total = 0;
+        int i = 0;
+        while (i < this.items.length) {
+            int unitPrice = this.items[i + 1];
+            int optionCount = this.items[i + 3];
+            for (int j = 0; j < optionCount; j++) {
+                unitPrice += this.items[i + ITEM_HEADER + j * OPTION_SIZE + 2];
+            }
+            total += unitPrice * this.items[i + 2];
+            i += ITEM_HEADER + optionCount * OPTION_SIZE;
+        }
+        return total;
+    }
+
+    /**
+     * 화면 표시 등을 위해 전체 주문 객체를 만든다. 호출할 때마다 새 {@link Cart}와 {@link OrderItem}이 만들어진다.
+     */
+    public Order toOrder() {
+        List<OrderItem> orderItems = new ArrayList<>();
+        int i = 0;
+        while (i < this.items.length) {
+            Menu menu = resolveMenu(SYMBOLS.get(this.items[i]), this.items[i + 1]);
+            int quantity = this.items[i + 2];
+            int optionCount = this.items[i + 3];
+            Map<OptionGroup, Option> options = new LinkedHashMap<>(optionCount * 2);
+            for (int j = 0; j < optionCount; j++) {
+                int offset = i + ITEM_HEADER + j * OPTION_SIZE;
+                options.put(resolveGroup(SYMBOLS.get(this.items[offset])), resolveOption(SYMBOLS.get(this.items[offset + 1]), this.items[offset + 2]));
+            }
+            orderItems.add(new OrderItem(menu, options, quantity));
+            i += ITEM_HEADER + optionCount * OPTION_SIZE;
+        }
+        return new Order(this.orderId, this.customer(), this.orderTime(), this.status(), new Cart(orderItems));
+    }
+
+    /**
+     * 주문을 압축하지 않고 내용이 같은지 확인한다. {@link #of(Order)}와 달리 배열이나 번호를 새로 만들지 않는다.
+     */
+    public boolean matches(Order order) {
+        if (this.orderId != order.orderId() || this.status != order.status().ordinal() || !this.customer.equals(order.customer())) {
+            return false;
+        }
+        LocalDateTime time = order.orderTime();
+        if (this.nano != time.getNano() || this.epochSecond != time.toEpochSecond(ZoneOffset.UTC)) {
+            return false;
+        }
+        int i = 0;
+        for (OrderItem item : order.cart().getItems()) {
+            if (i >= this.items.length) {
+                return false;
+            }
+            Menu menu = item.getMenuItem();
+            int optionCount = this.items[i + 3];
+            if (!SYMBOLS.get(this.items[i]).equals(menu.id())
+                    || this.items[i + 1] != menu.price()
+                    || this.items[i + 2] != item.getQuantity()
+                    || optionCount != item.getSelectedOptions().size()) {
+                return false;
+            }
+            for (Map.Entry<OptionGroup, Option> entry : item.getSelectedOptions().entrySet()) {
+                if (!this.hasOption(i, optionCount, entry.getKey().id(), entry.getValue())) {
+                    return false;
+                }
+            }
+            i += ITEM_HEADER + optionCount * OPTION_SIZE;
+        }
+        return i == this.items.length;
+    }
+
+    private boolean hasOption(int item, int optionCount, String groupId, Option option) {
+        for (int j = 0; j < optionCount; j++) {
+            int offset = item + ITEM_HEADER + j * OPTION_SIZE;
+            if (SYMBOLS.get(this.items[offset]).equals(groupId)) {
+                return SYMBOLS.get(this.items[offset + 1]).equals(option.id()) && this.items[offset + 2] == option.extraCost();
+            }
+        }
+        return false;
+    }
+
+    private static Menu resolveMenu(String id, int price) {
+        Optional<Menu> current = RegistryManager.MENUS.getById(id);
+        if (current.isPresent() && current.get().price() == price) {
+            return current.get();
+        }
+        return current
+                .map(menu -> new Menu(id, menu.name(), price, menu.imagePath(), menu.description(), menu.optionGroup(), menu.soldOut()))
+                .orElseGet(() -> new Menu(id, id, price, Path.of(""), "", List.of()));
+    }
+
+    private static OptionGroup resolveGroup(String id) {
+        return RegistryManager.OPTION_GROUPS.getById(id).orElseGet(() -> new OptionGroup(id, id, false, List.of()));
+    }
+
+    private static Option resolveOption(String id, int extraCost) {
+        Optional<Option> current = RegistryManager.OPTIONS.getById(id);
+        if (current.isPresent() && current.get().extraCost() == extraCost) {
+            return current.get();
+        }
+        return new Option(id, current.map(Option::name).orElse(id), extraCost);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CompactOrder other)) return false;
+        return this.orderId == other.orderId
+                && this.customer.equals(other.customer)
+                && this.epochSecond == other.epochSecond
+                && this.nano == other.nano
+                && this.status == other.status
+                && Arrays.equals(this.items, other.items);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Integer.hashCode(this.orderId);
+        result = 31 * result + Long.hashCode(this.epochSecond);
+        result = 31 * result + this.status;
+        return 31 * result + Arrays.hashCode(this.items);
+    }
+
+    @Override
+    public String toString() {
+        return "CompactOrder[orderId=" + this.orderId + ", customer=" + this.customer + ", orderTime=" + this.orderTime()
+                + ", status=" + this.status() + ", items=" + Arrays.toString(this.items) + "]";
+    }
+}
@@ -52,11 +52,7 @@ public class MenuService {
             Optional<Category> categoryOpt = RegistryManager.CATEGORIES.getById(categoryId);
             Category updatedCategory = null;
             if (categoryOpt.isPresent()) {
-                Category oldCategory = categoryOpt.get();
-                List<Menu> updatedMenuList = new ArrayList<>(oldCategory.menus());
-                updatedMenuList.add(newMenu);
-
-                updatedCategory = new Category(oldCategory.cateId(), oldCategory.cateName(), updatedMenuList);
+                updatedCategory = categoryOpt.get().withMenu(menuId);
             }
 
 
@@ -73,13 +69,9 @@ public class MenuService {
                         connection.sendSerializable("server",
                                 new DataAddedC2SPacket(RegistryManager.CATEGORIES.getRegistryId(), updatedCategory));
                         LOGGER.info("Updated category sent to server: {} with {} menus",
-                                updatedCategory.cateName(), updatedCategory.menus().size());
-
-                        // 카테고리의 메뉴 리스트 로깅
-                        for (Menu menu : updatedCategory.menus()) {
-                            LOGGER.debug("  Category '{}' contains menu: {} ({})",
-                                    updatedCategory.cateName(), menu.name(), menu.id());
-                        }
+                                updatedCategory.cateName(), updatedCategory.menuIds().size());
+                        LOGGER.debug("  Category '{}' contains menus: {}",
+                                updatedCategory.cateName(), updatedCategory.menuIds());
                     } else {
                         LOGGER.warn("Could not find updated category '{}' to send to server", categoryId);
                     }
@@ -125,11 +117,10 @@ public class MenuService {
     }
 
     public List<Menu> getMenusByCategory(String categoryId) {
-        Optional<Category> categoryOpt = RegistryManager.CATEGORIES.getById(categoryId);
-        if (categoryOpt.isPresent()) {
-            return new ArrayList<>(categoryOpt.get().menus());
-        }
-        return List.of();
+        // 카테고리와 메뉴를 함께 지우는 트랜잭션의 중간 상태를 보지 않도록 두 레지스트리를 한 시점에서 읽는다.
+        return RegistryManager.readConsistent(() -> RegistryManager.CATEGORIES.getById(categoryId)
+                .<List<Menu>>map(category -> new ArrayList<>(category.menus()))
+                .orElse(List.of()));
     }
 
     public boolean toggleSoldOut(String menuId) {
@@ -147,11 +138,7 @@ public class MenuService {
             LOGGER.info("Toggling soldOut status: {} - {} -> {}",
                     oldMenu.name(), oldMenu.soldOut(), newSoldOutStatus);
 
-            // 카테고리 메뉴 업데이트
-            List<Category> updatedCategories = updateMenuInAllCategories(oldMenu, updatedMenu);
-            LOGGER.debug("Menu updated in all categories");
-
-            //서버에 업데이트 요청
+            //서버에 업데이트 요청. 카테고리는 메뉴 ID만 가지므로 메뉴 하나만 전송하면 된다.
             Connection connection = Container.get(Connection.class);
             if (connection != null && connection.getSide() == SidedPacket.Side.CLIENT) {
                 try {
@@ -159,13 +146,6 @@ public class MenuService {
                             new DataAddedC2SPacket(RegistryManager.MENUS.getRegistryId(), updatedMenu));
                     LOGGER.info("Menu soldOut toggle request sent to server: {} -> {}",
                             oldMenu.name(), newSoldOutStatus);
-
-                    for (Category category : updatedCategories) {
-                        connection.sendSerializable("server",
-                                new DataAddedC2SPacket(RegistryManager.CATEGORIES.getRegistryId(), category));
-                        LOGGER.debug("Updated category '{}' sent to server after menu toggle", category.cateName());
-                    }
-
                 } catch (Exception networkException) {
                     LOGGER.warn("Failed to send toggle request to server, but local toggle completed: {}",
                             networkException.getMessage());
@@ -186,40 +166,4 @@ public class MenuService {
             return false;
         }
     }
-
-    // TODO : find side effect
-    private List<Category> updateMenuInAllCategories(Menu oldMenu, Menu newMenu) {
-        LOGGER.debug("Updating menu {} in all categories", newMenu.name());
-
-        List<Category> updatedCategories = new ArrayList<>();
-        for (Category category : RegistryManager.CATEGORIES.getAll()) {
-            List<Menu> menuList = new ArrayList<>(category.menus());
-            boolean updated = false;
-
-            for (int i = 0; i < menuList.size(); i++) {
-                Menu currentMenu = menuList.get(i);
-                if (currentMenu.id().equals(oldMenu.id())) {
-                    menuList.set(i, newMenu);
-                    updated = true;
-                    LOGGER.debug("Menu {} updated at position {} in category {}",
-                            newMenu.name(), i, category.cateName());
-                    break;
-                }
-            }
-
-            if (updated) {
-                Category updatedCategory = new Category(
-                        category.cateId(),
-                        category.cateName(),
-                        menuList
-                );
-
-                updatedCategories.add(updatedCategory);
-                LOGGER.debug("Category {} updated with new menu data", category.cateName());
-            }
-        }
-
-        LOGGER.info("Menu {} updated in {} categories", newMenu.name(), updatedCategories.size());
-        return updatedCategories;
-    }
 }
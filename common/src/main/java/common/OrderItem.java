@@ -20,7 +20,7 @@ public class OrderItem {
                     Codec.unboundedMap(OptionGroup.CODEC, Option.CODEC).fieldOf("selectedItems").forGetter(OrderItem::getSelectedOptions),
                     Codec.INT.fieldOf("quantity").forGetter(OrderItem::getQuantity)
             ).apply(instance, (menuItem, selectedOptions, quantity) -> {
-                LOGGER.info("DEBUG: OrderItem Codec: Successfully decoded OrderItem for menu: {}, quantity: {}", menuItem.name(), quantity);
+                LOGGER.debug("OrderItem Codec: Successfully decoded OrderItem for menu: {}, quantity: {}", menuItem.name(), quantity);
                 return new OrderItem(menuItem, selectedOptions, quantity);
             })
     );
@@ -11,6 +11,13 @@ public enum OrderStatus implements StringIdentifiable {
 
     public static Codec<OrderStatus> CODEC = StringIdentifiable.createCodec(OrderStatus::values);
 
+    /**
+     * @return 더 이상 상태가 바뀌지 않는 주문이라면 true. 오래된 완료 주문은 보관 대상이 된다.
+     */
+    public boolean isTerminal() {
+        return this == ACCEPTED || this == CANCELED;
+    }
+
     @Override
     public String asString() {
         return this.name().toLowerCase();
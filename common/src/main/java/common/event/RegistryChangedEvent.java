@@ -0,0 +1,26 @@
+package common.event;
+
+import common.network.SynchronizeData;
+import common.registry.Registry;
+import common.registry.RegistryEntryChange;
+
+import java.util.List;
+
+/**
+ * 레지스트리의 요소가 추가, 교체, 제거되었을 때 호출된다. 레지스트리마다 별도의 이벤트를 가지며 {@link Registry#getChangeEvent()}로 구독한다. <br>
+ * 한 번의 쓰기(배치 포함)에서 생긴 변경이 한꺼번에 전달된다. 쓰기를 수행한 스레드에서 락을 놓은 뒤 호출되므로,
+ * Swing 컴포넌트를 갱신하려면 {@link javax.swing.SwingUtilities#invokeLater(Runnable)}를 사용해야 한다.
+ */
+@FunctionalInterface
+public interface RegistryChangedEvent<T extends SynchronizeData<?>> {
+    @SuppressWarnings("unchecked")
+    static <T extends SynchronizeData<?>> Event<RegistryChangedEvent<T>> create() {
+        return EventFactory.createArrayBacked((Class<RegistryChangedEvent<T>>) (Class<?>) RegistryChangedEvent.class, listeners -> (registry, changes) -> {
+            for (RegistryChangedEvent<T> listener : listeners) {
+                listener.onChanged(registry, changes);
+            }
+        });
+    }
+
+    void onChanged(Registry<T> registry, List<RegistryEntryChange<T>> changes);
+}
@@ -58,13 +58,18 @@ public class SerializableManager {
         register("handshake_c2s_info", HandShakeC2SInfo.CODEC);
         register("request_data_c2s_packet", UpdateDataPacket.RequestDataC2SPacket.CODEC);
         register("response_data_s2c_packet", UpdateDataPacket.ResponseDataS2CPacket.CODEC);
+        register("response_data_chunk_s2c_packet", UpdateDataPacket.ResponseDataChunkS2CPacket.CODEC);
+        register("registry_delta_s2c_packet", UpdateDataPacket.RegistryDeltaS2CPacket.CODEC);
+        register("registry_transaction_s2c_packet", UpdateDataPacket.RegistryTransactionS2CPacket.CODEC);
+        register("registry_unchanged_s2c_packet", UpdateDataPacket.RegistryUnchangedS2CPacket.CODEC);
         register("hello_s2c_packet", HelloS2CPacket.CODEC);
         register("key_c2s_packet", KeyC2SPacket.CODEC);
         register("encrypt_complete_s2c", EncryptCompleteS2CPacket.CODEC);
         register("data_added_s2c_packet", DataAddedC2SPacket.CODEC);
         register("data_deleted_c2s_packet", DataDeletedC2SPacket.CODEC);
         register("verify_purchase_c2s", VerifyPurchasePackets.VerifyPurchasePacketC2S.CODEC);
-        register("order_updated_s2c", OrderUpdatedS2CPacket.CODEC);
         register("order_status_changed_c2s", OrderStatusChangedC2SPacket.CODEC);
+        register("request_order_ids_c2s", OrderIdLeasePackets.RequestOrderIdsC2SPacket.CODEC);
+        register("order_ids_leased_s2c", OrderIdLeasePackets.OrderIdsLeasedS2CPacket.CODEC);
     }
 }
@@ -0,0 +1,311 @@
+package common.network.encoding;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.handler.codec.DecoderException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link BinaryOps}가 다루는 값의 트리 구조다. 마인크래프트의 NBT 와 비슷하게 각 값은 1바이트 타입 태그를 가지며,
+ * 정수/길이는 {@link VariableInts}로 기록된다. <br>
+ * Json 과 달리 문자열로 변환하는 과정 없이 {@link ByteBuf}에 바로 쓰고 읽는다.
+ */
+public sealed interface BinaryElement {
+    byte EMPTY_TYPE = 0;
+    byte BYTE_TYPE = 1;
+    byte SHORT_TYPE = 2;
+    byte INT_TYPE = 3;
+    byte LONG_TYPE = 4;
+    byte FLOAT_TYPE = 5;
+    byte DOUBLE_TYPE = 6;
+    byte STRING_TYPE = 7;
+    byte BYTES_TYPE = 8;
+    byte LIST_TYPE = 9;
+    byte MAP_TYPE = 10;
+
+    /**
+     * 악의적인 패킷이 스택을 터뜨리지 못하도록 중첩 깊이를 제한한다.
+     */
+    int MAX_DEPTH = 512;
+
+    byte getType();
+
+    /**
+     * 타입 태그를 제외한 본문을 기록한다.
+     */
+    void writeBody(ByteBuf buf);
+
+    default void write(ByteBuf buf) {
+        buf.writeByte(this.getType());
+        this.writeBody(buf);
+    }
+
+    static BinaryElement read(ByteBuf buf) {
+        return read(buf, 0);
+    }
+
+    private static BinaryElement read(ByteBuf buf, int depth) {
+        if (depth > MAX_DEPTH) {
+            throw new DecoderException("Binary element is nested too deep (> " + MAX_DEPTH + ")");
+        }
+        byte type = buf.readByte();
+        return switch (type) {
+            case EMPTY_TYPE -> Empty.INSTANCE;
+            case BYTE_TYPE -> new ByteValue(buf.readByte());
+            case SHORT_TYPE -> new ShortValue(buf.readShort());
+            case INT_TYPE -> new IntValue(VariableInts.read(buf));
+            case LONG_TYPE -> new LongValue(buf.readLong());
+            case FLOAT_TYPE -> new FloatValue(buf.readFloat());
+            case DOUBLE_TYPE -> new DoubleValue(buf.readDouble());
+            case STRING_TYPE -> new StringValue(readString(buf));
+            case BYTES_TYPE -> {
+                byte[] bytes = new byte[readLength(buf, 1)];
+                buf.readBytes(bytes);
+                yield new Bytes(bytes);
+            }
+            case LIST_TYPE -> {
+                int size = readLength(buf, 1);
+                List<BinaryElement> values = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    values.add(read(buf, depth + 1));
+                }
+                yield new ListValue(Collections.unmodifiableList(values));
+            }
+            case MAP_TYPE -> {
+                int size = readLength(buf, 2);
+                Map<BinaryElement, BinaryElement> entries = new LinkedHashMap<>(size * 2);
+                for (int i = 0; i < size; i++) {
+                    BinaryElement key = read(buf, depth + 1);
+                    entries.put(key, read(buf, depth + 1));
+                }
+                yield new MapValue(Collections.unmodifiableMap(entries));
+            }
+            default -> throw new DecoderException("Unknown binary element type : " + type);
+        };
+    }
+
+    /**
+     * 길이를 읽고, 남은 버퍼보다 큰 길이가 들어온 경우 할당 전에 거절한다.
+     * @param minBytesPerEntry 각 원소가 최소 몇 바이트를 차지하는지
+     */
+    private static int readLength(ByteBuf buf, int minBytesPerEntry) {
+        int length = VariableInts.read(buf);
+        if (length < 0 || (long) length * minBytesPerEntry > buf.readableBytes()) {
+            throw new DecoderException("Invalid binary element length : " + length + ", readable " + buf.readableBytes());
+        }
+        return length;
+    }
+
+    private static String readString(ByteBuf buf) {
+        int length = readLength(buf, 1);
+        String string = buf.toString(buf.readerIndex(), length, StandardCharsets.UTF_8);
+        buf.skipBytes(length);
+        return string;
+    }
+
+    private static void writeString(ByteBuf buf, String string) {
+        VariableInts.write(buf, ByteBufUtil.utf8Bytes(string));
+        ByteBufUtil.writeUtf8(buf, string);
+    }
+
+    sealed interface NumberElement extends BinaryElement {
+        Number asNumber();
+    }
+
+    record Empty() implements BinaryElement {
+        public static final Empty INSTANCE = new Empty();
+
+        @Override
+        public byte getType() {
+            return EMPTY_TYPE;
+        }
+
+        @Override
+        public void writeBody(ByteBuf buf) {
+            // NOP
+        }
+    }
+
+    record ByteValue(byte value) implements NumberElement {
+        @Override
+        public byte getType() {
+            return BYTE_TYPE;
+        }
+
+        @Override
+        public void writeBody(ByteBuf buf) {
+            buf.writeByte(this.value);
+        }
+
+        @Override
+        public Number asNumber() {
+            return this.value;
+        }
+    }
+
+    record ShortValue(short value) implements NumberElement {
+        @Override
+        public byte getType() {
+            return SHORT_TYPE;
+        }
+
+        @Override
+        public void writeBody(ByteBuf buf) {
+            buf.writeShort(this.value);
+        }
+
+        @Override
+        public Number asNumber() {
+            return this.value;
+        }
+    }
+
+    record IntValue(int value) implements NumberElement {
+        @Override
+        public byte getType() {
+            return INT_TYPE;
+        }
+
+        @Override
+        public void writeBody(ByteBuf buf) {
+            VariableInts.write(buf, this.value);
+        }
+
+        @Override
+        public Number asNumber() {
+            return this.value;
+        }
+    }
+
+    record LongValue(long value) implements NumberElement {
+        @Override
+        public byte getType() {
+            return LONG_TYPE;
+        }
+
+        @Override
+        public void writeBody(ByteBuf buf) {
+            buf.writeLong(this.value);
+        }
+
+        @Override
+        public Number asNumber() {
+            return this.value;
+        }
+    }
+
+    record FloatValue(float value) implements NumberElement {
+        @Override
+        public byte getType() {
+            return FLOAT_TYPE;
+        }
+
+        @Override
+        public void writeBody(ByteBuf buf) {
+            buf.writeFloat(this.value);
+        }
+
+        @Override
+        public Number asNumber() {
+            return this.value;
+        }
+    }
+
+    record DoubleValue(double value) implements NumberElement {
+        @Override
+        public byte getType() {
+            return DOUBLE_TYPE;
+        }
+
+        @Override
+        public void writeBody(ByteBuf buf) {
+            buf.writeDouble(this.value);
+        }
+
+        @Override
+        public Number asNumber() {
+            return this.value;
+        }
+    }
+
+    record StringValue(String value) implements BinaryElement {
+        @Override
+        public byte getType() {
+            return STRING_TYPE;
+        }
+
+        @Override
+        public void writeBody(ByteBuf buf) {
+            writeString(buf, this.value);
+        }
+    }
+
+    /**
+     * 박싱 없이 그대로 기록되는 byte array.
+     */
+    record Bytes(byte[] value) implements BinaryElement {
+        @Override
+        public byte getType() {
+            return BYTES_TYPE;
+        }
+
+        @Override
+        public void writeBody(ByteBuf buf) {
+            VariableInts.write(buf, this.value.length);
+            buf.writeBytes(this.value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Bytes bytes && Arrays.equals(this.value, bytes.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(this.value);
+        }
+
+        @Override
+        public String toString() {
+            return "Bytes[" + this.value.length + "]";
+        }
+    }
+
+    record ListValue(List<BinaryElement> values) implements BinaryElement {
+        @Override
+        public byte getType() {
+            return LIST_TYPE;
+        }
+
+        @Override
+        public void writeBody(ByteBuf buf) {
+            VariableInts.write(buf, this.values.size());
+            for (BinaryElement value : this.values) {
+                value.write(buf);
+            }
+        }
+    }
+
+    record MapValue(Map<BinaryElement, BinaryElement> entries) implements BinaryElement {
+        @Override
+        public byte getType() {
+            return MAP_TYPE;
+        }
+
+        @Override
+        public void writeBody(ByteBuf buf) {
+            VariableInts.write(buf, this.entries.size());
+            this.entries.forEach((key, value) -> {
+                key.write(buf);
+                value.write(buf);
+            });
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package common.network.encoding;
+
+import com.mojang.datafixers.util.Pair;
+import com.mojang.serialization.DataResult;
+import com.mojang.serialization.DynamicOps;
+import common.network.encoding.BinaryElement.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * {@link BinaryElement}를 위한 {@link DynamicOps} 구현체다. {@link com.mojang.serialization.JsonOps} 대신 사용하면
+ * 기존의 모든 {@link com.mojang.serialization.Codec}을 그대로 사용하면서 Json 문자열을 거치지 않고 바이너리로 직렬화 할 수 있다. <br>
+ * byte array 는 {@link #createByteList(ByteBuffer)}를 통해 {@link BinaryElement.Bytes}로 그대로 기록된다.
+ * @see PacketFormat#BINARY
+ */
+public class BinaryOps implements DynamicOps<BinaryElement> {
+    public static final BinaryOps INSTANCE = new BinaryOps();
+
+    protected BinaryOps() {
+    }
+
+    @Override
+    public BinaryElement empty() {
+        return Empty.INSTANCE;
+    }
+
+    @Override
+    public <U> U convertTo(DynamicOps<U> outOps, BinaryElement input) {
+        return switch (input) {
+            case Empty ignored -> outOps.empty();
+            case ByteValue value -> outOps.createByte(value.value());
+            case ShortValue value -> outOps.createShort(value.value());
+            case IntValue value -> outOps.createInt(value.value());
+            case LongValue value -> outOps.createLong(value.value());
+            case FloatValue value -> outOps.createFloat(value.value());
+            case DoubleValue value -> outOps.createDouble(value.value());
+            case StringValue value -> outOps.createString(value.value());
+            case Bytes value -> outOps.createByteList(ByteBuffer.wrap(value.value()));
+            case ListValue ignored -> this.convertList(outOps, input);
+            case MapValue ignored -> this.convertMap(outOps, input);
+        };
+    }
+
+    @Override
+    public DataResult<Number> getNumberValue(BinaryElement input) {
+        if (input instanceof NumberElement number) {
+            return DataResult.success(number.asNumber());
+        }
+        return DataResult.error(() -> "Not a number: " + input);
+    }
+
+    @Override
+    public BinaryElement createNumeric(Number i) {
+        return switch (i) {
+            case Byte value -> new ByteValue(value);
+            case Short value -> new ShortValue(value);
+            case Integer value -> new IntValue(value);
+            case Long value -> new LongValue(value);
+            case Float value -> new FloatValue(value);
+            default -> new DoubleValue(i.doubleValue());
+        };
+    }
+
+    @Override
+    public BinaryElement createByte(byte value) {
+        return new ByteValue(value);
+    }
+
+    @Override
+    public BinaryElement createShort(short value) {
+        return new ShortValue(value);
+    }
+
+    @Override
+    public BinaryElement createInt(int value) {
+        return new IntValue(value);
+    }
+
+    @Override
+    public BinaryElement createLong(long value) {
+        return new LongValue(value);
+    }
+
+    @Override
+    public BinaryElement createFloat(float value) {
+        return new FloatValue(value);
+    }
+
+    @Override
+    public BinaryElement createDouble(double value) {
+        return new DoubleValue(value);
+    }
+
+    @Override
+    public DataResult<String> getStringValue(BinaryElement input) {
+        if (input instanceof StringValue string) {
+            return DataResult.success(string.value());
+        }
+        return DataResult.error(() -> "Not a string: " + input);
+    }
+
+    @Override
+    public BinaryElement createString(String value) {
+        return new StringValue(value);
+    }
+
+    @Override
+    public DataResult<BinaryElement> mergeToList(BinaryElement list, BinaryElement value) {
+        return this.mergeToList(list, List.of(value));
+    }
+
+    @Override
+    public DataResult<BinaryElement> mergeToList(BinaryElement list, List<BinaryElement> values) {
+        if (list instanceof Empty) {
+            return DataResult.success(new ListValue(List.copyOf(values)));
+        }
+        if (list instanceof ListValue(List<BinaryElement> existing)) {
+            List<BinaryElement> merged = new ArrayList<>(existing.size() + values.size());
+            merged.addAll(existing);
+            merged.addAll(values);
+            return DataResult.success(new ListValue(Collections.unmodifiableList(merged)));
+        }
+        return DataResult.error(() -> "mergeToList called with not a list: " + list, list);
+    }
+
+    @Override
+    public DataResult<BinaryElement> mergeToMap(BinaryElement map, BinaryElement key, BinaryElement value) {
+        return this.mergeToMap(map, Map.of(key, value));
+    }
+
+    @Override
+    public DataResult<BinaryElement> mergeToMap(BinaryElement map, Map<BinaryElement, BinaryElement> values) {
+        if (map instanceof Empty) {
+            return DataResult.success(new MapValue(Collections.unmodifiableMap(new LinkedHashMap<>(values))));
+        }
+        if (map instanceof MapValue(Map<BinaryElement, BinaryElement> existing)) {
+            Map<BinaryElement, BinaryElement> merged = new LinkedHashMap<>(existing);
+            merged.putAll(values);
+            return DataResult.success(new MapValue(Collections.unmodifiableMap(merged)));
+        }
+        return DataResult.error(() -> "mergeToMap called with not a map: " + map, map);
+    }
+
+    @Override
+    public DataResult<Stream<Pair<BinaryElement, BinaryElement>>> getMapValues(BinaryElement input) {
+        if (input instanceof Empty) {
+            return DataResult.success(Stream.empty());
+        }
+        if (input instanceof MapValue(Map<BinaryElement, BinaryElement> entries)) {
+            return DataResult.success(entries.entrySet().stream().map(entry -> Pair.of(entry.getKey(), entry.getValue())));
+        }
+        return DataResult.error(() -> "Not a map: " + input);
+    }
+
+    @Override
+    public BinaryElement createMap(Stream<Pair<BinaryElement, BinaryElement>> map) {
+        Map<BinaryElement, BinaryElement> entries = new LinkedHashMap<>();
+        map.forEach(pair -> entries.put(pair.getFirst(), pair.getSecond()));
+        return new MapValue(Collections.unmodifiableMap(entries));
+    }
+
+    @Override
+    public DataResult<Stream<BinaryElement>> getStream(BinaryElement input) {
+        return switch (input) {
+            case Empty ignored -> DataResult.success(Stream.empty());
+            case ListValue list -> DataResult.success(list.values().stream());
+            case Bytes bytes -> {
+                byte[] value = bytes.value();
+                yield DataResult.success(Stream.iterate(0, i -> i < value.length, i -> i + 1).map(i -> new ByteValue(value[i])));
+            }
+            default -> DataResult.error(() -> "Not a list: " + input);
+        };
+    }
+
+    @Override
+    public BinaryElement createList(Stream<BinaryElement> input) {
+        return new ListValue(input.collect(Collectors.toUnmodifiableList()));
+    }
+
+    @Override
+    public DataResult<ByteBuffer> getByteBuffer(BinaryElement input) {
+        if (input instanceof Bytes bytes) {
+            return DataResult.success(ByteBuffer.wrap(bytes.value()));
+        }
+        return DynamicOps.super.getByteBuffer(input);
+    }
+
+    @Override
+    public BinaryElement createByteList(ByteBuffer input) {
+        ByteBuffer buffer = input.duplicate();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return new Bytes(bytes);
+    }
+
+    @Override
+    public BinaryElement remove(BinaryElement input, String key) {
+        if (input instanceof MapValue(Map<BinaryElement, BinaryElement> entries)) {
+            Map<BinaryElement, BinaryElement> removed = new LinkedHashMap<>(entries);
+            removed.remove(new StringValue(key));
+            return new MapValue(Collections.unmodifiableMap(removed));
+        }
+        return input;
+    }
+
+    @Override
+    public String toString() {
+        return "Binary";
+    }
+}
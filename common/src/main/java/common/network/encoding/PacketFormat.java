@@ -0,0 +1,47 @@
+package common.network.encoding;
+
+import common.util.StringIdentifiable;
+import io.netty.handler.codec.DecoderException;
+
+/**
+ * 패킷의 본문이 어떤 형식으로 직렬화 되었는지를 나타낸다. 모든 프레임의 첫 바이트는 {@link #getId()} 이며,
+ * 디코더는 이를 보고 알맞은 방식으로 역직렬화 한다. 즉 송신 측만 형식을 고르면 되고, 수신 측은 따로 협상할 필요가 없다.
+ * @see common.network.handler.SerializableEncoder
+ * @see common.network.handler.SerializableDecoder
+ */
+public enum PacketFormat implements StringIdentifiable {
+    /**
+     * 기존의 Json 문자열 형식. 디버깅 시 패킷을 눈으로 확인할 수 있다.
+     */
+    JSON(0),
+    /**
+     * {@link BinaryOps} 를 통해 {@link io.netty.buffer.ByteBuf}에 바로 기록하는 형식.
+     */
+    BINARY(1);
+
+    public static final StringIdentifiable.EnumCodec<PacketFormat> CODEC = StringIdentifiable.createCodec(PacketFormat::values);
+
+    private final int id;
+
+    PacketFormat(int id) {
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public static PacketFormat byId(int id) {
+        for (PacketFormat format : values()) {
+            if (format.id == id) {
+                return format;
+            }
+        }
+        throw new DecoderException("Unknown packet format : " + id);
+    }
+
+    @Override
+    public String asString() {
+        return this.name().toLowerCase();
+    }
+}
@@ -0,0 +1,108 @@
+package common.network.encryption;
+
+import common.util.StringIdentifiable;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import java.security.Key;
+import java.util.List;
+
+/**
+ * 채널 암호화에 사용되는 AES 운용 방식이다. 서버는 {@link common.network.packet.HelloS2CPacket}으로 지원하는 방식을 알리고,
+ * 클라이언트는 그 중 {@link #negotiate(List)}로 하나를 골라 {@link common.network.packet.KeyC2SPacket}으로 서버에 알린다. <br>
+ * 고른 방식은 서버의 공개 키로 암호화된 nonce 에 함께 묶이고, 서버는 암호화가 시작된 뒤 {@link common.network.packet.EncryptCompleteS2CPacket}으로
+ * 자신이 알린 목록을 다시 보내므로, 중간에서 목록이나 고른 방식을 바꾸면 연결이 끊어진다.
+ */
+public enum EncryptionMode implements StringIdentifiable {
+    /**
+     * 기존 방식. 1바이트마다 AES 블록 연산을 한번씩 수행하며 키를 IV 로 사용한다. 프레임이 나뉘기 전의 바이트 스트림을 암호화하며,
+     * 무결성을 보장하지 않으므로 양쪽이 모두 {@link #GCM}을 지원하지 않을 때만 사용된다.
+     */
+    CFB8("aes_cfb8", "AES/CFB8/NoPadding", false),
+    /**
+     * 인증 암호화 방식. 프레임마다 따로 암호화하고 {@link #TAG_LENGTH}바이트의 태그를 붙이므로, 변조되거나 순서가 바뀐 프레임은 복호화에 실패한다. <br>
+     * 프레임의 nonce 는 방향별 세션 IV 의 앞 {@link #NONCE_LENGTH}바이트에 프레임 번호를 XOR 한 값이며 전송되지 않는다.
+     */
+    GCM("aes_gcm", "AES/GCM/NoPadding", true);
+
+    public static final StringIdentifiable.EnumCodec<EncryptionMode> CODEC = StringIdentifiable.createCodec(EncryptionMode::values);
+    /**
+     * 선호 순서. 앞에 있을 수록 우선된다. 서버가 알리는 목록이자 클라이언트가 받아들이는 목록이다.
+     */
+    public static final List<EncryptionMode> PREFERRED = List.of(GCM, CFB8);
+    public static final int IV_LENGTH = 16;
+    public static final int NONCE_LENGTH = 12;
+    public static final int TAG_LENGTH = 16;
+
+    private final String id;
+    private final String transformation;
+    private final boolean framed;
+
+    EncryptionMode(String id, String transformation, boolean framed) {
+        this.id = id;
+        this.transformation = transformation;
+        this.framed = framed;
+    }
+
+    /**
+     * 스트림 방식의 {@link Cipher}를 생성한다. 프레임 방식은 {@link PacketEncryptionManager}가 프레임마다 초기화한다.
+     * @param opMode {@link Cipher#ENCRYPT_MODE} 또는 {@link Cipher#DECRYPT_MODE}
+     * @param key 세션 키
+     * @param iv 세션 IV. {@link #CFB8}은 이를 무시하고 키를 IV 로 사용한다.
+     */
+    public Cipher createCipher(int opMode, Key key, byte[] iv) {
+        if (this.framed) {
+            throw new IllegalStateException("Framed encryption mode " + this.id + " is initialized per frame");
+        }
+        try {
+            Cipher cipher = Cipher.getInstance(this.transformation);
+            cipher.init(opMode, key, new IvParameterSpec(this == CFB8 ? key.getEncoded() : iv));
+            return cipher;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public String getTransformation() {
+        return this.transformation;
+    }
+
+    public boolean requiresIv() {
+        return this != CFB8;
+    }
+
+    /**
+     * @return 프레임이 나뉜 뒤 프레임 단위로 암호화 한다면 true. 이 경우 길이 접두사는 암호화되지 않는다.
+     */
+    public boolean isFramed() {
+        return this.framed;
+    }
+
+    /**
+     * 상대가 지원하는 방식 중 {@link #PREFERRED}에서 가장 선호하는 방식을 고른다.
+     * @param offered 상대가 지원하는 방식
+     * @throws IllegalStateException 겹치는 방식이 없는 경우. 다른 방식으로 대신하지 않는다.
+     */
+    public static EncryptionMode negotiate(List<EncryptionMode> offered) {
+        return negotiate(offered, PREFERRED);
+    }
+
+    /**
+     * @param offered 상대가 지원하는 방식
+     * @param supported 이쪽이 받아들이는 방식. 선호 순서대로 정렬되어 있어야 한다.
+     * @throws IllegalStateException 겹치는 방식이 없는 경우. 다른 방식으로 대신하지 않는다.
+     */
+    public static EncryptionMode negotiate(List<EncryptionMode> offered, List<EncryptionMode> supported) {
+        for (EncryptionMode mode : supported) {
+            if (offered.contains(mode)) {
+                return mode;
+            }
+        }
+        throw new IllegalStateException("No common encryption mode. offered : " + offered + ", supported : " + supported);
+    }
+
+    @Override
+    public String asString() {
+        return this.id;
+    }
+}
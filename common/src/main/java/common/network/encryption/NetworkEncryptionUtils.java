@@ -3,7 +3,6 @@ package common.network.encryption;
 import javax.crypto.Cipher;
 import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
-import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 import java.security.*;
 import java.security.spec.EncodedKeySpec;
@@ -13,6 +12,8 @@ import java.security.spec.X509EncodedKeySpec;
  * 암호화를 위한 유틸리티 클래스다.
  */
 public class NetworkEncryptionUtils {
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
     /**
      * AES 알고리즘을 통해 비밀 키를 생성한다. 이러한 비밀 키는 암호화에 사용된다.
      * @return 비밀 키
@@ -49,13 +50,17 @@ public class NetworkEncryptionUtils {
      * @return 특정 작업에 사용 될 {@link Cipher}
      */
     public static Cipher cipherFromKey(int opMode, Key key) {
-        try {
-            Cipher cipher = Cipher.getInstance("AES/CFB8/NoPadding");
-            cipher.init(opMode, key, new IvParameterSpec(key.getEncoded()));
-            return cipher;
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+        return EncryptionMode.CFB8.createCipher(opMode, key, null);
+    }
+
+    /**
+     * 세션마다 사용할 무작위 IV 를 생성한다.
+     * @return {@link EncryptionMode#IV_LENGTH} 길이의 IV
+     */
+    public static byte[] generateIv() {
+        byte[] iv = new byte[EncryptionMode.IV_LENGTH];
+        SECURE_RANDOM.nextBytes(iv);
+        return iv;
     }
 
     /**
@@ -4,19 +4,22 @@ import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToMessageDecoder;
 
-import javax.crypto.Cipher;
 import java.util.List;
 
 public class PacketDecryptor extends MessageToMessageDecoder<ByteBuf> {
     private final PacketEncryptionManager encryptionManager;
 
-    public PacketDecryptor(Cipher cipher) {
-        this.encryptionManager = new PacketEncryptionManager(cipher);
+    public PacketDecryptor(PacketEncryptionManager encryptionManager) {
+        this.encryptionManager = encryptionManager;
     }
 
 
     @Override
     protected void decode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws Exception {
-        out.add(this.encryptionManager.decrypt(ctx, msg));
+        out.add(this.encryptionManager.decrypt(ctx.alloc(), msg));
+    }
+
+    public PacketEncryptionManager getEncryptionManager() {
+        return encryptionManager;
     }
 }
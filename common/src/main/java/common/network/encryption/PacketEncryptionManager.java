@@ -1,50 +1,211 @@
 package common.network.encryption;
 
 import io.netty.buffer.ByteBuf;
-import io.netty.channel.ChannelHandlerContext;
+import io.netty.buffer.ByteBufAllocator;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
 
 import javax.crypto.Cipher;
-import javax.crypto.ShortBufferException;
+import javax.crypto.spec.GCMParameterSpec;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * {@link PacketEncryptor}, {@link PacketDecryptor}가 공유하는 암/복호화 로직이다. <br>
+ * 입출력 {@link ByteBuf}가 heap 버퍼인 경우 backing array 끼리 바로 Cipher 를 수행하여 중간 복사가 없다. <br>
+ * {@link java.nio.ByteBuffer} 기반의 {@link Cipher#update(java.nio.ByteBuffer, java.nio.ByteBuffer)}는 direct 버퍼를 넘기면
+ * JDK 내부에서 매번 임시 배열을 할당하고, 같은 배열로 in-place 처리를 해도 입력을 복사하므로 사용하지 않는다.
+ * backing array 가 없는 버퍼는 재사용되는 staging 배열을 한번 거친다. 스트림 방식의 복호화는 splitter 앞에서 소켓의 direct 버퍼를
+ * 그대로 받으므로 항상 staging 된다. 프레임 방식은 {@link common.network.handler.SplitterHandler}와
+ * {@link common.network.handler.SerializableEncoder}가 heap 버퍼를 넘기므로 staging 되지 않는다. <br>
+ * 복호화 결과는 매 프레임 allocator 의 heap 버퍼에 정확한 크기로 할당된다. 프레임 방식은 프레임마다 nonce 를 바꿔 Cipher 를 초기화한 뒤
+ * {@link Cipher#doFinal(byte[], int, int, byte[], int)}로 태그까지 처리하며, 이 초기화는 프레임 크기와 무관하게 1KB 남짓을 할당한다. <br>
+ * 통계는 다른 스레드에서 읽을 수 있도록 {@link LongAdder}로 센다.
+ */
+@ApiStatus.Internal
 public class PacketEncryptionManager {
     private final Cipher cipher;
-    private byte[] conversionBuffer = new byte[0];
+    private final int opMode;
+    /**
+     * 프레임 방식에서만 사용된다. 스트림 방식이라면 null 이다.
+     */
+    @Nullable
+    private final Key key;
+    private final byte[] baseNonce;
+    private final byte[] frameNonce;
+    private long sequence;
+    private byte[] stagingBuffer = new byte[0];
     private byte[] encryptionBuffer = new byte[0];
 
-    PacketEncryptionManager(Cipher cipher) {
+    private final LongAdder frames = new LongAdder();
+    private final LongAdder stagedFrames = new LongAdder();
+    private final LongAdder stagedBytes = new LongAdder();
+    private final LongAdder bufferResizes = new LongAdder();
+
+    /**
+     * @param cipher 초기화가 끝난 스트림 방식의 Cipher
+     */
+    public PacketEncryptionManager(Cipher cipher) {
+        this.cipher = cipher;
+        this.opMode = 0;
+        this.key = null;
+        this.baseNonce = new byte[0];
+        this.frameNonce = new byte[0];
+    }
+
+    private PacketEncryptionManager(Cipher cipher, int opMode, Key key, byte[] iv) {
         this.cipher = cipher;
+        this.opMode = opMode;
+        this.key = key;
+        this.baseNonce = Arrays.copyOf(iv, EncryptionMode.NONCE_LENGTH);
+        this.frameNonce = new byte[EncryptionMode.NONCE_LENGTH];
+    }
+
+    /**
+     * 협상된 방식으로 한 방향의 암/복호화를 담당할 객체를 만든다. IV 는 방향마다 달라야 한다.
+     * @param opMode {@link Cipher#ENCRYPT_MODE} 또는 {@link Cipher#DECRYPT_MODE}
+     * @param key 세션 키
+     * @param mode 협상된 방식
+     * @param iv 이 방향의 세션 IV
+     */
+    public static PacketEncryptionManager create(int opMode, Key key, EncryptionMode mode, byte[] iv) {
+        if (!mode.isFramed()) {
+            return new PacketEncryptionManager(mode.createCipher(opMode, key, iv));
+        }
+        if (iv.length < EncryptionMode.NONCE_LENGTH) {
+            throw new IllegalArgumentException("IV is too short for encryption mode " + mode.asString());
+        }
+        try {
+            return new PacketEncryptionManager(Cipher.getInstance(mode.getTransformation()), opMode, key, iv);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 프레임 방식이라면 다음 프레임의 nonce 로 Cipher 를 다시 초기화한다. 양쪽이 같은 순서로 프레임을 세므로 nonce 는 전송하지 않는다.
+     */
+    private void beginFrame() throws GeneralSecurityException {
+        if (this.key == null) {
+            return;
+        }
+        long sequence = this.sequence++;
+        System.arraycopy(this.baseNonce, 0, this.frameNonce, 0, this.baseNonce.length);
+        for (int i = 0; i < Long.BYTES; i++) {
+            this.frameNonce[this.frameNonce.length - 1 - i] ^= (byte) (sequence >>> (8 * i));
+        }
+        this.cipher.init(this.opMode, this.key, new GCMParameterSpec(EncryptionMode.TAG_LENGTH * 8, this.frameNonce));
+    }
+
+    private int process(byte[] input, int inputOffset, int length, byte[] output, int outputOffset) throws GeneralSecurityException {
+        return this.key == null
+                ? this.cipher.update(input, inputOffset, length, output, outputOffset)
+                : this.cipher.doFinal(input, inputOffset, length, output, outputOffset);
     }
 
-    private byte[] toByteArray(ByteBuf buf) {
-        int i = buf.readableBytes();
-        if (i > conversionBuffer.length) {
-            conversionBuffer = new byte[i];
+    /**
+     * backing array 가 없는 버퍼를 staging 배열로 복사한다. 배열은 더 큰 프레임이 들어올 때만 커진다.
+     */
+    private byte[] stage(ByteBuf buf, int length) {
+        if (length > this.stagingBuffer.length) {
+            this.stagingBuffer = new byte[length];
+            this.bufferResizes.increment();
         }
-        buf.readBytes(conversionBuffer, 0, i);
-        return conversionBuffer;
+        buf.readBytes(this.stagingBuffer, 0, length);
+        this.stagedBytes.add(length);
+        return this.stagingBuffer;
     }
 
-    protected ByteBuf decrypt(ChannelHandlerContext ctx, ByteBuf buf) throws ShortBufferException {
-        int i = buf.readableBytes();
-        byte[] bs = this.toByteArray(buf);
-        ByteBuf byteBuf = ctx.alloc().heapBuffer(this.cipher.getOutputSize(i));
-        int bytesWritten = this.cipher.update(bs, 0, i, byteBuf.array(), byteBuf.arrayOffset());
-        if (bytesWritten < 0 || bytesWritten > byteBuf.capacity()) {
-            throw new IllegalStateException("Invalid number of bytes written by cipher.update: " + bytesWritten);
+    public ByteBuf decrypt(ByteBufAllocator allocator, ByteBuf buf) throws GeneralSecurityException {
+        this.beginFrame();
+        int length = buf.readableBytes();
+        ByteBuf result = allocator.heapBuffer(this.cipher.getOutputSize(length));
+        try {
+            this.crypt(buf, length, result);
+        } catch (Throwable e) {
+            result.release();
+            throw e;
         }
-        byteBuf.writerIndex(bytesWritten);
-        return byteBuf;
+        return result;
     }
 
-    protected void encrypt(ByteBuf buf, ByteBuf result) throws ShortBufferException {
-        int byteSize = buf.readableBytes();
-        byte[] bs = this.toByteArray(buf);
-        int outputSize = this.cipher.getOutputSize(byteSize);
+    public void encrypt(ByteBuf buf, ByteBuf result) throws GeneralSecurityException {
+        this.beginFrame();
+        int length = buf.readableBytes();
+        result.ensureWritable(this.cipher.getOutputSize(length));
+        this.crypt(buf, length, result);
+    }
 
+    private void crypt(ByteBuf buf, int length, ByteBuf result) throws GeneralSecurityException {
+        this.frames.increment();
+        byte[] input;
+        int inputOffset;
+        if (buf.hasArray()) {
+            input = buf.array();
+            inputOffset = buf.arrayOffset() + buf.readerIndex();
+            buf.skipBytes(length);
+        } else {
+            input = this.stage(buf, length);
+            inputOffset = 0;
+        }
+
+        if (!buf.hasArray() || !result.hasArray()) {
+            // 입력과 출력이 모두 staging 을 거치더라도 한 프레임으로 센다.
+            this.stagedFrames.increment();
+        }
+        if (!result.hasArray()) {
+            this.cryptStaged(input, inputOffset, length, result);
+            return;
+        }
+
+        int written = this.process(input, inputOffset, length, result.array(), result.arrayOffset() + result.writerIndex());
+        if (written < 0 || written > result.writableBytes()) {
+            throw new IllegalStateException("Invalid number of bytes written by cipher: " + written);
+        }
+        result.writerIndex(result.writerIndex() + written);
+    }
+
+    /**
+     * 출력 버퍼에 backing array 가 없는 경우 encryptionBuffer 에 암호화한 뒤 복사한다.
+     */
+    private void cryptStaged(byte[] input, int inputOffset, int length, ByteBuf result) throws GeneralSecurityException {
+        int outputSize = this.cipher.getOutputSize(length);
         if (this.encryptionBuffer.length < outputSize) {
             this.encryptionBuffer = new byte[outputSize];
+            this.bufferResizes.increment();
         }
+        int written = this.process(input, inputOffset, length, this.encryptionBuffer, 0);
+        result.writeBytes(this.encryptionBuffer, 0, written);
+        this.stagedBytes.add(written);
+    }
+
+    /**
+     * @return 처리한 프레임 수
+     */
+    public long getFrames() {
+        return frames.sum();
+    }
+
+    /**
+     * @return backing array 가 없어 staging 배열을 거친 프레임 수. heap 버퍼만 오가는 경로에서는 0 으로 유지되어야 한다.
+     */
+    public long getStagedFrames() {
+        return stagedFrames.sum();
+    }
+
+    /**
+     * @return staging 배열을 통해 복사된 총 바이트 수
+     */
+    public long getStagedBytes() {
+        return stagedBytes.sum();
+    }
 
-        result.writeBytes(this.encryptionBuffer, 0, this.cipher.update(bs, 0, byteSize, this.encryptionBuffer));
+    /**
+     * @return staging 배열이 새로 할당된 횟수. 정상 상태에서는 가장 큰 프레임을 받은 이후로 더 이상 증가하지 않는다.
+     */
+    public long getBufferResizes() {
+        return bufferResizes.sum();
     }
 }
@@ -4,17 +4,23 @@ import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToByteEncoder;
 
-import javax.crypto.Cipher;
-
+/**
+ * 출력 버퍼로 heap 버퍼를 사용한다. {@link PacketEncryptionManager}가 backing array 에 바로 암호화 할 수 있도록 하기 위함이다.
+ */
 public class PacketEncryptor extends MessageToByteEncoder<ByteBuf> {
     private final PacketEncryptionManager encryptionManager;
 
-    public PacketEncryptor(Cipher cipher) {
-        this.encryptionManager = new PacketEncryptionManager(cipher);
+    public PacketEncryptor(PacketEncryptionManager encryptionManager) {
+        super(false);
+        this.encryptionManager = encryptionManager;
     }
 
     @Override
     protected void encode(ChannelHandlerContext ctx, ByteBuf msg, ByteBuf out) throws Exception {
         this.encryptionManager.encrypt(msg, out);
     }
+
+    public PacketEncryptionManager getEncryptionManager() {
+        return encryptionManager;
+    }
 }
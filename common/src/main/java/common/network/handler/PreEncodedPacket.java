@@ -0,0 +1,64 @@
+package common.network.handler;
+
+import common.network.encoding.PacketFormat;
+import common.network.packet.Serializable;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.util.AbstractReferenceCounted;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 여러 채널로 보낼 패킷을 한번만 인코딩 하기 위한 클래스다. {@link PacketFormat} 별로 처음 요청될 때 한번 인코딩 되고,
+ * 이후에는 같은 버퍼의 {@link ByteBuf#retainedDuplicate()}가 각 채널로 전달된다. <br>
+ * 전달된 버퍼는 {@link SerializableEncoder}를 건너뛰고 {@link SizePrepender}와 암호화만 채널 별로 거친다. <br>
+ * 참조 카운트를 가지므로 다 사용한 뒤에는 반드시 {@link #release()} 해야 한다.
+ * @see SerializableHandler#send(PreEncodedPacket)
+ */
+public final class PreEncodedPacket extends AbstractReferenceCounted {
+    private final Serializable<?> packet;
+    private final Map<PacketFormat, ByteBuf> encoded = new EnumMap<>(PacketFormat.class);
+
+    public PreEncodedPacket(Serializable<?> packet) {
+        this.packet = packet;
+    }
+
+    public Serializable<?> getPacket() {
+        return packet;
+    }
+
+    /**
+     * 주어진 형식으로 인코딩 된 버퍼를 반환한다. 반환된 버퍼는 호출자가 소유하므로 전송 또는 해제해야 한다.
+     * @param format 채널의 송신 형식
+     * @return 공유 버퍼의 retained duplicate
+     */
+    public synchronized ByteBuf retainedBuffer(PacketFormat format) {
+        if (this.refCnt() == 0) {
+            throw new IllegalStateException("PreEncodedPacket is already released");
+        }
+        ByteBuf buf = this.encoded.get(format);
+        if (buf == null) {
+            buf = ByteBufAllocator.DEFAULT.heapBuffer();
+            try {
+                SerializableEncoder.write(this.packet, format, buf);
+            } catch (Throwable e) {
+                buf.release();
+                throw e;
+            }
+            this.encoded.put(format, buf);
+        }
+        return buf.retainedDuplicate();
+    }
+
+    @Override
+    protected synchronized void deallocate() {
+        this.encoded.values().forEach(ByteBuf::release);
+        this.encoded.clear();
+    }
+
+    @Override
+    public PreEncodedPacket touch(Object hint) {
+        return this;
+    }
+}
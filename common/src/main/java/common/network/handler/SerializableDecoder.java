@@ -4,6 +4,9 @@ import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.JsonOps;
+import common.network.encoding.BinaryElement;
+import common.network.encoding.BinaryOps;
+import common.network.encoding.PacketFormat;
 import common.util.KioskLoggerFactory;
 import common.network.packet.Serializable;
 import common.network.SerializableManager;
@@ -20,7 +23,8 @@ import java.util.List;
 
 /**
  * {@link ByteBuf}를 {@link JsonObject}로 변환하고 다시 이를 {@link Serializable}로 변경한다. <br>
- * {@link Serializable} 은 우리가 말하는 패킷으로, 실제 자료가 저장된 패킷을 의미한다.
+ * {@link Serializable} 은 우리가 말하는 패킷으로, 실제 자료가 저장된 패킷을 의미한다. <br>
+ * 프레임의 첫 바이트인 {@link PacketFormat} ID를 보고 Json 과 바이너리 중 알맞은 방식으로 디코딩한다.
  */
 @ApiStatus.Internal
 public class SerializableDecoder extends ByteToMessageDecoder {
@@ -34,6 +38,14 @@ public class SerializableDecoder extends ByteToMessageDecoder {
             return;
         }
 
+        PacketFormat format = PacketFormat.byId(in.readByte());
+        switch (format) {
+            case JSON -> this.decodeJson(in, out, i);
+            case BINARY -> this.decodeBinary(in, out, i);
+        }
+    }
+
+    private void decodeJson(ByteBuf in, List<Object> out, int size) throws IOException {
         String msg;
         try {
             msg = StringEncodings.decode(in, 32767);
@@ -44,6 +56,29 @@ public class SerializableDecoder extends ByteToMessageDecoder {
         JsonObject jsonObject = gson.fromJson(msg, JsonObject.class);
         String type = JsonHelper.getString(jsonObject, Serializable.PACKET_ID_PROPERTY);
 
+        checkFullyRead(in, type);
+        Codec<?> codec = getCodec(type);
+        out.add(codec.decode(JsonOps.INSTANCE, jsonObject.get(Serializable.DATA_PROPERTY)).getOrThrow().getFirst());
+
+        LOGGER.info(SerializableManager.SERIALIZABLE_RECEIVED_MARKER, "IN [{}] (json) -> {} bytes", type, size);
+    }
+
+    private void decodeBinary(ByteBuf in, List<Object> out, int size) throws IOException {
+        String type = StringEncodings.decode(in, SerializableEncoder.MAX_PACKET_ID_LENGTH);
+        BinaryElement element = BinaryElement.read(in);
+
+        checkFullyRead(in, type);
+        Codec<?> codec = getCodec(type);
+        out.add(codec.decode(BinaryOps.INSTANCE, element).getOrThrow().getFirst());
+
+        LOGGER.info(SerializableManager.SERIALIZABLE_RECEIVED_MARKER, "IN [{}] (binary) -> {} bytes", type, size);
+    }
+
+    private static Codec<?> getCodec(String type) {
+        return SerializableManager.getCodec(type).orElseThrow(() -> new IllegalArgumentException("Unknown packet type: " + type));
+    }
+
+    private static void checkFullyRead(ByteBuf in, String type) throws IOException {
         if (in.readableBytes() > 0) {
             throw new IOException(
                     "Packet " +
@@ -52,12 +87,6 @@ public class SerializableDecoder extends ByteToMessageDecoder {
                             in.readableBytes() +
                             " extra bytes while reading the packet."
             );
-        } else {
-            Codec<?> codec = SerializableManager.getCodec(type).orElseThrow(() -> new IllegalArgumentException("Unknown packet type: " + type));
-            out.add(codec.decode(JsonOps.INSTANCE, jsonObject.get(Serializable.DATA_PROPERTY)).getOrThrow().getFirst());
-
-
-            LOGGER.info(SerializableManager.SERIALIZABLE_RECEIVED_MARKER, "IN [{}] -> {} bytes", type, i);
         }
     }
 }
@@ -1,6 +1,9 @@
 package common.network.handler;
 
 import common.network.SerializableManager;
+import common.network.encoding.BinaryElement;
+import common.network.encoding.BinaryOps;
+import common.network.encoding.PacketFormat;
 import common.util.KioskLoggerFactory;
 import common.network.packet.Serializable;
 import common.network.encoding.StringEncodings;
@@ -12,17 +15,59 @@ import org.slf4j.Logger;
 
 /**
  * {@link Serializable}를 {@link com.google.gson.JsonObject}로, 그걸 다시 {@link ByteBuf}로 변환한다. <br>
+ * {@link PacketFormat#BINARY}가 설정된 경우 Json 을 거치지 않고 {@link BinaryOps}로 바로 기록한다. 프레임의 첫 바이트는 항상 형식 ID 이다.
  * @see StringEncodings#encode(ByteBuf, CharSequence, int)
  * @see Serializable#toJson()
  */
 @ApiStatus.Internal
 public class SerializableEncoder extends MessageToByteEncoder<Serializable<?>> {
     private static final Logger LOGGER = KioskLoggerFactory.getLogger();
+    public static final int MAX_PACKET_ID_LENGTH = 256;
+    private volatile PacketFormat format = PacketFormat.JSON;
+    private volatile boolean heapBuffer = false;
 
     @Override
     protected void encode(ChannelHandlerContext ctx, Serializable<?> msg, ByteBuf out) {
-            StringEncodings.encode(out, msg.toJson().toString(), 32767);
+            PacketFormat format = this.format;
+            write(msg, format, out);
             int i = out.readableBytes();
-            LOGGER.info(SerializableManager.SERIALIZABLE_SENT_MARKER, "OUT : [{}] -> {} bytes", msg.getPacketId(), i);
+            LOGGER.info(SerializableManager.SERIALIZABLE_SENT_MARKER, "OUT : [{}] ({}) -> {} bytes", msg.getPacketId(), format.asString(), i);
+    }
+
+    @Override
+    protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, Serializable<?> msg, boolean preferDirect) {
+        return this.heapBuffer ? ctx.alloc().heapBuffer() : super.allocateBuffer(ctx, msg, preferDirect);
+    }
+
+    /**
+     * 형식 ID 를 포함한 패킷 본문을 기록한다. 파이프라인 밖에서 미리 인코딩 할 때도 사용된다.
+     * @see PreEncodedPacket
+     */
+    public static void write(Serializable<?> msg, PacketFormat format, ByteBuf out) {
+        out.writeByte(format.getId());
+        switch (format) {
+            case JSON -> StringEncodings.encode(out, msg.toJson().toString(), 32767);
+            case BINARY -> {
+                StringEncodings.encode(out, msg.getPacketId(), MAX_PACKET_ID_LENGTH);
+                BinaryElement element = msg.encode(BinaryOps.INSTANCE);
+                element.write(out);
+            }
+        }
+    }
+
+    public PacketFormat getFormat() {
+        return format;
+    }
+
+    public void setFormat(PacketFormat format) {
+        this.format = format;
+    }
+
+    /**
+     * @param heapBuffer true 인 경우 heap 버퍼에 기록한다. 프레임 단위로 암호화할 때
+     *                   {@link common.network.encryption.PacketEncryptor}가 staging 없이 backing array 를 바로 읽을 수 있도록 하기 위함이다.
+     */
+    public void setHeapBuffer(boolean heapBuffer) {
+        this.heapBuffer = heapBuffer;
     }
 }
@@ -3,19 +3,25 @@ package common.network.handler;
 import common.event.ChannelEstablishedEvent;
 import common.util.KioskLoggerFactory;
 import common.network.Connection;
+import common.network.SerializableManager;
 import common.network.packet.Serializable;
+import common.network.encoding.PacketFormat;
+import common.network.encryption.EncryptionMode;
 import common.network.encryption.PacketDecryptor;
+import common.network.encryption.PacketEncryptionManager;
 import common.network.encryption.PacketEncryptor;
 import common.network.handler.factory.PacketListenerFactory;
 import common.network.handler.listener.PacketListener;
 import common.network.packet.SidedPacket;
 import common.util.Container;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.*;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 
 import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
 
 /**
  * Client, Server 에 모두 사용되는 Handler 클래스이고, 싱글톤으로 작동하는 클래스가 아닌지 생각이 들 수도 있곘지만 아님을 유의하라. <br>
@@ -77,10 +83,50 @@ public class SerializableHandler extends SimpleChannelInboundHandler<SidedPacket
         this.connection.handleDisconnect(ctx, this);
     }
 
-    public void encrypt(Cipher encryptionCipher, Cipher decryptionCipher) {
+    /**
+     * 협상된 방식으로 이 채널을 암호화한다. <br>
+     * 스트림 방식은 길이 접두사까지 포함한 바이트 스트림을 암호화하므로 splitter 앞과 prepender 뒤에 놓이고,
+     * 프레임 방식은 프레임 단위로 태그를 붙이므로 splitter 뒤와 prepender 앞에 놓이며, 암/복호화할 프레임을 heap 버퍼로 받는다.
+     * @param mode 협상된 방식
+     * @param key 세션 키
+     * @param encryptIv 이 쪽에서 보내는 방향의 IV
+     * @param decryptIv 이 쪽이 받는 방향의 IV
+     */
+    public void encrypt(EncryptionMode mode, SecretKey key, byte[] encryptIv, byte[] decryptIv) {
+        PacketEncryptor encryptor = new PacketEncryptor(PacketEncryptionManager.create(Cipher.ENCRYPT_MODE, key, mode, encryptIv));
+        PacketDecryptor decryptor = new PacketDecryptor(PacketEncryptionManager.create(Cipher.DECRYPT_MODE, key, mode, decryptIv));
+        ChannelPipeline pipeline = this.channel.pipeline();
         this.encrypted = true;
-        this.channel.pipeline().addBefore("splitter", "decrypt", new PacketDecryptor(decryptionCipher));
-        this.channel.pipeline().addBefore("prepender", "encrypt", new PacketEncryptor(encryptionCipher));
+        if (mode.isFramed()) {
+            pipeline.get(SplitterHandler.class).setHeapFrames(true);
+            pipeline.addAfter("splitter", "decrypt", decryptor);
+            this.getEncoder().setHeapBuffer(true);
+            pipeline.addAfter("prepender", "encrypt", encryptor);
+        } else {
+            pipeline.addBefore("splitter", "decrypt", decryptor);
+            pipeline.replace("prepender", "prepender", new SizePrepender(false));
+            pipeline.addBefore("prepender", "encrypt", encryptor);
+        }
+    }
+
+    /**
+     * 이 채널에서 송신할 패킷의 형식을 변경한다. 수신 측 디코더는 프레임마다 형식을 판별하므로 따로 설정할 필요가 없다.
+     * @param format 송신에 사용할 형식
+     */
+    public void setPacketFormat(PacketFormat format) {
+        this.getEncoder().setFormat(format);
+    }
+
+    public PacketFormat getPacketFormat() {
+        return this.getEncoder().getFormat();
+    }
+
+    private SerializableEncoder getEncoder() {
+        SerializableEncoder encoder = this.channel.pipeline().get(SerializableEncoder.class);
+        if (encoder == null) {
+            throw new IllegalStateException("encoder is not registered in pipeline");
+        }
+        return encoder;
     }
 
     /**
@@ -96,6 +142,21 @@ public class SerializableHandler extends SimpleChannelInboundHandler<SidedPacket
         throw new IllegalStateException("channel is not opened");
     }
 
+    /**
+     * 미리 인코딩 된 패킷을 전송한다. 이 채널의 송신 형식에 맞는 버퍼를 공유하므로 Codec 을 다시 실행하지 않는다.
+     * @param packet 미리 인코딩 된 패킷. 이 메소드는 참조를 해제하지 않는다.
+     */
+    @NotNull
+    public ChannelFuture send(PreEncodedPacket packet) {
+        if (this.channel != null && this.channel.isOpen()) {
+            PacketFormat format = this.getPacketFormat();
+            ByteBuf buf = packet.retainedBuffer(format);
+            LOGGER.debug(SerializableManager.SERIALIZABLE_SENT_MARKER, "OUT : [{}] ({}, pre-encoded) -> {} bytes", packet.getPacket().getPacketId(), format.asString(), buf.readableBytes());
+            return this.channel.writeAndFlush(buf);
+        }
+        throw new IllegalStateException("channel is not opened");
+    }
+
     public void setId(String id) {
         this.id = id;
     }
@@ -14,6 +14,14 @@ public class SizePrepender extends MessageToByteEncoder<ByteBuf> {
     public SizePrepender() {
     }
 
+    /**
+     * @param preferDirect false 인 경우 heap 버퍼에 기록한다. 암호화 시에는 {@link common.network.encryption.PacketEncryptor}가
+     *                     복사 없이 backing array 를 바로 읽을 수 있도록 heap 버퍼를 사용한다.
+     */
+    public SizePrepender(boolean preferDirect) {
+        super(preferDirect);
+    }
+
     protected void encode(ChannelHandlerContext channelHandlerContext, ByteBuf byteBuf, ByteBuf byteBuf2) {
         int i = byteBuf.readableBytes();
         int j = VariableInts.getSizeInBytes(i);
@@ -12,12 +12,21 @@ import java.util.List;
 public class SplitterHandler extends ByteToMessageDecoder {
     private static final int LENGTH_BYTES = 3;
     private final ByteBuf reusableBuf = Unpooled.directBuffer(3);
+    private volatile boolean heapFrames = false;
 
     @Override
     protected void handlerRemoved0(ChannelHandlerContext context) {
         this.reusableBuf.release();
     }
 
+    /**
+     * @param heapFrames true 인 경우 프레임을 heap 버퍼로 읽는다. 프레임 단위로 복호화할 때
+     *                   {@link common.network.encryption.PacketDecryptor}가 staging 없이 backing array 를 바로 읽을 수 있도록 하기 위함이다.
+     */
+    public void setHeapFrames(boolean heapFrames) {
+        this.heapFrames = heapFrames;
+    }
+
     private static boolean shouldSplit(ByteBuf source, ByteBuf sizeBuf) {
         for (int i = 0; i < LENGTH_BYTES; i++) {
             if (!source.isReadable()) {
@@ -45,7 +54,7 @@ public class SplitterHandler extends ByteToMessageDecoder {
             if (buf.readableBytes() < i) {
                 buf.resetReaderIndex();
             } else {
-                bytes.add(buf.readBytes(i));
+                bytes.add(this.heapFrames ? ctx.alloc().heapBuffer(i).writeBytes(buf, i) : buf.readBytes(i));
             }
         }
     }
@@ -10,7 +10,11 @@ import common.network.packet.*;
 public interface ClientPacketListener extends PacketListener {
     void onHello(HelloS2CPacket packet);
     void onReceivedData(UpdateDataPacket.ResponseDataS2CPacket packet);
+    void onReceivedDataChunk(UpdateDataPacket.ResponseDataChunkS2CPacket packet);
+    void onReceivedDelta(UpdateDataPacket.RegistryDeltaS2CPacket packet);
+    void onReceivedTransaction(UpdateDataPacket.RegistryTransactionS2CPacket packet);
+    void onRegistryUnchanged(UpdateDataPacket.RegistryUnchangedS2CPacket packet);
     void onEncryptCompleted(EncryptCompleteS2CPacket packet);
     void onVerifyPurchaseResult(VerifyPurchasePackets.VerifyPurchaseResultS2CPacket packet);
-    void onOrderStatusChanged(OrderUpdatedS2CPacket packet);
+    void onOrderIdsLeased(OrderIdLeasePackets.OrderIdsLeasedS2CPacket packet);
 }
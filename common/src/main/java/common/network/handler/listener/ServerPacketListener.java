@@ -10,4 +10,5 @@ public interface ServerPacketListener extends PacketListener {
     void onDeleteReceived(DataDeletedC2SPacket packet);
     void onRequestVerify(VerifyPurchasePackets.VerifyPurchasePacketC2S packet);
     void onOrderStatusChanged(OrderStatusChangedC2SPacket packet);
+    void onOrderIdsRequested(OrderIdLeasePackets.RequestOrderIdsC2SPacket packet);
 }
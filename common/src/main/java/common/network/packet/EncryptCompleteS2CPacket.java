@@ -2,12 +2,21 @@ package common.network.packet;
 
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
+import common.network.encryption.EncryptionMode;
 import common.network.handler.listener.ClientPacketListener;
 import org.jetbrains.annotations.NotNull;
 
-public record EncryptCompleteS2CPacket(long time) implements SidedPacket<ClientPacketListener> {
+import java.util.List;
+
+/**
+ * 암호화가 시작된 뒤 처음 보내는 패킷이다.
+ * @param encryptionModes 서버가 {@link HelloS2CPacket}으로 알린 목록. 이 패킷은 암호화되어 전달되므로,
+ *                        클라이언트는 이 목록으로 다시 협상한 결과가 자신이 고른 방식과 같은지 확인한다.
+ */
+public record EncryptCompleteS2CPacket(long time, List<EncryptionMode> encryptionModes) implements SidedPacket<ClientPacketListener> {
     public static final Codec<EncryptCompleteS2CPacket> CODEC = RecordCodecBuilder.create(instance -> instance.group(
-            Codec.LONG.fieldOf("time").forGetter(EncryptCompleteS2CPacket::time)
+            Codec.LONG.fieldOf("time").forGetter(EncryptCompleteS2CPacket::time),
+            EncryptionMode.CODEC.listOf().fieldOf("encryption_modes").forGetter(EncryptCompleteS2CPacket::encryptionModes)
     ).apply(instance, instance.stable(EncryptCompleteS2CPacket::new))
     );
 
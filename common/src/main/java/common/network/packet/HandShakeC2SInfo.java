@@ -2,15 +2,25 @@ package common.network.packet;
 
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
+import common.network.encoding.PacketFormat;
 import common.network.handler.listener.ServerPacketListener;
 import org.jetbrains.annotations.NotNull;
 
-public record HandShakeC2SInfo(String id) implements SidedPacket<ServerPacketListener> {
+/**
+ * @param id 키오스크 ID
+ * @param packetFormat 클라이언트가 서버에게 요청하는 송신 형식. 서버는 이 연결에 대해 해당 형식으로 패킷을 전송한다.
+ */
+public record HandShakeC2SInfo(String id, PacketFormat packetFormat) implements SidedPacket<ServerPacketListener> {
     public static final Codec<HandShakeC2SInfo> CODEC = RecordCodecBuilder.create(instance -> instance.group(
-                    Codec.STRING.fieldOf("id").forGetter(HandShakeC2SInfo::id)
+                    Codec.STRING.fieldOf("id").forGetter(HandShakeC2SInfo::id),
+                    PacketFormat.CODEC.optionalFieldOf("packet_format", PacketFormat.JSON).forGetter(HandShakeC2SInfo::packetFormat)
             ).apply(instance, HandShakeC2SInfo::new)
     );
 
+    public HandShakeC2SInfo(String id) {
+        this(id, PacketFormat.JSON);
+    }
+
     @Override
     public Side getSide() {
         return Side.SERVER;
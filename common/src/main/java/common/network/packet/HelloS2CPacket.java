@@ -2,35 +2,34 @@ package common.network.packet;
 
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
+import common.network.encryption.EncryptionMode;
 import common.network.encryption.NetworkEncryptionUtils;
 import common.network.handler.listener.ClientPacketListener;
 import common.util.JavaCodecs;
-import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
 
 import java.security.PublicKey;
+import java.util.List;
 
 public final class HelloS2CPacket implements SidedPacket<ClientPacketListener> {
     public static final Codec<HelloS2CPacket> CODEC = RecordCodecBuilder.create(instance -> instance.group(
-                    JavaCodecs.BYTE_ARRAY.fieldOf("public_key").forGetter(HelloS2CPacket::getPublicKeyAsByte),
-                    JavaCodecs.BYTE_ARRAY.fieldOf("nonce").forGetter(HelloS2CPacket::getNonceAsByte)
+                    JavaCodecs.BYTES.fieldOf("public_key").forGetter(HelloS2CPacket::publicKey),
+                    JavaCodecs.BYTES.fieldOf("nonce").forGetter(HelloS2CPacket::nonce),
+                    EncryptionMode.CODEC.listOf().fieldOf("encryption_modes").forGetter(HelloS2CPacket::encryptionModes)
             ).apply(instance, HelloS2CPacket::new)
     );
     private final byte[] publicKey;
     private final byte[] nonce;
-    private volatile Byte[] nonceAsByte;
-    private volatile Byte[] publicKeyAsByte;
+    private final List<EncryptionMode> encryptionModes;
 
-    public HelloS2CPacket(Byte[] publicKey, Byte[] nonce) {
-        this.publicKey = JavaCodecs.asByteArray(publicKey);
-        this.nonce = JavaCodecs.asByteArray(nonce);
-        this.nonceAsByte = nonce;
-        this.publicKeyAsByte = publicKey;
-    }
-
-    public HelloS2CPacket(byte[] publicKey, byte[] nonce) {
+    /**
+     * @param encryptionModes 서버가 지원하는 채널 암호화 방식. 인증되지 않은 채로 전달되므로, 서버는 암호화가 시작된 뒤
+     *                        {@link EncryptCompleteS2CPacket}으로 같은 목록을 다시 보낸다.
+     */
+    public HelloS2CPacket(byte[] publicKey, byte[] nonce, List<EncryptionMode> encryptionModes) {
         this.publicKey = publicKey;
         this.nonce = nonce;
+        this.encryptionModes = encryptionModes;
     }
 
     @Override
@@ -57,22 +56,6 @@ public final class HelloS2CPacket implements SidedPacket<ClientPacketListener> {
         return CODEC;
     }
 
-    @ApiStatus.Internal
-    private Byte[] getNonceAsByte() {
-        if (nonceAsByte == null) {
-            this.nonceAsByte = JavaCodecs.asBoxingByteArray(nonce);
-        }
-        return nonceAsByte;
-    }
-
-    @ApiStatus.Internal
-    private Byte[] getPublicKeyAsByte() {
-        if (publicKeyAsByte == null) {
-            this.publicKeyAsByte = JavaCodecs.asBoxingByteArray(publicKey);
-        }
-        return publicKeyAsByte;
-    }
-
     public byte[] publicKey() {
         return publicKey;
     }
@@ -80,4 +63,8 @@ public final class HelloS2CPacket implements SidedPacket<ClientPacketListener> {
     public byte[] nonce() {
         return nonce;
     }
+
+    public List<EncryptionMode> encryptionModes() {
+        return encryptionModes;
+    }
 }
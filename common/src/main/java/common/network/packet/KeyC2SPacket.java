@@ -2,6 +2,7 @@ package common.network.packet;
 
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
+import common.network.encryption.EncryptionMode;
 import common.network.encryption.NetworkEncryptionUtils;
 import common.network.handler.listener.ServerPacketListener;
 import common.util.JavaCodecs;
@@ -9,48 +10,69 @@ import common.util.KioskLoggerFactory;
 import org.jetbrains.annotations.NotNull;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.util.Arrays;
 
 public class KeyC2SPacket implements SidedPacket<ServerPacketListener> {
     public static final Codec<KeyC2SPacket> CODEC = RecordCodecBuilder.create(instance -> instance.group(
-                    JavaCodecs.BYTE_ARRAY.fieldOf("encryptedSecretKey").forGetter(KeyC2SPacket::getEncryptedSecretKeyAsByte),
-                    JavaCodecs.BYTE_ARRAY.fieldOf("nonce").forGetter(KeyC2SPacket::getNonceAsByte)
+                    JavaCodecs.BYTES.fieldOf("encryptedSecretKey").forGetter(KeyC2SPacket::getEncryptedSecretKey),
+                    JavaCodecs.BYTES.fieldOf("nonce").forGetter(KeyC2SPacket::getNonce),
+                    EncryptionMode.CODEC.fieldOf("encryption_mode").forGetter(KeyC2SPacket::getEncryptionMode),
+                    JavaCodecs.BYTES.optionalFieldOf("client_iv", new byte[0]).forGetter(KeyC2SPacket::getClientIv),
+                    JavaCodecs.BYTES.optionalFieldOf("server_iv", new byte[0]).forGetter(KeyC2SPacket::getServerIv)
             ).apply(instance, KeyC2SPacket::new)
     );
 
     private final byte[] encryptedSecretKey;
     private final byte[] nonce;
-    private Byte[] nonceAsByte;
-    private Byte[] encryptedSecretKeyAsByte;
+    private final EncryptionMode encryptionMode;
+    private final byte[] clientIv;
+    private final byte[] serverIv;
 
-    private Byte[] getNonceAsByte() {
-        if (nonceAsByte == null) {
-            this.nonceAsByte = JavaCodecs.asBoxingByteArray(nonce);
-        }
-        return nonceAsByte;
+    private byte[] getNonce() {
+        return nonce;
     }
 
-    private Byte[] getEncryptedSecretKeyAsByte() {
-        if (encryptedSecretKeyAsByte == null) {
-            this.encryptedSecretKeyAsByte = JavaCodecs.asBoxingByteArray(encryptedSecretKey);
-        }
-        return encryptedSecretKeyAsByte;
+    private byte[] getEncryptedSecretKey() {
+        return encryptedSecretKey;
     }
 
 
-    public KeyC2SPacket(SecretKey secretKey, PublicKey publicKey, byte[] nonce) {
-        this.nonce = NetworkEncryptionUtils.encrypt(publicKey, nonce);
+    /**
+     * 고른 방식은 nonce 와 함께 서버의 공개 키로 암호화되므로, 평문으로 전달되는 encryption_mode 를 중간에서 바꾸면 nonce 검증에 실패한다.
+     * @param encryptionMode 클라이언트가 고른 채널 암호화 방식
+     * @param clientIv 클라이언트 -> 서버 방향에 사용할 IV
+     * @param serverIv 서버 -> 클라이언트 방향에 사용할 IV
+     */
+    public KeyC2SPacket(SecretKey secretKey, PublicKey publicKey, byte[] nonce, EncryptionMode encryptionMode, byte[] clientIv, byte[] serverIv) {
+        this.nonce = NetworkEncryptionUtils.encrypt(publicKey, bind(nonce, encryptionMode));
         this.encryptedSecretKey = NetworkEncryptionUtils.encrypt(publicKey, secretKey.getEncoded());
+        this.encryptionMode = encryptionMode;
+        this.clientIv = clientIv;
+        this.serverIv = serverIv;
         KioskLoggerFactory.getLogger().info("Encrypted nonce: {}", this.nonce);
     }
 
-    public KeyC2SPacket(Byte[] encryptedSecretKeyAsByte, Byte[] nonceAsByte) {
-        this.nonceAsByte = nonceAsByte;
-        this.encryptedSecretKeyAsByte = encryptedSecretKeyAsByte;
-        this.nonce = JavaCodecs.asByteArray(nonceAsByte);
-        this.encryptedSecretKey = JavaCodecs.asByteArray(encryptedSecretKeyAsByte);
+    public KeyC2SPacket(byte[] encryptedSecretKey, byte[] nonce, EncryptionMode encryptionMode, byte[] clientIv, byte[] serverIv) {
+        this.nonce = nonce;
+        this.encryptedSecretKey = encryptedSecretKey;
+        this.encryptionMode = encryptionMode;
+        this.clientIv = clientIv;
+        this.serverIv = serverIv;
+    }
+
+    public EncryptionMode getEncryptionMode() {
+        return encryptionMode;
+    }
+
+    public byte[] getClientIv() {
+        return clientIv;
+    }
+
+    public byte[] getServerIv() {
+        return serverIv;
     }
 
     @Override
@@ -71,12 +93,22 @@ public class KeyC2SPacket implements SidedPacket<ServerPacketListener> {
     public boolean verifySignedNonce(byte[] nonce, PrivateKey privateKey) {
         try {
             KioskLoggerFactory.getLogger().info("Verifying nonce... : {}", NetworkEncryptionUtils.decrypt(privateKey, this.nonce));
-            return Arrays.equals(nonce, NetworkEncryptionUtils.decrypt(privateKey, this.nonce));
+            return Arrays.equals(bind(nonce, this.encryptionMode), NetworkEncryptionUtils.decrypt(privateKey, this.nonce));
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * nonce 뒤에 고른 방식의 ID 를 붙인다.
+     */
+    private static byte[] bind(byte[] nonce, EncryptionMode mode) {
+        byte[] id = mode.asString().getBytes(StandardCharsets.UTF_8);
+        byte[] bound = Arrays.copyOf(nonce, nonce.length + id.length);
+        System.arraycopy(id, 0, bound, nonce.length, id.length);
+        return bound;
+    }
+
     public SecretKey decryptSecretKey(PrivateKey privateKey) {
         return NetworkEncryptionUtils.decryptSecretKey(privateKey, this.encryptedSecretKey);
     }
@@ -0,0 +1,76 @@
+package common.network.packet;
+
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.codecs.RecordCodecBuilder;
+import common.network.handler.listener.ClientPacketListener;
+import common.network.handler.listener.ServerPacketListener;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * 키오스크가 주문 ID 를 서버와 통신하지 않고 발급할 수 있도록, 서버가 겹치지 않는 ID 구간을 빌려주는 패킷들이다.
+ */
+public class OrderIdLeasePackets {
+    /**
+     * 주문 ID 구간을 요청한다.
+     * @param size 원하는 ID 개수. 서버가 허용 범위로 조정할 수 있다.
+     */
+    public record RequestOrderIdsC2SPacket(int size) implements SidedPacket<ServerPacketListener> {
+        public static final Codec<RequestOrderIdsC2SPacket> CODEC = RecordCodecBuilder.create(instance -> instance.group(
+                        Codec.INT.fieldOf("size").forGetter(RequestOrderIdsC2SPacket::size)
+                ).apply(instance, instance.stable(RequestOrderIdsC2SPacket::new))
+        );
+
+        @Override
+        public Side getSide() {
+            return Side.SERVER;
+        }
+
+        @Override
+        public void apply(ServerPacketListener listener) {
+            listener.onOrderIdsRequested(this);
+        }
+
+        @Override
+        public String getPacketId() {
+            return "request_order_ids_c2s";
+        }
+
+        @Override
+        public @NotNull Codec<? extends SidedPacket> getCodec() {
+            return CODEC;
+        }
+    }
+
+    /**
+     * 빌려준 주문 ID 구간. 이 구간은 다른 키오스크나 서버 재시작 이후에도 다시 발급되지 않는다.
+     * @param start 첫 ID (포함)
+     * @param end 마지막 ID (제외)
+     */
+    public record OrderIdsLeasedS2CPacket(int start, int end) implements SidedPacket<ClientPacketListener> {
+        public static final Codec<OrderIdsLeasedS2CPacket> CODEC = RecordCodecBuilder.create(instance -> instance.group(
+                        Codec.INT.fieldOf("start").forGetter(OrderIdsLeasedS2CPacket::start),
+                        Codec.INT.fieldOf("end").forGetter(OrderIdsLeasedS2CPacket::end)
+                ).apply(instance, instance.stable(OrderIdsLeasedS2CPacket::new))
+        );
+
+        @Override
+        public Side getSide() {
+            return Side.CLIENT;
+        }
+
+        @Override
+        public void apply(ClientPacketListener listener) {
+            listener.onOrderIdsLeased(this);
+        }
+
+        @Override
+        public String getPacketId() {
+            return "order_ids_leased_s2c";
+        }
+
+        @Override
+        public @NotNull Codec<? extends SidedPacket> getCodec() {
+            return CODEC;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package common.network.packet;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.mojang.serialization.Codec;
+import com.mojang.serialization.DynamicOps;
 import com.mojang.serialization.JsonOps;
 import common.network.SerializableManager;
 import org.jetbrains.annotations.NotNull;
@@ -23,11 +24,19 @@ public interface Serializable<T> {
     default JsonElement toJson() {
         JsonObject jsonObject = new JsonObject();
         jsonObject.addProperty(PACKET_ID_PROPERTY, getPacketId());
-        JsonElement dataValue = getCodec().encodeStart(JsonOps.INSTANCE, getValue()).getOrThrow();
-        jsonObject.add(DATA_PROPERTY, dataValue);
+        jsonObject.add(DATA_PROPERTY, encode(JsonOps.INSTANCE));
 
         return jsonObject;
     }
+
+    /**
+     * 패킷의 본문만을 주어진 {@link DynamicOps}로 인코딩한다. 패킷 ID는 포함되지 않는다.
+     * @param ops 인코딩에 사용할 ops
+     * @return 인코딩된 본문
+     */
+    default <R> R encode(DynamicOps<R> ops) {
+        return getCodec().encodeStart(ops, getValue()).getOrThrow();
+    }
     @NotNull
     Codec<? extends T> getCodec();
 }
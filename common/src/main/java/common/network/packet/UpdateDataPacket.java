@@ -1,25 +1,187 @@
 package common.network.packet;
 
-import com.google.gson.*;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonWriter;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.JsonOps;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
 import common.network.SynchronizeData;
 import common.network.handler.listener.ClientPacketListener;
 import common.network.handler.listener.ServerPacketListener;
+import common.registry.Registry;
+import common.registry.RegistryChange;
 import common.registry.RegistryManager;
-import common.util.JsonHelper;
+import common.registry.RegistryTransaction;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class UpdateDataPacket {
-    public record RequestDataC2SPacket(String registryId) implements SidedPacket<ServerPacketListener> {
+    /**
+     * 한 청크에 담을 데이터의 Json 기준 최대 문자 수. {@link common.network.encoding.StringEncodings}의 32767자 제한에
+     * 패킷 헤더가 들어갈 여유를 남겨둔 값이다.
+     */
+    public static final int CHUNK_CHAR_BUDGET = 16384;
+    /**
+     * 요소 하나가 가질 수 있는 Json 기준 최대 문자 수. 이보다 큰 요소는 어떤 패킷에도 담을 수 없다.
+     */
+    public static final int MAX_ELEMENT_CHARS = 32767 - 1024;
+    private static final AtomicInteger TRANSFER_ID = new AtomicInteger();
+    /**
+     * {@link JsonElement#toString()}과 같은 형식으로 쓴다.
+     */
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().setStrictness(Strictness.LENIENT).create();
+
+    /**
+     * 레지스트리의 전체 스냅샷을 {@link ResponseDataChunkS2CPacket} 여러 개로 나눈다.
+     * @see #splitSnapshot(String, long, List)
+     */
+    public static List<ResponseDataChunkS2CPacket> splitSnapshot(Registry<?> registry) {
+        // 버전을 먼저 읽는다. 그 사이 내용이 바뀌더라도 클라이언트는 같은 변경을 한번 더 적용할 뿐이다.
+        long version = registry.getVersion();
+        return splitSnapshot(registry.getRegistryId(), version, registry.getAll());
+    }
+
+    /**
+     * 스냅샷을 {@link #CHUNK_CHAR_BUDGET}을 넘지 않는 크기의 청크들로 나눈다. 모든 청크는 같은 transferId 를 가지며,
+     * 데이터가 비어 있더라도 최소 한 개의 청크가 만들어진다. 예산보다 큰 요소는 그 요소만 단독으로 청크를 이룬다. <br>
+     * 크기를 재기 위해 인코딩한 Json 은 바로 버리며, 청크는 전송될 때 패킷 코덱이 연결의 형식으로 인코딩한다.
+     * @param registryId 대상 레지스트리 ID
+     * @param version 스냅샷의 레지스트리 버전
+     * @param data 전송할 전체 데이터
+     * @return 순서대로 전송해야 하는 청크 패킷 목록
+     * @throws IllegalArgumentException 요소 하나가 {@link #MAX_ELEMENT_CHARS}보다 큰 경우
+     */
+    public static List<ResponseDataChunkS2CPacket> splitSnapshot(String registryId, long version, List<? extends SynchronizeData<?>> data) {
+        List<List<SynchronizeData<?>>> chunks = new ArrayList<>();
+        List<SynchronizeData<?>> current = new ArrayList<>();
+        int chars = 0;
+        for (SynchronizeData<?> element : data) {
+            int size = encodedLength(registryId, element) + 1;
+            if (!current.isEmpty() && chars + size > CHUNK_CHAR_BUDGET) {
+                chunks.add(current);
+                current = new ArrayList<>();
+                chars = 0;
+            }
+            current.add(element);
+            chars += size;
+        }
+        chunks.add(current);
+
+        int transferId = TRANSFER_ID.incrementAndGet();
+        List<ResponseDataChunkS2CPacket> packets = new ArrayList<>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            packets.add(new ResponseDataChunkS2CPacket(registryId, version, transferId, i, chunks.size(), chunks.get(i)));
+        }
+        return packets;
+    }
+
+    /**
+     * 주어진 버전 이후의 변경 사항을 {@link RegistryDeltaS2CPacket}으로 만든다. 같은 ID 에 대한 여러 변경은 마지막 변경만 남는다.
+     * @param registry 대상 레지스트리
+     * @param sinceVersion 기준 버전. 보통 변경 직전의 {@link Registry#getVersion()}이다.
+     * @return 변경 기록으로 따라잡을 수 없거나 한 패킷에 담기에 너무 큰 경우 {@link Optional#empty()}. 이 경우 전체 스냅샷을 보내야 한다.
+     */
+    public static Optional<RegistryDeltaS2CPacket> createDelta(Registry<?> registry, long sinceVersion) {
+        return createSizedDelta(registry, sinceVersion, CHUNK_CHAR_BUDGET).map(SizedDelta::packet);
+    }
+
+    private static Optional<SizedDelta> createSizedDelta(Registry<?> registry, long sinceVersion, int budget) {
+        return registry.getChangesSince(sinceVersion).flatMap(changes -> createDelta(registry.getRegistryId(), sinceVersion, changes, budget));
+    }
+
+    private static Optional<SizedDelta> createDelta(String registryId, long sinceVersion, List<? extends RegistryChange<?>> changes, int budget) {
+        Map<String, RegistryChange<?>> latest = new LinkedHashMap<>();
+        long toVersion = sinceVersion;
+        for (RegistryChange<?> change : changes) {
+            latest.remove(change.id());
+            latest.put(change.id(), change);
+            toVersion = change.version();
+        }
+
+        List<SynchronizeData<?>> upserts = new ArrayList<>();
+        List<String> removals = new ArrayList<>();
+        int size = 0;
+        for (RegistryChange<?> change : latest.values()) {
+            if (change.isRemoval()) {
+                removals.add(change.id());
+                size += change.id().length() + 3;
+            } else {
+                upserts.add(change.entry());
+                size += encodedLength(registryId, change.entry()) + 1;
+            }
+            if (size > budget) {
+                return Optional.empty();
+            }
+        }
+        return Optional.of(new SizedDelta(new RegistryDeltaS2CPacket(registryId, sinceVersion, toVersion, upserts, removals), size));
+    }
+
+    /**
+     * 트랜잭션에서 바뀐 모든 레지스트리의 변경 사항을 {@link RegistryTransactionS2CPacket} 하나로 만든다.
+     * 변경이 없는 레지스트리는 포함되지 않는다.
+     * @param result 커밋 결과
+     * @return 한 레지스트리라도 변경 기록으로 따라잡을 수 없거나, 합친 크기가 한 패킷에 담기에 너무 큰 경우 {@link Optional#empty()}
+     */
+    public static Optional<RegistryTransactionS2CPacket> createTransaction(RegistryTransaction.Result result) {
+        List<RegistryDeltaS2CPacket> deltas = new ArrayList<>();
+        int size = 0;
+        for (Map.Entry<Registry<?>, Long> entry : result.fromVersions().entrySet()) {
+            if (entry.getKey().getVersion() == entry.getValue()) {
+                continue;
+            }
+            // 남은 예산만 넘겨주므로, 합친 크기가 넘치는 순간 더 인코딩 하지 않고 멈춘다.
+            Optional<SizedDelta> delta = createSizedDelta(entry.getKey(), entry.getValue(), CHUNK_CHAR_BUDGET - size);
+            if (delta.isEmpty()) {
+                return Optional.empty();
+            }
+            size += delta.get().size();
+            deltas.add(delta.get().packet());
+        }
+        return Optional.of(new RegistryTransactionS2CPacket(deltas));
+    }
+
+    /**
+     * 요소를 Json 으로 인코딩했을 때의 문자 수를 잰다. 인코딩한 결과는 보관하지 않는다.
+     * @throws IllegalArgumentException 요소가 {@link #MAX_ELEMENT_CHARS}보다 커서 보낼 수 없는 경우
+     */
+    private static int encodedLength(String registryId, SynchronizeData<?> element) {
+        JsonElement json = RegistryManager.getCodecAsId(registryId).encodeStart(JsonOps.INSTANCE, element).getOrThrow();
+        int length = JsonLength.of(json);
+        if (length > MAX_ELEMENT_CHARS) {
+            throw new IllegalArgumentException("Element %s of registry %s is too large to send (%d > %d chars)"
+                    .formatted(element.getRegistryElementId(), registryId, length, MAX_ELEMENT_CHARS));
+        }
+        return length;
+    }
+
+    /**
+     * 레지스트리 데이터를 요청한다. knownVersions 에는 클라이언트가 이미 반영한 서버 버전을 담는다.
+     * 서버는 버전이 같다면 {@link RegistryUnchangedS2CPacket}, 변경 기록으로 따라잡을 수 있다면 {@link RegistryDeltaS2CPacket},
+     * 그 외에는 전체 스냅샷으로 응답한다.
+     * @param registryId 요청할 레지스트리 ID. <code>all</code> 인 경우 모든 레지스트리
+     * @param knownVersions 레지스트리 ID 별로 클라이언트가 반영한 서버 버전
+     */
+    public record RequestDataC2SPacket(String registryId, Map<String, Long> knownVersions) implements SidedPacket<ServerPacketListener> {
         public static final Codec<RequestDataC2SPacket> CODEC = RecordCodecBuilder.create(instance -> instance.group(
-                        Codec.STRING.fieldOf("registryId").forGetter(RequestDataC2SPacket::registryId)
+                        Codec.STRING.fieldOf("registryId").forGetter(RequestDataC2SPacket::registryId),
+                        Codec.unboundedMap(Codec.STRING, Codec.LONG).optionalFieldOf("knownVersions", Map.of()).forGetter(RequestDataC2SPacket::knownVersions)
                 ).apply(instance, RequestDataC2SPacket::new)
         );
 
+        public RequestDataC2SPacket(String registryId) {
+            this(registryId, Map.of());
+        }
+
         @Override
         public Side getSide() {
             return Side.SERVER;
@@ -42,27 +204,14 @@ public class UpdateDataPacket {
     }
 
     public record ResponseDataS2CPacket(String registryId, List<SynchronizeData<?>> data) implements SidedPacket<ClientPacketListener> {
-        private static final Gson GSON = new Gson();
-        public static final Codec<ResponseDataS2CPacket> CODEC = Codec.lazyInitialized(() -> Codec.STRING.xmap(
-                string -> {
-                    JsonObject json = GSON.fromJson(string, JsonObject.class);
-                    String id = JsonHelper.getString(json, "registryId", "unknown");
-                    if (id.equalsIgnoreCase("unknown")) {
-                        throw new JsonParseException("Unknown registry id: " + id);
-                    }
-                    var data = RegistryManager.getAsId(id).getCodec().listOf().decode(JsonOps.INSTANCE, json.get("data")).getOrThrow().getFirst();
-                    return new ResponseDataS2CPacket(id, (List<SynchronizeData<?>>) data);
-                },
-                packet -> {
-                    JsonObject json = new JsonObject();
-                    json.addProperty("registryId", packet.registryId);
-                    Codec<SynchronizeData<?>> codec = (Codec<SynchronizeData<?>>) RegistryManager.getAsId(packet.registryId).getCodec();
-                    JsonElement arr = codec.listOf().encodeStart(JsonOps.INSTANCE, packet.data).getOrThrow();
-                    json.add("data", arr);
-
-                    return json.toString();
-                })
-        );
+        public static final Codec<ResponseDataS2CPacket> CODEC = Codec.lazyInitialized(() -> Codec.STRING.dispatch(
+                "registryId",
+                ResponseDataS2CPacket::registryId,
+                id -> RegistryManager.getCodecAsId(id).listOf().fieldOf("data").xmap(
+                        data -> new ResponseDataS2CPacket(id, data),
+                        ResponseDataS2CPacket::data
+                )
+        ));
 
         @Override
         public Side getSide() {
@@ -84,4 +233,192 @@ public class UpdateDataPacket {
             return CODEC;
         }
     }
+
+    /**
+     * 레지스트리 스냅샷의 일부분이다. 클라이언트는 같은 transferId 의 청크를 순서대로 모아두었다가
+     * 마지막 청크({@code chunkIndex == chunkCount - 1})를 받았을 때 한번에 레지스트리에 반영한다.
+     * @see UpdateDataPacket#splitSnapshot(String, long, List)
+     */
+    public record ResponseDataChunkS2CPacket(String registryId, long version, int transferId, int chunkIndex, int chunkCount, List<SynchronizeData<?>> data) implements SidedPacket<ClientPacketListener> {
+        public static final Codec<ResponseDataChunkS2CPacket> CODEC = Codec.lazyInitialized(() -> Codec.STRING.dispatch(
+                "registryId",
+                ResponseDataChunkS2CPacket::registryId,
+                id -> RecordCodecBuilder.<ResponseDataChunkS2CPacket>mapCodec(instance -> instance.group(
+                        Codec.LONG.fieldOf("version").forGetter(ResponseDataChunkS2CPacket::version),
+                        Codec.INT.fieldOf("transferId").forGetter(ResponseDataChunkS2CPacket::transferId),
+                        Codec.INT.fieldOf("chunkIndex").forGetter(ResponseDataChunkS2CPacket::chunkIndex),
+                        Codec.INT.fieldOf("chunkCount").forGetter(ResponseDataChunkS2CPacket::chunkCount),
+                        RegistryManager.getCodecAsId(id).listOf().fieldOf("data").forGetter(ResponseDataChunkS2CPacket::data)
+                ).apply(instance, (version, transferId, chunkIndex, chunkCount, data) -> new ResponseDataChunkS2CPacket(id, version, transferId, chunkIndex, chunkCount, data)))
+        ));
+
+        public boolean isLast() {
+            return this.chunkIndex == this.chunkCount - 1;
+        }
+
+        @Override
+        public Side getSide() {
+            return Side.CLIENT;
+        }
+
+        @Override
+        public void apply(ClientPacketListener packetListener) {
+            packetListener.onReceivedDataChunk(this);
+        }
+
+        @Override
+        public String getPacketId() {
+            return "response_data_chunk_s2c_packet";
+        }
+
+        @Override
+        public @NotNull Codec<ResponseDataChunkS2CPacket> getCodec() {
+            return CODEC;
+        }
+    }
+
+    /**
+     * 레지스트리의 변경 사항만 담은 패킷이다. 클라이언트는 fromVersion 이후의 변경을 모두 알고 있는 경우에만 이를 적용하며,
+     * 그렇지 않은 경우 전체 스냅샷을 다시 요청한다.
+     * @see UpdateDataPacket#createDelta(Registry, long)
+     */
+    public record RegistryDeltaS2CPacket(String registryId, long fromVersion, long toVersion, List<SynchronizeData<?>> upserts, List<String> removals) implements SidedPacket<ClientPacketListener> {
+        public static final Codec<RegistryDeltaS2CPacket> CODEC = Codec.lazyInitialized(() -> Codec.STRING.dispatch(
+                "registryId",
+                RegistryDeltaS2CPacket::registryId,
+                id -> RecordCodecBuilder.<RegistryDeltaS2CPacket>mapCodec(instance -> instance.group(
+                        Codec.LONG.fieldOf("fromVersion").forGetter(RegistryDeltaS2CPacket::fromVersion),
+                        Codec.LONG.fieldOf("toVersion").forGetter(RegistryDeltaS2CPacket::toVersion),
+                        RegistryManager.getCodecAsId(id).listOf().fieldOf("upserts").forGetter(RegistryDeltaS2CPacket::upserts),
+                        Codec.STRING.listOf().fieldOf("removals").forGetter(RegistryDeltaS2CPacket::removals)
+                ).apply(instance, (fromVersion, toVersion, upserts, removals) -> new RegistryDeltaS2CPacket(id, fromVersion, toVersion, upserts, removals)))
+        ));
+
+        @Override
+        public Side getSide() {
+            return Side.CLIENT;
+        }
+
+        @Override
+        public void apply(ClientPacketListener packetListener) {
+            packetListener.onReceivedDelta(this);
+        }
+
+        @Override
+        public String getPacketId() {
+            return "registry_delta_s2c_packet";
+        }
+
+        @Override
+        public @NotNull Codec<RegistryDeltaS2CPacket> getCodec() {
+            return CODEC;
+        }
+    }
+
+    /**
+     * 한 {@link common.registry.RegistryTransaction}에서 함께 바뀐 여러 레지스트리의 변경 사항이다.
+     * 클라이언트는 적용 가능한 변경을 한번에 반영하므로, 중간 상태(예: 삭제된 메뉴를 가리키는 카테고리)를 보지 않는다.
+     */
+    public record RegistryTransactionS2CPacket(List<RegistryDeltaS2CPacket> deltas) implements SidedPacket<ClientPacketListener> {
+        public static final Codec<RegistryTransactionS2CPacket> CODEC = RecordCodecBuilder.create(instance -> instance.group(
+                        RegistryDeltaS2CPacket.CODEC.listOf().fieldOf("deltas").forGetter(RegistryTransactionS2CPacket::deltas)
+                ).apply(instance, RegistryTransactionS2CPacket::new)
+        );
+
+        @Override
+        public Side getSide() {
+            return Side.CLIENT;
+        }
+
+        @Override
+        public void apply(ClientPacketListener packetListener) {
+            packetListener.onReceivedTransaction(this);
+        }
+
+        @Override
+        public String getPacketId() {
+            return "registry_transaction_s2c_packet";
+        }
+
+        @Override
+        public @NotNull Codec<RegistryTransactionS2CPacket> getCodec() {
+            return CODEC;
+        }
+    }
+
+    /**
+     * 클라이언트가 이미 최신 버전을 가지고 있는 레지스트리 목록이다. 데이터는 담겨 있지 않다.
+     */
+    public record RegistryUnchangedS2CPacket(List<String> registryIds) implements SidedPacket<ClientPacketListener> {
+        public static final Codec<RegistryUnchangedS2CPacket> CODEC = RecordCodecBuilder.create(instance -> instance.group(
+                        Codec.STRING.listOf().fieldOf("registryIds").forGetter(RegistryUnchangedS2CPacket::registryIds)
+                ).apply(instance, RegistryUnchangedS2CPacket::new)
+        );
+
+        @Override
+        public Side getSide() {
+            return Side.CLIENT;
+        }
+
+        @Override
+        public void apply(ClientPacketListener packetListener) {
+            packetListener.onRegistryUnchanged(this);
+        }
+
+        @Override
+        public String getPacketId() {
+            return "registry_unchanged_s2c_packet";
+        }
+
+        @Override
+        public @NotNull Codec<RegistryUnchangedS2CPacket> getCodec() {
+            return CODEC;
+        }
+    }
+
+    private record SizedDelta(RegistryDeltaS2CPacket packet, int size) {
+    }
+
+    /**
+     * {@link JsonElement#toString()}이 만들 문자열을 실제로 만들지 않고 길이만 센다.
+     */
+    private static final class JsonLength extends Writer {
+        private int length = 0;
+
+        private static int of(JsonElement json) {
+            JsonLength counter = new JsonLength();
+            // 세는 Writer 는 실패하지 않는다.
+            GSON.toJson(json, new JsonWriter(counter));
+            return counter.length;
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            this.length += length;
+        }
+
+        @Override
+        public void write(int c) {
+            this.length++;
+        }
+
+        @Override
+        public void write(String string, int offset, int length) {
+            this.length += length;
+        }
+
+        @Override
+        public Writer append(CharSequence sequence) {
+            this.length += String.valueOf(sequence).length();
+            return this;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
 }
@@ -0,0 +1,71 @@
+package common.registry;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import common.Category;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 카테고리 레지스트리. 메뉴 ID 에서 그 메뉴가 속한 카테고리 ID 로의 역 인덱스를 함께 유지하여,
+ * 메뉴가 어느 카테고리에 있는지 찾을 때 모든 카테고리의 메뉴 목록을 훑지 않아도 된다. <br>
+ * 역 인덱스는 스냅샷을 만들 때 함께 만들어져 같은 참조로 공개되므로, 락 없이 읽어도 {@link #getAll()}과 항상 같은 시점을 본다.
+ */
+public class CategoryRegistry extends SimpleRegistry<Category> {
+    public CategoryRegistry() {
+        super("categories", Category.SYNC_CODEC, Category.class);
+    }
+
+    @Override
+    protected Map<String, Set<String>> deriveIndex(Map<String, Category> entries) {
+        Map<String, ImmutableSet.Builder<String>> builders = new LinkedHashMap<>();
+        entries.forEach((id, category) -> {
+            for (String menuId : category.menuIds()) {
+                builders.computeIfAbsent(menuId, key -> ImmutableSet.builder()).add(id);
+            }
+        });
+        ImmutableMap.Builder<String, Set<String>> index = ImmutableMap.builderWithExpectedSize(builders.size());
+        builders.forEach((menuId, categoryIds) -> index.put(menuId, categoryIds.build()));
+        return index.build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Set<String>> indexOf(Snapshot<Category> snapshot) {
+        Object derived = snapshot.derived();
+        return derived == null ? Map.of() : (Map<String, Set<String>>) derived;
+    }
+
+    /**
+     * @param menuId 메뉴 ID
+     * @return 해당 메뉴를 포함하는 카테고리의 ID. 없다면 빈 집합
+     */
+    public Set<String> getCategoryIds(String menuId) {
+        return indexOf(this.snapshot()).getOrDefault(menuId, Set.of());
+    }
+
+    /**
+     * @param menuId 메뉴 ID
+     * @return 해당 메뉴를 포함하는 카테고리들
+     */
+    public List<Category> getCategoriesOf(String menuId) {
+        Snapshot<Category> snapshot = this.snapshot();
+        Set<String> categoryIds = indexOf(snapshot).getOrDefault(menuId, Set.of());
+        List<Category> categories = new ArrayList<>(categoryIds.size());
+        for (String categoryId : categoryIds) {
+            categories.add(snapshot.idToEntry().get(categoryId));
+        }
+        return categories;
+    }
+
+    /**
+     * @param menuId 메뉴 ID
+     * @return 메뉴가 하나 이상의 카테고리에 속해 있다면 true
+     */
+    public boolean isAssigned(String menuId) {
+        return indexOf(this.snapshot()).containsKey(menuId);
+    }
+}
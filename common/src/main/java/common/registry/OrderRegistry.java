@@ -1,14 +1,301 @@
 package common.registry;
 
+import com.google.common.collect.Collections2;
+import com.google.common.collect.Iterators;
+import com.google.common.primitives.Ints;
+import common.CompactOrder;
 import common.Order;
+import common.OrderStatus;
 import common.network.SynchronizeData;
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntLinkedOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractCollection;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
 
+/**
+ * 주문은 계속 쌓이기만 하고 여러 단말에서 동시에 들어오므로, {@link SimpleRegistry}의 전역 락과 스냅샷 대신
+ * 주문 번호로 나눈 stripe 별 {@link Int2ObjectMap}과 주문 번호 내림차순의 {@link ConcurrentSkipListMap}에 저장한다. <br>
+ * 서로 다른 stripe 의 주문은 락을 공유하지 않으며, 정렬된 순회에 정렬이 필요하지 않다.
+ * 주문의 raw index 는 주문 번호이다. 주문 번호는 단말마다 빌려 간 블록에서 발급되므로 주문 시각 순서와 다를 수 있으며,
+ * 시각 순서가 필요하다면 {@link #getOrdersBetween(LocalDateTime, LocalDateTime)}을 사용해야 한다. <br>
+ * 상태, 주문자, 주문 시각 별 보조 인덱스를 함께 유지하며, 조회 메소드는 복사 없이 인덱스의 view 를 반환한다. <br>
+ * 저장소와 인덱스는 하나의 {@link State}에 묶여 있다. 주문 하나의 쓰기는 현재 상태를 stripe 락 안에서 고치고,
+ * 전체 교체와 비우기는 새 상태를 만든 뒤 volatile 참조 하나로 공개하므로 락 없이 읽는 쪽도 교체 도중의 상태를 보지 않는다.
+ * {@link RegistryTransaction}도 현재 상태의 사본을 고친 뒤 같은 방식으로 공개한다. <br>
+ * 주문은 {@link CompactOrder}로 압축하여 저장하고, 조회할 때 {@link Order}로 복원한다. 같은 주문을 여러번 조회하면 매번 새 객체가 만들어진다.
+ */
 public class OrderRegistry extends SimpleRegistry<Order> {
+    private static final int STRIPE_COUNT = 16;
+    private final ReentrantReadWriteLock[] locks = new ReentrantReadWriteLock[STRIPE_COUNT];
+    private volatile State state = new State();
+    /**
+     * 마지막으로 만든 {@link #getAll()}의 결과. 상태와 버전이 같다면 다시 만들지 않는다.
+     */
+    private volatile OrderList all;
+    /**
+     * 트랜잭션이 고치고 있는 상태의 사본. 처음 쓸 때 현재 상태를 복사해 만들고, 공개할 때 현재 상태와 바꿔 끼운다.
+     * 아래 필드와 함께 모든 stripe 를 잡은 스레드만 접근한다.
+     */
+    private @Nullable State staged;
+    private final IntSet stagedIds = new IntLinkedOpenHashSet();
+    private long transactionStartVersion;
+    private List<RegistryEntryChange<Order>> transactionChanges = List.of();
+
     public OrderRegistry() {
         super("order", Order.CODEC, Order.class);
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            this.locks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    /**
+     * 주문 시각 인덱스의 키. 같은 시각의 주문은 주문 번호로 구분한다.
+     */
+    private record TimeKey(long epochSecond, int nano, int orderId) implements Comparable<TimeKey> {
+        private static final Comparator<TimeKey> COMPARATOR = Comparator.comparingLong(TimeKey::epochSecond)
+                .thenComparingInt(TimeKey::nano)
+                .thenComparingInt(TimeKey::orderId);
+
+        private static TimeKey of(CompactOrder order) {
+            return new TimeKey(order.epochSecond(), order.nano(), order.orderId());
+        }
+
+        /**
+         * @return 해당 시각의 어떤 주문보다도 앞서는 키
+         */
+        private static TimeKey lowerBound(LocalDateTime time) {
+            return new TimeKey(time.toEpochSecond(ZoneOffset.UTC), time.getNano(), Integer.MIN_VALUE);
+        }
+
+        @Override
+        public int compareTo(@NotNull TimeKey o) {
+            return COMPARATOR.compare(this, o);
+        }
+    }
+
+    private static int stripeOf(int orderId) {
+        return HashCommon.mix(orderId) & (STRIPE_COUNT - 1);
+    }
+
+    /**
+     * 주문 저장소와 보조 인덱스 한 벌. 공개된 상태는 해당 stripe 의 쓰기 락 안에서만 고쳐진다.
+     * stripe 맵은 thread-safe 하지 않으므로 읽을 때도 stripe 의 읽기 락을 잡아야 하며, 나머지 인덱스는 락 없이 읽을 수 있다.
+     */
+    private static final class State {
+        @SuppressWarnings("unchecked")
+        private final Int2ObjectMap<CompactOrder>[] stripes = new Int2ObjectMap[STRIPE_COUNT];
+        private final ConcurrentNavigableMap<Integer, CompactOrder> ordered = new ConcurrentSkipListMap<>(Comparator.reverseOrder());
+        private final AtomicInteger size = new AtomicInteger();
+        private final Map<OrderStatus, ConcurrentNavigableMap<Integer, CompactOrder>> byStatus = new EnumMap<>(OrderStatus.class);
+        private final ConcurrentMap<String, ConcurrentNavigableMap<Integer, CompactOrder>> byCustomer = new ConcurrentHashMap<>();
+        private final ConcurrentNavigableMap<TimeKey, CompactOrder> byTime = new ConcurrentSkipListMap<>();
+
+        private State() {
+            for (int i = 0; i < STRIPE_COUNT; i++) {
+                this.stripes[i] = new Int2ObjectOpenHashMap<>();
+            }
+            // 맵 자체는 이후 바뀌지 않으므로 EnumMap 이어도 안전하다.
+            for (OrderStatus status : OrderStatus.values()) {
+                this.byStatus.put(status, new ConcurrentSkipListMap<>(Comparator.reverseOrder()));
+            }
+        }
+
+        private @Nullable CompactOrder get(int orderId) {
+            return this.stripes[stripeOf(orderId)].get(orderId);
+        }
+
+        /**
+         * 모든 stripe 의 쓰기 락을 잡은 상태에서만 호출해야 한다.
+         */
+        private State copy() {
+            State copy = new State();
+            for (CompactOrder order : this.ordered.values()) {
+                copy.put(order);
+            }
+            return copy;
+        }
+
+        /**
+         * @return 덮어쓴 주문. 없었다면 null
+         */
+        private @Nullable CompactOrder put(CompactOrder order) {
+            CompactOrder previous = this.stripes[stripeOf(order.orderId())].put(order.orderId(), order);
+            this.ordered.put(order.orderId(), order);
+            if (previous == null) {
+                this.size.incrementAndGet();
+            } else {
+                this.unindex(previous);
+            }
+            this.index(order);
+            return previous;
+        }
+
+        private @Nullable CompactOrder remove(int orderId) {
+            CompactOrder existing = this.stripes[stripeOf(orderId)].remove(orderId);
+            if (existing != null) {
+                this.ordered.remove(orderId);
+                this.unindex(existing);
+                this.size.decrementAndGet();
+            }
+            return existing;
+        }
+
+        private void index(CompactOrder order) {
+            this.byStatus.get(order.status()).put(order.orderId(), order);
+            this.byCustomer.compute(order.customer(), (customer, orders) -> {
+                if (orders == null) {
+                    orders = new ConcurrentSkipListMap<>(Comparator.reverseOrder());
+                }
+                orders.put(order.orderId(), order);
+                return orders;
+            });
+            this.byTime.put(TimeKey.of(order), order);
+        }
+
+        private void unindex(CompactOrder order) {
+            this.byStatus.get(order.status()).remove(order.orderId());
+            // 비어버린 주문자는 같은 원자적 연산 안에서 제거하여, 동시에 추가되는 주문이 버려진 맵에 들어가지 않도록 한다.
+            this.byCustomer.computeIfPresent(order.customer(), (customer, orders) -> {
+                orders.remove(order.orderId());
+                return orders.isEmpty() ? null : orders;
+            });
+            this.byTime.remove(TimeKey.of(order));
+        }
+    }
+
+    /**
+     * 모든 stripe 의 쓰기 락을 순서대로 잡는다. 전체를 비우거나 교체할 때만 사용한다.
+     */
+    private void lockAll() {
+        for (ReentrantReadWriteLock lock : this.locks) {
+            lock.writeLock().lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = STRIPE_COUNT - 1; i >= 0; i--) {
+            this.locks[i].writeLock().unlock();
+        }
+    }
+
+    @Override
+    void lockForTransaction() {
+        this.lockAll();
+        this.transactionStartVersion = this.version.get();
+    }
+
+    private State staged() {
+        if (this.staged == null) {
+            this.staged = this.state.copy();
+        }
+        return this.staged;
+    }
+
+    /**
+     * 사본에만 반영하므로 공개되기 전까지 락 없이 읽는 쪽에는 보이지 않는다.
+     */
+    @Override
+    void putForTransaction(String id, SynchronizeData<?> entry) {
+        if (!(entry instanceof Order order)) {
+            throw new IllegalArgumentException("Entry must be an instance of Order");
+        }
+        this.staged().put(CompactOrder.of(order));
+        this.stagedIds.add(order.orderId());
+    }
+
+    @Override
+    boolean removeForTransaction(String id) {
+        Integer orderId = Ints.tryParse(id);
+        if (orderId == null || this.staged().remove(orderId) == null) {
+            return false;
+        }
+        this.stagedIds.add(orderId.intValue());
+        return true;
+    }
+
+    @Override
+    @Nullable Order peek(String id) {
+        Integer orderId = Ints.tryParse(id);
+        if (orderId == null) {
+            return null;
+        }
+        CompactOrder order = (this.staged != null ? this.staged : this.state).get(orderId);
+        return order == null ? null : order.toOrder();
+    }
+
+    @Override
+    void prepareTransaction() {
+        if (this.staged == null) {
+            return;
+        }
+        List<RegistryEntryChange<Order>> changes = new ArrayList<>(this.stagedIds.size());
+        for (IntIterator iterator = this.stagedIds.iterator(); iterator.hasNext(); ) {
+            int orderId = iterator.nextInt();
+            CompactOrder previous = this.state.get(orderId);
+            CompactOrder current = this.staged.get(orderId);
+            if (Objects.equals(previous, current)) {
+                continue;
+            }
+            String id = String.valueOf(orderId);
+            Order order = current == null ? null : current.toOrder();
+            long version = order == null ? this.recordRemoval(id) : this.recordUpsert(id, order);
+            changes.add(RegistryEntryChange.of(id, previous == null ? null : previous.toOrder(), order, version));
+        }
+        this.transactionChanges = changes;
+    }
+
+    @Override
+    void publishTransaction() {
+        if (this.staged != null) {
+            this.state = this.staged;
+            this.staged = null;
+            this.stagedIds.clear();
+        }
+    }
+
+    /**
+     * 사본을 버리면 된다. 현재 상태는 트랜잭션 동안 바뀌지 않았다.
+     */
+    @Override
+    void rollbackTransaction() {
+        this.discardRecordsAfter(this.transactionStartVersion);
+        this.staged = null;
+        this.stagedIds.clear();
+        this.transactionChanges = List.of();
+    }
+
+    @Override
+    Runnable unlockForTransaction() {
+        List<RegistryEntryChange<Order>> changes = this.transactionChanges;
+        this.transactionChanges = List.of();
+        this.unlockAll();
+        return () -> this.fireChanges(changes);
     }
 
     @Override
@@ -19,66 +306,322 @@ public class OrderRegistry extends SimpleRegistry<Order> {
         return this.addOrder(order);
     }
 
-    public Order getOrderById(int orderId) {
-        return this.rawIndexToEntry.get(orderId);
+    public @Nullable Order getOrderById(int orderId) {
+        CompactOrder order = this.getCompactOrder(orderId);
+        return order == null ? null : order.toOrder();
+    }
+
+    /**
+     * 주문을 복원하지 않고 저장된 형태 그대로 반환한다. 상태나 총액만 필요할 때 사용한다.
+     */
+    public @Nullable CompactOrder getCompactOrder(int orderId) {
+        ReentrantReadWriteLock lock = this.locks[stripeOf(orderId)];
+        lock.readLock().lock();
+        try {
+            return this.state.get(orderId);
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     public Order addOrder(Order order) {
         if (isFrozen()) throw new IllegalStateException("Registry is frozen");
+        RegistryEntryChange<Order> change = this.put(order);
+        this.fireChanges(change == null ? List.of() : List.of(change));
+        return order;
+    }
+
+    /**
+     * 같은 주문 ID는 덮어쓰므로 항상 주문 ID당 하나의 최신 상태만 유지된다. <br>
+     * 변경 기록도 stripe 락 안에서 남겨, 같은 주문에 대한 기록 순서가 실제 반영 순서와 같도록 한다.
+     * @return 발생시킬 변경. 같은 내용의 주문인 경우 아무것도 기록하지 않고 null
+     */
+    private @Nullable RegistryEntryChange<Order> put(Order order) {
+        CompactOrder compact = CompactOrder.of(order);
+        ReentrantReadWriteLock lock = this.locks[stripeOf(order.orderId())];
+        lock.writeLock().lock();
         try {
-            lock.writeLock().lock();
+            // 상태는 락을 잡은 뒤에 읽어야 교체되기 전의 상태를 고치지 않는다.
+            CompactOrder previous = this.state.get(order.orderId());
+            if (compact.equals(previous)) {
+                // 같은 내용이라면 변경 기록과 버전을 남기지 않는다.
+                return null;
+            }
+            this.state.put(compact);
+            String id = String.valueOf(order.orderId());
+            long version = this.recordUpsert(id, order);
+            return RegistryEntryChange.of(id, previous == null ? null : previous.toOrder(), order, version);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param status 주문 상태
+     * @return 해당 상태의 주문들. 주문 번호 내림차순이며, 레지스트리의 변경이 반영되는 view 이다.
+     */
+    public Collection<Order> getOrdersByStatus(OrderStatus status) {
+        return this.view(state -> state.byStatus.get(status).values());
+    }
+
+    /**
+     * @param customer 주문자
+     * @return 해당 주문자의 주문들. 주문 번호 내림차순이며, 레지스트리의 변경이 반영되는 view 이다.
+     */
+    public Collection<Order> getOrdersByCustomer(String customer) {
+        return this.view(state -> {
+            ConcurrentNavigableMap<Integer, CompactOrder> orders = state.byCustomer.get(customer);
+            return orders == null ? List.of() : orders.values();
+        });
+    }
 
-            this.ITEMS.removeIf(existingOrder -> existingOrder.orderId() == order.orderId());
+    /**
+     * @param from 시작 시각 (포함)
+     * @param to 끝 시각 (제외)
+     * @return 주어진 기간의 주문들. 최근 주문부터 반환하며, 레지스트리의 변경이 반영되는 view 이다.
+     */
+    public Collection<Order> getOrdersBetween(LocalDateTime from, LocalDateTime to) {
+        return this.view(state -> compactOrdersBetween(state, from, to));
+    }
 
-            //이제 리스트에는 해당 orderId가 없으므로, 안심하고 새 주문을 추가.
-            //항상 주문 ID당 하나의 최신 상태만 유지.
-            this.ITEMS.add(order);
+    /**
+     * 기간 인덱스로 범위를 먼저 좁힌 뒤 상태를 걸러낸다. 오늘의 대기 주문처럼 기간이 짧은 조회는 전체 주문 수와 무관하게 빠르다.
+     * 상태는 압축된 주문에서 확인하므로 걸러진 주문만 복원된다.
+     * @return 주어진 기간과 상태의 주문들. 순회할 때마다 다시 걸러지는 view 이다.
+     */
+    public Collection<Order> getOrdersBetween(LocalDateTime from, LocalDateTime to, OrderStatus status) {
+        return this.view(state -> Collections2.filter(compactOrdersBetween(state, from, to), order -> order.status() == status));
+    }
 
-            // 나머지 Map 데이터들은 key-value 형태이므로 자동으로 덮어쓰기.
-            String wrappedId = String.valueOf(order.orderId());
-            this.rawIndexToEntry.put(order.orderId(), order);
-            this.idToEntry.put(wrappedId, order);
-            this.entryToId.put(order, wrappedId);
-            this.entryToRawIndex.put(order, order.orderId());
+    /**
+     * {@link #getOrdersBetween(LocalDateTime, LocalDateTime)}와 같지만 주문을 복원하지 않는다.
+     * 상태나 시각으로 먼저 거른 뒤 필요한 주문만 {@link CompactOrder#toOrder()}로 복원할 때 사용한다.
+     */
+    public Collection<CompactOrder> getCompactOrdersBetween(LocalDateTime from, LocalDateTime to) {
+        return this.compactView(state -> compactOrdersBetween(state, from, to));
+    }
 
-            return order;
-        } finally {
-            lock.writeLock().unlock();
+    private static Collection<CompactOrder> compactOrdersBetween(State state, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            return List.of();
         }
+        return state.byTime
+                .subMap(TimeKey.lowerBound(from), true, TimeKey.lowerBound(to), false)
+                .descendingMap()
+                .values();
+    }
+
+    /**
+     * 순회할 때 그 시점의 상태에서 주문을 찾아 복원하는 읽기 전용 view 를 만든다. 레지스트리가 통째로 교체되어도 새 상태를 따라간다.
+     */
+    private Collection<Order> view(Function<State, Collection<CompactOrder>> orders) {
+        return Collections2.transform(this.compactView(orders), CompactOrder::toOrder);
+    }
+
+    private Collection<CompactOrder> compactView(Function<State, Collection<CompactOrder>> orders) {
+        return new AbstractCollection<>() {
+            @Override
+            public @NotNull Iterator<CompactOrder> iterator() {
+                return Iterators.unmodifiableIterator(orders.apply(OrderRegistry.this.state).iterator());
+            }
+
+            @Override
+            public int size() {
+                return orders.apply(OrderRegistry.this.state).size();
+            }
+        };
     }
 
-    // addOrder 메소드와 동일한 이유로 수정.
     @Override
     public void addAll(List<SynchronizeData<?>> dataList) {
         if (this.isFrozen()) throw new IllegalStateException("Registry is frozen");
-        try {
-            lock.writeLock().lock();
-            dataList.forEach(data -> {
-                if (!(data instanceof Order order)) {
-                    this.LOGGER.warn("Entry must be an instance of Order");
-                    return;
-                }
+        List<RegistryEntryChange<Order>> changes = new ArrayList<>(dataList.size());
+        dataList.forEach(data -> {
+            if (!(data instanceof Order order)) {
+                this.LOGGER.warn("Entry must be an instance of Order");
+                return;
+            }
+            RegistryEntryChange<Order> change = this.put(order);
+            if (change != null) {
+                changes.add(change);
+            }
+        });
+        this.fireChanges(changes);
+    }
 
-                // addOrder와 동일하게 중복을 방지하기 위해 기존 항목을 먼저 제거.
-                this.ITEMS.removeIf(existingOrder -> existingOrder.orderId() == order.orderId());
-                this.ITEMS.add(order);
+    @Override
+    public Optional<Order> getById(String id) {
+        Integer orderId = Ints.tryParse(id);
+        return orderId == null ? Optional.empty() : Optional.ofNullable(this.getOrderById(orderId));
+    }
 
-                this.rawIndexToEntry.put(order.orderId(), order);
-                this.idToEntry.put(String.valueOf(order.orderId()), order);
-                this.entryToId.put(order, String.valueOf(order.orderId()));
-                this.entryToRawIndex.put(order, order.orderId());
-            });
+    @Override
+    public long getVersion() {
+        return this.version.get();
+    }
+
+    /**
+     * @return 가장 큰 주문 번호. 주문이 없다면 -1
+     */
+    public int getMaxOrderId() {
+        Map.Entry<Integer, CompactOrder> first = this.state.ordered.firstEntry();
+        return first == null ? -1 : first.getKey();
+    }
+
+    /**
+     * 조회할 때마다 새 주문 객체가 만들어지므로, 저장된 주문과 내용이 같다면 주문 번호를 반환한다.
+     * 주문을 압축하지 않고 저장된 형태와 바로 비교한다.
+     */
+    @Override
+    public int getRawId(Order order) {
+        CompactOrder stored = this.getCompactOrder(order.orderId());
+        return stored != null && stored.matches(order) ? order.orderId() : ABSENT_LOW_INDEX;
+    }
+
+    @Override
+    public @Nullable Order get(int orderId) {
+        return this.getOrderById(orderId);
+    }
+
+    @Override
+    public int size() {
+        return this.state.size.get();
+    }
+
+    /**
+     * 주문 번호 내림차순. 순회 중 추가된 주문은 보일 수도, 보이지 않을 수도 있다. <br>
+     * 요소마다 주문을 복원하므로, 일부 주문만 필요하다면 인덱스 조회나 {@link #getCompactOrdersBetween(LocalDateTime, LocalDateTime)}를 사용한다.
+     */
+    @Override
+    public @NotNull Iterator<Order> iterator() {
+        return this.view(state -> state.ordered.values()).iterator();
+    }
+
+    /**
+     * 주문 번호 내림차순. 압축된 주문의 배열만 복사해 두고 요소를 꺼낼 때 복원하며, 그 배열은 레지스트리가 바뀌기 전까지 재사용된다.
+     */
+    @Override
+    public List<Order> getAll() {
+        // 버전을 먼저 읽는다. 읽는 사이 바뀐 내용이 담기더라도 다음 호출에서 다시 만들어 질 뿐이다.
+        long version = this.version.get();
+        State state = this.state;
+        OrderList cached = this.all;
+        if (cached != null && cached.version == version && cached.state == state) {
+            return cached;
+        }
+        cached = new OrderList(version, state, state.ordered.values().toArray(new CompactOrder[0]));
+        this.all = cached;
+        return cached;
+    }
 
+    private static final class OrderList extends AbstractList<Order> implements RandomAccess {
+        private final long version;
+        private final State state;
+        private final CompactOrder[] orders;
+
+        private OrderList(long version, State state, CompactOrder[] orders) {
+            this.version = version;
+            this.state = state;
+            this.orders = orders;
+        }
+
+        @Override
+        public Order get(int index) {
+            return this.orders[index].toOrder();
+        }
+
+        @Override
+        public int size() {
+            return this.orders.length;
+        }
+    }
+
+    @Override
+    public boolean remove(String id) {
+        if (this.isFrozen()) {
+            throw new IllegalStateException("Registry is already frozen");
+        }
+        Integer orderId = Ints.tryParse(id);
+        return orderId != null && this.removeOrder(orderId, null);
+    }
+
+    @Override
+    public boolean remove(Order entry) {
+        if (entry == null) return false;
+        if (this.isFrozen()) {
+            throw new IllegalStateException("Registry is already frozen");
+        }
+        return this.removeOrder(entry.orderId(), CompactOrder.of(entry));
+    }
+
+    /**
+     * @param expected null 이 아니라면 저장된 주문이 이와 같을 때만 제거한다.
+     */
+    private boolean removeOrder(int orderId, @Nullable CompactOrder expected) {
+        ReentrantReadWriteLock lock = this.locks[stripeOf(orderId)];
+        RegistryEntryChange<Order> change;
+        lock.writeLock().lock();
+        try {
+            State state = this.state;
+            CompactOrder existing = state.get(orderId);
+            if (existing == null || (expected != null && !expected.equals(existing))) {
+                return false;
+            }
+            state.remove(orderId);
+            String id = String.valueOf(orderId);
+            change = RegistryEntryChange.of(id, existing.toOrder(), null, this.recordRemoval(id));
+            LOGGER.info("Removed {} with id {}", existing, orderId);
         } finally {
             lock.writeLock().unlock();
         }
+        this.fireChanges(List.of(change));
+        return true;
     }
 
-   // 주문목록 내림차순
     @Override
-    public List<Order> getAll() {
-        List<Order> orderList = new ArrayList<>(this.ITEMS);
-        orderList.sort(Comparator.comparingInt(Order::orderId).reversed());
-        return orderList;
+    public void clear() {
+        if (this.isFrozen()) {
+            throw new IllegalStateException("Registry is already frozen");
+        }
+        this.replaceAll(List.of());
+    }
+
+    /**
+     * 새 상태를 락 밖에서 모두 만든 뒤, 모든 stripe 를 잠근 채로 한번에 바꿔 끼운다. 다른 쓰기와 섞이지 않으며,
+     * 락 없이 읽는 쪽은 이전 상태나 새 상태 중 하나만 본다. <br>
+     * 변경 이벤트는 교체 전후를 비교하여 실제로 달라진 주문만 담는다.
+     */
+    @Override
+    public void replaceAll(List<SynchronizeData<?>> data) {
+        State next = new State();
+        for (SynchronizeData<?> entry : data) {
+            if (!(entry instanceof Order order)) {
+                this.LOGGER.warn("Entry must be an instance of Order");
+                continue;
+            }
+            next.put(CompactOrder.of(order));
+        }
+
+        List<RegistryEntryChange<Order>> changes = new ArrayList<>();
+        this.lockAll();
+        try {
+            State previous = this.state;
+            this.state = next;
+            long version = this.recordReset();
+            for (CompactOrder order : next.ordered.values()) {
+                CompactOrder old = previous.get(order.orderId());
+                if (!order.equals(old)) {
+                    changes.add(RegistryEntryChange.of(String.valueOf(order.orderId()), old == null ? null : old.toOrder(), order.toOrder(), version));
+                }
+            }
+            for (CompactOrder order : previous.ordered.values()) {
+                if (next.get(order.orderId()) == null) {
+                    changes.add(RegistryEntryChange.of(String.valueOf(order.orderId()), order.toOrder(), null, version));
+                }
+            }
+        } finally {
+            this.unlockAll();
+        }
+        this.fireChanges(changes);
     }
 }
@@ -1,6 +1,8 @@
 package common.registry;
 
 import com.mojang.serialization.Codec;
+import common.event.Event;
+import common.event.RegistryChangedEvent;
 import common.network.SynchronizeData;
 import common.util.IndexIterable;
 import org.jetbrains.annotations.NotNull;
@@ -16,6 +18,26 @@ public interface Registry<T extends SynchronizeData<?>> extends IndexIterable<T>
     String getRegistryId();
     Optional<T> getById(String id);
     boolean isFrozen();
+
+    /**
+     * 레지스트리의 내용이 바뀔 때마다 증가하는 버전이다. 같은 버전이라면 내용도 같음이 보장된다.
+     * @return 현재 버전
+     */
+    long getVersion();
+
+    /**
+     * 주어진 버전 이후의 변경 기록을 반환한다. 변경 기록은 일정 개수만 보관되므로, 너무 오래된 버전이거나
+     * 그 사이에 {@link #clear()}가 호출된 경우에는 변경 기록으로 따라잡을 수 없다.
+     * @param version 기준 버전
+     * @return 버전 순으로 정렬된 변경 기록. 따라잡을 수 없는 경우 {@link Optional#empty()}
+     */
+    Optional<List<RegistryChange<T>>> getChangesSince(long version);
+
+    /**
+     * 요소 단위의 변경을 구독하기 위한 이벤트이다.
+     * @return 이 레지스트리의 변경 이벤트
+     */
+    Event<RegistryChangedEvent<T>> getChangeEvent();
     void freeze();
     void unfreeze();
     T add(String id, SynchronizeData<?> entry);
@@ -26,6 +48,26 @@ public interface Registry<T extends SynchronizeData<?>> extends IndexIterable<T>
     Codec<T> getCodec();
     List<T> getAll();
     void clear();
+
+    /**
+     * 레지스트리의 모든 요소를 주어진 데이터로 교체한다. 기본 구현은 {@link #clear()} 후 {@link #addAll(List)}를 호출하므로
+     * 중간 상태가 보일 수 있다. 구현체는 가능하다면 한번에 교체되도록 재정의해야 한다.
+     * @param data 새로 채울 데이터
+     */
+    default void replaceAll(List<SynchronizeData<?>> data) {
+        this.clear();
+        this.addAll(data);
+    }
+
+    /**
+     * 변경 사항을 한번에 반영한다. {@link #replaceAll(List)}와 마찬가지로 구현체는 가능하다면 한번에 반영되도록 재정의해야 한다.
+     * @param upserts 추가 또는 교체할 요소
+     * @param removals 제거할 요소의 ID
+     */
+    default void applyChanges(List<SynchronizeData<?>> upserts, List<String> removals) {
+        removals.forEach(this::remove);
+        upserts.forEach(entry -> this.add(entry.getRegistryElementId(), entry));
+    }
     /**
      * 왜 ClassType 을 요구하는지 의아할 수 있다. 이는 add 에서 <code>Serializable</code>을 안전하게 넣기 위함이다. 클라이언트에서 이러한
      * 데이터 타입을 받았을 때 상술한 데이터타입으로 들어오는데, 이 때 알맞지 않은 데이터 타입이 들어올 수도 있다. 이를 위해 ClassType을 지정하여
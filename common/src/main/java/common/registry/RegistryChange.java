@@ -0,0 +1,17 @@
+package common.registry;
+
+import common.network.SynchronizeData;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * {@link Registry}의 변경 기록 한 건이다. entry 가 null 이라면 해당 ID 의 요소가 제거되었음을 의미한다.
+ * @param version 이 변경으로 인해 올라간 레지스트리 버전
+ * @param id 변경된 요소의 ID
+ * @param entry 추가 또는 교체된 요소. 제거된 경우 null
+ * @see Registry#getChangesSince(long)
+ */
+public record RegistryChange<T extends SynchronizeData<?>>(long version, String id, @Nullable T entry) {
+    public boolean isRemoval() {
+        return this.entry == null;
+    }
+}
@@ -0,0 +1,41 @@
+package common.registry;
+
+import common.network.SynchronizeData;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * {@link common.event.RegistryChangedEvent}로 전달되는 요소 단위의 변경이다. {@link RegistryChange}와 달리 이전 값을 함께 가지므로
+ * 리스너가 화면의 해당 행만 고칠 수 있다.
+ * @param type 변경 종류
+ * @param id 변경된 요소의 ID
+ * @param oldValue 이전 요소. 추가된 경우 null
+ * @param newValue 새 요소. 제거된 경우 null
+ * @param version 이 변경이 반영된 레지스트리 버전
+ */
+public record RegistryEntryChange<T extends SynchronizeData<?>>(Type type, String id, @Nullable T oldValue, @Nullable T newValue, long version) {
+    public enum Type {
+        ADDED,
+        UPDATED,
+        REMOVED
+    }
+
+    /**
+     * 이전 값과 새 값으로부터 변경을 만든다.
+     * @return 둘 다 없거나 같은 값이라면 null
+     */
+    public static <T extends SynchronizeData<?>> @Nullable RegistryEntryChange<T> of(String id, @Nullable T oldValue, @Nullable T newValue, long version) {
+        if (oldValue == null && newValue == null) {
+            return null;
+        }
+        if (oldValue == null) {
+            return new RegistryEntryChange<>(Type.ADDED, id, null, newValue, version);
+        }
+        if (newValue == null) {
+            return new RegistryEntryChange<>(Type.REMOVED, id, oldValue, null, version);
+        }
+        if (oldValue.equals(newValue)) {
+            return null;
+        }
+        return new RegistryEntryChange<>(Type.UPDATED, id, oldValue, newValue, version);
+    }
+}
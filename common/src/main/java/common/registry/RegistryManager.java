@@ -1,6 +1,7 @@
 package common.registry;
 
 import com.google.common.collect.ImmutableList;
+import com.mojang.serialization.Codec;
 import common.Category;
 import common.Menu;
 import common.Option;
@@ -12,6 +13,8 @@ import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
  * Serializable 순서
@@ -19,29 +22,107 @@ import java.util.List;
  * 2. OptioGroups
  * 3. MENUS
  * 4. CATEGORIES
+ * <br>
+ * 레지스트리를 등록할 때 디코딩에 필요한 레지스트리를 함께 선언한다. {@link #getDependencies(Registry)}로 확인할 수 있으며,
+ * 서로 의존하지 않는 레지스트리는 동시에 읽을 수 있다.
  */
 public class RegistryManager {
     private static final HashMap<String, Registry<?>> REGISTRY_MAP = new HashMap<>();
     private static final List<Registry<?>> ENTRIES = new ArrayList<>();
+    private static final HashMap<String, List<Registry<?>>> DEPENDENCIES = new HashMap<>();
+    /**
+     * 트랜잭션이 스냅샷을 공개하는 동안에만 홀수이다. {@link #readConsistent(Supplier)}가 공개 도중의 상태를 걸러내는 데 사용한다.
+     */
+    private static final AtomicLong PUBLISH_SEQUENCE = new AtomicLong();
+    private static final Object PUBLISH_LOCK = new Object();
     public static Registry<?> getAsId(String id) {
         return REGISTRY_MAP.get(id);
     }
 
+    /**
+     * 레지스트리 ID 에 해당하는 레지스트리의 코덱을 반환한다. 패킷처럼 레지스트리 타입을 런타임에 알게 되는 경우에 사용한다.
+     * @param id 레지스트리 ID
+     * @throws IllegalArgumentException 해당 ID의 레지스트리가 없을 경우
+     */
+    @SuppressWarnings("unchecked")
+    public static Codec<SynchronizeData<?>> getCodecAsId(String id) {
+        Registry<?> registry = getAsId(id);
+        if (registry == null) {
+            throw new IllegalArgumentException("Unknown registry id: " + id);
+        }
+        return (Codec<SynchronizeData<?>>) registry.getCodec();
+    }
+
     public static final Registry<Option> OPTIONS = new SimpleRegistry<>("options", Option.SYNC_CODEC, Option.class);
     public static final Registry<OptionGroup> OPTION_GROUPS = new SimpleRegistry<>("option_groups", OptionGroup.SYNC_CODEC, OptionGroup.class);
     public static final Registry<Menu> MENUS = new SimpleRegistry<>("menus", Menu.SYNC_CODEC, Menu.class);
-    public static final Registry<Category> CATEGORIES = new SimpleRegistry<>("categories", Category.SYNC_CODEC, Category.class);
+    public static final CategoryRegistry CATEGORIES = new CategoryRegistry();
     public static final OrderRegistry ORDERS = new OrderRegistry();
 
-    private static void addRegistry(Registry<?> registry) {
+    /**
+     * @param dependencies 이 레지스트리의 요소를 디코딩하기 전에 채워져 있어야 하는 레지스트리. 먼저 등록되어 있어야 한다.
+     */
+    private static void addRegistry(Registry<?> registry, Registry<?>... dependencies) {
+        for (Registry<?> dependency : dependencies) {
+            if (!ENTRIES.contains(dependency)) {
+                throw new IllegalStateException("Dependency " + dependency.getRegistryId() + " of " + registry.getRegistryId() + " is not registered yet");
+            }
+        }
         REGISTRY_MAP.put(registry.getRegistryId(), registry);
         ENTRIES.add(registry);
+        DEPENDENCIES.put(registry.getRegistryId(), List.of(dependencies));
     }
 
     public static List<Registry<?>> entries() {
         return ImmutableList.copyOf(ENTRIES);
     }
 
+    /**
+     * @return 주어진 레지스트리의 요소를 디코딩하기 전에 채워져 있어야 하는 레지스트리. 항상 {@link #entries()}에서 앞에 있는 레지스트리이다.
+     */
+    public static List<Registry<?>> getDependencies(Registry<?> registry) {
+        return DEPENDENCIES.getOrDefault(registry.getRegistryId(), List.of());
+    }
+
+    /**
+     * 여러 레지스트리의 변경을 한번에 반영하는 트랜잭션을 시작한다.
+     */
+    public static RegistryTransaction transaction() {
+        return new RegistryTransaction();
+    }
+
+    /**
+     * 트랜잭션이 준비한 스냅샷들을 하나의 공개 구간 안에서 공개한다. 공개 구간은 한번에 하나의 트랜잭션만 들어갈 수 있다.
+     */
+    static void publishTogether(List<SimpleRegistry<?>> registries) {
+        synchronized (PUBLISH_LOCK) {
+            PUBLISH_SEQUENCE.incrementAndGet();
+            try {
+                registries.forEach(SimpleRegistry::publishTransaction);
+            } finally {
+                PUBLISH_SEQUENCE.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 여러 레지스트리를 락 없이 함께 읽는다. 읽는 도중 트랜잭션이 공개되었다면 다시 읽으므로, 반환값은 트랜잭션의 일부만 반영된 상태를 담지 않는다. <br>
+     * 읽기 함수는 여러 번 호출될 수 있으므로 부작용이 없어야 한다.
+     * @param reader 레지스트리를 읽는 함수
+     */
+    public static <R> R readConsistent(Supplier<R> reader) {
+        while (true) {
+            long sequence = PUBLISH_SEQUENCE.get();
+            if ((sequence & 1) == 0) {
+                R result = reader.get();
+                if (PUBLISH_SEQUENCE.get() == sequence) {
+                    return result;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
     @Nullable
     public static <T extends SynchronizeData<?>> Registry<T> getByClassType(Class<T> clazz) {
         for (Registry<?> entry : entries()) {
@@ -54,9 +135,12 @@ public class RegistryManager {
 
     static {
         addRegistry(OPTIONS);
-        addRegistry(OPTION_GROUPS);
-        addRegistry(MENUS);
-        addRegistry(CATEGORIES);
-        addRegistry(ORDERS);
+        // 옵션 그룹과 메뉴는 옵션, 옵션 그룹을 ID 로 찾아 디코딩한다.
+        addRegistry(OPTION_GROUPS, OPTIONS);
+        addRegistry(MENUS, OPTION_GROUPS);
+        // 카테고리는 메뉴 ID 만 가지지만, 채워진 카테고리의 메뉴는 바로 조회될 수 있다.
+        addRegistry(CATEGORIES, MENUS);
+        // 주문의 메뉴는 주문 당시의 값을 그대로 가지므로, 옵션과 옵션 그룹만 필요하다.
+        addRegistry(ORDERS, OPTIONS, OPTION_GROUPS);
     }
 }
\ No newline at end of file
@@ -0,0 +1,144 @@
+package common.registry;
+
+import common.network.SynchronizeData;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * 여러 레지스트리에 대한 변경을 모아 두었다가 한번에 반영한다. <br>
+ * {@link #commit()}은 관련된 레지스트리의 쓰기 락을 {@link RegistryManager#entries()} 순서대로 모두 잡은 뒤 변경을 작업 상태에만 반영한다.
+ * 모두 성공하면 실제로 달라진 요소만 기록하고, 모든 레지스트리의 스냅샷을 {@link RegistryManager}의 공개 구간 안에서 함께 공개한 다음에야
+ * 변경 이벤트를 발생시킨다. 따라서 다른 쓰기가 중간에 끼어들 수 없고, 이벤트 리스너는 항상 모든 레지스트리가 반영된 상태를 보게 된다. <br>
+ * 락 없이 읽는 쪽은 레지스트리 하나씩은 항상 온전한 스냅샷을 보지만, 여러 레지스트리를 함께 읽으면서 공개 도중의 상태를 피하려면
+ * {@link RegistryManager#readConsistent(java.util.function.Supplier)}를 사용해야 한다. <br>
+ * 반영 도중 예외가 발생하면 작업 상태를 공개된 스냅샷으로 되돌린 뒤 예외를 다시 던진다. 아무것도 기록되거나 공개되지 않으므로 버전도 바뀌지 않는다.
+ * 동결된 레지스트리에도 반영된다.
+ * <pre>{@code
+ * RegistryTransaction.Result result = RegistryManager.transaction()
+ *         .remove(RegistryManager.MENUS, menuId)
+ *         .update(RegistryManager.CATEGORIES, categoryId, category -> category.withoutMenu(menuId))
+ *         .commit();
+ * }</pre>
+ */
+public final class RegistryTransaction {
+    private final List<Operation> operations = new ArrayList<>();
+    private final Set<SimpleRegistry<?>> registries = new LinkedHashSet<>();
+    private boolean committed;
+
+    RegistryTransaction() {
+    }
+
+    /**
+     * 커밋 결과. 서버는 이를 이용해 변경 사항을 한 번에 전송한다.
+     * @param fromVersions 커밋 직전의 레지스트리 별 버전. 커밋 중에는 다른 쓰기가 없으므로 이 버전 이후의 변경이 곧 이 트랜잭션의 변경이다.
+     */
+    public record Result(Map<Registry<?>, Long> fromVersions) {
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        void apply();
+    }
+
+    /**
+     * 요소를 추가하거나 교체한다. ID 는 {@link SynchronizeData#getRegistryElementId()}를 사용한다.
+     */
+    public RegistryTransaction put(Registry<?> registry, SynchronizeData<?> entry) {
+        SimpleRegistry<?> target = this.participate(registry);
+        String id = entry.getRegistryElementId();
+        this.operations.add(() -> target.putForTransaction(id, entry));
+        return this;
+    }
+
+    public RegistryTransaction remove(Registry<?> registry, String id) {
+        SimpleRegistry<?> target = this.participate(registry);
+        this.operations.add(() -> target.removeForTransaction(id));
+        return this;
+    }
+
+    /**
+     * 커밋 시점의 값을 바탕으로 요소를 고친다. 요소가 없다면 아무것도 하지 않는다.
+     * @param updater 새 값을 반환한다. null 을 반환하면 요소를 제거한다.
+     */
+    public <T extends SynchronizeData<?>> RegistryTransaction update(Registry<T> registry, String id, UnaryOperator<T> updater) {
+        SimpleRegistry<T> target = this.participate(registry);
+        this.operations.add(() -> {
+            T current = target.peek(id);
+            if (current == null) {
+                return;
+            }
+            T updated = updater.apply(current);
+            if (updated == null) {
+                target.removeForTransaction(id);
+            } else {
+                target.putForTransaction(id, updated);
+            }
+        });
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends SynchronizeData<?>> SimpleRegistry<T> participate(Registry<T> registry) {
+        if (this.committed) {
+            throw new IllegalStateException("Transaction is already committed");
+        }
+        if (!(registry instanceof SimpleRegistry<?> simpleRegistry)) {
+            throw new IllegalArgumentException("Registry " + registry.getRegistryId() + " does not support transactions");
+        }
+        this.registries.add(simpleRegistry);
+        return (SimpleRegistry<T>) simpleRegistry;
+    }
+
+    /**
+     * 모아둔 변경을 한번에 반영한다. 한 트랜잭션은 한 번만 커밋할 수 있다.
+     * @return 레지스트리 별 커밋 직전 버전
+     */
+    public Result commit() {
+        if (this.committed) {
+            throw new IllegalStateException("Transaction is already committed");
+        }
+        this.committed = true;
+
+        // 교착 상태를 피하기 위해 항상 같은 순서로 락을 잡는다.
+        List<Registry<?>> order = RegistryManager.entries();
+        List<SimpleRegistry<?>> targets = new ArrayList<>(this.registries);
+        targets.sort(Comparator.comparingInt(order::indexOf));
+
+        Map<Registry<?>, Long> fromVersions = new LinkedHashMap<>();
+        List<Runnable> notifications = new ArrayList<>(targets.size());
+        int locked = 0;
+        try {
+            for (SimpleRegistry<?> registry : targets) {
+                registry.lockForTransaction();
+                locked++;
+                fromVersions.put(registry, registry.getVersion());
+            }
+
+            try {
+                for (Operation operation : this.operations) {
+                    operation.apply();
+                }
+                for (SimpleRegistry<?> registry : targets) {
+                    registry.prepareTransaction();
+                }
+            } catch (RuntimeException e) {
+                targets.forEach(SimpleRegistry::rollbackTransaction);
+                throw e;
+            }
+            RegistryManager.publishTogether(targets);
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                notifications.add(targets.get(i).unlockForTransaction());
+            }
+        }
+        notifications.reversed().forEach(Runnable::run);
+        return new Result(fromVersions);
+    }
+}
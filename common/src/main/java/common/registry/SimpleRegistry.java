@@ -2,11 +2,16 @@ package common.registry;
 
 import com.google.common.collect.ImmutableList;
 import com.mojang.serialization.Codec;
+import common.event.Event;
+import common.event.RegistryChangedEvent;
 import common.network.SynchronizeData;
 import common.util.KioskLoggerFactory;
-import it.unimi.dsi.fastutil.ints.Int2ReferenceMap;
-import it.unimi.dsi.fastutil.ints.Int2ReferenceOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2ObjectLinkedOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import it.unimi.dsi.fastutil.objects.ObjectLinkedOpenHashSet;
 import it.unimi.dsi.fastutil.objects.Reference2IntMap;
 import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
@@ -15,24 +20,68 @@ import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * {@link Registry}의 구현형 클래스이다. 특정한 레지스트리가 필요하지 않는다면 이 레지스트리를 사용하면 된다.
- * 레지스트리는 기본적으로 thread-safe 하게 작성되어야 한다. 가장 교착상태가 예상되는 클래스로, 나는 {@link ReentrantLock} 을 통해 동시성을 제어했다.
+ * 레지스트리는 기본적으로 thread-safe 하게 작성되어야 한다. 가장 교착상태가 예상되는 클래스로, 나는 {@link ReentrantLock} 을 통해 동시성을 제어했다. <br>
+ * 쓰기는 락 안에서 작업용 맵을 수정한 뒤 불변 {@link Snapshot}을 만들어 하나의 volatile 참조로 공개한다.
+ * 읽기는 락 없이 현재 스냅샷만 보므로 대기하지 않고, {@link #getAll()}은 복사 없이 스냅샷의 목록을 그대로 반환한다.
  * @param <T> 저장할 데이터 자료형
  */
 public class SimpleRegistry<T extends SynchronizeData<?>> implements Registry<T> {
     protected final Logger LOGGER = KioskLoggerFactory.getLogger();
-    protected final Map<String, T> idToEntry = new Object2ObjectOpenHashMap<>();
-    protected final Map<T, String> entryToId = new Object2ObjectOpenHashMap<>();
-    protected final Set<T> ITEMS = new ObjectLinkedOpenHashSet<>();
-    protected final Reference2IntMap<T> entryToRawIndex = new Reference2IntOpenHashMap<>();
-    protected final Int2ReferenceMap<T> rawIndexToEntry = new Int2ReferenceOpenHashMap<>();
+    /**
+     * 쓰기 전용 작업 상태. 쓰기 락을 잡은 스레드만 접근하며, 입력 순서를 유지한다.
+     */
+    private final Object2ObjectLinkedOpenHashMap<String, T> entries = new Object2ObjectLinkedOpenHashMap<>();
+    private final Map<T, String> entryToId = new Object2ObjectOpenHashMap<>();
+    /**
+     * raw index 는 요소가 추가될 때 한번 정해지고 제거될 때까지 바뀌지 않는다. 비어있는 칸은 null 이다.
+     */
+    private final ObjectArrayList<T> rawIndexToEntry = new ObjectArrayList<>();
+    private final Object2IntMap<String> idToRawIndex = new Object2IntOpenHashMap<>();
+    /**
+     * 제거되어 비어있는 raw index. 새 요소는 여기서 먼저 꺼내어 쓰므로 배열이 조밀하게 유지된다.
+     */
+    private final IntArrayList freeRawIndices = new IntArrayList();
+    /**
+     * 마지막 공개 이후 바뀐 ID. 공개할 때 이전 스냅샷과 비교하여 {@link RegistryEntryChange}를 만든다.
+     */
+    private final Set<String> changedIds = new ObjectLinkedOpenHashSet<>();
+    private boolean dirty;
+    private volatile Snapshot<T> snapshot;
+    /**
+     * 트랜잭션 동안 쓰는 상태. 락을 잡은 스레드만 접근한다.
+     * 되돌릴 때 비워진 raw index 의 재사용 순서까지 그대로 복원하기 위해 시작할 때의 목록을 기억한다.
+     */
+    private IntArrayList transactionFreeRawIndices = new IntArrayList();
+    private long transactionStartVersion;
+    private @Nullable Snapshot<T> transactionSnapshot;
+    private List<RegistryEntryChange<T>> transactionChanges = List.of();
+    private final Event<RegistryChangedEvent<T>> changeEvent = RegistryChangedEvent.create();
     protected final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
     protected final AtomicBoolean frozen = new AtomicBoolean(false);
+    /**
+     * 무작위 값에서 시작한다. 서버가 재시작되어도 클라이언트가 기억하는 이전 실행의 버전과 겹치지 않도록 하기 위함이다.
+     */
+    protected final AtomicLong version = new AtomicLong(ThreadLocalRandom.current().nextLong(1L << 48));
+    /**
+     * 보관할 변경 기록의 최대 개수.
+     */
+    public static final int CHANGE_LOG_SIZE = 256;
+    /**
+     * 자기 자신을 모니터로 동기화 된다.
+     */
+    protected final Deque<RegistryChange<T>> changeLog = new ArrayDeque<>();
+    /**
+     * 이 버전 이후의 모든 변경은 {@link #changeLog}에 남아있다. {@link #changeLog}의 모니터 아래에서만 접근한다.
+     */
+    protected long changeLogFloor = this.version.get();
     private final Class<T> clazz;
     @NotNull
     private final Codec<T> codec;
@@ -43,6 +92,297 @@ public class SimpleRegistry<T extends SynchronizeData<?>> implements Registry<T>
         this.registryId = registryId;
         this.codec = codec;
         this.clazz = clazz;
+        this.idToRawIndex.defaultReturnValue(ABSENT_LOW_INDEX);
+        this.snapshot = Snapshot.empty(this.version.get());
+    }
+
+    /**
+     * 한 시점의 레지스트리 내용이다. 공개된 이후에는 절대 수정되지 않는다.
+     * @param version 이 스냅샷이 반영하고 있는 버전
+     * @param idToEntry 입력 순서를 유지하는 ID 별 요소
+     * @param items 입력 순서대로 정렬된 요소
+     * @param rawIndexToEntry raw index 를 인덱스로 하는 배열. 비어있는 칸은 null 이다.
+     * @param entryToRawIndex 요소 별 raw index
+     * @param derived {@link #deriveIndex(Map)}가 만든 보조 인덱스. 없다면 null
+     */
+    protected record Snapshot<T>(long version, Map<String, T> idToEntry, ImmutableList<T> items, Object[] rawIndexToEntry, Reference2IntMap<T> entryToRawIndex, @Nullable Object derived) {
+        static <T> Snapshot<T> empty(long version) {
+            Reference2IntMap<T> entryToRawIndex = new Reference2IntOpenHashMap<>();
+            entryToRawIndex.defaultReturnValue(ABSENT_LOW_INDEX);
+            return new Snapshot<>(version, Map.of(), ImmutableList.of(), new Object[0], entryToRawIndex, null);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Nullable T get(int rawIndex) {
+            return rawIndex >= 0 && rawIndex < this.rawIndexToEntry.length ? (T) this.rawIndexToEntry[rawIndex] : null;
+        }
+    }
+
+    /**
+     * 현재 공개된 스냅샷을 반환한다. 락을 잡지 않는다.
+     */
+    protected Snapshot<T> snapshot() {
+        return this.snapshot;
+    }
+
+    /**
+     * 쓰기 락을 잡는다. 중첩하여 호출할 수 있으며, 가장 바깥의 {@link #endWrite()}에서만 스냅샷이 공개된다.
+     */
+    protected void beginWrite() {
+        this.lock.writeLock().lock();
+    }
+
+    /**
+     * 쓰기 락을 놓는다. 가장 바깥의 호출이고 변경이 있었다면 새 스냅샷을 한번 공개하고, 락을 놓은 뒤 변경 이벤트를 발생시킨다.
+     */
+    protected void endWrite() {
+        this.fireChanges(this.publishAndUnlock());
+    }
+
+    /**
+     * 가장 바깥의 호출이라면 스냅샷을 공개한 뒤 쓰기 락을 놓는다.
+     * @return 발생시켜야 할 변경. 이벤트는 호출자가 락 밖에서 발생시켜야 한다.
+     */
+    private List<RegistryEntryChange<T>> publishAndUnlock() {
+        List<RegistryEntryChange<T>> changes = List.of();
+        try {
+            if (this.dirty && this.lock.getWriteHoldCount() == 1) {
+                Snapshot<T> previous = this.snapshot;
+                this.snapshot = this.createSnapshot();
+                this.dirty = false;
+                changes = this.collectChanges(previous, this.snapshot);
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+        return changes;
+    }
+
+    /**
+     * {@link RegistryTransaction}이 커밋하는 동안 다른 쓰기를 막는다. 작업 상태는 공개된 스냅샷과 같은 상태에서 시작한다.
+     */
+    void lockForTransaction() {
+        this.beginWrite();
+        this.transactionFreeRawIndices = this.freeRawIndices.clone();
+        this.transactionStartVersion = this.version.get();
+    }
+
+    /**
+     * 작업 상태에만 반영하고 변경 기록은 남기지 않는다. 기록은 {@link #prepareTransaction()}에서 순 변경만 남긴다.
+     * 동결 여부와 관계없이 반영된다.
+     */
+    @SuppressWarnings("unchecked")
+    void putForTransaction(String id, SynchronizeData<?> entry) {
+        if (!clazz.isAssignableFrom(entry.getClass())) {
+            throw new IllegalArgumentException("Entry is not of type " + clazz.getName());
+        }
+        this.putEntry(id, (T) entry);
+    }
+
+    /**
+     * {@link #putForTransaction(String, SynchronizeData)}와 마찬가지로 변경 기록을 남기지 않는다.
+     * @return 요소가 있었다면 true
+     */
+    boolean removeForTransaction(String id) {
+        return this.removeEntry(id) != null;
+    }
+
+    /**
+     * 공개된 스냅샷과 실제로 달라진 요소만 변경 기록에 남기고, 공개할 스냅샷을 만들어 둔다.
+     * 스냅샷은 {@link #publishTransaction()}에서 다른 레지스트리와 함께 공개된다.
+     */
+    void prepareTransaction() {
+        if (!this.dirty) {
+            return;
+        }
+        Snapshot<T> published = this.snapshot;
+        for (String id : this.changedIds) {
+            T current = this.entries.get(id);
+            if (Objects.equals(published.idToEntry().get(id), current)) {
+                continue;
+            }
+            if (current == null) {
+                this.recordRemoval(id);
+            } else {
+                this.recordUpsert(id, current);
+            }
+        }
+        this.transactionSnapshot = this.createSnapshot();
+    }
+
+    /**
+     * {@link #prepareTransaction()}에서 만든 스냅샷을 공개한다. {@link RegistryManager}가 트랜잭션의 모든 레지스트리를 함께 공개할 때 호출한다.
+     */
+    void publishTransaction() {
+        if (this.transactionSnapshot == null) {
+            return;
+        }
+        Snapshot<T> previous = this.snapshot;
+        this.snapshot = this.transactionSnapshot;
+        this.transactionSnapshot = null;
+        this.dirty = false;
+        this.transactionChanges = this.collectChanges(previous, this.snapshot);
+    }
+
+    /**
+     * 작업 상태를 공개된 스냅샷으로 되돌린다. 반영 도중에는 아무것도 기록하지 않으며,
+     * 다른 레지스트리의 {@link #prepareTransaction()}이 실패하여 이미 남긴 기록이 있다면 버전과 함께 되돌린다.
+     */
+    @SuppressWarnings("unchecked")
+    void rollbackTransaction() {
+        this.discardRecordsAfter(this.transactionStartVersion);
+        Snapshot<T> published = this.snapshot;
+        this.entries.clear();
+        this.entryToId.clear();
+        this.idToRawIndex.clear();
+        this.rawIndexToEntry.clear();
+        for (Object entry : published.rawIndexToEntry()) {
+            this.rawIndexToEntry.add((T) entry);
+        }
+        published.idToEntry().forEach((id, entry) -> {
+            this.entries.put(id, entry);
+            this.entryToId.put(entry, id);
+            this.idToRawIndex.put(id, published.entryToRawIndex().getInt(entry));
+        });
+        this.freeRawIndices.clear();
+        this.freeRawIndices.addAll(this.transactionFreeRawIndices);
+        this.changedIds.clear();
+        this.dirty = false;
+        this.transactionSnapshot = null;
+        this.transactionChanges = List.of();
+    }
+
+    /**
+     * 주어진 버전 이후의 변경 기록을 버리고 버전을 되돌린다. 공개되지 않은 트랜잭션의 기록을 지울 때만 사용하며, 다른 쓰기를 모두 막은 상태에서 호출해야 한다.
+     */
+    void discardRecordsAfter(long version) {
+        synchronized (this.changeLog) {
+            while (!this.changeLog.isEmpty() && this.changeLog.peekLast().version() > version) {
+                this.changeLog.removeLast();
+            }
+            this.version.set(version);
+        }
+    }
+
+    /**
+     * 락을 놓는다. 변경 이벤트는 모든 레지스트리의 락이 풀린 뒤 발생하도록 미뤄진다.
+     * @return 변경 이벤트를 발생시키는 작업
+     */
+    Runnable unlockForTransaction() {
+        List<RegistryEntryChange<T>> changes = this.transactionChanges;
+        this.transactionChanges = List.of();
+        this.lock.writeLock().unlock();
+        return () -> this.fireChanges(changes);
+    }
+
+    /**
+     * 아직 공개되지 않은 변경을 포함한 현재 값을 반환한다. {@link #lockForTransaction()} 이후에만 호출해야 한다.
+     */
+    @Nullable T peek(String id) {
+        return this.entries.get(id);
+    }
+
+    /**
+     * 바뀐 ID 마다 이전 스냅샷과 새 스냅샷의 값을 비교한다. 배치 안에서 추가 후 제거되었거나 같은 값으로 교체된 요소는 제외된다.
+     */
+    private List<RegistryEntryChange<T>> collectChanges(Snapshot<T> previous, Snapshot<T> current) {
+        List<RegistryEntryChange<T>> changes = new ArrayList<>(this.changedIds.size());
+        for (String id : this.changedIds) {
+            RegistryEntryChange<T> change = RegistryEntryChange.of(id, previous.idToEntry().get(id), current.idToEntry().get(id), current.version());
+            if (change != null) {
+                changes.add(change);
+            }
+        }
+        this.changedIds.clear();
+        return changes;
+    }
+
+    /**
+     * 변경 이벤트를 발생시킨다. 락을 잡지 않은 상태에서 호출해야 한다. 리스너의 예외는 쓰기를 수행한 쪽으로 전파되지 않는다.
+     */
+    protected void fireChanges(List<RegistryEntryChange<T>> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        try {
+            this.changeEvent.invoker().onChanged(this, changes);
+        } catch (RuntimeException e) {
+            LOGGER.error("Registry change listener failed for {}", this.registryId, e);
+        }
+    }
+
+    @Override
+    public Event<RegistryChangedEvent<T>> getChangeEvent() {
+        return this.changeEvent;
+    }
+
+    private Snapshot<T> createSnapshot() {
+        Reference2IntMap<T> entryToRawIndex = new Reference2IntOpenHashMap<>(this.entries.size());
+        entryToRawIndex.defaultReturnValue(ABSENT_LOW_INDEX);
+        for (Map.Entry<String, T> entry : this.entries.entrySet()) {
+            entryToRawIndex.put(entry.getValue(), this.idToRawIndex.getInt(entry.getKey()));
+        }
+        return new Snapshot<>(
+                this.version.get(),
+                Collections.unmodifiableMap(new Object2ObjectLinkedOpenHashMap<>(this.entries)),
+                ImmutableList.copyOf(this.entries.values()),
+                this.rawIndexToEntry.toArray(),
+                entryToRawIndex,
+                this.deriveIndex(Collections.unmodifiableMap(this.entries))
+        );
+    }
+
+    /**
+     * 새 스냅샷에 함께 담을 보조 인덱스를 만든다. 인덱스는 스냅샷과 같은 참조로 공개되므로 요소보다 앞서거나 뒤처지지 않는다. <br>
+     * 쓰기 락을 잡은 상태에서 호출된다. 인자로 받은 맵은 작업 상태이므로 반환값에 그대로 담으면 안 된다.
+     * @param entries 입력 순서대로 정렬된 ID 별 요소
+     * @return 불변 보조 인덱스. 필요 없다면 null
+     */
+    protected @Nullable Object deriveIndex(Map<String, T> entries) {
+        return null;
+    }
+
+    /**
+     * 작업 상태에 요소를 넣는다. 같은 ID가 있었다면 제거한 뒤 맨 뒤에 추가하지만 raw index 는 그대로 유지한다.
+     * 쓰기 락을 잡은 상태에서 호출해야 한다.
+     */
+    protected void putEntry(String id, T entry) {
+        T existingEntry = this.entries.remove(id);
+        int rawIndex;
+        if (existingEntry != null) {
+            this.entryToId.remove(existingEntry);
+            rawIndex = this.idToRawIndex.getInt(id);
+        } else if (!this.freeRawIndices.isEmpty()) {
+            rawIndex = this.freeRawIndices.popInt();
+            this.idToRawIndex.put(id, rawIndex);
+        } else {
+            rawIndex = this.rawIndexToEntry.size();
+            this.rawIndexToEntry.add(null);
+            this.idToRawIndex.put(id, rawIndex);
+        }
+        this.rawIndexToEntry.set(rawIndex, entry);
+        this.entries.put(id, entry);
+        this.entryToId.put(entry, id);
+        this.changedIds.add(id);
+        this.dirty = true;
+    }
+
+    /**
+     * 작업 상태에서 요소를 제거한다. 비워진 raw index 는 다음에 추가되는 요소가 재사용한다.
+     * 쓰기 락을 잡은 상태에서 호출해야 한다.
+     * @return 제거된 요소. 없었다면 null
+     */
+    protected @Nullable T removeEntry(String id) {
+        T item = this.entries.remove(id);
+        if (item != null) {
+            this.entryToId.remove(item);
+            int rawIndex = this.idToRawIndex.removeInt(id);
+            this.rawIndexToEntry.set(rawIndex, null);
+            this.freeRawIndices.push(rawIndex);
+            this.changedIds.add(id);
+            this.dirty = true;
+        }
+        return item;
     }
 
     @Override
@@ -52,12 +392,7 @@ public class SimpleRegistry<T extends SynchronizeData<?>> implements Registry<T>
 
     @Override
     public Optional<T> getById(String id) {
-        try {
-            this.lock.readLock().lock();
-            return Optional.ofNullable(idToEntry.get(id));
-        } finally {
-            this.lock.readLock().unlock();
-        }
+        return Optional.ofNullable(this.snapshot.idToEntry().get(id));
     }
 
     @Override
@@ -65,6 +400,72 @@ public class SimpleRegistry<T extends SynchronizeData<?>> implements Registry<T>
         return this.frozen.get();
     }
 
+    @Override
+    public long getVersion() {
+        return this.snapshot.version();
+    }
+
+    /**
+     * 공개된 버전({@link #getVersion()})까지의 변경만 반환하므로, 아직 스냅샷에 반영되지 않은 변경은 포함되지 않는다.
+     */
+    @Override
+    public Optional<List<RegistryChange<T>>> getChangesSince(long version) {
+        long current = this.getVersion();
+        synchronized (this.changeLog) {
+            if (version < this.changeLogFloor || version > current) {
+                return Optional.empty();
+            }
+            List<RegistryChange<T>> changes = new ArrayList<>();
+            for (RegistryChange<T> change : this.changeLog) {
+                if (change.version() > version && change.version() <= current) {
+                    changes.add(change);
+                }
+            }
+            return Optional.of(changes);
+        }
+    }
+
+    /**
+     * 요소가 추가 또는 교체되었음을 기록한다. 변경 기록은 자체적으로 동기화 되므로 어느 락 아래에서든 호출할 수 있지만,
+     * 요소를 먼저 반영한 뒤에 호출해야 한다.
+     * @return 이 변경에 부여된 버전
+     */
+    protected long recordUpsert(String id, T entry) {
+        return this.record(id, entry);
+    }
+
+    /**
+     * 요소가 제거되었음을 기록한다. {@link #recordUpsert(String, SynchronizeData)}와 마찬가지로 제거를 반영한 뒤에 호출해야 한다.
+     */
+    protected long recordRemoval(String id) {
+        return this.record(id, null);
+    }
+
+    /**
+     * 레지스트리 전체가 비워졌음을 기록한다. 이전 버전에서는 변경 기록으로 따라잡을 수 없게 된다.
+     */
+    protected long recordReset() {
+        synchronized (this.changeLog) {
+            this.changeLog.clear();
+            this.changeLogFloor = this.version.incrementAndGet();
+            return this.changeLogFloor;
+        }
+    }
+
+    /**
+     * 버전 증가와 기록을 같은 블록에서 수행하여 변경 기록이 항상 버전 순으로 쌓이도록 한다.
+     */
+    private long record(String id, @Nullable T entry) {
+        synchronized (this.changeLog) {
+            if (this.changeLog.size() >= CHANGE_LOG_SIZE) {
+                this.changeLogFloor = this.changeLog.removeFirst().version();
+            }
+            long version = this.version.incrementAndGet();
+            this.changeLog.addLast(new RegistryChange<>(version, id, entry));
+            return version;
+        }
+    }
+
     @Override
     public void freeze() {
         this.frozen.set(true);
@@ -75,6 +476,10 @@ public class SimpleRegistry<T extends SynchronizeData<?>> implements Registry<T>
         this.frozen.set(false);
     }
 
+    /**
+     * 요소 하나를 추가하고 바로 새 스냅샷을 공개하므로 레지스트리 크기에 비례하는 비용이 든다.
+     * 저장소에서 읽는 것처럼 여러 요소를 넣을 때는 {@link #addAll(List)}, {@link #replaceAll(List)}, {@link #applyChanges(List, List)}를 사용해야 한다.
+     */
     @Override
     public T add(String id, SynchronizeData<?> entry) {
         if (this.isFrozen()) {
@@ -83,22 +488,12 @@ public class SimpleRegistry<T extends SynchronizeData<?>> implements Registry<T>
         if (!clazz.isAssignableFrom(entry.getClass())) {
             throw new IllegalArgumentException("Entry is not of type " + clazz.getName());
         }
-        this.lock.writeLock().lock();
+        this.beginWrite();
         try {
-            T existingEntry = idToEntry.get(id);
-            if (existingEntry != null) {
-                this.ITEMS.remove(existingEntry);
-                this.entryToId.remove(existingEntry);
-                this.entryToRawIndex.remove(existingEntry);
-            }
-
-            this.ITEMS.add((T) entry);
-            this.entryToId.put((T) entry, id);
-            this.idToEntry.put(id, (T) entry);
-            this.rawIndexToEntry.put(size(), (T) entry);
-            this.entryToRawIndex.put((T) entry, size());
+            this.putEntry(id, (T) entry);
+            this.recordUpsert(id, (T) entry);
         } finally {
-            this.lock.writeLock().unlock();
+            this.endWrite();
         }
         LOGGER.info("Registered {} with id {}", entry, id);
         return (T) entry;
@@ -109,28 +504,19 @@ public class SimpleRegistry<T extends SynchronizeData<?>> implements Registry<T>
         if (this.isFrozen()) {
             throw new IllegalStateException("Registry is already frozen");
         }
-        lock.writeLock().lock();
+        // 배치 전체가 끝난 뒤 스냅샷을 한번만 공개한다.
+        this.beginWrite();
         try {
             dataList.forEach(data -> {
                 if (!clazz.isAssignableFrom(data.getClass())) {
                     throw new IllegalArgumentException("Entry is not of type " + clazz.getName());
                 }
 
-                T existingEntry = idToEntry.get(data.getRegistryElementId());
-                if (existingEntry != null) {
-                    this.ITEMS.remove(existingEntry);
-                    this.entryToId.remove(existingEntry);
-                    this.entryToRawIndex.remove(existingEntry);
-                }
-
-                this.ITEMS.add((T) data);
-                this.entryToId.put((T) data, data.getRegistryElementId());
-                this.idToEntry.put(data.getRegistryElementId(), (T) data);
-                this.rawIndexToEntry.put(size(), (T) data);
-                this.entryToRawIndex.put((T) data, size());
+                this.putEntry(data.getRegistryElementId(), (T) data);
+                this.recordUpsert(data.getRegistryElementId(), (T) data);
             });
         } finally {
-            lock.writeLock().unlock();
+            this.endWrite();
         }
     }
 
@@ -141,7 +527,7 @@ public class SimpleRegistry<T extends SynchronizeData<?>> implements Registry<T>
 
     @Override
     public List<T> getAll() {
-        return ImmutableList.copyOf(this.ITEMS);
+        return this.snapshot.items();
     }
 
     @Override
@@ -149,56 +535,71 @@ public class SimpleRegistry<T extends SynchronizeData<?>> implements Registry<T>
         if (this.isFrozen()) {
             throw new IllegalStateException("Registry is already frozen");
         }
+        this.beginWrite();
         try {
-            lock.writeLock().lock();
-            this.ITEMS.clear();
+            this.changedIds.addAll(this.entries.keySet());
+            this.entries.clear();
             this.entryToId.clear();
-            this.idToEntry.clear();
             this.rawIndexToEntry.clear();
-            this.entryToRawIndex.clear();
+            this.idToRawIndex.clear();
+            this.freeRawIndices.clear();
+            this.dirty = true;
+            this.recordReset();
         } finally {
-            lock.writeLock().unlock();
+            this.endWrite();
         }
     }
 
+    /**
+     * 쓰기 락을 잡은 채로 비우고 다시 채운 뒤 스냅샷을 한번만 공개하므로, 다른 스레드는 비어 있는 중간 상태를 보지 못한다.
+     */
     @Override
-    public Class<T> getClazz() {
-        return this.clazz;
+    public void replaceAll(List<SynchronizeData<?>> data) {
+        this.beginWrite();
+        try {
+            this.clear();
+            this.addAll(data);
+        } finally {
+            this.endWrite();
+        }
     }
 
     @Override
-    public int getRawId(T var1) {
+    public void applyChanges(List<SynchronizeData<?>> upserts, List<String> removals) {
+        this.beginWrite();
         try {
-            this.lock.readLock().lock();
-            return entryToRawIndex.getOrDefault(var1, ABSENT_LOW_INDEX);
+            Registry.super.applyChanges(upserts, removals);
         } finally {
-            this.lock.readLock().unlock();
+            this.endWrite();
         }
     }
 
+    @Override
+    public Class<T> getClazz() {
+        return this.clazz;
+    }
+
+    @Override
+    public int getRawId(T var1) {
+        return this.snapshot.entryToRawIndex().getInt(var1);
+    }
+
     @Override
     public @Nullable T get(int index) {
-        try {
-            this.lock.readLock().lock();
-            return rawIndexToEntry.get(index);
-        } finally {
-            this.lock.readLock().unlock();
-        }
+        return this.snapshot.get(index);
     }
 
     @Override
     public int size() {
-        try {
-            this.lock.readLock().lock();
-            return this.ITEMS.size();
-        } finally {
-            this.lock.readLock().unlock();
-        }
+        return this.snapshot.items().size();
     }
 
+    /**
+     * 호출 시점의 스냅샷을 순회한다. 순회 도중 레지스트리가 바뀌어도 영향을 받지 않는다.
+     */
     @Override
     public @NotNull Iterator<T> iterator() {
-        return ITEMS.iterator();
+        return this.snapshot.items().iterator();
     }
 
     @Override
@@ -206,43 +607,31 @@ public class SimpleRegistry<T extends SynchronizeData<?>> implements Registry<T>
         if (this.isFrozen()) {
             throw new IllegalStateException("Registry is already frozen");
         }
+        this.beginWrite();
         try {
-            lock.writeLock().lock();
-            T item = idToEntry.get(id);
+            T item = this.removeEntry(id);
             if (item == null) {
                 return false;
             }
-
-            idToEntry.remove(id);
-            entryToId.remove(item);
-            ITEMS.remove(item);
-
-            rebuildIndexMaps();
+            this.recordRemoval(id);
 
             LOGGER.info("Removed {} with id {}", item, id);
             return true;
         } finally {
-            lock.writeLock().unlock();
+            this.endWrite();
         }
     }
 
     @Override
     public boolean remove(T entry) {
         if (entry == null) return false;
-        String id = entryToId.get(entry);
-        if (id == null) return false;
-        return remove(id);
-    }
-
-    private void rebuildIndexMaps() {
-        entryToRawIndex.clear();
-        rawIndexToEntry.clear();
-
-        int index = 0;
-        for (T item : ITEMS) {
-            entryToRawIndex.put(item, index);
-            rawIndexToEntry.put(index, item);
-            index++;
+        this.beginWrite();
+        try {
+            String id = entryToId.get(entry);
+            if (id == null) return false;
+            return remove(id);
+        } finally {
+            this.endWrite();
         }
     }
 }
@@ -5,6 +5,7 @@ import com.mojang.serialization.Codec;
 import com.mojang.serialization.DataResult;
 import com.mojang.serialization.DynamicOps;
 
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -16,6 +17,10 @@ import java.util.function.ToIntFunction;
 public class JavaCodecs {
     public static final Codec<Path> PATH = Codec.STRING.xmap(Path::of, Path::toString);
     public static final Codec<Byte[]> BYTE_ARRAY = Codec.BYTE.listOf().xmap(bytes -> bytes.toArray(new Byte[0]), Arrays::asList);
+    /**
+     * 박싱 없이 byte array 를 다루는 코덱. Json 에서는 {@link #BYTE_ARRAY}와 같은 숫자 배열로, 바이너리 형식에서는 raw bytes 로 기록된다.
+     */
+    public static final Codec<byte[]> BYTES = Codec.BYTE_BUFFER.xmap(JavaCodecs::asByteArray, ByteBuffer::wrap);
     public static final Codec<LocalDateTime> LOCAL_DATE_TIME = Codec.STRING.xmap(LocalDateTime::parse, LocalDateTime::toString);
 
     public static <E> Codec<E> orCompressed(Codec<E> uncompressedCodec, Codec<E> compressedCodec) {
@@ -69,6 +74,14 @@ public class JavaCodecs {
 
         return byteArray;
     }
+    public static byte[] asByteArray(ByteBuffer buffer) {
+        ByteBuffer duplicate = buffer.duplicate();
+        byte[] byteArray = new byte[duplicate.remaining()];
+        duplicate.get(byteArray);
+
+        return byteArray;
+    }
+
     public static Byte[] asBoxingByteArray(byte[] bytes) {
         Byte[] byteArray = new Byte[bytes.length];
         for (int i = 0; i < bytes.length; i++) {
@@ -0,0 +1,51 @@
+package common.util;
+
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.util.Arrays;
+
+/**
+ * 문자열을 작은 정수로 바꿔 저장한다. 같은 문자열은 항상 같은 번호를 가지며, 한번 부여된 번호는 바뀌거나 재사용되지 않는다. <br>
+ * 부여된 문자열은 회수되지 않으므로 메뉴나 옵션 ID 처럼 가짓수가 제한된 값에만 사용해야 한다. <br>
+ * 번호 부여는 동기화되지만 {@link #get(int)}은 락 없이 읽는다. 번호를 받은 스레드가 쓴 값은 그 번호를 전달받은 스레드에게도 보인다.
+ */
+public final class SymbolTable {
+    private final Object2IntMap<String> ids = new Object2IntOpenHashMap<>();
+    private volatile String[] symbols = new String[64];
+    private int size;
+
+    public SymbolTable() {
+        this.ids.defaultReturnValue(-1);
+    }
+
+    /**
+     * @return 문자열의 번호. 처음 보는 문자열이라면 새 번호를 부여한다.
+     */
+    public synchronized int intern(String symbol) {
+        int id = this.ids.getInt(symbol);
+        if (id >= 0) {
+            return id;
+        }
+        id = this.size++;
+        String[] current = this.symbols;
+        if (id == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[id] = symbol;
+        this.symbols = current;
+        this.ids.put(symbol, id);
+        return id;
+    }
+
+    /**
+     * @param id {@link #intern(String)}이 반환한 번호
+     */
+    public String get(int id) {
+        return this.symbols[id];
+    }
+
+    public synchronized int size() {
+        return this.size;
+    }
+}
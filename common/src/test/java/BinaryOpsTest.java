@@ -0,0 +1,62 @@
+import com.google.gson.JsonElement;
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.JsonOps;
+import common.Option;
+import common.network.encoding.BinaryElement;
+import common.network.encoding.BinaryOps;
+import common.util.JavaCodecs;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+public class BinaryOpsTest {
+    private static BinaryElement writeAndRead(BinaryElement element) {
+        ByteBuf buf = Unpooled.buffer();
+        try {
+            element.write(buf);
+            BinaryElement read = BinaryElement.read(buf);
+            Assertions.assertEquals(0, buf.readableBytes());
+            return read;
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void recordRoundTrip() {
+        List<Option> options = List.of(new Option("opt_hot", "뜨겁게", 0), new Option("opt_cold", "차갑게", -500));
+        Codec<List<Option>> codec = Option.SYNC_CODEC.listOf();
+
+        BinaryElement element = writeAndRead(codec.encodeStart(BinaryOps.INSTANCE, options).getOrThrow());
+        Assertions.assertEquals(options, codec.parse(BinaryOps.INSTANCE, element).getOrThrow());
+    }
+
+    @Test
+    public void bytesAreWrittenRaw() {
+        byte[] bytes = new byte[] {1, 2, 3, -128, 127};
+        BinaryElement element = JavaCodecs.BYTES.encodeStart(BinaryOps.INSTANCE, bytes).getOrThrow();
+        Assertions.assertInstanceOf(BinaryElement.Bytes.class, element);
+
+        ByteBuf buf = Unpooled.buffer();
+        element.write(buf);
+        // type tag + varint length + raw bytes
+        Assertions.assertEquals(1 + 1 + bytes.length, buf.readableBytes());
+        buf.release();
+
+        Assertions.assertArrayEquals(bytes, JavaCodecs.BYTES.parse(BinaryOps.INSTANCE, writeAndRead(element)).getOrThrow());
+    }
+
+    @Test
+    public void convertsToJson() {
+        Map<String, Integer> map = Map.of("price", 4000);
+        Codec<Map<String, Integer>> codec = Codec.unboundedMap(Codec.STRING, Codec.INT);
+        BinaryElement element = codec.encodeStart(BinaryOps.INSTANCE, map).getOrThrow();
+
+        JsonElement json = BinaryOps.INSTANCE.convertTo(JsonOps.INSTANCE, element);
+        Assertions.assertEquals(codec.encodeStart(JsonOps.INSTANCE, map).getOrThrow(), json);
+    }
+}
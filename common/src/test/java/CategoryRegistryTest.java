@@ -0,0 +1,59 @@
+import common.Category;
+import common.registry.CategoryRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class CategoryRegistryTest {
+    @Test
+    public void indexFollowsWrites() {
+        CategoryRegistry registry = new CategoryRegistry();
+        registry.add("drink", new Category("drink", "Drink", List.of("coffee", "tea")));
+        registry.add("hot", new Category("hot", "Hot", List.of("coffee")));
+
+        Assertions.assertEquals(Set.of("drink", "hot"), registry.getCategoryIds("coffee"));
+        Assertions.assertEquals(Set.of("drink"), registry.getCategoryIds("tea"));
+        Assertions.assertFalse(registry.isAssigned("cake"));
+
+        // 교체하면 이전 메뉴는 인덱스에서 빠진다.
+        registry.add("drink", new Category("drink", "Drink", List.of("tea")));
+        Assertions.assertEquals(Set.of("hot"), registry.getCategoryIds("coffee"));
+
+        registry.remove("hot");
+        Assertions.assertFalse(registry.isAssigned("coffee"));
+        Assertions.assertEquals(List.of("drink"), registry.getCategoriesOf("tea").stream().map(Category::cateId).toList());
+
+        registry.clear();
+        Assertions.assertFalse(registry.isAssigned("tea"));
+        Assertions.assertTrue(registry.getCategoriesOf("tea").isEmpty());
+    }
+
+    @Test
+    public void indexIsNeverAheadOfEntries() throws InterruptedException {
+        CategoryRegistry registry = new CategoryRegistry();
+        Category withMenu = new Category("a", "A", List.of("coffee"));
+        Category withoutMenu = new Category("a", "A", List.of());
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            boolean flag = false;
+            while (running.get()) {
+                registry.replaceAll(List.of(flag ? withMenu : withoutMenu));
+                flag = !flag;
+            }
+        });
+        writer.start();
+        try {
+            for (int i = 0; i < 100_000; i++) {
+                for (Category category : registry.getCategoriesOf("coffee")) {
+                    Assertions.assertTrue(category.containsMenu("coffee"));
+                }
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.mojang.serialization.JsonOps;
+import common.Category;
+import common.Menu;
+import common.MenuService;
+import common.network.Connection;
+import common.network.SynchronizeData;
+import common.network.handler.SerializableHandler;
+import common.network.packet.DataAddedC2SPacket;
+import common.network.packet.Serializable;
+import common.network.packet.SidedPacket;
+import common.registry.Registry;
+import common.registry.RegistryManager;
+import common.util.Container;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 메뉴와 카테고리 레지스트리, {@link Container}의 연결을 채우므로, 테스트 전의 내용을 보관했다가 되돌린다.
+ */
+public class CategoryTest {
+    private static final Menu LATTE = new Menu("category_latte", "라떼", 3000, Path.of(""), "", List.of());
+    private static final Menu TEA = new Menu("category_tea", "홍차", 2500, Path.of(""), "", List.of());
+
+    private final List<Registry<?>> registries = List.of(RegistryManager.MENUS, RegistryManager.CATEGORIES);
+    private final List<List<SynchronizeData<?>>> original = new ArrayList<>();
+    private final List<Boolean> frozen = new ArrayList<>();
+    private Connection connection;
+
+    @BeforeEach
+    public void saveRegistries() {
+        for (Registry<?> registry : this.registries) {
+            this.original.add(List.copyOf(registry.getAll()));
+            this.frozen.add(registry.isFrozen());
+        }
+        this.connection = Container.get(Connection.class);
+        fill(RegistryManager.MENUS, List.of(LATTE, TEA));
+    }
+
+    @AfterEach
+    public void restoreRegistries() {
+        for (int i = 0; i < this.registries.size(); i++) {
+            fill(this.registries.get(i), this.original.get(i));
+            if (!this.frozen.get(i)) {
+                this.registries.get(i).unfreeze();
+            }
+        }
+        Container.put(Connection.class, this.connection);
+    }
+
+    private static void fill(Registry<?> registry, List<? extends SynchronizeData<?>> entries) {
+        registry.unfreeze();
+        registry.replaceAll(List.copyOf(entries));
+        registry.freeze();
+    }
+
+    @Test
+    public void menusResolveThroughRegistry() {
+        Category category = new Category("category_drink", "음료", List.of(TEA.id(), "category_unknown", LATTE.id()));
+        Assertions.assertEquals(List.of(TEA, LATTE), category.menus());
+
+        // 메뉴가 바뀌면 카테고리를 바꾸지 않아도 바뀐 메뉴가 보인다.
+        Menu soldOut = LATTE.withSoldOut(true);
+        fill(RegistryManager.MENUS, List.of(soldOut));
+        Assertions.assertEquals(List.of(soldOut), category.menus());
+    }
+
+    @Test
+    public void withMenuKeepsOrderWithoutDuplicates() {
+        Category category = new Category("category_drink", "음료", List.of(TEA.id(), LATTE.id()));
+
+        Assertions.assertSame(category, category.withMenu(TEA.id()));
+        Assertions.assertEquals(List.of(TEA.id(), LATTE.id(), "category_new"), category.withMenu("category_new").menuIds());
+        Assertions.assertEquals(List.of(LATTE.id()), category.withoutMenu(TEA.id()).menuIds());
+        Assertions.assertEquals(category.menuIds(), category.withoutMenu("category_unknown").menuIds());
+    }
+
+    @Test
+    public void encodesOnlyMenuIds() {
+        Category category = Category.of("category_drink", "음료", List.of(LATTE, TEA));
+        JsonObject json = Category.SYNC_CODEC.encodeStart(JsonOps.INSTANCE, category).getOrThrow().getAsJsonObject();
+
+        JsonArray menus = json.getAsJsonArray("categories");
+        Assertions.assertEquals(2, menus.size());
+        Assertions.assertEquals(LATTE.id(), menus.get(0).getAsString());
+        Assertions.assertEquals(TEA.id(), menus.get(1).getAsString());
+        Assertions.assertEquals(category, Category.SYNC_CODEC.parse(JsonOps.INSTANCE, json).getOrThrow());
+    }
+
+    @Test
+    public void toggleSoldOutSendsMenuOnce() {
+        fill(RegistryManager.CATEGORIES, List.of(
+                Category.of("category_drink", "음료", List.of(LATTE, TEA)),
+                Category.of("category_hot", "따뜻한", List.of(LATTE)),
+                Category.of("category_best", "추천", List.of(LATTE))
+        ));
+        List<Serializable<?>> sent = new ArrayList<>();
+        Container.put(Connection.class, new RecordingConnection(sent));
+
+        Assertions.assertTrue(MenuService.getInstance().toggleSoldOut(LATTE.id()));
+
+        Assertions.assertEquals(1, sent.size());
+        DataAddedC2SPacket packet = Assertions.assertInstanceOf(DataAddedC2SPacket.class, sent.getFirst());
+        Assertions.assertEquals(RegistryManager.MENUS.getRegistryId(), packet.registryId());
+        Assertions.assertEquals(LATTE.withSoldOut(true), packet.data());
+    }
+
+    /**
+     * 보낸 패킷을 기록하기만 하는 클라이언트 연결이다.
+     */
+    private record RecordingConnection(List<Serializable<?>> sent) implements Connection {
+        @Override
+        public ChannelFuture run() {
+            return null;
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public SidedPacket.Side getSide() {
+            return SidedPacket.Side.CLIENT;
+        }
+
+        @Override
+        public ChannelFuture sendSerializable(String id, Serializable<?> serializable) {
+            this.sent.add(serializable);
+            return null;
+        }
+
+        @Override
+        public void handleDisconnect(ChannelHandlerContext ctx, SerializableHandler handler) {
+        }
+
+        @Override
+        public void onEstablishedChannel(ChannelHandlerContext ctx, SerializableHandler handler) {
+        }
+
+        @Override
+        public List<SerializableHandler> getHandlers() {
+            return List.of();
+        }
+    }
+}
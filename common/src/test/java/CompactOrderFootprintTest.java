@@ -0,0 +1,121 @@
+import com.google.gson.JsonParser;
+import com.mojang.serialization.JsonOps;
+import common.Cart;
+import common.CompactOrder;
+import common.Menu;
+import common.Option;
+import common.OptionGroup;
+import common.Order;
+import common.OrderItem;
+import common.OrderStatus;
+import common.registry.OrderRegistry;
+import common.registry.RegistryManager;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 저장된 주문 하나가 차지하는 힙 크기를 {@link Order}와 {@link CompactOrder}로 비교한다. <br>
+ * 주문은 실제 로드와 같이 주문마다 따로 Json 을 파싱해 디코딩하므로, 항목마다 메뉴와 문자열, 경로가 새로 만들어진다. <br>
+ * 크기는 GC 와 무관하게 객체 그래프를 따라가며 잰다. 레지스트리처럼 주문끼리 공유하는 객체를 빼기 위해
+ * 주문 N 개와 2N 개의 크기 차이로 주문 하나의 크기를 구한다.
+ */
+public class CompactOrderFootprintTest {
+    private static final int ORDER_COUNT = 1_000;
+    private static final Option HOT = new Option("footprint_hot", "뜨겁게", 0);
+    private static final Option SHOT = new Option("footprint_shot", "샷 추가", 500);
+    private static final OptionGroup TEMPERATURE = new OptionGroup("footprint_temp", "온도", true, List.of(HOT));
+    private static final OptionGroup EXTRA = new OptionGroup("footprint_extra", "추가", false, List.of(SHOT));
+    private static final Menu AMERICANO = new Menu("footprint_americano", "아메리카노", 2000, Path.of("images", "americano.png"), "진한 에스프레소에 물을 더한 커피", List.of(TEMPERATURE, EXTRA));
+    private static final Menu LATTE = new Menu("footprint_latte", "카페 라떼", 3000, Path.of("images", "latte.png"), "에스프레소와 우유", List.of(TEMPERATURE, EXTRA));
+    private static Order template;
+
+    @BeforeAll
+    public static void setUp() {
+        RegistryManager.OPTIONS.add(HOT.id(), HOT);
+        RegistryManager.OPTIONS.add(SHOT.id(), SHOT);
+        RegistryManager.OPTION_GROUPS.add(TEMPERATURE.id(), TEMPERATURE);
+        RegistryManager.OPTION_GROUPS.add(EXTRA.id(), EXTRA);
+        RegistryManager.MENUS.add(AMERICANO.id(), AMERICANO);
+        RegistryManager.MENUS.add(LATTE.id(), LATTE);
+
+        Cart cart = new Cart();
+        cart.addItem(new OrderItem(AMERICANO, Map.of(TEMPERATURE, HOT, EXTRA, SHOT), 2));
+        cart.addItem(new OrderItem(LATTE, Map.of(TEMPERATURE, HOT), 1));
+        cart.addItem(new OrderItem(AMERICANO, Map.of(), 1));
+        template = new Order(1, "customer", LocalDateTime.of(2025, 3, 14, 12, 30, 15, 123_000_000), OrderStatus.ACCEPTED, cart);
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        RegistryManager.MENUS.remove(AMERICANO.id());
+        RegistryManager.MENUS.remove(LATTE.id());
+        RegistryManager.OPTION_GROUPS.remove(TEMPERATURE.id());
+        RegistryManager.OPTION_GROUPS.remove(EXTRA.id());
+        RegistryManager.OPTIONS.remove(HOT.id());
+        RegistryManager.OPTIONS.remove(SHOT.id());
+    }
+
+    private static List<Order> decode(String json, int count) {
+        List<Order> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Order order = Order.CODEC.parse(JsonOps.INSTANCE, JsonParser.parseString(json)).getOrThrow();
+            orders.add(new Order(i, order.customer() + "_" + (i % 50), order.orderTime().plusSeconds(i), order.status(), order.cart()));
+        }
+        return orders;
+    }
+
+    private static long perOrder(List<?> small, List<?> large) {
+        return (GraphLayout.parseInstance(large).totalSize() - GraphLayout.parseInstance(small).totalSize()) / (large.size() - small.size());
+    }
+
+    @Test
+    public void roundTrip() {
+        CompactOrder compact = CompactOrder.of(template);
+        Order restored = compact.toOrder();
+
+        Assertions.assertEquals(template.orderId(), restored.orderId());
+        Assertions.assertEquals(template.orderTime(), restored.orderTime());
+        Assertions.assertEquals(template.cart().calculateCartTotal(), restored.cart().calculateCartTotal());
+        Assertions.assertEquals(template.cart().calculateCartTotal(), compact.totalPrice());
+        Assertions.assertEquals(template.cart().getItems(), restored.cart().getItems());
+        // 복원된 메뉴는 레지스트리의 객체를 그대로 사용한다.
+        Assertions.assertSame(LATTE, restored.cart().getItems().get(1).getMenuItem());
+        Assertions.assertEquals(compact, CompactOrder.of(restored));
+        Assertions.assertTrue(compact.matches(restored));
+        Assertions.assertFalse(compact.matches(restored.withStatus(OrderStatus.CANCELED)));
+    }
+
+    @Test
+    public void rawIdComparesStoredForm() {
+        OrderRegistry registry = new OrderRegistry();
+        registry.addOrder(template);
+
+        Assertions.assertEquals(template.orderId(), registry.getRawId(template));
+        Assertions.assertEquals(template.orderId(), registry.getRawId(registry.getOrderById(template.orderId())));
+        Cart changed = new Cart();
+        changed.addItem(new OrderItem(AMERICANO, Map.of(TEMPERATURE, HOT), 2));
+        Order other = new Order(template.orderId(), template.customer(), template.orderTime(), template.status(), changed);
+        Assertions.assertEquals(OrderRegistry.ABSENT_LOW_INDEX, registry.getRawId(other));
+    }
+
+    @Test
+    public void compactFormIsAnOrderOfMagnitudeSmaller() {
+        String json = Order.CODEC.encodeStart(JsonOps.INSTANCE, template).getOrThrow().toString();
+        List<Order> small = decode(json, ORDER_COUNT);
+        List<Order> large = decode(json, ORDER_COUNT * 2);
+
+        long full = perOrder(small, large);
+        long compact = perOrder(small.stream().map(CompactOrder::of).toList(), large.stream().map(CompactOrder::of).toList());
+
+        Assertions.assertTrue(full >= compact * 10, "full " + full + " bytes, compact " + compact + " bytes per order");
+    }
+}
@@ -0,0 +1,67 @@
+import common.Option;
+import common.network.SynchronizeData;
+import common.network.encryption.EncryptionMode;
+import common.network.encryption.NetworkEncryptionUtils;
+import common.network.encryption.PacketEncryptionManager;
+import common.network.packet.UpdateDataPacket;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 채널 암호화 방식 별 처리량을 비교한다. 페이로드는 실제 {@link UpdateDataPacket.ResponseDataS2CPacket}의 Json 이다. <br>
+ * 일반 테스트에서는 실행되지 않으며 <code>./gradlew benchmark</code>로 실행한다.
+ */
+@Tag("benchmark")
+public class EncryptionModeBenchmark {
+    private static final int[] ENTRY_COUNTS = {10, 100, 1000};
+    private static final long BYTES_PER_RUN = 16L * 1024 * 1024;
+
+    private static byte[] createPayload(int entries) {
+        List<SynchronizeData<?>> options = new ArrayList<>(entries);
+        for (int i = 0; i < entries; i++) {
+            options.add(new Option("option_" + i, "샷 추가 " + i, i * 100));
+        }
+        return new UpdateDataPacket.ResponseDataS2CPacket("options", options).toJson().toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static double measure(PacketEncryptionManager manager, byte[] payload) throws Exception {
+        long iterations = Math.max(1, BYTES_PER_RUN / payload.length);
+        ByteBuf frame = Unpooled.wrappedBuffer(payload);
+        ByteBuf output = Unpooled.buffer(payload.length + EncryptionMode.TAG_LENGTH);
+        // warm up
+        for (long i = 0; i < iterations / 4; i++) {
+            frame.readerIndex(0);
+            output.clear();
+            manager.encrypt(frame, output);
+        }
+        long start = System.nanoTime();
+        for (long i = 0; i < iterations; i++) {
+            frame.readerIndex(0);
+            output.clear();
+            manager.encrypt(frame, output);
+        }
+        long elapsed = System.nanoTime() - start;
+        output.release();
+        return (iterations * payload.length) / (elapsed / 1_000_000_000.0) / (1024 * 1024);
+    }
+
+    @Test
+    public void throughput() throws Exception {
+        SecretKey key = NetworkEncryptionUtils.generateSecretKey();
+        for (int entries : ENTRY_COUNTS) {
+            byte[] payload = createPayload(entries);
+            for (EncryptionMode mode : EncryptionMode.values()) {
+                PacketEncryptionManager manager = PacketEncryptionManager.create(Cipher.ENCRYPT_MODE, key, mode, NetworkEncryptionUtils.generateIv());
+                System.out.printf("%-8s %5d entries (%7d bytes) : %8.1f MiB/s%n", mode.asString(), entries, payload.length, measure(manager, payload));
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+import com.google.gson.JsonObject;
+import com.mojang.serialization.JsonOps;
+import common.network.encryption.EncryptionMode;
+import common.network.encryption.NetworkEncryptionUtils;
+import common.network.encryption.PacketEncryptionManager;
+import common.network.packet.KeyC2SPacket;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class EncryptionModeTest {
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        ThreadLocalRandom.current().nextBytes(bytes);
+        return bytes;
+    }
+
+    private static ByteBuf encrypt(PacketEncryptionManager encryptor, byte[] payload) throws Exception {
+        ByteBuf out = Unpooled.buffer();
+        encryptor.encrypt(Unpooled.wrappedBuffer(payload), out);
+        return out;
+    }
+
+    private static byte[] decrypt(PacketEncryptionManager decryptor, ByteBuf frame) throws Exception {
+        ByteBuf decrypted = decryptor.decrypt(ByteBufAllocator.DEFAULT, frame);
+        try {
+            byte[] result = new byte[decrypted.readableBytes()];
+            decrypted.readBytes(result);
+            return result;
+        } finally {
+            decrypted.release();
+        }
+    }
+
+    @Test
+    public void gcmRoundTripPerFrame() throws Exception {
+        SecretKey key = NetworkEncryptionUtils.generateSecretKey();
+        byte[] iv = NetworkEncryptionUtils.generateIv();
+        PacketEncryptionManager encryptor = PacketEncryptionManager.create(Cipher.ENCRYPT_MODE, key, EncryptionMode.GCM, iv);
+        PacketEncryptionManager decryptor = PacketEncryptionManager.create(Cipher.DECRYPT_MODE, key, EncryptionMode.GCM, iv);
+
+        List<byte[]> payloads = List.of(randomBytes(5000), randomBytes(1), randomBytes(5000));
+        List<ByteBuf> frames = new ArrayList<>();
+        for (byte[] payload : payloads) {
+            ByteBuf frame = encrypt(encryptor, payload);
+            Assertions.assertEquals(payload.length + EncryptionMode.TAG_LENGTH, frame.readableBytes());
+            frames.add(frame);
+        }
+        // 같은 내용이라도 프레임마다 nonce 가 다르므로 암호문이 다르다.
+        Assertions.assertNotEquals(frames.get(0), frames.get(2));
+
+        for (int i = 0; i < payloads.size(); i++) {
+            Assertions.assertArrayEquals(payloads.get(i), decrypt(decryptor, frames.get(i)));
+            frames.get(i).release();
+        }
+    }
+
+    @Test
+    public void gcmRejectsTamperedFrame() throws Exception {
+        SecretKey key = NetworkEncryptionUtils.generateSecretKey();
+        byte[] iv = NetworkEncryptionUtils.generateIv();
+        PacketEncryptionManager encryptor = PacketEncryptionManager.create(Cipher.ENCRYPT_MODE, key, EncryptionMode.GCM, iv);
+        PacketEncryptionManager decryptor = PacketEncryptionManager.create(Cipher.DECRYPT_MODE, key, EncryptionMode.GCM, iv);
+
+        ByteBuf frame = encrypt(encryptor, randomBytes(100));
+        // CFB8 이나 CTR 과 달리 비트 하나만 바꿔도 복호화에 실패한다.
+        frame.setByte(10, frame.getByte(10) ^ 1);
+        Assertions.assertThrows(AEADBadTagException.class, () -> decrypt(decryptor, frame));
+        frame.release();
+    }
+
+    @Test
+    public void gcmRejectsReorderedFrames() throws Exception {
+        SecretKey key = NetworkEncryptionUtils.generateSecretKey();
+        byte[] iv = NetworkEncryptionUtils.generateIv();
+        PacketEncryptionManager encryptor = PacketEncryptionManager.create(Cipher.ENCRYPT_MODE, key, EncryptionMode.GCM, iv);
+        PacketEncryptionManager decryptor = PacketEncryptionManager.create(Cipher.DECRYPT_MODE, key, EncryptionMode.GCM, iv);
+
+        ByteBuf first = encrypt(encryptor, randomBytes(100));
+        ByteBuf second = encrypt(encryptor, randomBytes(100));
+        Assertions.assertThrows(AEADBadTagException.class, () -> decrypt(decryptor, second));
+        first.release();
+        second.release();
+    }
+
+    @Test
+    public void cfb8RoundTrip() throws Exception {
+        SecretKey key = NetworkEncryptionUtils.generateSecretKey();
+        byte[] iv = NetworkEncryptionUtils.generateIv();
+        byte[] payload = randomBytes(777);
+
+        Cipher encrypt = EncryptionMode.CFB8.createCipher(Cipher.ENCRYPT_MODE, key, iv);
+        Cipher decrypt = EncryptionMode.CFB8.createCipher(Cipher.DECRYPT_MODE, key, iv);
+        Assertions.assertArrayEquals(payload, decrypt.update(encrypt.update(payload)));
+    }
+
+    @Test
+    public void negotiateNeverFallsBackSilently() {
+        Assertions.assertEquals(EncryptionMode.GCM, EncryptionMode.negotiate(List.of(EncryptionMode.CFB8, EncryptionMode.GCM)));
+        Assertions.assertEquals(EncryptionMode.CFB8, EncryptionMode.negotiate(List.of(EncryptionMode.CFB8)));
+        Assertions.assertThrows(IllegalStateException.class, () -> EncryptionMode.negotiate(List.of()));
+        // 상대가 알린 방식이라도 이쪽이 받아들이지 않는다면 고르지 않는다.
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> EncryptionMode.negotiate(List.of(EncryptionMode.CFB8), List.of(EncryptionMode.GCM)));
+    }
+
+    @Test
+    public void modeIsBoundToNonce() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(1024);
+        KeyPair keyPair = generator.generateKeyPair();
+        byte[] nonce = randomBytes(4);
+        byte[] clientIv = NetworkEncryptionUtils.generateIv();
+        byte[] serverIv = NetworkEncryptionUtils.generateIv();
+        KeyC2SPacket packet = new KeyC2SPacket(NetworkEncryptionUtils.generateSecretKey(), keyPair.getPublic(), nonce, EncryptionMode.GCM, clientIv, serverIv);
+        Assertions.assertTrue(packet.verifySignedNonce(nonce, keyPair.getPrivate()));
+
+        // 평문으로 전달되는 방식만 바꾸면 검증에 실패한다.
+        JsonObject json = KeyC2SPacket.CODEC.encodeStart(JsonOps.INSTANCE, packet).getOrThrow().getAsJsonObject();
+        json.addProperty("encryption_mode", EncryptionMode.CFB8.asString());
+        KeyC2SPacket downgraded = KeyC2SPacket.CODEC.parse(JsonOps.INSTANCE, json).getOrThrow();
+        Assertions.assertEquals(EncryptionMode.CFB8, downgraded.getEncryptionMode());
+        Assertions.assertFalse(downgraded.verifySignedNonce(nonce, keyPair.getPrivate()));
+    }
+}
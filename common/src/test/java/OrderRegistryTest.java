@@ -0,0 +1,176 @@
+import common.Cart;
+import common.Order;
+import common.OrderStatus;
+import common.network.SynchronizeData;
+import common.registry.OrderRegistry;
+import common.registry.RegistryManager;
+import common.registry.RegistryTransaction;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class OrderRegistryTest {
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 14);
+
+    @Test
+    public void indexesFollowUpdates() {
+        OrderRegistry registry = new OrderRegistry();
+        LocalDateTime now = DAY.atTime(12, 0);
+        registry.addOrder(new Order(1, "alice", now.minusMinutes(2), OrderStatus.PENDING));
+        registry.addOrder(new Order(2, "bob", now.minusMinutes(1), OrderStatus.PENDING));
+        registry.addOrder(new Order(3, "alice", now, OrderStatus.ACCEPTED));
+
+        Collection<Order> pending = registry.getOrdersByStatus(OrderStatus.PENDING);
+        Assertions.assertEquals(List.of(2, 1), pending.stream().map(Order::orderId).toList());
+
+        // view 이므로 이후의 변경이 그대로 보인다.
+        registry.addOrder(registry.getOrderById(1).withStatus(OrderStatus.ACCEPTED));
+        Assertions.assertEquals(List.of(2), pending.stream().map(Order::orderId).toList());
+        Assertions.assertEquals(2, registry.getOrdersByStatus(OrderStatus.ACCEPTED).size());
+        Assertions.assertEquals(List.of(3, 1), registry.getOrdersByCustomer("alice").stream().map(Order::orderId).toList());
+
+        Assertions.assertTrue(registry.remove("2"));
+        Assertions.assertTrue(registry.getOrdersByCustomer("bob").isEmpty());
+        Assertions.assertEquals(List.of(3, 1), registry.getAll().stream().map(Order::orderId).toList());
+    }
+
+    @Test
+    public void sameOrderIsNotRecorded() {
+        OrderRegistry registry = new OrderRegistry();
+        Order order = new Order(1, "alice", DAY.atTime(12, 0), OrderStatus.PENDING);
+        registry.addOrder(order);
+        long version = registry.getVersion();
+
+        registry.addOrder(new Order(1, "alice", DAY.atTime(12, 0), OrderStatus.PENDING));
+        Assertions.assertEquals(version, registry.getVersion());
+        registry.addOrder(order.withStatus(OrderStatus.ACCEPTED));
+        Assertions.assertEquals(version + 1, registry.getVersion());
+    }
+
+    @Test
+    public void replaceAllIsSeenWhole() throws Exception {
+        OrderRegistry registry = new OrderRegistry();
+        List<SynchronizeData<?>> small = new ArrayList<>();
+        List<SynchronizeData<?>> large = new ArrayList<>();
+        LocalDateTime time = LocalDateTime.of(2025, 1, 1, 12, 0);
+        for (int i = 0; i < 200; i++) {
+            Order order = new Order(i, "customer_" + i, time.plusMinutes(i), OrderStatus.PENDING);
+            large.add(order);
+            if (i < 100) {
+                small.add(order);
+            }
+        }
+        registry.replaceAll(small);
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            for (int i = 0; running.get(); i++) {
+                registry.replaceAll(i % 2 == 0 ? large : small);
+            }
+        });
+        writer.start();
+        try {
+            for (int i = 0; i < 2000; i++) {
+                int size = registry.size();
+                Assertions.assertTrue(size == 100 || size == 200, "saw partial replacement of size " + size);
+                int listed = registry.getAll().size();
+                Assertions.assertTrue(listed == 100 || listed == 200, "saw partial replacement of size " + listed);
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+    }
+
+    @Test
+    public void transactionStagesUntilCommit() {
+        OrderRegistry registry = new OrderRegistry();
+        LocalDateTime time = DAY.atTime(12, 0);
+        registry.addOrder(new Order(1, "alice", time, OrderStatus.PENDING));
+        registry.addOrder(new Order(2, "bob", time, OrderStatus.PENDING));
+        long version = registry.getVersion();
+
+        RegistryTransaction failing = RegistryManager.transaction()
+                .remove(registry, "1")
+                .update(registry, "2", order -> {
+                    // 커밋 전에는 반영된 내용이 보이지 않는다.
+                    Assertions.assertTrue(registry.getById("1").isPresent());
+                    throw new IllegalStateException("fail");
+                });
+        Assertions.assertThrows(IllegalStateException.class, failing::commit);
+        Assertions.assertEquals(List.of(2, 1), registry.getAll().stream().map(Order::orderId).toList());
+        Assertions.assertEquals(version, registry.getVersion());
+
+        RegistryManager.transaction()
+                .remove(registry, "1")
+                .update(registry, "2", order -> order.withStatus(OrderStatus.ACCEPTED))
+                .commit();
+        Assertions.assertEquals(List.of(2), registry.getAll().stream().map(Order::orderId).toList());
+        Assertions.assertEquals(List.of(2), registry.getOrdersByStatus(OrderStatus.ACCEPTED).stream().map(Order::orderId).toList());
+        Assertions.assertEquals(version + 2, registry.getVersion());
+    }
+
+    @Test
+    public void viewsFollowReplacement() {
+        OrderRegistry registry = new OrderRegistry();
+        LocalDateTime time = LocalDateTime.of(2025, 1, 1, 12, 0);
+        registry.addOrder(new Order(1, "alice", time, OrderStatus.PENDING));
+        Collection<Order> pending = registry.getOrdersByStatus(OrderStatus.PENDING);
+        List<Order> all = registry.getAll();
+        Assertions.assertSame(all, registry.getAll());
+
+        registry.replaceAll(List.of(new Order(2, "bob", time, OrderStatus.PENDING), new Order(3, "bob", time, OrderStatus.ACCEPTED)));
+        Assertions.assertEquals(List.of(2), pending.stream().map(Order::orderId).toList());
+        // 이미 받은 목록은 바뀌지 않는다.
+        Assertions.assertEquals(List.of(1), all.stream().map(Order::orderId).toList());
+        Assertions.assertEquals(List.of(3, 2), registry.getAll().stream().map(Order::orderId).toList());
+    }
+
+    @Test
+    public void ordersOfOneDayByStatus() {
+        OrderRegistry registry = new OrderRegistry();
+        LocalDateTime start = DAY.minusDays(3).atStartOfDay();
+        for (int i = 0; i < 700; i++) {
+            // 10분에 한 건씩 약 5일. 주문 번호는 블록 단위로 발급되므로 시각 순서와 일부러 어긋나게 한다.
+            int orderId = (i % 7) * 1000 + i / 7;
+            OrderStatus status = i % 3 == 0 ? OrderStatus.PENDING : OrderStatus.ACCEPTED;
+            registry.addOrder(new Order(orderId, "customer_" + (i % 5), start.plusMinutes(i * 10L), status, Cart.EMPTY));
+        }
+        LocalDateTime from = DAY.atStartOfDay();
+        LocalDateTime to = from.plusDays(1);
+
+        List<Integer> expected = registry.getAll().stream()
+                .filter(order -> !order.orderTime().isBefore(from) && order.orderTime().isBefore(to))
+                .filter(order -> order.status() == OrderStatus.PENDING)
+                .sorted(Comparator.comparing(Order::orderTime).reversed())
+                .map(Order::orderId)
+                .toList();
+        List<Integer> actual = registry.getOrdersBetween(from, to, OrderStatus.PENDING).stream().map(Order::orderId).toList();
+
+        Assertions.assertEquals(48, expected.size());
+        Assertions.assertEquals(expected, actual);
+        Assertions.assertEquals(144, registry.getOrdersBetween(from, to).size());
+    }
+
+    @Test
+    public void timeRangeBounds() {
+        OrderRegistry registry = new OrderRegistry();
+        LocalDateTime midnight = DAY.atStartOfDay();
+        registry.addOrder(new Order(1, "alice", midnight.minusNanos(1), OrderStatus.PENDING));
+        registry.addOrder(new Order(2, "alice", midnight, OrderStatus.PENDING));
+        registry.addOrder(new Order(3, "alice", midnight.plusDays(1).minusNanos(1), OrderStatus.PENDING));
+        registry.addOrder(new Order(4, "alice", midnight.plusDays(1), OrderStatus.PENDING));
+
+        // 시작은 포함하고 끝은 제외한다.
+        Assertions.assertEquals(List.of(3, 2), registry.getOrdersBetween(midnight, midnight.plusDays(1)).stream().map(Order::orderId).toList());
+        Assertions.assertTrue(registry.getOrdersBetween(midnight, midnight).isEmpty());
+        Assertions.assertTrue(registry.getOrdersBetween(midnight.plusDays(1), midnight).isEmpty());
+    }
+}
@@ -0,0 +1,132 @@
+import common.network.encryption.EncryptionMode;
+import common.network.encryption.NetworkEncryptionUtils;
+import common.network.encryption.PacketEncryptionManager;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class PacketEncryptionManagerTest {
+    private static final int FRAME_SIZE = 8192;
+
+    @Test
+    public void heapPathIsNotStaged() throws Exception {
+        SecretKey key = NetworkEncryptionUtils.generateSecretKey();
+        PacketEncryptionManager manager = PacketEncryptionManager.create(Cipher.ENCRYPT_MODE, key, EncryptionMode.GCM, NetworkEncryptionUtils.generateIv());
+        ByteBuf frame = Unpooled.buffer(FRAME_SIZE);
+        ByteBuf out = Unpooled.buffer(FRAME_SIZE + EncryptionMode.TAG_LENGTH);
+        frame.writeBytes(new byte[FRAME_SIZE]);
+
+        for (int i = 0; i < 100; i++) {
+            frame.readerIndex(0);
+            out.clear();
+            manager.encrypt(frame, out);
+            Assertions.assertEquals(FRAME_SIZE + EncryptionMode.TAG_LENGTH, out.readableBytes());
+        }
+
+        // heap 버퍼끼리는 backing array 를 바로 사용하므로 staging 배열을 만들거나 거치지 않는다.
+        Assertions.assertEquals(100, manager.getFrames());
+        Assertions.assertEquals(0, manager.getStagedFrames());
+        Assertions.assertEquals(0, manager.getStagedBytes());
+        Assertions.assertEquals(0, manager.getBufferResizes());
+        frame.release();
+        out.release();
+    }
+
+    @Test
+    public void directInputAndOutputCountOneFrame() throws Exception {
+        SecretKey key = NetworkEncryptionUtils.generateSecretKey();
+        PacketEncryptionManager manager = PacketEncryptionManager.create(Cipher.ENCRYPT_MODE, key, EncryptionMode.GCM, NetworkEncryptionUtils.generateIv());
+        ByteBuf frame = Unpooled.directBuffer(FRAME_SIZE);
+        ByteBuf out = Unpooled.directBuffer(FRAME_SIZE + EncryptionMode.TAG_LENGTH);
+        frame.writeBytes(new byte[FRAME_SIZE]);
+
+        for (int i = 0; i < 10; i++) {
+            frame.readerIndex(0);
+            out.clear();
+            manager.encrypt(frame, out);
+        }
+
+        Assertions.assertEquals(10, manager.getFrames());
+        Assertions.assertEquals(10, manager.getStagedFrames());
+        // 입력과 출력 staging 배열이 처음 한 번씩만 만들어진다.
+        Assertions.assertEquals(2, manager.getBufferResizes());
+        frame.release();
+        out.release();
+    }
+
+    @Test
+    public void directInputIsStagedOnce() throws Exception {
+        SecretKey key = NetworkEncryptionUtils.generateSecretKey();
+        byte[] iv = NetworkEncryptionUtils.generateIv();
+        PacketEncryptionManager encryptor = PacketEncryptionManager.create(Cipher.ENCRYPT_MODE, key, EncryptionMode.GCM, iv);
+        PacketEncryptionManager decryptor = PacketEncryptionManager.create(Cipher.DECRYPT_MODE, key, EncryptionMode.GCM, iv);
+
+        byte[] payload = new byte[FRAME_SIZE];
+        ThreadLocalRandom.current().nextBytes(payload);
+        for (int i = 0; i < 10; i++) {
+            ByteBuf encrypted = Unpooled.buffer(FRAME_SIZE + EncryptionMode.TAG_LENGTH);
+            encryptor.encrypt(Unpooled.wrappedBuffer(payload), encrypted);
+
+            ByteBuf direct = Unpooled.directBuffer(FRAME_SIZE + EncryptionMode.TAG_LENGTH).writeBytes(encrypted);
+            ByteBuf decrypted = decryptor.decrypt(ByteBufAllocator.DEFAULT, direct);
+
+            byte[] result = new byte[decrypted.readableBytes()];
+            decrypted.readBytes(result);
+            Assertions.assertArrayEquals(payload, result);
+            encrypted.release();
+            direct.release();
+            decrypted.release();
+        }
+        Assertions.assertEquals(10, decryptor.getStagedFrames());
+        Assertions.assertEquals(1, decryptor.getBufferResizes());
+        Assertions.assertEquals(0, encryptor.getStagedFrames());
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    @Test
+    public void heapFramesDoNotCopyPayload() throws Exception {
+        SecretKey key = NetworkEncryptionUtils.generateSecretKey();
+        byte[] iv = NetworkEncryptionUtils.generateIv();
+        PacketEncryptionManager encryptor = PacketEncryptionManager.create(Cipher.ENCRYPT_MODE, key, EncryptionMode.GCM, iv);
+        PacketEncryptionManager decryptor = PacketEncryptionManager.create(Cipher.DECRYPT_MODE, key, EncryptionMode.GCM, iv);
+        ByteBufAllocator allocator = new PooledByteBufAllocator(false);
+        ByteBuf frame = Unpooled.buffer(FRAME_SIZE).writeBytes(new byte[FRAME_SIZE]);
+        ByteBuf encrypted = Unpooled.buffer(FRAME_SIZE + EncryptionMode.TAG_LENGTH);
+        int iterations = 1000;
+
+        long encryptBytes = 0;
+        long decryptBytes = 0;
+        for (int i = 0; i < iterations * 2; i++) {
+            frame.readerIndex(0);
+            encrypted.clear();
+            long start = allocatedBytes();
+            encryptor.encrypt(frame, encrypted);
+            long encrypt = allocatedBytes();
+            decryptor.decrypt(allocator, encrypted).release();
+            long decrypt = allocatedBytes();
+            // 앞의 절반은 JIT 과 풀을 데우는 데 사용한다.
+            if (i >= iterations) {
+                encryptBytes += encrypt - start;
+                decryptBytes += decrypt - encrypt;
+            }
+        }
+
+        // 프레임마다 Cipher 초기화에 드는 할당은 있지만, 페이로드 크기의 복사본은 만들지 않는다.
+        Assertions.assertTrue(encryptBytes / iterations < FRAME_SIZE / 2, "encrypt allocated " + encryptBytes / iterations + " bytes per frame");
+        Assertions.assertTrue(decryptBytes / iterations < FRAME_SIZE / 2, "decrypt allocated " + decryptBytes / iterations + " bytes per frame");
+        Assertions.assertEquals(0, encryptor.getStagedFrames() + decryptor.getStagedFrames());
+        frame.release();
+        encrypted.release();
+    }
+}
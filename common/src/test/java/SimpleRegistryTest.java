@@ -0,0 +1,203 @@
+import common.Option;
+import common.registry.Registry;
+import common.registry.RegistryChange;
+import common.registry.RegistryEntryChange;
+import common.registry.RegistryManager;
+import common.registry.RegistryTransaction;
+import common.registry.SimpleRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class SimpleRegistryTest {
+    private static SimpleRegistry<Option> createRegistry() {
+        return new SimpleRegistry<>("options", Option.SYNC_CODEC, Option.class);
+    }
+
+    @Test
+    public void rawIdsAreStableAndReused() {
+        SimpleRegistry<Option> registry = createRegistry();
+        Option first = registry.add("a", new Option("a", "A", 0));
+        Option second = registry.add("b", new Option("b", "B", 100));
+        Option third = registry.add("c", new Option("c", "C", 200));
+        int thirdRawId = registry.getRawId(third);
+
+        Assertions.assertTrue(registry.remove("b"));
+        // 제거는 다른 요소의 raw index 를 바꾸지 않는다.
+        Assertions.assertEquals(thirdRawId, registry.getRawId(third));
+        Assertions.assertSame(third, registry.get(thirdRawId));
+        Assertions.assertNull(registry.get(registry.getRawId(second)));
+
+        // 비워진 칸은 다음에 추가되는 요소가 재사용한다.
+        Option fourth = registry.add("d", new Option("d", "D", 300));
+        Assertions.assertEquals(1, registry.getRawId(fourth));
+
+        // 같은 ID를 교체해도 raw index 는 유지된다.
+        int firstRawId = registry.getRawId(first);
+        Option replaced = registry.add("a", new Option("a", "A2", 50));
+        Assertions.assertEquals(firstRawId, registry.getRawId(replaced));
+        Assertions.assertEquals(-1, registry.getRawId(first));
+        Assertions.assertEquals(3, registry.size());
+    }
+
+    @Test
+    public void snapshotIsNotAffectedByLaterWrites() {
+        SimpleRegistry<Option> registry = createRegistry();
+        registry.add("a", new Option("a", "A", 0));
+        List<Option> before = registry.getAll();
+        long version = registry.getVersion();
+
+        registry.addAll(List.of(new Option("b", "B", 0), new Option("c", "C", 0)));
+
+        Assertions.assertEquals(1, before.size());
+        Assertions.assertEquals(3, registry.getAll().size());
+        Assertions.assertEquals(version + 2, registry.getVersion());
+        Assertions.assertSame(registry.getAll(), registry.getAll());
+    }
+
+    @Test
+    public void replaceAllFiresOnlyNetChanges() {
+        SimpleRegistry<Option> registry = createRegistry();
+        registry.addAll(List.of(new Option("a", "A", 0), new Option("b", "B", 0)));
+
+        List<List<RegistryEntryChange<Option>>> fired = new ArrayList<>();
+        registry.getChangeEvent().register((r, changes) -> fired.add(changes));
+        registry.replaceAll(List.of(new Option("a", "A", 0), new Option("b", "B2", 0), new Option("c", "C", 0)));
+
+        // 한 번의 교체는 한 번의 이벤트로 전달되고, 값이 같은 a 는 포함되지 않는다.
+        Assertions.assertEquals(1, fired.size());
+        List<RegistryEntryChange<Option>> changes = fired.getFirst();
+        Assertions.assertEquals(List.of("b", "c"), changes.stream().map(RegistryEntryChange::id).toList());
+        Assertions.assertEquals(RegistryEntryChange.Type.UPDATED, changes.get(0).type());
+        Assertions.assertEquals("B", changes.get(0).oldValue().name());
+        Assertions.assertEquals(RegistryEntryChange.Type.ADDED, changes.get(1).type());
+        Assertions.assertEquals(registry.getVersion(), changes.get(1).version());
+    }
+
+    @Test
+    public void failedTransactionIsRolledBack() {
+        SimpleRegistry<Option> options = createRegistry();
+        SimpleRegistry<Option> others = createRegistry();
+        Option a = options.add("a", new Option("a", "A", 0));
+        options.add("gone", new Option("gone", "Gone", 0));
+        options.remove("gone");
+        List<Option> before = options.getAll();
+        long version = options.getVersion();
+        long otherVersion = others.getVersion();
+
+        List<List<RegistryEntryChange<Option>>> fired = new ArrayList<>();
+        options.getChangeEvent().register((r, changes) -> fired.add(changes));
+        RegistryTransaction transaction = RegistryManager.transaction()
+                .remove(options, "a")
+                .put(options, new Option("b", "B", 0))
+                .put(others, new Option("c", "C", 0))
+                .update(options, "a", option -> {
+                    throw new IllegalStateException("fail");
+                });
+
+        Assertions.assertThrows(IllegalStateException.class, transaction::commit);
+        Assertions.assertEquals(before, options.getAll());
+        Assertions.assertTrue(others.getById("c").isEmpty());
+        Assertions.assertTrue(fired.isEmpty());
+        // 되돌린 변경은 버전과 변경 기록에 남지 않는다.
+        Assertions.assertEquals(version, options.getVersion());
+        Assertions.assertEquals(otherVersion, others.getVersion());
+        Assertions.assertEquals(Optional.of(List.of()), options.getChangesSince(version));
+
+        // 작업 상태도 되돌려져 다음 쓰기가 raw index 를 그대로 이어 쓴다.
+        Assertions.assertEquals(0, options.getRawId(a));
+        Option next = options.add("d", new Option("d", "D", 0));
+        Assertions.assertEquals(1, options.getRawId(next));
+        Assertions.assertEquals(version + 1, options.getVersion());
+        Assertions.assertEquals(List.of("a", "d"), options.getAll().stream().map(Option::id).toList());
+    }
+
+    @Test
+    public void transactionRecordsOnlyNetChanges() {
+        SimpleRegistry<Option> options = createRegistry();
+        options.add("a", new Option("a", "A", 0));
+        long version = options.getVersion();
+
+        RegistryManager.transaction()
+                .put(options, new Option("b", "B", 0))
+                .remove(options, "b")
+                .put(options, new Option("a", "A", 0))
+                .put(options, new Option("c", "C", 0))
+                .commit();
+
+        Assertions.assertEquals(version + 1, options.getVersion());
+        List<RegistryChange<Option>> changes = options.getChangesSince(version).orElseThrow();
+        Assertions.assertEquals(List.of("c"), changes.stream().map(RegistryChange::id).toList());
+    }
+
+    @Test
+    public void readConsistentSeesWholeTransactions() throws InterruptedException {
+        SimpleRegistry<Option> options = createRegistry();
+        SimpleRegistry<Option> others = createRegistry();
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            boolean present = false;
+            while (running.get()) {
+                RegistryTransaction transaction = RegistryManager.transaction();
+                if (present) {
+                    transaction.remove(options, "x").remove(others, "x");
+                } else {
+                    transaction.put(options, new Option("x", "X", 0)).put(others, new Option("x", "X", 0));
+                }
+                transaction.commit();
+                present = !present;
+            }
+        });
+        writer.start();
+        try {
+            for (int i = 0; i < 100_000; i++) {
+                boolean[] seen = RegistryManager.readConsistent(() -> new boolean[]{
+                        options.getById("x").isPresent(),
+                        others.getById("x").isPresent()
+                });
+                Assertions.assertEquals(seen[0], seen[1]);
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+    }
+
+    @Test
+    public void transactionPublishesAllRegistriesBeforeNotifying() {
+        SimpleRegistry<Option> options = createRegistry();
+        SimpleRegistry<Option> others = createRegistry();
+        options.add("a", new Option("a", "A", 0));
+        options.freeze();
+
+        List<Boolean> seen = new ArrayList<>();
+        options.getChangeEvent().register((r, changes) -> seen.add(others.getById("c").isPresent()));
+        RegistryTransaction.Result result = RegistryManager.transaction()
+                .remove(options, "a")
+                .put(others, new Option("c", "C", 0))
+                .commit();
+
+        // 리스너가 실행될 때 다른 레지스트리의 변경도 이미 보인다.
+        Assertions.assertEquals(List.of(true), seen);
+        Assertions.assertTrue(options.isFrozen());
+        Assertions.assertEquals(2, result.fromVersions().size());
+        Assertions.assertEquals(result.fromVersions().get(options) + 1, options.getVersion());
+    }
+
+    @Test
+    public void dependenciesAreRegisteredFirst() {
+        List<Registry<?>> entries = RegistryManager.entries();
+        for (Registry<?> registry : entries) {
+            for (Registry<?> dependency : RegistryManager.getDependencies(registry)) {
+                Assertions.assertTrue(entries.indexOf(dependency) < entries.indexOf(registry),
+                        dependency.getRegistryId() + " should be registered before " + registry.getRegistryId());
+            }
+        }
+        // 주문은 메뉴 구성과 동시에 읽을 수 있어야 한다.
+        Assertions.assertFalse(RegistryManager.getDependencies(RegistryManager.ORDERS).contains(RegistryManager.MENUS));
+    }
+}
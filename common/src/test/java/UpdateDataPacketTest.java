@@ -0,0 +1,80 @@
+import com.google.gson.JsonElement;
+import com.mojang.serialization.JsonOps;
+import common.Option;
+import common.network.SynchronizeData;
+import common.network.encoding.BinaryElement;
+import common.network.encoding.BinaryOps;
+import common.network.packet.UpdateDataPacket;
+import common.network.packet.UpdateDataPacket.ResponseDataChunkS2CPacket;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class UpdateDataPacketTest {
+    private static List<Option> createOptions(int count) {
+        List<Option> options = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            options.add(new Option("opt_" + i, "샷 추가 " + i, i * 100));
+        }
+        return options;
+    }
+
+    @Test
+    public void chunksFitInOnePacket() {
+        List<Option> options = createOptions(3000);
+        List<ResponseDataChunkS2CPacket> chunks = UpdateDataPacket.splitSnapshot("options", 7, options);
+        Assertions.assertTrue(chunks.size() > 1);
+
+        List<SynchronizeData<?>> joined = new ArrayList<>();
+        for (int i = 0; i < chunks.size(); i++) {
+            ResponseDataChunkS2CPacket chunk = chunks.get(i);
+            Assertions.assertEquals(i, chunk.chunkIndex());
+            Assertions.assertEquals(chunks.size(), chunk.chunkCount());
+            Assertions.assertEquals(chunks.getFirst().transferId(), chunk.transferId());
+            Assertions.assertEquals(7, chunk.version());
+            Assertions.assertTrue(chunk.toJson().toString().length() <= 32767);
+            joined.addAll(chunk.data());
+        }
+        Assertions.assertEquals(options, joined);
+        Assertions.assertTrue(chunks.getLast().isLast());
+    }
+
+    @Test
+    public void emptySnapshotHasOneChunk() {
+        List<ResponseDataChunkS2CPacket> chunks = UpdateDataPacket.splitSnapshot("options", 0, List.of());
+        Assertions.assertEquals(1, chunks.size());
+        Assertions.assertTrue(chunks.getFirst().isLast());
+        Assertions.assertTrue(chunks.getFirst().data().isEmpty());
+    }
+
+    @Test
+    public void chunksRoundTrip() {
+        List<Option> options = createOptions(10);
+        ResponseDataChunkS2CPacket chunk = UpdateDataPacket.splitSnapshot("options", 3, options).getFirst();
+
+        JsonElement json = chunk.encode(JsonOps.INSTANCE);
+        Assertions.assertEquals(chunk, ResponseDataChunkS2CPacket.CODEC.parse(JsonOps.INSTANCE, json).getOrThrow());
+
+        BinaryElement binary = chunk.encode(BinaryOps.INSTANCE);
+        Assertions.assertEquals(chunk, ResponseDataChunkS2CPacket.CODEC.parse(BinaryOps.INSTANCE, binary).getOrThrow());
+    }
+
+    @Test
+    public void largeElementGetsOwnChunk() {
+        List<Option> options = new ArrayList<>(createOptions(2));
+        options.add(1, new Option("opt_large", "a".repeat(UpdateDataPacket.CHUNK_CHAR_BUDGET), 0));
+
+        List<ResponseDataChunkS2CPacket> chunks = UpdateDataPacket.splitSnapshot("options", 0, options);
+        Assertions.assertEquals(3, chunks.size());
+        Assertions.assertEquals(List.of(options.get(1)), chunks.get(1).data());
+        Assertions.assertTrue(chunks.get(1).toJson().toString().length() <= 32767);
+    }
+
+    @Test
+    public void oversizedElementIsRejected() {
+        List<Option> options = List.of(new Option("opt_huge", "a".repeat(UpdateDataPacket.MAX_ELEMENT_CHARS), 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> UpdateDataPacket.splitSnapshot("options", 0, options));
+    }
+}
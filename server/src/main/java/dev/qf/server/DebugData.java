@@ -138,13 +138,13 @@ public class DebugData {
             RegistryManager.MENUS.add(macaronSet.id(), macaronSet);
 
 
-            Category coffeeCategory = new Category("cate_coffee", "커피", List.of(
+            Category coffeeCategory = Category.of("cate_coffee", "커피", List.of(
                     espresso, americano, latte, cappuccino, vanillaLatte, caramelMacchiato
             ));
-            Category beverageCategory = new Category("cate_beverage", "음료", List.of(
+            Category beverageCategory = Category.of("cate_beverage", "음료", List.of(
                     greenTeaLatte, chocoLatte, grapefruitAde, lemonAde, peachIcedTea
             ));
-            Category dessertCategory = new Category("cate_dessert", "디저트", List.of(
+            Category dessertCategory = Category.of("cate_dessert", "디저트", List.of(
                     cheesecake, tiramisu, croffle, macaronSet
             ));
 
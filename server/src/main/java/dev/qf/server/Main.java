@@ -3,10 +3,19 @@ package dev.qf.server;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import common.util.KioskLoggerFactory;
 import common.network.handler.factory.PacketListenerFactory;
+import common.registry.RegistryManager;
 import common.util.Container;
 import dev.qf.server.database.ExternalDataManager;
 import dev.qf.server.database.LocalJsonStorage;
 import dev.qf.server.database.CommonDBManager;
+import dev.qf.server.database.JdbcStorage;
+import dev.qf.server.database.JournaledStorage;
+import dev.qf.server.database.OrderIdLeaseManager;
+import dev.qf.server.database.StartupSnapshot;
+import dev.qf.server.database.WriteBehindStorage;
+import dev.qf.server.database.archive.OrderArchive;
+import dev.qf.server.database.archive.OrderArchiver;
+import dev.qf.server.database.archive.OrderHistory;
 import dev.qf.server.network.KioskNettyServer;
 import dev.qf.server.network.ServerPacketListenerFactory;
 import joptsimple.OptionParser;
@@ -14,13 +23,22 @@ import joptsimple.OptionSet;
 import joptsimple.OptionSpec;
 import org.slf4j.Logger;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class Main {
     public static final KioskNettyServer INSTANCE = new KioskNettyServer();
     private static final Logger LOGGER = KioskLoggerFactory.getLogger();
+    private static final Path ORDER_ARCHIVE_ROOT = Path.of("data", "archive", "orders");
+    private static final Path ORDER_ID_LEASE_PATH = Path.of("data", "order_id_lease");
+    private static final Path STARTUP_SNAPSHOT_PATH = Path.of("data", "startup_snapshot.bin");
     private static ExternalDataManager manager;
+    private static OrderIdLeaseManager orderIdLeases;
+    private static OrderHistory orderHistory;
     private static final ScheduledExecutorService DB_BACKUP_SCHEDULER = Executors.newSingleThreadScheduledExecutor(
             new ThreadFactoryBuilder()
                     .setDaemon(true)
@@ -32,6 +50,10 @@ public class Main {
         OptionParser optionParser = new OptionParser();
         OptionSpec<Void> optionSpec = optionParser.accepts("debuggingItems");
         OptionSpec<String> storageType = optionParser.accepts("storageType").withRequiredArg().ofType(String.class);
+        OptionSpec<String> persistence = optionParser.accepts("persistence").withRequiredArg().ofType(String.class).defaultsTo("interval");
+        OptionSpec<Integer> flushIntervalMillis = optionParser.accepts("flushIntervalMillis").withRequiredArg().ofType(Integer.class).defaultsTo(1000);
+        OptionSpec<Void> startupSnapshot = optionParser.accepts("startupSnapshot");
+        OptionSpec<Integer> archiveAfterDays = optionParser.accepts("archiveAfterDays").withRequiredArg().ofType(Integer.class).defaultsTo(30);
 
         OptionSet optionSet = optionParser.parse(args);
         boolean debug = optionSet.has(optionSpec);
@@ -47,22 +69,63 @@ public class Main {
                  manager = switch (value.toLowerCase()) {
                     case "json" -> new LocalJsonStorage();
                     case "sqlite" -> new CommonDBManager();
-                    default -> throw new IllegalArgumentException("Invalid storage type, only accepts json or sqlite");
+                    case "journal" -> new JournaledStorage();
+                    case "jdbc" -> new JdbcStorage();
+                    default -> throw new IllegalArgumentException("Invalid storage type, only accepts json, sqlite, journal or jdbc");
                 };
             } else {
                 LOGGER.warn("No storage type specified. Using default storage type");
                 manager = new CommonDBManager();
             }
         }
+        // 요소 단위의 저장은 이벤트 루프를 막지 않도록 전용 스레드에서 모아서 기록한다.
+        WriteBehindStorage.Durability durability = switch (persistence.value(optionSet).toLowerCase()) {
+            case "commit" -> WriteBehindStorage.Durability.COMMIT;
+            case "interval" -> WriteBehindStorage.Durability.INTERVAL;
+            default -> throw new IllegalArgumentException("Invalid persistence mode, only accepts commit or interval");
+        };
+        WriteBehindStorage storage = new WriteBehindStorage(manager, durability, flushIntervalMillis.value(optionSet), TimeUnit.MILLISECONDS);
+        manager = storage;
         manager.initialize();
+        // 정상 종료 시 기록한 스냅샷이 있다면 저장소 대신 스냅샷에서 읽는다.
+        StartupSnapshot snapshot = optionSet.has(startupSnapshot) ? new StartupSnapshot(STARTUP_SNAPSHOT_PATH) : null;
+        if (snapshot == null || debug) {
+            // 이번 실행의 변경은 스냅샷에 반영되지 않으므로, 남아 있는 스냅샷은 이후에 읽히지 않도록 지운다.
+            new StartupSnapshot(STARTUP_SNAPSHOT_PATH).invalidate();
+        }
         if (debug) {
-            manager.saveAll();
+            // 디버그 데이터는 변경 추적을 시작하기 전에 만들어지므로 레지스트리 전체를 기록한다.
+            RegistryManager.entries().forEach(manager::saveSpecificRegistry);
 //            manager.loadAll();
+        } else if (snapshot != null && snapshot.load()) {
+            storage.markClean();
         } else {
             manager.loadAll();
         }
 
-        Runtime.getRuntime().addShutdownHook(new Thread(manager::close));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            manager.close();
+            if (snapshot != null) {
+                try {
+                    snapshot.write();
+                } catch (IOException e) {
+                    LOGGER.error("Failed to write startup snapshot", e);
+                }
+            }
+        }));
+
+        // 오래된 완료 주문은 시작 직후와 매 시간마다 보관 세그먼트로 옮긴다.
+        OrderArchive archive = new OrderArchive(ORDER_ARCHIVE_ROOT);
+        archive.initialize();
+
+        // 보관된 주문의 번호도 다시 발급되지 않아야 한다.
+        int maxOrderId = Math.max(RegistryManager.ORDERS.getMaxOrderId(), archive.getMaxOrderId());
+        orderIdLeases = new OrderIdLeaseManager(ORDER_ID_LEASE_PATH);
+        orderIdLeases.initialize(maxOrderId);
+
+        orderHistory = new OrderHistory(RegistryManager.ORDERS, archive);
+        OrderArchiver archiver = new OrderArchiver(RegistryManager.ORDERS, archive, manager, INSTANCE::broadCastTransaction, Duration.ofDays(archiveAfterDays.value(optionSet)));
+        DB_BACKUP_SCHEDULER.scheduleAtFixedRate(archiver, 0, 1, java.util.concurrent.TimeUnit.HOURS);
 
         KioskLoggerFactory.getLogger().info("Server started");
         Container.put(PacketListenerFactory.class, new ServerPacketListenerFactory());
@@ -79,4 +142,18 @@ public class Main {
         return manager;
     }
 
+    public static OrderIdLeaseManager getOrderIdLeases() {
+        if (orderIdLeases == null) {
+            throw new IllegalStateException("Order id lease manager is not initialized");
+        }
+        return orderIdLeases;
+    }
+
+    public static OrderHistory getOrderHistory() {
+        if (orderHistory == null) {
+            throw new IllegalStateException("Order history is not initialized");
+        }
+        return orderHistory;
+    }
+
 }
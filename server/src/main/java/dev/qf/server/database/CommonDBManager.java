@@ -14,11 +14,26 @@ import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 public class CommonDBManager implements ExternalDataManager {
     private final Logger logger = KioskLoggerFactory.getLogger();
+    public static final Path DEFAULT_ROOT = Path.of("database");
+    private final Path root;
     private Database database;
 
+    public CommonDBManager() {
+        this(DEFAULT_ROOT);
+    }
+
+    /**
+     * @param root 데이터베이스와 설정 파일을 둘 경로
+     */
+    public CommonDBManager(Path root) {
+        this.root = root;
+    }
+
     @Override
     public void internalClose() {
         this.database.close();
@@ -26,7 +41,7 @@ public class CommonDBManager implements ExternalDataManager {
 
     @Override
     public void initialize() {
-        NonMinecraft.init(Path.of("database"), Path.of("database", "config"));
+        NonMinecraft.init(this.root, this.root.resolve("config"));
         database = SQLib.getDatabase();
     }
 
@@ -34,19 +49,20 @@ public class CommonDBManager implements ExternalDataManager {
     public void loadSpecificRegistry(@NotNull Registry<?> registry) {
         try {
             registry.unfreeze();
-            registry.clear();
             DataStore store = database.dataStore("kiosk", registry.getRegistryId());
+            List<SynchronizeData<?>> loaded = new ArrayList<>();
             store.getContainers().forEach(container -> {
-                String elementId = container.get(JavaTypes.STRING, "id").orElseGet(()->"unknown");
-                KioskLoggerFactory.getLogger().info("Loading {}", elementId);
                 try {
-                    SynchronizeData<?> synchronizeData = KioskDBSerializer.deserialize((Class<SynchronizeData<?>>) registry.getClazz(), container);
-                    registry.add(synchronizeData.getRegistryElementId(), synchronizeData);
+                    loaded.add(KioskDBSerializer.deserialize((Class<SynchronizeData<?>>) registry.getClazz(), container));
                 } catch (Exception e) {
-                    logger.error("Failed to deserialize data for registry element {}", registry.getRegistryId());
+                    String elementId = container.get(JavaTypes.STRING, "id").orElse("unknown");
+                    logger.error("Failed to deserialize data for registry element {} of {}", elementId, registry.getRegistryId());
                     logger.error(e.getMessage());
                 }
             });
+            // 요소마다 add 하면 매번 스냅샷을 새로 만들므로, 모두 읽은 뒤 한번에 교체한다.
+            registry.replaceAll(loaded);
+            logger.info("Loaded {} entries of registry {}", loaded.size(), registry.getRegistryId());
         } catch (Exception e) {
             logger.error("Failed to load registry {}", registry.getRegistryId());
             logger.error(e.getMessage());
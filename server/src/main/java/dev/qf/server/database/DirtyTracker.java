@@ -0,0 +1,113 @@
+package dev.qf.server.database;
+
+import common.network.SynchronizeData;
+import common.registry.Registry;
+import common.registry.RegistryEntryChange;
+import common.registry.RegistryManager;
+import common.util.IndexIterable;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 마지막으로 기록한 뒤 바뀐 요소의 ID 를 레지스트리마다 모은다. <br>
+ * 레지스트리의 변경 이벤트를 구독하므로, 패킷 처리뿐 아니라 트랜잭션이나 주문 보관처럼 저장소를 직접 호출하지 않는 변경도 포함된다.
+ * 추가, 교체, 제거를 구분하지 않으며, 기록할 때 레지스트리에 남아 있는지로 저장할지 지울지 정한다. <br>
+ * 표시할 때마다 새 번호를 붙여 두므로, 표시를 지우는 쪽은 자신이 확인한 뒤에 다시 표시된 요소를 지우지 않는다.
+ */
+public class DirtyTracker {
+    /**
+     * 레지스트리 ID -> 요소 ID -> 마지막으로 표시한 번호
+     */
+    private final Map<String, ConcurrentMap<String, Long>> dirty = new ConcurrentHashMap<>();
+    private final AtomicLong stamps = new AtomicLong();
+
+    /**
+     * 모든 레지스트리의 변경 이벤트를 구독한다. 한 번만 호출해야 한다.
+     */
+    public void register() {
+        for (Registry<?> registry : RegistryManager.entries()) {
+            this.subscribe(registry);
+        }
+    }
+
+    private <T extends SynchronizeData<?>> void subscribe(Registry<T> registry) {
+        ConcurrentMap<String, Long> ids = this.idsOf(registry);
+        registry.getChangeEvent().register((r, changes) -> {
+            for (RegistryEntryChange<T> change : changes) {
+                ids.put(change.id(), this.stamps.incrementAndGet());
+            }
+        });
+    }
+
+    /**
+     * 바뀐 ID 를 꺼낸다. 꺼낸 ID 는 더 이상 바뀐 것으로 취급하지 않으므로, 기록에 실패했다면 {@link #markDirty(Registry, String)}로 되돌려야 한다.
+     * 꺼내는 도중이나 꺼낸 뒤에 다시 바뀐 요소는 다음 호출에서 다시 반환된다.
+     */
+    public List<String> drain(Registry<?> registry) {
+        ConcurrentMap<String, Long> ids = this.idsOf(registry);
+        List<String> drained = new ArrayList<>(ids.size());
+        for (Map.Entry<String, Long> entry : ids.entrySet()) {
+            if (ids.remove(entry.getKey(), entry.getValue())) {
+                drained.add(entry.getKey());
+            }
+        }
+        return drained;
+    }
+
+    public void markDirty(Registry<?> registry, String id) {
+        this.idsOf(registry).put(id, this.stamps.incrementAndGet());
+    }
+
+    /**
+     * 요소 하나를 기록한 뒤 호출한다. 기록한 값이 레지스트리의 현재 값과 같을 때만 표시를 지우므로,
+     * 기록한 뒤에 다시 바뀐 요소나 기록하지 않은 다른 변경은 표시된 채로 남는다.
+     * @param written 기록한 요소. 삭제를 기록했다면 null
+     */
+    public void markPersisted(Registry<?> registry, String id, @Nullable SynchronizeData<?> written) {
+        ConcurrentMap<String, Long> ids = this.idsOf(registry);
+        Long stamp = ids.get(id);
+        // 번호를 먼저 읽어야, 현재 값을 확인한 뒤에 들어온 변경의 표시를 지우지 않는다.
+        if (stamp != null && isCurrent(registry, id, written)) {
+            ids.remove(id, stamp);
+        }
+    }
+
+    /**
+     * 모든 레지스트리가 저장소와 같은 상태라고 표시한다. 저장소나 스냅샷에서 읽은 직후 호출한다.
+     */
+    public void markClean() {
+        this.dirty.values().forEach(Map::clear);
+    }
+
+    public void markClean(Registry<?> registry) {
+        this.idsOf(registry).clear();
+    }
+
+    public boolean isDirty(Registry<?> registry, String id) {
+        return this.idsOf(registry).containsKey(id);
+    }
+
+    public int size() {
+        return this.dirty.values().stream().mapToInt(Map::size).sum();
+    }
+
+    private ConcurrentMap<String, Long> idsOf(Registry<?> registry) {
+        return this.dirty.computeIfAbsent(registry.getRegistryId(), key -> new ConcurrentHashMap<>());
+    }
+
+    /**
+     * 주문처럼 조회할 때마다 새 객체를 만드는 레지스트리도 있으므로 {@link Registry#getRawId}로 저장된 값과 비교한다.
+     */
+    private static <T extends SynchronizeData<?>> boolean isCurrent(Registry<T> registry, String id, @Nullable SynchronizeData<?> written) {
+        if (written == null) {
+            return registry.getById(id).isEmpty();
+        }
+        return registry.getClazz().isInstance(written) && registry.getRawId(registry.getClazz().cast(written)) != IndexIterable.ABSENT_LOW_INDEX;
+    }
+}
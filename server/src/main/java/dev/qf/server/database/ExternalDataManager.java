@@ -4,6 +4,8 @@ import common.network.SynchronizeData;
 import common.registry.Registry;
 import common.registry.RegistryManager;
 
+import java.util.List;
+
 public interface ExternalDataManager {
     default void loadAll() {
         RegistryManager.entries().forEach(this::loadSpecificRegistry);
@@ -21,4 +23,15 @@ public interface ExternalDataManager {
     void saveSpecificRegistry(Registry<?> registry);
     void removeSpecificRegistry(Registry<?> registry, String targetId);
     void saveSpecificRegistry(Registry<?> registry, SynchronizeData<?> data);
+
+    /**
+     * 한 레지스트리의 여러 변경을 한번에 기록한다. 기본 구현은 요소마다 지우거나 저장한다.
+     * 구현체는 가능하다면 한 트랜잭션으로 기록하도록 재정의해야 한다.
+     * @param upserts 저장할 요소
+     * @param removals 지울 요소의 ID
+     */
+    default void saveBatch(Registry<?> registry, List<? extends SynchronizeData<?>> upserts, List<String> removals) {
+        removals.forEach(id -> this.removeSpecificRegistry(registry, id));
+        upserts.forEach(data -> this.saveSpecificRegistry(registry, data));
+    }
 }
@@ -0,0 +1,371 @@
+package dev.qf.server.database;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import common.Order;
+import common.OrderStatus;
+import common.network.SynchronizeData;
+import common.registry.Registry;
+import common.registry.RegistryManager;
+import common.util.KioskLoggerFactory;
+import dev.qf.server.database.io.BinaryEntries;
+import dev.qf.server.database.io.RelationalSchema;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 커넥션 풀을 통해 SQLite 파일에 직접 JDBC 로 기록하는 저장소이다. <br>
+ * 레지스트리마다 <code>registry_&lt;레지스트리 ID&gt;</code> 테이블을 두고, 요소는 {@link common.network.encoding.BinaryOps}로 인코딩해
+ * <code>payload</code> 열에 저장한다. 요소 ID 는 기본 키이며 마지막 수정 시각에는 색인이 있다. <br>
+ * 여러 요소를 저장할 때는 {@link #ROWS_PER_STATEMENT}행씩 묶은 upsert 문을 한 트랜잭션 안에서 실행한다. <br>
+ * 주문과 메뉴 구성은 같은 트랜잭션 안에서 {@link RelationalSchema}의 정규화된 테이블에도 기록된다. 이 테이블들은
+ * {@link #getMenuSales}와 {@link #getOrdersBetween}처럼 SQL 로 처리하는 조회에만 쓰이며, 레지스트리는 항상 payload 에서 읽는다.
+ */
+public class JdbcStorage implements ExternalDataManager {
+    private static final Logger LOGGER = KioskLoggerFactory.getLogger();
+    public static final Path DEFAULT_PATH = Path.of("database", "kiosk.sqlite");
+    /**
+     * 한 upsert 문에 담는 행 수. 행마다 3개의 파라미터를 사용하므로 SQLite 의 기본 파라미터 제한(999)을 넘지 않는다.
+     */
+    public static final int ROWS_PER_STATEMENT = 300;
+    private static final String TABLE_PREFIX = "registry_";
+    /**
+     * <code>PRAGMA user_version</code>. 정규화된 테이블이 요소 테이블과 같은 내용으로 채워졌는지 나타낸다.
+     */
+    private static final int RELATIONAL_VERSION = 1;
+
+    private final Path path;
+    private HikariDataSource dataSource;
+
+    public JdbcStorage() {
+        this(DEFAULT_PATH);
+    }
+
+    public JdbcStorage(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * 기간 내 메뉴 별 판매량.
+     * @param revenue 주문 당시 메뉴 가격과 옵션 추가 금액으로 계산한 매출. 옵션 금액이 언제 기록되는지는 {@link RelationalSchema}를 참고한다.
+     */
+    public record MenuSales(String menuId, int quantity, long revenue) {
+    }
+
+    @FunctionalInterface
+    private interface SqlWork {
+        void run(Connection connection) throws SQLException;
+    }
+
+    @Override
+    public void initialize() {
+        LOGGER.info("Initializing jdbc storage at {}", this.path);
+        try {
+            Path parent = this.path.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create directory for jdbc storage", e);
+        }
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("kiosk-jdbc");
+        config.setJdbcUrl("jdbc:sqlite:" + this.path.toAbsolutePath());
+        // SQLite 는 쓰기를 하나씩만 처리하므로 커넥션을 많이 둘 필요가 없다. WAL 에서는 읽기가 쓰기를 막지 않는다.
+        config.setMaximumPoolSize(4);
+        config.addDataSourceProperty("journal_mode", "WAL");
+        config.addDataSourceProperty("synchronous", "NORMAL");
+        config.addDataSourceProperty("busy_timeout", "5000");
+        config.addDataSourceProperty("foreign_keys", "true");
+        this.dataSource = new HikariDataSource(config);
+
+        try {
+            this.inTransaction(connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    for (Registry<?> registry : RegistryManager.entries()) {
+                        String table = tableOf(registry);
+                        statement.addBatch("CREATE TABLE IF NOT EXISTS " + table + " ("
+                                + "id TEXT PRIMARY KEY NOT NULL, "
+                                + "payload BLOB NOT NULL, "
+                                + "updated_at INTEGER NOT NULL)");
+                        statement.addBatch("CREATE INDEX IF NOT EXISTS " + table + "_updated_at ON " + table + " (updated_at)");
+                    }
+                    RelationalSchema.create(statement);
+                    statement.executeBatch();
+                }
+            });
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to create jdbc storage schema", e);
+        }
+    }
+
+    /**
+     * 레지스트리 간의 의존 관계만 지키면서 요소 테이블의 payload 를 동시에 읽는다. 정규화된 테이블에는 메뉴 이름처럼
+     * 요소를 되살리는 데 필요한 값이 없으므로 읽지 않는다. <br>
+     * 모두 읽은 뒤, 정규화된 테이블이 아직 채워지지 않은 데이터베이스라면 읽은 내용으로 채운다.
+     */
+    @Override
+    public void loadAll() {
+        new ParallelRegistryLoader<byte[]>(this::readPayloads, BinaryEntries::decode).loadAll();
+        try {
+            this.inTransaction(connection -> {
+                int version;
+                try (Statement statement = connection.createStatement();
+                     ResultSet result = statement.executeQuery("PRAGMA user_version")) {
+                    version = result.next() ? result.getInt(1) : 0;
+                }
+                if (version >= RELATIONAL_VERSION) {
+                    return;
+                }
+                LOGGER.info("Populating relational tables from registry tables");
+                for (Registry<?> registry : RegistryManager.entries()) {
+                    RelationalSchema.sync(connection, registry, registry.getAll(), List.of());
+                }
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("PRAGMA user_version = " + RELATIONAL_VERSION);
+                }
+            });
+        } catch (SQLException e) {
+            LOGGER.error("Failed to populate relational tables", e);
+        }
+    }
+
+    @Override
+    public void loadSpecificRegistry(@NotNull Registry<?> registry) {
+        List<SynchronizeData<?>> loaded = new ArrayList<>();
+        try {
+            for (byte[] payload : this.readPayloads(registry)) {
+                try {
+                    loaded.add(BinaryEntries.decode(registry, payload));
+                } catch (Exception e) {
+                    LOGGER.error("Failed to decode entry of registry {}", registry.getRegistryId(), e);
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.error("Failed to load registry {}", registry.getRegistryId(), e);
+            return;
+        }
+        registry.unfreeze();
+        try {
+            registry.replaceAll(loaded);
+        } finally {
+            registry.freeze();
+        }
+    }
+
+    @Override
+    public void saveSpecificRegistry(Registry<?> registry) {
+        try {
+            this.saveBatch(registry, registry.getAll(), List.of());
+        } catch (IllegalStateException e) {
+            LOGGER.error("Failed to save registry {}", registry.getRegistryId(), e);
+        }
+    }
+
+    @Override
+    public void removeSpecificRegistry(Registry<?> registry, String targetId) {
+        try {
+            this.saveBatch(registry, List.of(), List.of(targetId));
+        } catch (IllegalStateException e) {
+            LOGGER.error("Failed to remove {} of registry {}", targetId, registry.getRegistryId(), e);
+        }
+    }
+
+    @Override
+    public void saveSpecificRegistry(Registry<?> registry, SynchronizeData<?> data) {
+        if (registry.getClazz() != data.getClass()) {
+            throw new IllegalArgumentException("Registry Target Class and data class type is not match");
+        }
+        try {
+            this.saveBatch(registry, List.of(data), List.of());
+        } catch (IllegalStateException e) {
+            LOGGER.error("Failed to save {} of registry {}", data.getRegistryElementId(), registry.getRegistryId(), e);
+        }
+    }
+
+    /**
+     * 모든 변경을 한 트랜잭션으로 기록한다. 실패하면 아무것도 기록되지 않는다.
+     * @throws IllegalStateException 기록에 실패한 경우
+     */
+    @Override
+    public void saveBatch(Registry<?> registry, List<? extends SynchronizeData<?>> upserts, List<String> removals) {
+        if (upserts.isEmpty() && removals.isEmpty()) {
+            return;
+        }
+        try {
+            this.inTransaction(connection -> {
+                this.delete(connection, registry, removals);
+                this.upsert(connection, registry, upserts);
+                RelationalSchema.sync(connection, registry, upserts, removals);
+            });
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to write registry " + registry.getRegistryId(), e);
+        }
+    }
+
+    /**
+     * 기간 내 주문을 최신순으로 읽는다. 주문 시각 색인으로 대상 주문을 고른 뒤 그 주문들의 payload 만 읽어 디코딩하므로,
+     * 요소 테이블 전체를 읽지 않는다.
+     * @param from 시작 시각 (포함)
+     * @param to 끝 시각 (제외)
+     */
+    public List<Order> getOrdersBetween(LocalDateTime from, LocalDateTime to) {
+        List<Order> orders = new ArrayList<>();
+        String sql = "SELECT r.payload FROM orders o JOIN " + tableOf(RegistryManager.ORDERS) + " r ON r.id = CAST(o.order_id AS TEXT) "
+                + "WHERE o.order_time >= ? AND o.order_time < ? ORDER BY o.order_time DESC, o.order_id DESC";
+        try (Connection connection = this.dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, RelationalSchema.toEpochMillis(from));
+            statement.setLong(2, RelationalSchema.toEpochMillis(to));
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    orders.add((Order) BinaryEntries.decode(RegistryManager.ORDERS, result.getBytes(1)));
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to query orders", e);
+        }
+        return orders;
+    }
+
+    /**
+     * 기간 내 주어진 상태의 주문을 메뉴 별로 집계한다. 매출이 큰 순서로 정렬된다. <br>
+     * 정규화된 테이블의 열만 읽으며 payload 는 디코딩하지 않는다.
+     */
+    public List<MenuSales> getMenuSales(LocalDateTime from, LocalDateTime to, OrderStatus status) {
+        String sql = "SELECT i.menu_id, SUM(i.quantity), SUM(i.quantity * (i.menu_price + COALESCE(opt.cost, 0))) "
+                + "FROM orders o JOIN order_items i ON i.order_id = o.order_id "
+                + "LEFT JOIN (SELECT order_id, line, SUM(extra_cost) AS cost FROM order_item_options GROUP BY order_id, line) opt "
+                + "ON opt.order_id = i.order_id AND opt.line = i.line "
+                + "WHERE o.status = ? AND o.order_time >= ? AND o.order_time < ? "
+                + "GROUP BY i.menu_id ORDER BY 3 DESC";
+        List<MenuSales> sales = new ArrayList<>();
+        try (Connection connection = this.dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, status.name());
+            statement.setLong(2, RelationalSchema.toEpochMillis(from));
+            statement.setLong(3, RelationalSchema.toEpochMillis(to));
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    sales.add(new MenuSales(result.getString(1), result.getInt(2), result.getLong(3)));
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to query menu sales", e);
+        }
+        return sales;
+    }
+
+    @Override
+    public void internalClose() {
+        if (this.dataSource != null) {
+            this.dataSource.close();
+        }
+    }
+
+    private List<byte[]> readPayloads(Registry<?> registry) throws SQLException {
+        List<byte[]> payloads = new ArrayList<>();
+        try (Connection connection = this.dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT payload FROM " + tableOf(registry))) {
+            statement.setFetchSize(1000);
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    payloads.add(result.getBytes(1));
+                }
+            }
+        }
+        return payloads;
+    }
+
+    private void upsert(Connection connection, Registry<?> registry, List<? extends SynchronizeData<?>> entries) throws SQLException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        String table = tableOf(registry);
+        long now = System.currentTimeMillis();
+        int fullChunks = entries.size() / ROWS_PER_STATEMENT;
+        if (fullChunks > 0) {
+            // 행 수가 같은 문은 한 번만 준비하여 재사용한다.
+            try (PreparedStatement statement = connection.prepareStatement(upsertSql(table, ROWS_PER_STATEMENT))) {
+                for (int chunk = 0; chunk < fullChunks; chunk++) {
+                    bindRows(statement, registry, entries.subList(chunk * ROWS_PER_STATEMENT, (chunk + 1) * ROWS_PER_STATEMENT), now);
+                    statement.executeUpdate();
+                }
+            }
+        }
+        List<? extends SynchronizeData<?>> rest = entries.subList(fullChunks * ROWS_PER_STATEMENT, entries.size());
+        if (!rest.isEmpty()) {
+            try (PreparedStatement statement = connection.prepareStatement(upsertSql(table, rest.size()))) {
+                bindRows(statement, registry, rest, now);
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    private void delete(Connection connection, Registry<?> registry, List<String> ids) throws SQLException {
+        if (ids.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement statement = connection.prepareStatement("DELETE FROM " + tableOf(registry) + " WHERE id = ?")) {
+            for (String id : ids) {
+                statement.setString(1, id);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private static void bindRows(PreparedStatement statement, Registry<?> registry, List<? extends SynchronizeData<?>> rows, long now) throws SQLException {
+        int index = 1;
+        for (SynchronizeData<?> data : rows) {
+            statement.setString(index++, data.getRegistryElementId());
+            statement.setBytes(index++, BinaryEntries.encode(registry, data));
+            statement.setLong(index++, now);
+        }
+    }
+
+    private static String upsertSql(String table, int rows) {
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(table).append(" (id, payload, updated_at) VALUES ");
+        for (int i = 0; i < rows; i++) {
+            sql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+        }
+        return sql.append(" ON CONFLICT(id) DO UPDATE SET payload = excluded.payload, updated_at = excluded.updated_at").toString();
+    }
+
+    /**
+     * 레지스트리 ID 는 코드에서 정해지는 값이지만, 테이블 이름에 그대로 들어가므로 식별자로 쓸 수 있는 문자만 허용한다.
+     */
+    private static String tableOf(Registry<?> registry) {
+        String id = registry.getRegistryId();
+        if (!id.matches("[a-z0-9_]+")) {
+            throw new IllegalArgumentException("Registry id can not be used as table name: " + id);
+        }
+        return TABLE_PREFIX + id;
+    }
+
+    private void inTransaction(SqlWork work) throws SQLException {
+        try (Connection connection = this.dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                work.run(connection);
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+}
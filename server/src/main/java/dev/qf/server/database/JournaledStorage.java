@@ -0,0 +1,402 @@
+package dev.qf.server.database;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import common.network.SynchronizeData;
+import common.registry.Registry;
+import common.registry.RegistryManager;
+import common.util.KioskLoggerFactory;
+import dev.qf.server.database.io.BinaryEntries;
+import dev.qf.server.database.io.DurableFiles;
+import dev.qf.server.database.journal.Journal;
+import dev.qf.server.database.journal.JournalRecord;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * 변경을 {@link Journal}에 추가하는 방식의 저장소이다. <br>
+ * 요소 하나를 저장하거나 지우면 그 요소에 대한 기록 하나만 저널에 추가되므로, 쓰기 비용은 전체 데이터가 아닌 변경의 크기에 비례한다.
+ * 여러 스레드가 동시에 저장하면 디스크 동기화는 한 번으로 묶인다. <br>
+ * 별도의 스레드가 주기적으로 전체 상태를 스냅샷으로 기록하고, 스냅샷에 반영된 세그먼트를 지운다.
+ * 시작할 때는 스냅샷을 읽은 뒤 그 이후의 세그먼트를 순서대로 반영한다.
+ */
+public class JournaledStorage implements ExternalDataManager {
+    private static final Logger LOGGER = KioskLoggerFactory.getLogger();
+    public static final Path JOURNAL_ROOT = LocalJsonStorage.LOCAL_STORAGE_ROOT.resolve("journal");
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final int SNAPSHOT_MAGIC = 0x4B4A534E;
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final long SEGMENT_SIZE = 16L * 1024 * 1024;
+    /**
+     * 저널이 이 크기보다 작다면 압축하지 않는다.
+     */
+    private static final long COMPACTION_THRESHOLD = 4L * 1024 * 1024;
+    private static final long COMPACTION_INTERVAL_MINUTES = 10;
+
+    private final Path root;
+    private final Path snapshotPath;
+    private final Journal journal;
+    /**
+     * 레지스트리 ID -> 요소 ID -> 마지막으로 기록한 내용의 체크섬. 전체 저장 시 바뀐 요소만 기록하기 위해 사용한다.
+     */
+    private final Map<String, Map<String, Integer>> written = new ConcurrentHashMap<>();
+    /**
+     * 레지스트리 ID -> 전체 저장이나 로드로 저장소와 같아진 레지스트리 버전. 다음 전체 저장은 이 버전 이후의 변경 기록만 살펴본다.
+     */
+    private final Map<String, Long> savedVersions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService compactor = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder()
+                    .setDaemon(true)
+                    .setNameFormat("journal_compaction_thread")
+                    .setUncaughtExceptionHandler((t, e) -> LOGGER.error("Journal compaction thread error", e))
+                    .build()
+    );
+
+    public JournaledStorage() {
+        this(JOURNAL_ROOT);
+    }
+
+    /**
+     * @param root 세그먼트와 스냅샷을 둘 디렉토리
+     */
+    public JournaledStorage(Path root) {
+        this.root = root;
+        this.snapshotPath = root.resolve(SNAPSHOT_FILE);
+        this.journal = new Journal(root, SEGMENT_SIZE);
+    }
+
+    @Override
+    public void initialize() {
+        LOGGER.info("Initializing journaled storage");
+        try {
+            this.journal.open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open journal at " + this.root, e);
+        }
+        this.compactor.scheduleWithFixedDelay(this::compactIfNeeded, COMPACTION_INTERVAL_MINUTES, COMPACTION_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public void loadAll() {
+        Map<String, Map<String, byte[]>> state = this.readState();
+        // 저널은 한 번에 모두 읽었으므로 디코딩만 레지스트리 간의 의존 관계에 따라 동시에 수행한다.
+        RegistryManager.entries().forEach(registry -> this.written.put(registry.getRegistryId(), new ConcurrentHashMap<>()));
+        new ParallelRegistryLoader<Map.Entry<String, byte[]>>(
+                registry -> List.copyOf(state.getOrDefault(registry.getRegistryId(), Map.of()).entrySet()),
+                (registry, entry) -> {
+                    SynchronizeData<?> data = BinaryEntries.decode(registry, entry.getValue());
+                    this.checksumsOf(registry).put(entry.getKey(), checksum(entry.getValue()));
+                    return data;
+                }
+        ).loadAll();
+        RegistryManager.entries().forEach(registry -> this.savedVersions.put(registry.getRegistryId(), registry.getVersion()));
+    }
+
+    @Override
+    public void loadSpecificRegistry(@NotNull Registry<?> registry) {
+        this.load(registry, this.readState().getOrDefault(registry.getRegistryId(), Map.of()));
+    }
+
+    /**
+     * 마지막 전체 저장 이후의 변경 기록에 나온 요소만 인코딩하여 바뀐 것만 기록한다.
+     * 변경 기록으로 따라잡을 수 없다면 모든 요소를 인코딩해 체크섬을 비교한다.
+     */
+    @Override
+    public void saveSpecificRegistry(Registry<?> registry) {
+        // 버전을 먼저 읽는다. 이후의 변경은 다음 저장에서 다시 살펴볼 뿐이다.
+        long version = registry.getVersion();
+        Long saved = this.savedVersions.get(registry.getRegistryId());
+        if (saved != null && saved == version) {
+            return;
+        }
+        Optional<Set<String>> changedIds = saved == null
+                ? Optional.empty()
+                : registry.getChangesSince(saved).map(changes -> {
+                    Set<String> ids = new LinkedHashSet<>();
+                    changes.forEach(change -> ids.add(change.id()));
+                    return ids;
+                });
+
+        Map<String, Integer> checksums = this.checksumsOf(registry);
+        Map<String, Integer> changed = new HashMap<>();
+        List<String> removed = new ArrayList<>();
+        List<JournalRecord> records = new ArrayList<>();
+        if (changedIds.isPresent()) {
+            for (String id : changedIds.get()) {
+                Optional<? extends SynchronizeData<?>> data = registry.getById(id);
+                if (data.isPresent()) {
+                    this.collectPut(registry, data.get(), checksums, changed, records);
+                } else if (checksums.containsKey(id)) {
+                    records.add(JournalRecord.remove(registry.getRegistryId(), id));
+                    removed.add(id);
+                }
+            }
+        } else {
+            for (SynchronizeData<?> data : registry.getAll()) {
+                this.collectPut(registry, data, checksums, changed, records);
+            }
+            for (String id : checksums.keySet()) {
+                if (registry.getById(id).isEmpty()) {
+                    records.add(JournalRecord.remove(registry.getRegistryId(), id));
+                    removed.add(id);
+                }
+            }
+        }
+        if (!records.isEmpty() && !this.commit(registry, records)) {
+            return;
+        }
+        checksums.putAll(changed);
+        removed.forEach(checksums::remove);
+        this.savedVersions.merge(registry.getRegistryId(), version, Math::max);
+    }
+
+    /**
+     * 마지막으로 기록한 내용과 다를 때만 기록을 추가한다.
+     */
+    private void collectPut(Registry<?> registry, SynchronizeData<?> data, Map<String, Integer> checksums, Map<String, Integer> changed, List<JournalRecord> records) {
+        byte[] payload = BinaryEntries.encode(registry, data);
+        int checksum = checksum(payload);
+        Integer previous = checksums.get(data.getRegistryElementId());
+        if (previous == null || previous != checksum) {
+            records.add(JournalRecord.put(registry.getRegistryId(), data.getRegistryElementId(), payload));
+            changed.put(data.getRegistryElementId(), checksum);
+        }
+    }
+
+    @Override
+    public void removeSpecificRegistry(Registry<?> registry, String targetId) {
+        if (this.commit(registry, List.of(JournalRecord.remove(registry.getRegistryId(), targetId)))) {
+            this.checksumsOf(registry).remove(targetId);
+        }
+    }
+
+    @Override
+    public void saveSpecificRegistry(Registry<?> registry, SynchronizeData<?> data) {
+        if (registry.getClazz() != data.getClass()) {
+            throw new IllegalArgumentException("Registry Target Class and data class type is not match");
+        }
+        byte[] payload = BinaryEntries.encode(registry, data);
+        if (this.commit(registry, List.of(JournalRecord.put(registry.getRegistryId(), data.getRegistryElementId(), payload)))) {
+            this.checksumsOf(registry).put(data.getRegistryElementId(), checksum(payload));
+        }
+    }
+
+    /**
+     * 모든 변경을 한 번의 추가와 한 번의 동기화로 기록한다.
+     */
+    @Override
+    public void saveBatch(Registry<?> registry, List<? extends SynchronizeData<?>> upserts, List<String> removals) {
+        List<JournalRecord> records = new ArrayList<>(upserts.size() + removals.size());
+        Map<String, Integer> changed = new HashMap<>();
+        for (String id : removals) {
+            records.add(JournalRecord.remove(registry.getRegistryId(), id));
+        }
+        for (SynchronizeData<?> data : upserts) {
+            byte[] payload = BinaryEntries.encode(registry, data);
+            records.add(JournalRecord.put(registry.getRegistryId(), data.getRegistryElementId(), payload));
+            changed.put(data.getRegistryElementId(), checksum(payload));
+        }
+        if (records.isEmpty()) {
+            return;
+        }
+        if (!this.commit(registry, records)) {
+            throw new IllegalStateException("Failed to write journal for registry " + registry.getRegistryId());
+        }
+        Map<String, Integer> checksums = this.checksumsOf(registry);
+        removals.forEach(checksums::remove);
+        checksums.putAll(changed);
+    }
+
+    @Override
+    public void internalClose() {
+        this.compactor.shutdown();
+        try {
+            this.compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            this.journal.close();
+        } catch (IOException e) {
+            LOGGER.error("Failed to close journal", e);
+        }
+    }
+
+    /**
+     * 기록을 저널에 추가하고 디스크에 반영될 때까지 기다린다.
+     * @return 반영되었다면 true
+     */
+    private boolean commit(Registry<?> registry, List<JournalRecord> records) {
+        try {
+            this.journal.awaitDurable(this.journal.append(records));
+            return true;
+        } catch (IOException e) {
+            LOGGER.error("Failed to write journal for registry {}", registry.getRegistryId(), e);
+            return false;
+        }
+    }
+
+    private void compactIfNeeded() {
+        try {
+            if (this.journal.totalSize() < COMPACTION_THRESHOLD) {
+                return;
+            }
+            this.compact();
+        } catch (IOException e) {
+            LOGGER.error("Failed to compact journal", e);
+        }
+    }
+
+    /**
+     * 현재 상태를 스냅샷으로 기록하고 그 이전의 세그먼트를 지운다. 저널이 커지면 주기적으로 호출된다. <br>
+     * 레지스트리는 저장소에 기록되기 전에 먼저 바뀌므로, 세그먼트를 넘긴 뒤에 읽은 상태에는 이전 세그먼트의 모든 변경이 포함된다.
+     * 그 사이의 변경은 새 세그먼트에도 기록되어 있으므로 시작할 때 다시 반영된다.
+     */
+    public void compact() throws IOException {
+        long firstSegment = this.journal.roll();
+        long startTime = System.currentTimeMillis();
+        Path temp = this.snapshotPath.resolveSibling(SNAPSHOT_FILE + ".tmp");
+        int count = 0;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(firstSegment);
+            for (Registry<?> registry : RegistryManager.entries()) {
+                for (SynchronizeData<?> data : registry.getAll()) {
+                    out.write(JournalRecord.put(registry.getRegistryId(), data.getRegistryElementId(), BinaryEntries.encode(registry, data)).encode());
+                    count++;
+                }
+            }
+            out.write(JournalRecord.end().encode());
+            out.flush();
+            channel.force(true);
+        }
+        // 교체된 디렉토리 항목까지 기록한 뒤에만 세그먼트를 지워야, 전원 장애 후 이전 스냅샷과 지워진 세그먼트가 남는 일이 없다.
+        DurableFiles.replace(temp, this.snapshotPath);
+        this.journal.deleteSegmentsBefore(firstSegment);
+        LOGGER.info("Compacted journal into snapshot ({} entries, {} ms)", count, System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * 스냅샷과 그 이후의 세그먼트를 읽어 요소마다 마지막 내용을 모은다.
+     * @return 레지스트리 ID -> 요소 ID -> 인코딩된 요소
+     */
+    private Map<String, Map<String, byte[]>> readState() {
+        Map<String, Map<String, byte[]>> state = new HashMap<>();
+        long startTime = System.currentTimeMillis();
+        try {
+            long firstSegment = this.readSnapshot(state);
+            int replayed = 0;
+            for (long segment : this.journal.listSegments()) {
+                if (segment < firstSegment) {
+                    continue;
+                }
+                boolean clean = this.journal.replay(segment, record -> apply(state, record));
+                if (!clean) {
+                    LOGGER.warn("Journal segment {} has a torn or corrupted tail. remaining records of the segment are ignored", segment);
+                }
+                replayed++;
+            }
+            LOGGER.info("Loaded journaled storage (snapshot + {} segments, {} ms)", replayed, System.currentTimeMillis() - startTime);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read journaled storage", e);
+        }
+        return state;
+    }
+
+    /**
+     * @return 스냅샷 이후 반영해야 할 첫 세그먼트 번호. 스냅샷이 없다면 0
+     */
+    private long readSnapshot(Map<String, Map<String, byte[]>> state) throws IOException {
+        if (!Files.exists(this.snapshotPath)) {
+            return 0;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(this.snapshotPath)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Unknown snapshot format: " + this.snapshotPath);
+            }
+            long firstSegment = in.readLong();
+            Map<String, Map<String, byte[]>> snapshot = new HashMap<>();
+            JournalRecord record;
+            while ((record = JournalRecord.read(in)) != null) {
+                if (record.op() == JournalRecord.END) {
+                    // 스냅샷은 완전히 기록된 뒤에 교체되므로, END 까지 읽혔다면 온전한 스냅샷이다.
+                    snapshot.forEach((registryId, entries) -> state.computeIfAbsent(registryId, key -> new LinkedHashMap<>()).putAll(entries));
+                    return firstSegment;
+                }
+                apply(snapshot, record);
+            }
+        }
+        // 지워진 세그먼트의 내용은 스냅샷에만 있으므로, 손상된 스냅샷을 무시하고 진행하면 데이터가 사라진다.
+        throw new IOException("Snapshot is corrupted: " + this.snapshotPath);
+    }
+
+    private static void apply(Map<String, Map<String, byte[]>> state, JournalRecord record) {
+        switch (record.op()) {
+            case JournalRecord.PUT -> state.computeIfAbsent(record.registryId(), key -> new LinkedHashMap<>()).put(record.id(), record.payload());
+            case JournalRecord.REMOVE -> {
+                Map<String, byte[]> entries = state.get(record.registryId());
+                if (entries != null) {
+                    entries.remove(record.id());
+                }
+            }
+            default -> LOGGER.warn("Unknown journal record op {}", record.op());
+        }
+    }
+
+    private void load(Registry<?> registry, Map<String, byte[]> entries) {
+        Map<String, Integer> checksums = new ConcurrentHashMap<>();
+        List<SynchronizeData<?>> decoded = new ArrayList<>(entries.size());
+        entries.forEach((id, payload) -> {
+            try {
+                decoded.add(BinaryEntries.decode(registry, payload));
+                checksums.put(id, checksum(payload));
+            } catch (Exception e) {
+                LOGGER.error("Failed to decode {} of registry {}", id, registry.getRegistryId(), e);
+            }
+        });
+        registry.unfreeze();
+        try {
+            registry.replaceAll(decoded);
+        } finally {
+            registry.freeze();
+        }
+        this.written.put(registry.getRegistryId(), checksums);
+        this.savedVersions.put(registry.getRegistryId(), registry.getVersion());
+    }
+
+    private Map<String, Integer> checksumsOf(Registry<?> registry) {
+        return this.written.computeIfAbsent(registry.getRegistryId(), key -> new ConcurrentHashMap<>());
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
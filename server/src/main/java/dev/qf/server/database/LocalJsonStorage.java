@@ -2,7 +2,6 @@ package dev.qf.server.database;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
-import com.mojang.serialization.DataResult;
 import com.mojang.serialization.JsonOps;
 import common.network.SynchronizeData;
 import common.registry.Registry;
@@ -14,16 +13,33 @@ import org.slf4j.Logger;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 
 public class LocalJsonStorage implements ExternalDataManager {
     private final Logger logger = KioskLoggerFactory.getLogger();
     public static final Path LOCAL_STORAGE_ROOT = Path.of("data");
     private final Gson GSON = new Gson();
+    private final Path root;
 
+    public LocalJsonStorage() {
+        this(LOCAL_STORAGE_ROOT);
+    }
+
+    /**
+     * @param root 레지스트리 별 디렉토리를 만들 경로
+     */
+    public LocalJsonStorage(Path root) {
+        this.root = root;
+    }
+
+    /**
+     * 레지스트리 간의 의존 관계만 지키면서 파일을 동시에 읽고 디코딩한다.
+     */
     @Override
     public void loadAll() {
-        RegistryManager.entries().forEach(this::loadSpecificRegistry);
+        new ParallelRegistryLoader<String>(this::readFiles, this::decode).loadAll();
     }
 
     @Override
@@ -39,9 +55,9 @@ public class LocalJsonStorage implements ExternalDataManager {
     @Override
     public void initialize() {
         logger.info("Initializing local json storage");
-        if (!Files.exists(LOCAL_STORAGE_ROOT)) {
+        if (!Files.exists(this.root)) {
             try {
-                Files.createDirectories(LOCAL_STORAGE_ROOT);
+                Files.createDirectories(this.root);
             } catch (IOException e) {
                 logger.error("Failed to create directory for local json storage");
                 logger.error(e.getMessage());
@@ -49,35 +65,30 @@ public class LocalJsonStorage implements ExternalDataManager {
         }
     }
 
+    /**
+     * 읽거나 디코딩하지 못한 파일은 경로와 함께 기록하고 건너뛴다. 디렉토리를 읽지 못한 경우 레지스트리를 건드리지 않는다.
+     */
     @Override
     public void loadSpecificRegistry(@NotNull Registry<?> registry) {
+        List<Path> files;
         try {
-            registry.unfreeze();
-            registry.clear();
-            Path path = this.asPath(registry);
-            if (createDirectoryIfNotExist(path)) {
-                return;
-            }
-            try (var pathStream = Files.walk(path)) {
-                pathStream.forEach(file -> {
-                    if (Files.isRegularFile(file)) {
-                        try {
-                            String str = Files.readString(file);
-                            DataResult<?> result = registry
-                                    .getCodec()
-                                    .decode(JsonOps.INSTANCE, GSON.fromJson(str, JsonObject.class));
-
-                            SynchronizeData<?> serializable = (SynchronizeData<?>) result.getOrThrow();
-                            registry.add(serializable.getRegistryElementId(), serializable);
-                        } catch (IOException e) {
-                            throw new RuntimeException(e);
-                        }
-                    }
-                });
+            files = this.listFiles(registry);
+        } catch (IOException e) {
+            logger.error("Failed to read directory for registry {}", registry.getRegistryId(), e);
+            return;
+        }
+        List<SynchronizeData<?>> loaded = new ArrayList<>();
+        for (Path file : files) {
+            try {
+                loaded.add(this.decode(registry, Files.readString(file)));
             } catch (Exception e) {
-                logger.error("Failed to read directory for registry {}", registry.getRegistryId());
-                logger.error(e.getMessage());
+                logger.error("Failed to load {} for registry {}", file, registry.getRegistryId(), e);
             }
+        }
+        registry.unfreeze();
+        try {
+            // 요소마다 add 하면 매번 스냅샷을 새로 만들므로, 모두 읽은 뒤 한번에 교체한다.
+            registry.replaceAll(loaded);
         } finally {
             registry.freeze();
         }
@@ -122,8 +133,37 @@ public class LocalJsonStorage implements ExternalDataManager {
         }
     }
 
+    private SynchronizeData<?> decode(Registry<?> registry, String json) {
+        return registry.getCodec().parse(JsonOps.INSTANCE, GSON.fromJson(json, JsonObject.class)).getOrThrow();
+    }
+
+    private List<Path> listFiles(Registry<?> registry) throws IOException {
+        Path path = this.asPath(registry);
+        if (createDirectoryIfNotExist(path)) {
+            return List.of();
+        }
+        try (var pathStream = Files.walk(path)) {
+            return pathStream.filter(Files::isRegularFile).toList();
+        }
+    }
+
+    /**
+     * 읽지 못한 파일은 경로와 함께 기록하고 건너뛴다.
+     */
+    private List<String> readFiles(Registry<?> registry) throws IOException {
+        List<String> files = new ArrayList<>();
+        for (Path file : this.listFiles(registry)) {
+            try {
+                files.add(Files.readString(file));
+            } catch (IOException e) {
+                logger.error("Failed to read {} for registry {}", file, registry.getRegistryId(), e);
+            }
+        }
+        return files;
+    }
+
     private Path asPath(Registry<?> registry) {
-        return LOCAL_STORAGE_ROOT.resolve(registry.getRegistryId());
+        return this.root.resolve(registry.getRegistryId());
     }
 
     /**
@@ -0,0 +1,111 @@
+package dev.qf.server.database;
+
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import common.util.KioskLoggerFactory;
+import dev.qf.server.database.io.DurableFiles;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 키오스크에 주문 ID 구간을 빌려준다. 지금까지 빌려준 가장 큰 ID(high-water mark)를 파일에 기록하며,
+ * 구간을 돌려주기 전에 먼저 파일과 디렉토리 항목까지 디스크에 기록하므로 서버가 전원 장애로 재시작되더라도 같은 ID 가 다시 발급되지 않는다. <br>
+ * 디스크 기록은 느릴 수 있으므로 네트워크 스레드에서는 {@link #leaseAsync(int)}를 사용해야 한다. <br>
+ * 키오스크가 다 쓰지 못한 구간은 회수하지 않는다. 주문 번호에 빈 곳이 생길 뿐 중복되지는 않는다.
+ */
+public class OrderIdLeaseManager {
+    public static final int MIN_LEASE_SIZE = 1;
+    public static final int MAX_LEASE_SIZE = 1000;
+    private static final int FIRST_ORDER_ID = 1000;
+    private final Logger logger = KioskLoggerFactory.getLogger();
+    private final Path path;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("Order Id Lease Thread")
+            .setDaemon(true)
+            .build());
+    private int highWaterMark;
+
+    public OrderIdLeaseManager(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * 기록된 high-water mark 를 읽는다. 기록이 없거나 이미 존재하는 주문의 ID 가 더 크다면 그 다음 값부터 빌려준다.
+     * @param maxExistingOrderId 저장소에 있는 주문 중 가장 큰 ID. 주문이 없다면 음수
+     */
+    public synchronized void initialize(int maxExistingOrderId) {
+        int stored = FIRST_ORDER_ID;
+        if (Files.exists(this.path)) {
+            try {
+                Integer parsed = Ints.tryParse(Files.readString(this.path).trim());
+                if (parsed == null) {
+                    logger.warn("Invalid order id high-water mark in {}. falling back to existing orders", this.path);
+                } else {
+                    stored = parsed;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read order id high-water mark " + this.path, e);
+            }
+        }
+        this.highWaterMark = Math.max(stored, maxExistingOrderId + 1);
+        logger.info("Order ids will be leased from {}", this.highWaterMark);
+    }
+
+    /**
+     * 다음 구간을 빌려준다.
+     * @param size 원하는 ID 개수. {@link #MIN_LEASE_SIZE} ~ {@link #MAX_LEASE_SIZE}로 조정된다.
+     * @return 빌려준 구간의 첫 ID 와 마지막 ID(제외)
+     * @throws UncheckedIOException high-water mark 를 기록하지 못한 경우. 이 경우 구간은 빌려주지 않는다.
+     */
+    public synchronized Lease lease(int size) {
+        int clamped = Math.clamp(size, MIN_LEASE_SIZE, MAX_LEASE_SIZE);
+        int start = this.highWaterMark;
+        int end = Math.addExact(start, clamped);
+        this.store(end);
+        this.highWaterMark = end;
+        return new Lease(start, end);
+    }
+
+    /**
+     * {@link #lease(int)}를 전용 스레드에서 수행한다. 요청은 들어온 순서대로 처리된다.
+     * @return 빌려준 구간. 기록하지 못했다면 {@link UncheckedIOException}으로 완료된다.
+     */
+    public CompletableFuture<Lease> leaseAsync(int size) {
+        return CompletableFuture.supplyAsync(() -> this.lease(size), this.executor);
+    }
+
+    private void store(int value) {
+        Path temp = this.path.resolveSibling(this.path.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(this.path.toAbsolutePath().getParent());
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(Integer.toString(value).getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            DurableFiles.replace(temp, this.path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store order id high-water mark " + this.path, e);
+        }
+    }
+
+    /**
+     * @param start 첫 ID (포함)
+     * @param end 마지막 ID (제외)
+     */
+    public record Lease(int start, int end) {
+    }
+}
@@ -0,0 +1,118 @@
+package dev.qf.server.database;
+
+import common.network.SynchronizeData;
+import common.registry.Registry;
+import common.registry.RegistryManager;
+import common.util.KioskLoggerFactory;
+import org.slf4j.Logger;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 레지스트리 간의 의존 관계({@link RegistryManager#getDependencies(Registry)})만 지키면서 레지스트리들을 동시에 읽는다. <br>
+ * 원본 데이터는 의존 관계와 상관없이 바로 읽기 시작하고, 디코딩은 의존하는 레지스트리가 모두 채워진 뒤 요소 단위로 fork-join 풀에서 나누어 수행한다.
+ * 레지스트리는 모든 요소를 디코딩한 즉시 한 번의 {@link Registry#replaceAll(List)}로 채워지므로,
+ * 주문처럼 큰 레지스트리는 메뉴 구성과 동시에 읽힌다. <br>
+ * 디코딩에 실패한 요소는 기록을 남기고 건너뛴다. 원본을 읽지 못한 레지스트리는 바꾸지 않고 그대로 두며, 그 레지스트리에 의존하는 레지스트리는 그대로 읽는다.
+ * @param <R> 저장소에서 읽은 요소 하나의 원본 타입
+ */
+public class ParallelRegistryLoader<R> {
+    private static final Logger LOGGER = KioskLoggerFactory.getLogger();
+
+    /**
+     * 레지스트리의 모든 원본을 읽는다. 레지스트리마다 한 번, 여러 레지스트리에 대해 동시에 호출될 수 있다.
+     */
+    @FunctionalInterface
+    public interface Source<R> {
+        List<R> read(Registry<?> registry) throws Exception;
+    }
+
+    /**
+     * 원본 하나를 요소로 바꾼다. 같은 레지스트리에 대해 여러 스레드에서 동시에 호출된다.
+     */
+    @FunctionalInterface
+    public interface Decoder<R> {
+        SynchronizeData<?> decode(Registry<?> registry, R raw) throws Exception;
+    }
+
+    private final Source<R> source;
+    private final Decoder<R> decoder;
+
+    public ParallelRegistryLoader(Source<R> source, Decoder<R> decoder) {
+        this.source = source;
+        this.decoder = decoder;
+    }
+
+    /**
+     * 모든 레지스트리를 읽고, 모두 채워질 때까지 기다린다.
+     */
+    public void loadAll() {
+        long startTime = System.currentTimeMillis();
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            Map<Registry<?>, CompletableFuture<Void>> published = new HashMap<>();
+            // entries() 는 의존하는 레지스트리가 항상 앞에 있으므로, 순서대로 만들면 의존하는 작업이 이미 존재한다.
+            for (Registry<?> registry : RegistryManager.entries()) {
+                CompletableFuture<?>[] dependencies = RegistryManager.getDependencies(registry).stream()
+                        .map(published::get)
+                        .toArray(CompletableFuture[]::new);
+                CompletableFuture<List<R>> read = CompletableFuture.supplyAsync(() -> this.read(registry), pool);
+                published.put(registry, read
+                        .thenCombine(CompletableFuture.allOf(dependencies), (raws, ignored) -> raws)
+                        .thenAcceptAsync(raws -> this.decodeAndPublish(registry, raws), pool));
+            }
+            CompletableFuture.allOf(published.values().toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Failed to load registries", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        LOGGER.info("Loaded all registries in {} ms", System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * @return 읽지 못했다면 null
+     */
+    private List<R> read(Registry<?> registry) {
+        try {
+            return this.source.read(registry);
+        } catch (Exception e) {
+            LOGGER.error("Failed to read registry {}", registry.getRegistryId(), e);
+            return null;
+        }
+    }
+
+    private void decodeAndPublish(Registry<?> registry, List<R> raws) {
+        if (raws == null) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        // 이 작업은 풀 안에서 실행되므로 병렬 스트림도 같은 풀을 사용한다. toList() 는 원본 순서를 유지한다.
+        List<SynchronizeData<?>> decoded = raws.parallelStream()
+                .<SynchronizeData<?>>map(raw -> this.decode(registry, raw))
+                .filter(Objects::nonNull)
+                .toList();
+        registry.unfreeze();
+        try {
+            registry.replaceAll(decoded);
+        } finally {
+            registry.freeze();
+        }
+        LOGGER.info("Loaded {} entries of registry {} in {} ms", decoded.size(), registry.getRegistryId(), System.currentTimeMillis() - startTime);
+    }
+
+    private SynchronizeData<?> decode(Registry<?> registry, R raw) {
+        try {
+            return this.decoder.decode(registry, raw);
+        } catch (Exception e) {
+            LOGGER.error("Failed to decode entry of registry {}", registry.getRegistryId(), e);
+            return null;
+        }
+    }
+}
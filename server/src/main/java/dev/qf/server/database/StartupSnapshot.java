@@ -0,0 +1,283 @@
+package dev.qf.server.database;
+
+import common.network.SynchronizeData;
+import common.registry.Registry;
+import common.registry.RegistryManager;
+import common.util.KioskLoggerFactory;
+import dev.qf.server.database.io.BinaryEntries;
+import dev.qf.server.database.io.DurableFiles;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * 서버를 빠르게 다시 시작하기 위한 바이너리 스냅샷이다. <br>
+ * 정상 종료 시 저장소에 기록한 뒤 모든 레지스트리를 {@link RegistryManager#entries()} 순서대로 하나의 파일에 기록하고,
+ * 다음 시작 시 이 파일을 {@link FileChannel#map}으로 읽어 레지스트리마다 한 번의 {@link Registry#replaceAll(List)}로 채운다.
+ * 저장소를 거치지 않으므로 요소마다 Json 을 파싱하거나 데이터베이스를 조회하지 않는다. <br>
+ * 파일은 <code>[magic int][version int][본문 길이 long][본문 CRC32C int]</code> 다음에 레지스트리마다
+ * <code>[ID 길이 int][ID][요소 수 int]</code>와 요소마다 <code>[길이 int][{@link common.network.encoding.BinaryOps}로 인코딩한 요소]</code>가 이어진다. <br>
+ * 스냅샷은 매핑하기 전에 <code>.consumed</code> 파일로 이름을 바꿔 사용했음을 표시하므로 한 번만 읽힌다. 매핑된 파일은 Windows 에서
+ * 지울 수 없으므로, 바꾼 파일은 채널을 닫은 뒤에 지우고, 그래도 지우지 못했다면 다음 {@link #load()}나 {@link #invalidate()}에서 지운다.
+ * 실행 중의 변경은 저장소에만 기록되므로, 비정상 종료 후에는 스냅샷 없이 저장소에서 읽는다.
+ * 스냅샷을 쓰지 않고 시작할 때에도 {@link #invalidate()}로 지워야 이후에 오래된 스냅샷을 읽지 않는다.
+ */
+public class StartupSnapshot {
+    private static final Logger LOGGER = KioskLoggerFactory.getLogger();
+    private static final int MAGIC = 0x4B534E50;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = Integer.BYTES * 2 + Long.BYTES + Integer.BYTES;
+
+    private final Path path;
+
+    public StartupSnapshot(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * 스냅샷이 있다면 모든 레지스트리를 스냅샷의 내용으로 채우고 스냅샷을 지운다. <br>
+     * 메뉴가 옵션 그룹을 ID 로 찾는 것처럼 요소의 디코딩이 앞선 레지스트리를 조회하므로, {@link RegistryManager#entries()} 순서대로
+     * 레지스트리 하나를 디코딩해 채운 뒤 다음 레지스트리를 디코딩한다. <br>
+     * 체크섬과 레지스트리 구성은 채우기 전에 모두 확인하므로, 스냅샷이 손상되었거나 구성이 다르다면 레지스트리를 바꾸지 않는다.
+     * 디코딩 도중 실패하면 일부 레지스트리만 채워진 채로 false 를 반환하므로, 호출자는 저장소에서 모든 레지스트리를 다시 읽어야 한다. <br>
+     * 스냅샷은 성공 여부와 관계없이 한 번만 사용된다.
+     * @return 스냅샷으로 채웠다면 true. 이 경우 저장소에서 다시 읽을 필요가 없다.
+     */
+    public boolean load() {
+        this.deleteConsumed();
+        if (!Files.exists(this.path)) {
+            return false;
+        }
+        Path consumed = this.consumedPath();
+        try {
+            // 매핑하기 전에 이름을 바꿔 두면, 읽는 도중 종료되더라도 같은 스냅샷을 다시 읽지 않는다.
+            DurableFiles.replace(this.path, consumed);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to claim startup snapshot {}. falling back to storage", this.path, e);
+            this.invalidate();
+            return false;
+        }
+        long startTime = System.currentTimeMillis();
+        int count;
+        try {
+            count = read(consumed);
+        } catch (Exception e) {
+            LOGGER.warn("Failed to read startup snapshot. falling back to storage", e);
+            count = -1;
+        }
+        // read 가 반환되면 채널은 닫혔고 매핑된 버퍼를 가리키는 참조도 남아 있지 않다.
+        this.deleteConsumed();
+        if (count < 0) {
+            return false;
+        }
+        LOGGER.info("Loaded {} entries from startup snapshot in {} ms", count, System.currentTimeMillis() - startTime);
+        return true;
+    }
+
+    /**
+     * 파일을 매핑해 확인한 뒤 모든 레지스트리를 채운다. 매핑된 버퍼는 이 메소드 밖으로 나가지 않는다.
+     * @return 채운 요소 수. 스냅샷을 사용할 수 없다면 -1
+     */
+    private int read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                LOGGER.warn("Startup snapshot is too large to map ({} bytes)", channel.size());
+                return -1;
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            List<ByteBuffer> sections = this.verify(mapped);
+            if (sections == null) {
+                return -1;
+            }
+            int count = 0;
+            List<Registry<?>> registries = RegistryManager.entries();
+            for (int i = 0; i < registries.size(); i++) {
+                count += publish(registries.get(i), sections.get(i));
+            }
+            return count;
+        }
+    }
+
+    /**
+     * 남아 있는 스냅샷을 지운다. 스냅샷 없이 시작한 뒤의 변경은 스냅샷에 없으므로, 이후 스냅샷을 켜고 시작했을 때 오래된 내용을 읽지 않도록 한다.
+     */
+    public void invalidate() {
+        try {
+            if (Files.deleteIfExists(this.path)) {
+                LOGGER.info("Deleted startup snapshot {}", this.path);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Failed to delete startup snapshot {}", this.path, e);
+        }
+        this.deleteConsumed();
+    }
+
+    private Path consumedPath() {
+        return this.path.resolveSibling(this.path.getFileName() + ".consumed");
+    }
+
+    /**
+     * 이미 사용한 스냅샷을 지운다. 이 파일은 다시 읽히지 않으므로, 아직 매핑이 풀리지 않아 지우지 못하더라도 다음에 다시 시도한다.
+     */
+    private void deleteConsumed() {
+        try {
+            Files.deleteIfExists(this.consumedPath());
+        } catch (IOException e) {
+            LOGGER.debug("Consumed startup snapshot {} is still in use", this.consumedPath(), e);
+        }
+    }
+
+    /**
+     * 현재 레지스트리의 내용을 스냅샷으로 기록한다. 임시 파일에 기록한 뒤 교체하므로, 기록 도중 종료되더라도 손상된 스냅샷이 남지 않는다.
+     */
+    public void write() throws IOException {
+        long startTime = System.currentTimeMillis();
+        Path temp = this.path.resolveSibling(this.path.getFileName() + ".tmp");
+        Files.createDirectories(this.path.toAbsolutePath().getParent());
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            channel.position(HEADER_SIZE);
+            CRC32C crc = new CRC32C();
+            CountingOutputStream counter = new CountingOutputStream(Channels.newOutputStream(channel), crc);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(counter, 1 << 16));
+            for (Registry<?> registry : RegistryManager.entries()) {
+                byte[] id = registry.getRegistryId().getBytes(StandardCharsets.UTF_8);
+                List<? extends SynchronizeData<?>> entries = registry.getAll();
+                out.writeInt(id.length);
+                out.write(id);
+                out.writeInt(entries.size());
+                for (SynchronizeData<?> data : entries) {
+                    byte[] payload = BinaryEntries.encode(registry, data);
+                    out.writeInt(payload.length);
+                    out.write(payload);
+                }
+            }
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(counter.count)
+                    .putInt((int) crc.getValue())
+                    .flip();
+            channel.write(header, 0);
+            channel.force(true);
+        }
+        DurableFiles.replace(temp, this.path);
+        LOGGER.info("Wrote startup snapshot in {} ms", System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * 헤더와 체크섬, 레지스트리 구성을 확인하고 레지스트리마다 요소 부분을 나눈다. 요소는 디코딩하지 않는다.
+     * @return 레지스트리 순서대로 <code>[요소 수 int]</code>부터 시작하는 영역. 스냅샷을 사용할 수 없다면 null
+     */
+    private @Nullable List<ByteBuffer> verify(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            LOGGER.warn("Unknown startup snapshot format");
+            return null;
+        }
+        long length = buffer.getLong();
+        int checksum = buffer.getInt();
+        if (length != buffer.remaining()) {
+            LOGGER.warn("Startup snapshot is truncated");
+            return null;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate());
+        if ((int) crc.getValue() != checksum) {
+            LOGGER.warn("Startup snapshot checksum mismatch");
+            return null;
+        }
+
+        List<Registry<?>> registries = RegistryManager.entries();
+        List<ByteBuffer> sections = new ArrayList<>(registries.size());
+        for (Registry<?> registry : registries) {
+            if (!buffer.hasRemaining()) {
+                LOGGER.warn("Startup snapshot has no data for registry {}", registry.getRegistryId());
+                return null;
+            }
+            byte[] id = new byte[buffer.getInt()];
+            buffer.get(id);
+            if (!registry.getRegistryId().equals(new String(id, StandardCharsets.UTF_8))) {
+                LOGGER.warn("Startup snapshot registry order does not match. expected {}", registry.getRegistryId());
+                return null;
+            }
+            int start = buffer.position();
+            int size = buffer.getInt();
+            for (int i = 0; i < size; i++) {
+                buffer.position(buffer.position() + buffer.getInt());
+            }
+            sections.add(buffer.slice(start, buffer.position() - start));
+        }
+        return sections;
+    }
+
+    /**
+     * 레지스트리 하나의 요소를 디코딩해 채운다.
+     * @return 채운 요소 수
+     */
+    private static int publish(Registry<?> registry, ByteBuffer section) {
+        int size = section.getInt();
+        List<SynchronizeData<?>> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int entryLength = section.getInt();
+            // 매핑된 영역을 복사하지 않고 그대로 읽는다.
+            entries.add(BinaryEntries.decode(registry, section.slice(section.position(), entryLength)));
+            section.position(section.position() + entryLength);
+        }
+        registry.unfreeze();
+        try {
+            registry.replaceAll(entries);
+        } finally {
+            registry.freeze();
+        }
+        return size;
+    }
+
+    /**
+     * 기록한 바이트 수와 체크섬을 함께 계산한다.
+     */
+    private static final class CountingOutputStream extends OutputStream {
+        private final OutputStream delegate;
+        private final CRC32C crc;
+        private long count;
+
+        private CountingOutputStream(OutputStream delegate, CRC32C crc) {
+            this.delegate = delegate;
+            this.crc = crc;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.delegate.write(b);
+            this.crc.update(b);
+            this.count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            this.delegate.write(b, off, len);
+            this.crc.update(b, off, len);
+            this.count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            this.delegate.flush();
+        }
+    }
+}
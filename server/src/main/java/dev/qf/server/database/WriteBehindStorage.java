@@ -0,0 +1,398 @@
+package dev.qf.server.database;
+
+import common.network.SynchronizeData;
+import common.registry.Registry;
+import common.registry.RegistryManager;
+import common.util.KioskLoggerFactory;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 다른 저장소 앞에서 요소 단위의 저장과 삭제를 모아 전용 스레드에서 기록한다. <br>
+ * {@link #saveSpecificRegistry(Registry, SynchronizeData)}와 {@link #removeSpecificRegistry(Registry, String)}는 큐에 넣고 바로 반환하므로
+ * Netty 이벤트 루프가 파일이나 데이터베이스 쓰기를 기다리지 않는다. 같은 요소에 대한 변경이 기록 전에 다시 들어오면 마지막 변경만 남는다. <br>
+ * 큐는 {@link #CAPACITY}개의 요소까지만 보관한다. 가득 차더라도 호출한 스레드를 기다리게 하지 않고, 요소를 {@link DirtyTracker}에 표시해 두었다가
+ * 기록 스레드가 큐를 비운 뒤 레지스트리의 현재 값으로 기록한다. 이렇게 넘친 변경 수는 {@link Metrics#overflowed()}로 확인할 수 있다. <br>
+ * 읽기는 먼저 큐를 비운 뒤 감싼 저장소에 위임하므로, 큐에 남은 오래된 변경이 나중에 덮어쓰지 않는다. <br>
+ * {@link #saveAll()}은 전체를 다시 기록하지 않고, {@link DirtyTracker}가 모은 마지막 저장 이후 바뀐 요소만 기록한다.
+ * 큐로 기록한 요소는 그 값이 레지스트리의 현재 값과 같다면 표시를 지우므로 다시 기록되지 않는다.
+ * 감싼 저장소는 항상 한 번에 한 스레드에서만 호출된다.
+ */
+public class WriteBehindStorage implements ExternalDataManager {
+    private static final Logger LOGGER = KioskLoggerFactory.getLogger();
+    public static final int CAPACITY = 10_000;
+    private static final long SLOW_FLUSH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * 큐에 쌓인 변경을 언제 기록할지 정한다.
+     */
+    public enum Durability {
+        /**
+         * 변경이 들어오는 즉시 기록한다. 기록 중에 들어온 변경은 다음 배치로 묶인다.
+         */
+        COMMIT,
+        /**
+         * 일정 간격마다 모아서 기록한다. 비정상 종료 시 최대 한 간격 동안의 변경을 잃을 수 있다.
+         */
+        INTERVAL
+    }
+
+    /**
+     * @param queueDepth 아직 기록되지 않은 요소 수
+     * @param enqueued 큐에 들어온 변경 수
+     * @param coalesced 기록 전에 다른 변경으로 대체된 변경 수
+     * @param overflowed 큐가 가득 차서 바뀐 요소로만 표시된 변경 수
+     * @param flushed 감싼 저장소에 기록한 변경 수
+     * @param batches 기록한 배치 수
+     * @param lastFlushNanos 마지막 배치를 기록하는 데 걸린 시간
+     * @param maxFlushNanos 가장 오래 걸린 배치의 기록 시간
+     * @param totalFlushNanos 모든 배치의 기록 시간 합
+     */
+    public record Metrics(int queueDepth, long enqueued, long coalesced, long overflowed, long flushed, long batches,
+                          long lastFlushNanos, long maxFlushNanos, long totalFlushNanos) {
+        public double averageFlushMillis() {
+            return this.batches == 0 ? 0 : (double) this.totalFlushNanos / this.batches / 1_000_000;
+        }
+    }
+
+    /**
+     * @param data 저장할 요소. 삭제라면 null
+     */
+    private record PendingWrite(Registry<?> registry, String id, @Nullable SynchronizeData<?> data) {
+    }
+
+    private record EntryKey(String registryId, String id) {
+    }
+
+    private final ExternalDataManager delegate;
+    private final Durability durability;
+    private final long intervalNanos;
+    private final Thread flushThread;
+
+    private final ReentrantLock queueLock = new ReentrantLock();
+    private final Condition notEmpty = this.queueLock.newCondition();
+    private final LinkedHashMap<EntryKey, PendingWrite> pending = new LinkedHashMap<>();
+    private boolean running;
+    /**
+     * 큐가 넘쳐 바뀐 요소로만 표시된 변경이 있다. queueLock 안에서만 접근한다.
+     */
+    private boolean overflowPending;
+    /**
+     * 감싼 저장소에 대한 모든 호출은 이 모니터 안에서 이루어진다. 큐를 비우는 것도 이 안에서 하므로 배치는 큐에 들어온 순서대로 기록된다.
+     */
+    private final Object writeMonitor = new Object();
+    private final DirtyTracker dirtyTracker = new DirtyTracker();
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong overflowed = new AtomicLong();
+    private final AtomicLong flushed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong lastFlushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+
+    /**
+     * @param interval {@link Durability#INTERVAL}일 때 기록 간격. 그 외에는 무시된다.
+     */
+    public WriteBehindStorage(ExternalDataManager delegate, Durability durability, long interval, TimeUnit unit) {
+        this.delegate = delegate;
+        this.durability = durability;
+        this.intervalNanos = unit.toNanos(interval);
+        this.flushThread = new Thread(this::flushLoop, "write_behind_flush_thread");
+        this.flushThread.setDaemon(true);
+    }
+
+    @Override
+    public void initialize() {
+        synchronized (this.writeMonitor) {
+            this.delegate.initialize();
+        }
+        this.dirtyTracker.register();
+        this.queueLock.lock();
+        try {
+            this.running = true;
+        } finally {
+            this.queueLock.unlock();
+        }
+        this.flushThread.start();
+        LOGGER.info("Write-behind persistence started ({})", this.durability);
+    }
+
+    @Override
+    public void loadAll() {
+        synchronized (this.writeMonitor) {
+            this.flushPending();
+            this.delegate.loadAll();
+            this.dirtyTracker.markClean();
+        }
+    }
+
+    /**
+     * 큐를 비운 뒤 마지막 저장 이후 바뀐 요소만 기록한다. 바뀐 요소가 없다면 감싼 저장소를 호출하지 않는다.
+     */
+    @Override
+    public void saveAll() {
+        long startTime = System.nanoTime();
+        int written = 0;
+        synchronized (this.writeMonitor) {
+            this.flushPending();
+            for (Registry<?> registry : RegistryManager.entries()) {
+                written += this.writeDirty(registry);
+            }
+        }
+        Metrics metrics = this.getMetrics();
+        LOGGER.info("Saved {} changed entries in {} ms. write-behind stats : {} flushed in {} batches, {} coalesced, {} overflowed, avg {} ms, max {} ms",
+                written, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime),
+                metrics.flushed(), metrics.batches(), metrics.coalesced(), metrics.overflowed(),
+                String.format("%.2f", metrics.averageFlushMillis()), TimeUnit.NANOSECONDS.toMillis(metrics.maxFlushNanos()));
+    }
+
+    @Override
+    public void loadSpecificRegistry(Registry<?> registry) {
+        synchronized (this.writeMonitor) {
+            this.flushPending();
+            this.delegate.loadSpecificRegistry(registry);
+            this.dirtyTracker.markClean(registry);
+        }
+    }
+
+    @Override
+    public void saveSpecificRegistry(Registry<?> registry) {
+        synchronized (this.writeMonitor) {
+            this.flushPending();
+            this.delegate.saveSpecificRegistry(registry);
+        }
+    }
+
+    @Override
+    public void removeSpecificRegistry(Registry<?> registry, String targetId) {
+        this.enqueue(new PendingWrite(registry, targetId, null));
+    }
+
+    @Override
+    public void saveSpecificRegistry(Registry<?> registry, SynchronizeData<?> data) {
+        if (registry.getClazz() != data.getClass()) {
+            throw new IllegalArgumentException("Registry Target Class and data class type is not match");
+        }
+        this.enqueue(new PendingWrite(registry, data.getRegistryElementId(), data));
+    }
+
+    /**
+     * 기록 스레드를 멈추고 남은 변경을 모두 기록한 뒤 감싼 저장소를 닫는다.
+     * {@link #close()}는 이 메소드보다 먼저 {@link #saveAll()}을 호출한다.
+     */
+    @Override
+    public void internalClose() {
+        this.queueLock.lock();
+        try {
+            this.running = false;
+            this.notEmpty.signalAll();
+        } finally {
+            this.queueLock.unlock();
+        }
+        try {
+            this.flushThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this.writeMonitor) {
+            this.flushPending();
+            this.delegate.internalClose();
+        }
+    }
+
+    /**
+     * 모든 레지스트리가 저장소와 같은 상태라고 표시한다. 저장소를 거치지 않고 레지스트리를 채운 경우(예: 시작 스냅샷) 호출한다.
+     */
+    public void markClean() {
+        this.dirtyTracker.markClean();
+    }
+
+    /**
+     * @return 다음 전체 저장에서 기록될 요소 수
+     */
+    public int getDirtyCount() {
+        return this.dirtyTracker.size();
+    }
+
+    public Metrics getMetrics() {
+        int depth;
+        this.queueLock.lock();
+        try {
+            depth = this.pending.size();
+        } finally {
+            this.queueLock.unlock();
+        }
+        return new Metrics(depth, this.enqueued.get(), this.coalesced.get(), this.overflowed.get(), this.flushed.get(), this.batches.get(),
+                this.lastFlushNanos.get(), this.maxFlushNanos.get(), this.totalFlushNanos.get());
+    }
+
+    private void enqueue(PendingWrite write) {
+        EntryKey key = new EntryKey(write.registry().getRegistryId(), write.id());
+        this.queueLock.lock();
+        try {
+            if (this.running && this.pending.size() >= CAPACITY && !this.pending.containsKey(key)) {
+                // 이벤트 루프를 멈추지 않도록 기다리지 않는다. 레지스트리에는 이미 반영되어 있으므로 나중에 현재 값을 기록하면 된다.
+                this.dirtyTracker.markDirty(write.registry(), write.id());
+                this.overflowPending = true;
+                if (this.overflowed.getAndIncrement() == 0) {
+                    LOGGER.warn("Write-behind queue is full ({} entries). further changes are written from the registry", CAPACITY);
+                }
+                this.notEmpty.signal();
+                return;
+            }
+            if (this.running) {
+                // 이미 기다리는 변경이 있다면 그 자리를 그대로 사용한다.
+                if (this.pending.put(key, write) != null) {
+                    this.coalesced.incrementAndGet();
+                }
+                this.enqueued.incrementAndGet();
+                this.notEmpty.signal();
+                return;
+            }
+        } finally {
+            this.queueLock.unlock();
+        }
+        // 시작 전이거나 닫힌 뒤라면 호출한 스레드에서 바로 기록한다.
+        synchronized (this.writeMonitor) {
+            this.write(List.of(write));
+        }
+    }
+
+    /**
+     * 큐를 비우고 그 내용을 기록한다. writeMonitor 안에서 호출해야 한다.
+     */
+    private void flushPending() {
+        List<PendingWrite> batch;
+        this.queueLock.lock();
+        try {
+            if (this.pending.isEmpty()) {
+                return;
+            }
+            batch = new ArrayList<>(this.pending.values());
+            this.pending.clear();
+        } finally {
+            this.queueLock.unlock();
+        }
+        this.write(batch);
+    }
+
+    /**
+     * 레지스트리에서 바뀐 요소를 기록한다. writeMonitor 안에서 호출해야 한다. 기록에 실패한 요소는 다음 저장에서 다시 시도한다.
+     * @return 기록한 요소 수
+     */
+    private int writeDirty(Registry<?> registry) {
+        List<String> ids = this.dirtyTracker.drain(registry);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<SynchronizeData<?>> upserts = new ArrayList<>();
+        List<String> removals = new ArrayList<>();
+        for (String id : ids) {
+            Optional<? extends SynchronizeData<?>> data = registry.getById(id);
+            if (data.isPresent()) {
+                upserts.add(data.get());
+            } else {
+                removals.add(id);
+            }
+        }
+        try {
+            this.delegate.saveBatch(registry, upserts, removals);
+        } catch (Exception e) {
+            LOGGER.error("Failed to save {} changed entries of registry {}", ids.size(), registry.getRegistryId(), e);
+            ids.forEach(id -> this.dirtyTracker.markDirty(registry, id));
+            return 0;
+        }
+        return ids.size();
+    }
+
+    private void write(List<PendingWrite> batch) {
+        long startTime = System.nanoTime();
+        // 같은 요소의 변경은 큐에서 이미 하나로 합쳐졌으므로, 레지스트리마다 모아 한 번에 기록해도 순서가 바뀌지 않는다.
+        Map<Registry<?>, List<SynchronizeData<?>>> upserts = new LinkedHashMap<>();
+        Map<Registry<?>, List<String>> removals = new LinkedHashMap<>();
+        for (PendingWrite write : batch) {
+            if (write.data() == null) {
+                removals.computeIfAbsent(write.registry(), key -> new ArrayList<>()).add(write.id());
+            } else {
+                upserts.computeIfAbsent(write.registry(), key -> new ArrayList<>()).add(write.data());
+            }
+            upserts.computeIfAbsent(write.registry(), key -> new ArrayList<>());
+        }
+        for (Map.Entry<Registry<?>, List<SynchronizeData<?>>> entry : upserts.entrySet()) {
+            Registry<?> registry = entry.getKey();
+            List<String> removed = removals.getOrDefault(registry, List.of());
+            try {
+                this.delegate.saveBatch(registry, entry.getValue(), removed);
+                // 변경 이벤트로도 표시되었으므로, 다음 전체 저장에서 같은 값을 다시 기록하지 않도록 지운다.
+                entry.getValue().forEach(data -> this.dirtyTracker.markPersisted(registry, data.getRegistryElementId(), data));
+                removed.forEach(id -> this.dirtyTracker.markPersisted(registry, id, null));
+            } catch (Exception e) {
+                LOGGER.error("Failed to persist {} entries of registry {}", entry.getValue().size() + removed.size(), registry.getRegistryId(), e);
+                // 다음 전체 저장에서 다시 시도한다.
+                entry.getValue().forEach(data -> this.dirtyTracker.markDirty(registry, data.getRegistryElementId()));
+                removed.forEach(id -> this.dirtyTracker.markDirty(registry, id));
+            }
+        }
+        long elapsed = System.nanoTime() - startTime;
+        this.flushed.addAndGet(batch.size());
+        this.batches.incrementAndGet();
+        this.lastFlushNanos.set(elapsed);
+        this.maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+        this.totalFlushNanos.addAndGet(elapsed);
+        if (elapsed > SLOW_FLUSH_NANOS) {
+            LOGGER.warn("Write-behind flush of {} entries took {} ms", batch.size(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            boolean overflow;
+            this.queueLock.lock();
+            try {
+                while (this.pending.isEmpty() && this.running) {
+                    this.notEmpty.awaitUninterruptibly();
+                }
+                if (!this.running) {
+                    // 남은 변경은 internalClose 에서 기록한다.
+                    return;
+                }
+                if (this.durability == Durability.INTERVAL) {
+                    // 간격 동안 더 들어오는 변경을 모은다. 종료 요청이 오면 바로 깨어난다.
+                    long remaining = this.intervalNanos;
+                    while (remaining > 0 && this.running) {
+                        try {
+                            remaining = this.notEmpty.awaitNanos(remaining);
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                }
+                overflow = this.overflowPending;
+                this.overflowPending = false;
+            } finally {
+                this.queueLock.unlock();
+            }
+            synchronized (this.writeMonitor) {
+                this.flushPending();
+                if (overflow) {
+                    // 큐보다 나중에 기록해야 넘친 변경이 큐에 남은 이전 변경에 덮어써지지 않는다.
+                    for (Registry<?> registry : RegistryManager.entries()) {
+                        this.writeDirty(registry);
+                    }
+                }
+            }
+        }
+    }
+}
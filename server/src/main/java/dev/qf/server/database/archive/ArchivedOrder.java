@@ -0,0 +1,102 @@
+package dev.qf.server.database.archive;
+
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.codecs.RecordCodecBuilder;
+import common.Cart;
+import common.Menu;
+import common.Option;
+import common.OptionGroup;
+import common.Order;
+import common.OrderItem;
+import common.OrderStatus;
+import common.util.JavaCodecs;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 보관용 주문. {@link Order#CODEC}은 옵션과 옵션 그룹을 현재 레지스트리에서 ID 로 찾으므로,
+ * 보관된 주문은 메뉴, 옵션 그룹, 옵션을 주문 당시의 ID, 이름, 가격으로만 기록하여 레지스트리 없이 읽을 수 있게 한다. <br>
+ * 이후 메뉴나 옵션이 삭제되거나 가격이 바뀌어도 보관된 주문은 바뀌지 않는다.
+ */
+public record ArchivedOrder(int orderId, String customer, LocalDateTime orderTime, OrderStatus status, List<Item> items) {
+    public static final Codec<ArchivedOrder> CODEC = RecordCodecBuilder.create(instance -> instance.group(
+                    Codec.INT.fieldOf("order_id").forGetter(ArchivedOrder::orderId),
+                    Codec.STRING.fieldOf("customer").forGetter(ArchivedOrder::customer),
+                    JavaCodecs.LOCAL_DATE_TIME.fieldOf("order_time").forGetter(ArchivedOrder::orderTime),
+                    OrderStatus.CODEC.fieldOf("status").forGetter(ArchivedOrder::status),
+                    Item.CODEC.listOf().fieldOf("items").forGetter(ArchivedOrder::items)
+            ).apply(instance, ArchivedOrder::new)
+    );
+
+    public ArchivedOrder {
+        items = List.copyOf(items);
+    }
+
+    /**
+     * @param price 주문 당시의 메뉴 가격
+     * @param options 선택한 옵션. 옵션 그룹 ID 순이다.
+     */
+    public record Item(String menuId, String menuName, int price, int quantity, List<SelectedOption> options) {
+        public static final Codec<Item> CODEC = RecordCodecBuilder.create(instance -> instance.group(
+                        Codec.STRING.fieldOf("menu_id").forGetter(Item::menuId),
+                        Codec.STRING.fieldOf("menu_name").forGetter(Item::menuName),
+                        Codec.INT.fieldOf("price").forGetter(Item::price),
+                        Codec.INT.fieldOf("quantity").forGetter(Item::quantity),
+                        SelectedOption.CODEC.listOf().fieldOf("options").forGetter(Item::options)
+                ).apply(instance, Item::new)
+        );
+
+        public Item {
+            options = List.copyOf(options);
+        }
+    }
+
+    /**
+     * @param extraCost 주문 당시의 추가 금액
+     */
+    public record SelectedOption(String groupId, String groupName, String optionId, String optionName, int extraCost) {
+        public static final Codec<SelectedOption> CODEC = RecordCodecBuilder.create(instance -> instance.group(
+                        Codec.STRING.fieldOf("group_id").forGetter(SelectedOption::groupId),
+                        Codec.STRING.fieldOf("group_name").forGetter(SelectedOption::groupName),
+                        Codec.STRING.fieldOf("option_id").forGetter(SelectedOption::optionId),
+                        Codec.STRING.fieldOf("option_name").forGetter(SelectedOption::optionName),
+                        Codec.INT.fieldOf("extra_cost").forGetter(SelectedOption::extraCost)
+                ).apply(instance, SelectedOption::new)
+        );
+    }
+
+    public static ArchivedOrder of(Order order) {
+        List<Item> items = new ArrayList<>(order.cart().getItems().size());
+        for (OrderItem item : order.cart().getItems()) {
+            Menu menu = item.getMenuItem();
+            List<SelectedOption> options = item.getSelectedOptions().entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey(Comparator.comparing(OptionGroup::id)))
+                    .map(entry -> new SelectedOption(entry.getKey().id(), entry.getKey().name(), entry.getValue().id(), entry.getValue().name(), entry.getValue().extraCost()))
+                    .toList();
+            items.add(new Item(menu.id(), menu.name(), menu.price(), item.getQuantity(), options));
+        }
+        return new ArchivedOrder(order.orderId(), order.customer(), order.orderTime(), order.status(), items);
+    }
+
+    /**
+     * 기록된 값만으로 주문을 만든다. 레지스트리를 조회하지 않으므로 메뉴의 이미지와 설명, 옵션 그룹의 나머지 옵션은 비어 있다.
+     */
+    public Order toOrder() {
+        List<OrderItem> orderItems = new ArrayList<>(this.items.size());
+        for (Item item : this.items) {
+            Map<OptionGroup, Option> options = new LinkedHashMap<>(item.options().size() * 2);
+            for (SelectedOption option : item.options()) {
+                options.put(new OptionGroup(option.groupId(), option.groupName(), false, List.of()), new Option(option.optionId(), option.optionName(), option.extraCost()));
+            }
+            Menu menu = new Menu(item.menuId(), item.menuName(), item.price(), Path.of(""), "", List.of());
+            orderItems.add(new OrderItem(menu, options, item.quantity()));
+        }
+        return new Order(this.orderId, this.customer, this.orderTime, this.status, new Cart(orderItems));
+    }
+}
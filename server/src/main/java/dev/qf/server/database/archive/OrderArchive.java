@@ -0,0 +1,325 @@
+package dev.qf.server.database.archive;
+
+import com.google.common.collect.ImmutableList;
+import com.mojang.serialization.Codec;
+import common.Order;
+import common.network.encoding.BinaryElement;
+import common.network.encoding.BinaryOps;
+import common.util.KioskLoggerFactory;
+import dev.qf.server.database.io.DurableFiles;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.ints.Int2ObjectLinkedOpenHashMap;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 오래된 주문을 월 단위로 나눈 세그먼트 파일에 보관한다. <br>
+ * 보관할 때마다 그 달의 새 세그먼트를 하나 추가하며 (예: <code>orders-2025-03-0004.seg</code>), 기존 세그먼트는 다시 쓰지 않는다.
+ * 한 달의 세그먼트가 {@link #MAX_SEGMENTS_PER_MONTH}개를 넘으면 하나로 합친다. <br>
+ * 세그먼트는 정렬된 주문 ID 목록을 압축하지 않은 헤더로 가지고, 그 뒤에 {@link ArchivedOrder} 목록을 {@link BinaryOps}로 기록한 뒤 gzip 으로 압축한다.
+ * 메모리에는 세그먼트 별 주문 ID 목록만 유지하므로, ID 로 찾을 때는 그 주문이 있는 세그먼트 하나만 읽는다. <br>
+ * 세그먼트는 임시 파일에 쓰고 디스크에 기록한 뒤 교체하므로, 쓰는 도중 종료되더라도 기존 세그먼트는 손상되지 않는다.
+ * 같은 주문 ID 가 다시 보관되면 나중 세그먼트의 값을 사용한다.
+ */
+public class OrderArchive {
+    private static final Logger LOGGER = KioskLoggerFactory.getLogger();
+    private static final Codec<List<ArchivedOrder>> SEGMENT_CODEC = ArchivedOrder.CODEC.listOf();
+    private static final DateTimeFormatter PARTITION_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM");
+    private static final String PREFIX = "orders-";
+    private static final String EXTENSION = ".seg";
+    public static final int MAX_SEGMENTS_PER_MONTH = 16;
+
+    private final Path root;
+    /**
+     * 연월 별 세그먼트. 세그먼트는 번호 순이다. {@link #lock} 아래에서만 접근한다.
+     */
+    private final NavigableMap<YearMonth, List<Segment>> partitions = new TreeMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public OrderArchive(Path root) {
+        this.root = root;
+    }
+
+    /**
+     * @param orderIds 세그먼트에 담긴 주문 ID. 오름차순이다.
+     */
+    private record Segment(YearMonth partition, int sequence, Path path, int[] orderIds) {
+        private boolean contains(int orderId) {
+            return Arrays.binarySearch(this.orderIds, orderId) >= 0;
+        }
+    }
+
+    /**
+     * 보관 디렉토리를 만들고 이미 있는 세그먼트의 주문 ID 헤더를 읽는다. 주문 내용은 읽지 않는다.
+     */
+    public void initialize() {
+        int count = 0;
+        this.lock.writeLock().lock();
+        try {
+            Files.createDirectories(this.root);
+            try (var files = Files.list(this.root)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Segment segment = this.readHeader(file);
+                    if (segment != null) {
+                        this.partitions.computeIfAbsent(segment.partition(), key -> new ArrayList<>()).add(segment);
+                        count++;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to initialize order archive at " + this.root, e);
+        } finally {
+            this.partitions.values().forEach(segments -> segments.sort(Comparator.comparingInt(Segment::sequence)));
+            this.lock.writeLock().unlock();
+        }
+        LOGGER.info("Order archive initialized with {} segments in {} months", count, this.partitions.size());
+    }
+
+    /**
+     * 주문들을 해당하는 달의 새 세그먼트로 기록한다. 이 메소드가 정상적으로 반환된 뒤에만 레지스트리에서 주문을 제거해야 한다.
+     * @param orders 보관할 주문
+     * @throws IOException 세그먼트를 쓰지 못한 경우. 이미 기록된 다른 달의 세그먼트는 그대로 남는다.
+     */
+    public void archive(Collection<Order> orders) throws IOException {
+        Map<YearMonth, List<ArchivedOrder>> byPartition = new TreeMap<>();
+        for (Order order : orders) {
+            byPartition.computeIfAbsent(YearMonth.from(order.orderTime()), key -> new ArrayList<>()).add(ArchivedOrder.of(order));
+        }
+        this.lock.writeLock().lock();
+        try {
+            for (Map.Entry<YearMonth, List<ArchivedOrder>> entry : byPartition.entrySet()) {
+                List<Segment> segments = this.partitions.computeIfAbsent(entry.getKey(), key -> new ArrayList<>());
+                segments.add(this.writeSegment(entry.getKey(), nextSequence(segments), entry.getValue()));
+                if (segments.size() > MAX_SEGMENTS_PER_MONTH) {
+                    this.merge(entry.getKey(), segments);
+                }
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 한 달의 세그먼트를 하나로 합친다. 합친 세그먼트가 가장 큰 번호를 가지므로, 이전 세그먼트를 지우기 전에 종료되어도 결과는 같다.
+     */
+    private void merge(YearMonth partition, List<Segment> segments) throws IOException {
+        List<ArchivedOrder> merged = new ArrayList<>(mergeById(segments, this::readSegment).values());
+        Segment result = this.writeSegment(partition, nextSequence(segments), merged);
+        for (Segment segment : segments) {
+            Files.deleteIfExists(segment.path());
+        }
+        DurableFiles.syncDirectory(this.root);
+        segments.clear();
+        segments.add(result);
+    }
+
+    private static int nextSequence(List<Segment> segments) {
+        return segments.isEmpty() ? 0 : segments.getLast().sequence() + 1;
+    }
+
+    /**
+     * 세그먼트를 번호 순으로 읽어 주문 ID 마다 마지막 값만 남긴다.
+     */
+    private static Int2ObjectLinkedOpenHashMap<ArchivedOrder> mergeById(List<Segment> segments, Function<Segment, List<ArchivedOrder>> reader) {
+        Int2ObjectLinkedOpenHashMap<ArchivedOrder> merged = new Int2ObjectLinkedOpenHashMap<>();
+        for (Segment segment : segments) {
+            for (ArchivedOrder order : reader.apply(segment)) {
+                merged.put(order.orderId(), order);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * 기간 내의 보관된 주문을 최신순으로 반환한다. 기간에 걸치는 달의 세그먼트만 읽는다.
+     * @param from 시작 시각 (포함)
+     * @param to 끝 시각 (제외)
+     */
+    public List<Order> getOrdersBetween(LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            return List.of();
+        }
+        List<Order> result = new ArrayList<>();
+        this.lock.readLock().lock();
+        try {
+            for (List<Segment> segments : this.partitions.subMap(YearMonth.from(from), true, YearMonth.from(to), true).values()) {
+                for (ArchivedOrder order : mergeById(segments, this::readSegment).values()) {
+                    if (!order.orderTime().isBefore(from) && order.orderTime().isBefore(to)) {
+                        result.add(order.toOrder());
+                    }
+                }
+            }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+        result.sort(Comparator.comparing(Order::orderTime).thenComparingInt(Order::orderId).reversed());
+        return result;
+    }
+
+    /**
+     * 보관된 주문을 ID 로 찾는다. 메모리의 주문 ID 목록으로 세그먼트를 찾으므로 그 세그먼트 하나만 읽는다.
+     */
+    public Optional<Order> getOrder(int orderId) {
+        this.lock.readLock().lock();
+        try {
+            for (List<Segment> segments : this.partitions.descendingMap().values()) {
+                for (Segment segment : segments.reversed()) {
+                    if (!segment.contains(orderId)) {
+                        continue;
+                    }
+                    for (ArchivedOrder order : this.readSegment(segment)) {
+                        if (order.orderId() == orderId) {
+                            return Optional.of(order.toOrder());
+                        }
+                    }
+                }
+            }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @return 보관된 주문이 있는 연월. 오래된 순서로 정렬되어 있다.
+     */
+    public List<YearMonth> getPartitions() {
+        this.lock.readLock().lock();
+        try {
+            return ImmutableList.copyOf(this.partitions.keySet());
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 세그먼트 헤더만으로 계산하므로 주문 내용은 읽지 않는다.
+     * @return 보관된 주문 중 가장 큰 주문 번호. 보관된 주문이 없다면 -1
+     */
+    public int getMaxOrderId() {
+        this.lock.readLock().lock();
+        try {
+            int max = -1;
+            for (List<Segment> segments : this.partitions.values()) {
+                for (Segment segment : segments) {
+                    if (segment.orderIds().length > 0) {
+                        max = Math.max(max, segment.orderIds()[segment.orderIds().length - 1]);
+                    }
+                }
+            }
+            return max;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    private @Nullable Segment readHeader(Path path) throws IOException {
+        String fileName = path.getFileName().toString();
+        if (!fileName.startsWith(PREFIX) || !fileName.endsWith(EXTENSION)) {
+            return null;
+        }
+        // orders-yyyy-MM-NNNN.seg
+        String name = fileName.substring(PREFIX.length(), fileName.length() - EXTENSION.length());
+        int separator = name.lastIndexOf('-');
+        YearMonth partition;
+        int sequence;
+        try {
+            partition = YearMonth.parse(name.substring(0, separator), PARTITION_FORMAT);
+            sequence = Integer.parseInt(name.substring(separator + 1));
+        } catch (DateTimeParseException | NumberFormatException | IndexOutOfBoundsException e) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            return new Segment(partition, sequence, path, readOrderIds(in));
+        }
+    }
+
+    private static int[] readOrderIds(DataInputStream in) throws IOException {
+        int[] orderIds = new int[in.readInt()];
+        for (int i = 0; i < orderIds.length; i++) {
+            orderIds[i] = in.readInt();
+        }
+        return orderIds;
+    }
+
+    private List<ArchivedOrder> readSegment(Segment segment) {
+        ByteBuf buf = Unpooled.buffer();
+        try (DataInputStream header = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment.path())))) {
+            readOrderIds(header);
+            try (InputStream in = new GZIPInputStream(header);
+                 ByteBufOutputStream out = new ByteBufOutputStream(buf)) {
+                in.transferTo(out);
+            }
+        } catch (IOException e) {
+            buf.release();
+            throw new UncheckedIOException("Failed to read order segment " + segment.path(), e);
+        }
+        try {
+            return SEGMENT_CODEC.parse(BinaryOps.INSTANCE, BinaryElement.read(buf)).getOrThrow();
+        } finally {
+            buf.release();
+        }
+    }
+
+    private Segment writeSegment(YearMonth partition, int sequence, List<ArchivedOrder> orders) throws IOException {
+        Path path = this.root.resolve(PREFIX + PARTITION_FORMAT.format(partition) + "-" + String.format("%04d", sequence) + EXTENSION);
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        int[] orderIds = orders.stream().mapToInt(ArchivedOrder::orderId).sorted().distinct().toArray();
+        BinaryElement element = SEGMENT_CODEC.encodeStart(BinaryOps.INSTANCE, orders).getOrThrow();
+        ByteBuf buf = Unpooled.buffer();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            element.write(buf);
+            DataOutputStream header = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            header.writeInt(orderIds.length);
+            for (int orderId : orderIds) {
+                header.writeInt(orderId);
+            }
+            // 채널은 try 블록이 닫으므로 gzip 스트림은 finish 만 한다.
+            GZIPOutputStream out = new GZIPOutputStream(header);
+            try (InputStream in = new ByteBufInputStream(buf)) {
+                in.transferTo(out);
+            }
+            out.finish();
+            out.flush();
+            channel.force(true);
+        } finally {
+            buf.release();
+        }
+        DurableFiles.replace(temp, path);
+        LOGGER.info("Wrote order segment {} ({} orders)", path.getFileName(), orders.size());
+        return new Segment(partition, sequence, path, orderIds);
+    }
+}
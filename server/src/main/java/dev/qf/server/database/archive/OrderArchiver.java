@@ -0,0 +1,80 @@
+package dev.qf.server.database.archive;
+
+import common.CompactOrder;
+import common.Order;
+import common.registry.OrderRegistry;
+import common.registry.RegistryManager;
+import common.registry.RegistryTransaction;
+import common.util.KioskLoggerFactory;
+import dev.qf.server.database.ExternalDataManager;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 완료된 지 일정 시간이 지난 주문을 레지스트리에서 {@link OrderArchive}로 옮긴다. <br>
+ * 세그먼트에 먼저 기록한 뒤 레지스트리와 저장소에서 제거하므로, 도중에 실패하더라도 주문이 사라지지 않는다.
+ * 이미 보관된 주문이 레지스트리에 남아 있다면 다음 실행에서 다시 보관되며, 조회할 때는 나중에 보관된 값만 사용된다. <br>
+ * 주기적으로 실행되므로 어떤 예외도 밖으로 던지지 않는다. 예외가 스케줄러로 전파되면 이후의 실행이 모두 취소되기 때문이다.
+ */
+public class OrderArchiver implements Runnable {
+    private static final Logger LOGGER = KioskLoggerFactory.getLogger();
+    private final OrderRegistry registry;
+    private final OrderArchive archive;
+    private final ExternalDataManager storage;
+    private final Consumer<RegistryTransaction.Result> broadcaster;
+    private final Duration maxAge;
+
+    /**
+     * @param broadcaster 레지스트리에서 제거한 결과를 클라이언트에 전송한다
+     * @param maxAge 주문 시각으로부터 이 시간이 지난 완료 주문을 보관한다
+     */
+    public OrderArchiver(OrderRegistry registry, OrderArchive archive, ExternalDataManager storage, Consumer<RegistryTransaction.Result> broadcaster, Duration maxAge) {
+        this.registry = registry;
+        this.archive = archive;
+        this.storage = storage;
+        this.broadcaster = broadcaster;
+        this.maxAge = maxAge;
+    }
+
+    @Override
+    public void run() {
+        try {
+            this.archiveExpired();
+        } catch (RuntimeException e) {
+            LOGGER.error("Order archiving failed. it will be retried on the next run", e);
+        }
+    }
+
+    private void archiveExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(this.maxAge);
+        // 압축된 주문으로 먼저 거르므로 옮길 주문만 복원된다.
+        List<Order> expired = this.registry.getCompactOrdersBetween(LocalDateTime.MIN, cutoff).stream()
+                .filter(order -> order.status().isTerminal())
+                .map(CompactOrder::toOrder)
+                .toList();
+        if (expired.isEmpty()) {
+            return;
+        }
+
+        try {
+            this.archive.archive(expired);
+        } catch (IOException e) {
+            LOGGER.error("Failed to archive {} orders. they will stay in registry", expired.size(), e);
+            return;
+        }
+
+        RegistryTransaction transaction = RegistryManager.transaction();
+        for (Order order : expired) {
+            transaction.remove(this.registry, order.getRegistryElementId());
+        }
+        RegistryTransaction.Result result = transaction.commit();
+        this.storage.saveBatch(this.registry, List.of(), expired.stream().map(Order::getRegistryElementId).toList());
+        this.broadcaster.accept(result);
+        LOGGER.info("Archived {} orders older than {}", expired.size(), cutoff);
+    }
+}
@@ -0,0 +1,57 @@
+package dev.qf.server.database.archive;
+
+import common.Order;
+import common.registry.OrderRegistry;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 레지스트리에 남아있는 최근 주문과 {@link OrderArchive}에 보관된 주문을 함께 조회한다. <br>
+ * 보관된 주문은 필요할 때만 디스크에서 읽으므로, 최근 주문만 필요하다면 {@link OrderRegistry}를 직접 사용하는 것이 빠르다.
+ */
+public class OrderHistory {
+    private static final Comparator<Order> NEWEST_FIRST = Comparator.comparing(Order::orderTime).thenComparingInt(Order::orderId).reversed();
+    private final OrderRegistry registry;
+    private final OrderArchive archive;
+
+    public OrderHistory(OrderRegistry registry, OrderArchive archive) {
+        this.registry = registry;
+        this.archive = archive;
+    }
+
+    /**
+     * @param orderId 주문 ID
+     * @return 레지스트리에 없다면 보관된 주문에서 찾은 결과
+     */
+    public Optional<Order> getOrder(int orderId) {
+        Order order = this.registry.getOrderById(orderId);
+        if (order != null) {
+            return Optional.of(order);
+        }
+        return this.archive.getOrder(orderId);
+    }
+
+    /**
+     * 기간 내의 모든 주문을 최신순으로 반환한다. 보관 도중이라 양쪽에 모두 있는 주문은 레지스트리의 값을 사용한다.
+     * @param from 시작 시각 (포함)
+     * @param to 끝 시각 (제외)
+     */
+    public List<Order> getOrdersBetween(LocalDateTime from, LocalDateTime to) {
+        List<Order> orders = new ArrayList<>(this.registry.getOrdersBetween(from, to));
+        for (Order order : this.archive.getOrdersBetween(from, to)) {
+            if (this.registry.getCompactOrder(order.orderId()) == null) {
+                orders.add(order);
+            }
+        }
+        orders.sort(NEWEST_FIRST);
+        return orders;
+    }
+
+    public OrderArchive getArchive() {
+        return this.archive;
+    }
+}
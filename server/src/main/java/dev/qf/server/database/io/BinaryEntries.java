@@ -0,0 +1,47 @@
+package dev.qf.server.database.io;
+
+import common.network.SynchronizeData;
+import common.network.encoding.BinaryElement;
+import common.network.encoding.BinaryOps;
+import common.registry.Registry;
+import common.registry.RegistryManager;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 레지스트리 요소를 레지스트리의 코덱과 {@link BinaryOps}로 인코딩한다. 저널과 스냅샷처럼 요소를 바이트로 저장하는 곳에서 사용한다.
+ */
+public final class BinaryEntries {
+    private BinaryEntries() {
+    }
+
+    public static byte[] encode(Registry<?> registry, SynchronizeData<?> data) {
+        BinaryElement element = RegistryManager.getCodecAsId(registry.getRegistryId()).encodeStart(BinaryOps.INSTANCE, data).getOrThrow();
+        ByteBuf buf = Unpooled.buffer();
+        try {
+            element.write(buf);
+            return ByteBufUtil.getBytes(buf);
+        } finally {
+            buf.release();
+        }
+    }
+
+    public static SynchronizeData<?> decode(Registry<?> registry, byte[] payload) {
+        return decode(registry, ByteBuffer.wrap(payload));
+    }
+
+    /**
+     * @param buffer 요소 하나가 담긴 버퍼. 매핑된 파일의 일부처럼 힙 밖의 버퍼라도 복사하지 않고 읽는다.
+     */
+    public static SynchronizeData<?> decode(Registry<?> registry, ByteBuffer buffer) {
+        ByteBuf buf = Unpooled.wrappedBuffer(buffer);
+        try {
+            return RegistryManager.getCodecAsId(registry.getRegistryId()).parse(BinaryOps.INSTANCE, BinaryElement.read(buf)).getOrThrow();
+        } finally {
+            buf.release();
+        }
+    }
+}
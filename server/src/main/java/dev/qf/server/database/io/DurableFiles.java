@@ -0,0 +1,49 @@
+package dev.qf.server.database.io;
+
+import common.util.KioskLoggerFactory;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 전원이 꺼져도 남아야 하는 파일을 교체할 때 사용한다. <br>
+ * 임시 파일의 내용은 호출자가 {@link FileChannel#force(boolean)}로 먼저 기록해야 하며,
+ * 여기서는 이름을 원자적으로 바꾼 뒤 디렉토리 항목까지 기록한다.
+ */
+public final class DurableFiles {
+    private static final Logger LOGGER = KioskLoggerFactory.getLogger();
+
+    private DurableFiles() {
+    }
+
+    /**
+     * 기록이 끝난 임시 파일로 대상 파일을 원자적으로 교체하고, 교체된 디렉토리 항목을 디스크에 기록한다.
+     * @param temp {@link FileChannel#force(boolean)}까지 끝난 임시 파일. 대상과 같은 디렉토리에 있어야 한다.
+     * @param target 교체할 파일
+     */
+    public static void replace(Path temp, Path target) throws IOException {
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(target.toAbsolutePath().getParent());
+    }
+
+    /**
+     * 디렉토리의 항목 변경(생성, 이름 변경, 삭제)을 디스크에 기록한다.
+     * 디렉토리를 열 수 없는 플랫폼(Windows)에서는 운영체제에 맡기고 넘어간다.
+     */
+    public static void syncDirectory(Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            if (Files.isDirectory(directory) && System.getProperty("os.name", "").startsWith("Windows")) {
+                LOGGER.debug("Directory sync is not supported for {}", directory);
+                return;
+            }
+            throw e;
+        }
+    }
+}
@@ -132,8 +132,7 @@ public class KioskDBSerializer {
         registerSerializer(Category.class, (container, category) -> {
             container.put(JavaTypes.STRING, "id", category.cateId());
             container.put(JavaTypes.STRING, "name", category.cateName());
-            String[] menuIds = category.menus().stream().map(Menu::id).toArray(String[]::new);
-            container.put(JavaTypes.STRING, "menus", Arrays.toString(menuIds).replace("[", "").replace("]", ""));
+            container.put(JavaTypes.STRING, "menus", String.join(", ", category.menuIds()));
         });
 
         registerDeserializer(Category.class, (dc) -> {
@@ -141,13 +140,12 @@ public class KioskDBSerializer {
             String id = dataContainer.get(JavaTypes.STRING, "id").orElseThrow();
             String name = dataContainer.get(JavaTypes.STRING, "name").orElseThrow();
             String[] menuIds = dataContainer.get(JavaTypes.STRING, "menus").orElseThrow().split(",");
-            List<Menu> menuList =  menuIds[0].isBlank() ? List.of() : Arrays
+            List<String> menuIdList = menuIds[0].isBlank() ? List.of() : Arrays
                     .stream(menuIds)
-                    .map(menuId -> RegistryManager.MENUS.getById(menuId.trim())
-                            .orElseThrow(() -> new IllegalStateException("Menu not found : " + menuId)))
+                    .map(String::trim)
                     .toList();
 
-            return new Category(id, name, menuList);
+            return new Category(id, name, menuIdList);
         });
 
         //Order를 위한 직렬화/역직렬화 로직 추가
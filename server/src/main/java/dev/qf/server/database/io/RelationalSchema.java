@@ -0,0 +1,231 @@
+package dev.qf.server.database.io;
+
+import common.Category;
+import common.Menu;
+import common.Option;
+import common.OptionGroup;
+import common.Order;
+import common.OrderItem;
+import common.network.SynchronizeData;
+import common.registry.Registry;
+import common.registry.RegistryManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 주문과 메뉴 구성을 SQL 로 조회할 수 있도록 정규화한 테이블이다. <br>
+ * <ul>
+ *     <li><code>orders</code> : 주문 하나당 한 행. 주문 시각과 상태에 색인이 있다.</li>
+ *     <li><code>order_items</code> : 주문의 항목. 주문 당시의 메뉴 가격을 가진다.</li>
+ *     <li><code>order_item_options</code> : 항목에서 고른 옵션. 주문 당시의 추가 금액을 가진다.</li>
+ *     <li><code>option_group_options</code>, <code>menu_option_groups</code>, <code>category_menus</code> : 순서를 가진 연결 테이블</li>
+ * </ul>
+ * 레지스트리의 원본은 여전히 요소 테이블의 payload 이며, 이 테이블들은 같은 트랜잭션 안에서 함께 갱신되는 조회용 사본이다.
+ * 메뉴 이름이나 이미지처럼 요소를 되살리는 데 필요한 값은 담지 않으므로 레지스트리를 읽을 때는 사용하지 않는다. <br>
+ * 주문의 옵션은 ID 로만 인코딩되어 읽을 때 현재 옵션의 추가 금액을 가지므로, 주문 총액과 항목, 옵션 행은 주문이 처음 기록될 때만 쓰고
+ * 이후의 저장은 고객과 상태만 갱신한다. 단, 기존 데이터베이스를 처음 채울 때는 그 시점의 추가 금액이 기록된다. <br>
+ * 주문 시각은 {@link LocalDateTime}을 UTC 로 간주한 epoch 밀리초로 기록한다.
+ */
+public final class RelationalSchema {
+    private static final List<String> TABLES = List.of(
+            "CREATE TABLE IF NOT EXISTS orders ("
+                    + "order_id INTEGER PRIMARY KEY NOT NULL, "
+                    + "customer TEXT NOT NULL, "
+                    + "order_time INTEGER NOT NULL, "
+                    + "status TEXT NOT NULL, "
+                    + "total_price INTEGER NOT NULL)",
+            "CREATE INDEX IF NOT EXISTS orders_order_time ON orders (order_time)",
+            "CREATE INDEX IF NOT EXISTS orders_status_order_time ON orders (status, order_time)",
+            "CREATE TABLE IF NOT EXISTS order_items ("
+                    + "order_id INTEGER NOT NULL REFERENCES orders (order_id) ON DELETE CASCADE, "
+                    + "line INTEGER NOT NULL, "
+                    + "menu_id TEXT NOT NULL, "
+                    + "menu_price INTEGER NOT NULL, "
+                    + "quantity INTEGER NOT NULL, "
+                    + "PRIMARY KEY (order_id, line))",
+            "CREATE INDEX IF NOT EXISTS order_items_menu_id ON order_items (menu_id)",
+            "CREATE TABLE IF NOT EXISTS order_item_options ("
+                    + "order_id INTEGER NOT NULL, "
+                    + "line INTEGER NOT NULL, "
+                    + "group_id TEXT NOT NULL, "
+                    + "option_id TEXT NOT NULL, "
+                    + "extra_cost INTEGER NOT NULL, "
+                    + "PRIMARY KEY (order_id, line, group_id), "
+                    + "FOREIGN KEY (order_id, line) REFERENCES order_items (order_id, line) ON DELETE CASCADE)",
+            "CREATE INDEX IF NOT EXISTS order_item_options_option_id ON order_item_options (option_id)",
+            "CREATE TABLE IF NOT EXISTS option_group_options ("
+                    + "group_id TEXT NOT NULL, "
+                    + "option_id TEXT NOT NULL, "
+                    + "position INTEGER NOT NULL, "
+                    + "PRIMARY KEY (group_id, option_id))",
+            "CREATE INDEX IF NOT EXISTS option_group_options_option_id ON option_group_options (option_id)",
+            "CREATE TABLE IF NOT EXISTS menu_option_groups ("
+                    + "menu_id TEXT NOT NULL, "
+                    + "group_id TEXT NOT NULL, "
+                    + "position INTEGER NOT NULL, "
+                    + "PRIMARY KEY (menu_id, group_id))",
+            "CREATE INDEX IF NOT EXISTS menu_option_groups_group_id ON menu_option_groups (group_id)",
+            "CREATE TABLE IF NOT EXISTS category_menus ("
+                    + "category_id TEXT NOT NULL, "
+                    + "menu_id TEXT NOT NULL, "
+                    + "position INTEGER NOT NULL, "
+                    + "PRIMARY KEY (category_id, menu_id))",
+            "CREATE INDEX IF NOT EXISTS category_menus_menu_id ON category_menus (menu_id)"
+    );
+
+    private RelationalSchema() {
+    }
+
+    public static void create(Statement statement) throws SQLException {
+        for (String sql : TABLES) {
+            statement.addBatch(sql);
+        }
+    }
+
+    /**
+     * @return 레지스트리가 정규화된 테이블을 가진다면 true
+     */
+    public static boolean isNormalized(Registry<?> registry) {
+        return registry == RegistryManager.ORDERS
+                || registry == RegistryManager.OPTION_GROUPS
+                || registry == RegistryManager.MENUS
+                || registry == RegistryManager.CATEGORIES;
+    }
+
+    /**
+     * 요소 테이블에 기록한 변경을 정규화된 테이블에도 반영한다. 호출한 쪽의 트랜잭션 안에서 실행되어야 한다. <br>
+     * 저장되는 주문은 고객과 상태만 갱신하고, 나머지 요소는 기존 행을 지운 뒤 다시 기록한다.
+     */
+    public static void sync(Connection connection, Registry<?> registry, List<? extends SynchronizeData<?>> upserts, List<String> removals) throws SQLException {
+        if (!isNormalized(registry) || (upserts.isEmpty() && removals.isEmpty())) {
+            return;
+        }
+        if (registry == RegistryManager.ORDERS) {
+            syncOrders(connection, upserts, removals);
+        } else if (registry == RegistryManager.OPTION_GROUPS) {
+            syncLinks(connection, "option_group_options", "group_id", "option_id", upserts, removals,
+                    data -> ((OptionGroup) data).options().stream().map(Option::id).toList());
+        } else if (registry == RegistryManager.MENUS) {
+            syncLinks(connection, "menu_option_groups", "menu_id", "group_id", upserts, removals,
+                    data -> ((Menu) data).optionGroup().stream().map(OptionGroup::id).toList());
+        } else {
+            syncLinks(connection, "category_menus", "category_id", "menu_id", upserts, removals,
+                    data -> ((Category) data).menuIds());
+        }
+    }
+
+    /**
+     * 주문 시각을 테이블에 기록되는 값으로 바꾼다.
+     */
+    public static long toEpochMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static void syncOrders(Connection connection, List<? extends SynchronizeData<?>> upserts, List<String> removals) throws SQLException {
+        if (!removals.isEmpty()) {
+            try (PreparedStatement deleteOptions = connection.prepareStatement("DELETE FROM order_item_options WHERE order_id = ?");
+                 PreparedStatement deleteItems = connection.prepareStatement("DELETE FROM order_items WHERE order_id = ?");
+                 PreparedStatement deleteOrder = connection.prepareStatement("DELETE FROM orders WHERE order_id = ?")) {
+                // 외래 키 제약이 꺼져 있을 수도 있으므로 자식 행을 직접 지운다.
+                for (PreparedStatement statement : List.of(deleteOptions, deleteItems, deleteOrder)) {
+                    for (String id : removals) {
+                        statement.setInt(1, Integer.parseInt(id));
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+            }
+        }
+        if (upserts.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement insertOrder = connection.prepareStatement(
+                "INSERT INTO orders (order_id, customer, order_time, status, total_price) VALUES (?, ?, ?, ?, ?) "
+                        + "ON CONFLICT(order_id) DO UPDATE SET customer = excluded.customer, status = excluded.status");
+             // 이미 기록된 항목과 옵션은 처음 기록한 금액을 유지한다.
+             PreparedStatement insertItem = connection.prepareStatement(
+                     "INSERT OR IGNORE INTO order_items (order_id, line, menu_id, menu_price, quantity) VALUES (?, ?, ?, ?, ?)");
+             PreparedStatement insertOption = connection.prepareStatement(
+                     "INSERT OR IGNORE INTO order_item_options (order_id, line, group_id, option_id, extra_cost) VALUES (?, ?, ?, ?, ?)")) {
+            for (SynchronizeData<?> data : upserts) {
+                Order order = (Order) data;
+                insertOrder.setInt(1, order.orderId());
+                insertOrder.setString(2, order.customer());
+                insertOrder.setLong(3, toEpochMillis(order.orderTime()));
+                insertOrder.setString(4, order.status().name());
+                insertOrder.setInt(5, order.cart().calculateCartTotal());
+                insertOrder.addBatch();
+
+                List<OrderItem> items = order.cart().getItems();
+                for (int line = 0; line < items.size(); line++) {
+                    OrderItem item = items.get(line);
+                    insertItem.setInt(1, order.orderId());
+                    insertItem.setInt(2, line);
+                    insertItem.setString(3, item.getMenuItem().id());
+                    insertItem.setInt(4, item.getMenuItem().price());
+                    insertItem.setInt(5, item.getQuantity());
+                    insertItem.addBatch();
+
+                    for (Map.Entry<OptionGroup, Option> option : item.getSelectedOptions().entrySet().stream()
+                            .sorted(Map.Entry.comparingByKey(Comparator.comparing(OptionGroup::id)))
+                            .toList()) {
+                        insertOption.setInt(1, order.orderId());
+                        insertOption.setInt(2, line);
+                        insertOption.setString(3, option.getKey().id());
+                        insertOption.setString(4, option.getValue().id());
+                        insertOption.setInt(5, option.getValue().extraCost());
+                        insertOption.addBatch();
+                    }
+                }
+            }
+            insertOrder.executeBatch();
+            insertItem.executeBatch();
+            insertOption.executeBatch();
+        }
+    }
+
+    @FunctionalInterface
+    private interface LinkExtractor {
+        List<String> children(SynchronizeData<?> data);
+    }
+
+    private static void syncLinks(Connection connection, String table, String parentColumn, String childColumn,
+                                  List<? extends SynchronizeData<?>> upserts, List<String> removals, LinkExtractor extractor) throws SQLException {
+        try (PreparedStatement delete = connection.prepareStatement("DELETE FROM " + table + " WHERE " + parentColumn + " = ?")) {
+            for (String id : removals) {
+                delete.setString(1, id);
+                delete.addBatch();
+            }
+            for (SynchronizeData<?> data : upserts) {
+                delete.setString(1, data.getRegistryElementId());
+                delete.addBatch();
+            }
+            delete.executeBatch();
+        }
+        if (upserts.isEmpty()) {
+            return;
+        }
+        // 같은 자식이 두 번 들어 있다면 처음 위치만 남긴다.
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT OR IGNORE INTO " + table + " (" + parentColumn + ", " + childColumn + ", position) VALUES (?, ?, ?)")) {
+            for (SynchronizeData<?> data : upserts) {
+                List<String> children = extractor.children(data);
+                for (int position = 0; position < children.size(); position++) {
+                    insert.setString(1, data.getRegistryElementId());
+                    insert.setString(2, children.get(position));
+                    insert.setInt(3, position);
+                    insert.addBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+    }
+}
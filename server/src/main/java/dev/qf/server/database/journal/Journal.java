@@ -0,0 +1,319 @@
+package dev.qf.server.database.journal;
+
+import com.google.common.io.CountingInputStream;
+import com.google.common.primitives.Longs;
+import common.util.KioskLoggerFactory;
+import dev.qf.server.database.io.DurableFiles;
+import org.slf4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * 번호가 붙은 세그먼트 파일들로 이루어진 추가 전용 로그다. <br>
+ * {@link #append(List)}는 기록을 현재 세그먼트에 쓰기만 하고, 디스크 동기화는 전용 스레드가 모아서 수행한다.
+ * 동기화가 진행되는 동안 들어온 기록들은 다음 한 번의 {@code force}로 함께 반영된다(group commit). <br>
+ * 재시작 후에는 기존 세그먼트에 이어 쓰지 않고 항상 새 세그먼트를 연다. 따라서 끝까지 기록되지 않은 기록은 마지막 세그먼트의 끝에만 있을 수 있다. <br>
+ * 동기화에 실패하면 그때까지의 기록을 기다리던 쪽에 실패를 알리고, 상태를 알 수 없는 세그먼트 대신 새 세그먼트를 열어 계속 기록한다.
+ */
+public class Journal implements Closeable {
+    private static final Logger LOGGER = KioskLoggerFactory.getLogger();
+    private static final String PREFIX = "journal-";
+    private static final String EXTENSION = ".log";
+    private static final long SYNC_RETRY_MILLIS = 1000;
+
+    private final Path directory;
+    private final long segmentSize;
+    private final Object syncMonitor = new Object();
+    private final Thread syncThread;
+
+    // 아래 필드는 this 의 모니터 안에서만 접근한다.
+    private FileChannel channel;
+    private long segmentIndex;
+    private long segmentBytes;
+
+    // 아래 필드는 syncMonitor 안에서만 접근한다.
+    private long writtenSequence;
+    /**
+     * 동기화 스레드가 처리한 마지막 순번. 이 순번까지의 기록 중 {@link #failedSequences}에 속하지 않은 기록은 디스크에 반영되었다.
+     */
+    private long syncedSequence;
+    /**
+     * 동기화에 실패한 순번 구간. (시작, 끝] 형태이며 시작 순번으로 정렬된다. 실패는 드물기 때문에 지우지 않는다.
+     */
+    private final NavigableMap<Long, Long> failedSequences = new TreeMap<>();
+    private IOException syncFailure;
+    private boolean closed;
+
+    /**
+     * @param segmentSize 세그먼트가 이 크기를 넘으면 다음 세그먼트로 넘어간다
+     */
+    public Journal(Path directory, long segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.syncThread = new Thread(this::syncLoop, "journal_sync_thread");
+        this.syncThread.setDaemon(true);
+    }
+
+    /**
+     * 기존 세그먼트 다음 번호로 새 세그먼트를 열고 동기화 스레드를 시작한다.
+     */
+    public synchronized void open() throws IOException {
+        Files.createDirectories(this.directory);
+        List<Long> segments = this.listSegments();
+        this.openSegment(segments.isEmpty() ? 0 : segments.getLast() + 1);
+        this.syncThread.start();
+    }
+
+    /**
+     * 기록들을 현재 세그먼트에 이어 쓴다. 반환된 순번을 {@link #awaitDurable(long)}에 넘기면 디스크에 반영될 때까지 기다릴 수 있다.
+     * @return 이 기록들의 순번
+     */
+    public long append(List<JournalRecord> records) throws IOException {
+        if (records.isEmpty()) {
+            synchronized (this.syncMonitor) {
+                return this.writtenSequence;
+            }
+        }
+        synchronized (this) {
+            if (this.channel == null) {
+                // 동기화 실패 후 새 세그먼트를 열지 못했다면 여기서 다시 시도한다.
+                this.openSegment(this.segmentIndex + 1);
+            }
+            for (JournalRecord record : records) {
+                ByteBuffer buffer = ByteBuffer.wrap(record.encode());
+                this.segmentBytes += buffer.remaining();
+                while (buffer.hasRemaining()) {
+                    this.channel.write(buffer);
+                }
+            }
+            // 순번은 쓰기와 같은 모니터 안에서 증가시켜야 동기화 스레드가 쓰지 않은 기록을 반영했다고 착각하지 않는다.
+            long sequence;
+            synchronized (this.syncMonitor) {
+                sequence = ++this.writtenSequence;
+                this.syncMonitor.notifyAll();
+            }
+            if (this.segmentBytes >= this.segmentSize) {
+                this.roll();
+            }
+            return sequence;
+        }
+    }
+
+    /**
+     * 주어진 순번까지의 기록이 디스크에 반영될 때까지 기다린다.
+     * @throws IOException 이 순번의 기록을 동기화하지 못한 경우
+     */
+    public void awaitDurable(long sequence) throws IOException {
+        synchronized (this.syncMonitor) {
+            while (true) {
+                Map.Entry<Long, Long> failed = this.failedSequences.lowerEntry(sequence);
+                if (failed != null && sequence <= failed.getValue()) {
+                    throw new IOException("Journal sync failed", this.syncFailure);
+                }
+                if (this.syncedSequence >= sequence) {
+                    return;
+                }
+                if (this.closed) {
+                    throw new IOException("Journal is closed");
+                }
+                try {
+                    this.syncMonitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for journal sync", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 현재 세그먼트를 닫고 다음 세그먼트를 연다. 닫힌 세그먼트는 디스크에 반영된 뒤 닫힌다.
+     * @return 새로 연 세그먼트의 번호. 이 번호보다 작은 세그먼트에는 더 이상 기록되지 않는다.
+     */
+    public synchronized long roll() throws IOException {
+        // 이전 채널에 쓴 기록이 동기화 스레드를 거치지 않고 닫히므로 여기서 직접 반영한다.
+        if (this.channel != null) {
+            this.channel.force(false);
+            this.channel.close();
+        }
+        this.openSegment(this.segmentIndex + 1);
+        return this.segmentIndex;
+    }
+
+    /**
+     * @return 디스크에 있는 세그먼트 번호. 오름차순이다.
+     */
+    public List<Long> listSegments() throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (var files = Files.list(this.directory)) {
+            files.forEach(file -> {
+                String name = file.getFileName().toString();
+                if (name.startsWith(PREFIX) && name.endsWith(EXTENSION)) {
+                    Long index = Longs.tryParse(name.substring(PREFIX.length(), name.length() - EXTENSION.length()));
+                    if (index != null) {
+                        segments.add(index);
+                    }
+                }
+            });
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    /**
+     * 주어진 번호보다 작은 세그먼트를 지운다. 스냅샷에 반영된 뒤에만 호출해야 한다.
+     */
+    public void deleteSegmentsBefore(long index) throws IOException {
+        for (long segment : this.listSegments()) {
+            if (segment < index) {
+                Files.deleteIfExists(this.segmentPath(segment));
+            }
+        }
+    }
+
+    /**
+     * 세그먼트의 기록을 순서대로 읽는다. 끝까지 기록되지 않았거나 체크섬이 맞지 않는 기록을 만나면 그 세그먼트는 거기서 멈춘다.
+     * @return 손상된 기록 없이 끝까지 읽었다면 true
+     */
+    public boolean replay(long segment, Consumer<JournalRecord> consumer) throws IOException {
+        Path path = this.segmentPath(segment);
+        long size = Files.size(path);
+        try (CountingInputStream counting = new CountingInputStream(new BufferedInputStream(Files.newInputStream(path)));
+             DataInputStream in = new DataInputStream(counting)) {
+            while (true) {
+                // 읽기에 실패한 기록이 일부라도 있었다면 그 기록의 시작 위치는 파일의 끝이 아니다.
+                long position = counting.getCount();
+                JournalRecord record = JournalRecord.read(in);
+                if (record == null) {
+                    return position == size;
+                }
+                consumer.accept(record);
+            }
+        }
+    }
+
+    /**
+     * @return 현재 세그먼트를 포함한 모든 세그먼트의 크기 합
+     */
+    public long totalSize() throws IOException {
+        long total = 0;
+        for (long segment : this.listSegments()) {
+            total += Files.size(this.segmentPath(segment));
+        }
+        return total;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this.syncMonitor) {
+            this.closed = true;
+            this.syncMonitor.notifyAll();
+        }
+        try {
+            this.syncThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (this.channel != null) {
+                this.channel.force(false);
+                this.channel.close();
+            }
+        }
+    }
+
+    private void openSegment(long index) throws IOException {
+        this.segmentIndex = index;
+        this.segmentBytes = 0;
+        this.channel = FileChannel.open(this.segmentPath(index), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        // 파일 내용만 반영해서는 전원 장애 후 세그먼트 자체가 사라질 수 있다.
+        DurableFiles.syncDirectory(this.directory);
+        LOGGER.info("Opened journal segment {}", index);
+    }
+
+    /**
+     * 동기화에 실패한 채널은 어디까지 기록되었는지 알 수 없으므로 버리고 새 세그먼트를 연다.
+     * 새 세그먼트를 열지 못했다면 다음 {@link #append(List)}에서 다시 시도한다. this 의 모니터 안에서 호출해야 한다.
+     */
+    private void abandonSegment() {
+        try {
+            this.channel.close();
+        } catch (IOException e) {
+            LOGGER.warn("Failed to close journal segment {}", this.segmentIndex, e);
+        }
+        this.channel = null;
+        try {
+            this.openSegment(this.segmentIndex + 1);
+        } catch (IOException e) {
+            LOGGER.error("Failed to open next journal segment", e);
+        }
+    }
+
+    private Path segmentPath(long index) {
+        return this.directory.resolve(PREFIX + String.format("%020d", index) + EXTENSION);
+    }
+
+    private void syncLoop() {
+        while (true) {
+            long target;
+            synchronized (this.syncMonitor) {
+                while (this.writtenSequence == this.syncedSequence && !this.closed) {
+                    try {
+                        this.syncMonitor.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (this.writtenSequence == this.syncedSequence) {
+                    return;
+                }
+                target = this.writtenSequence;
+            }
+            IOException failure = null;
+            // 채널이 교체되는 동안에는 roll() 이 직접 반영하므로, 현재 채널만 반영하면 된다.
+            synchronized (this) {
+                try {
+                    this.channel.force(false);
+                } catch (IOException e) {
+                    failure = e;
+                    // 쓰기는 이 모니터 안에서만 일어나므로, 지금까지의 순번이 곧 버려지는 채널에 쓴 기록 전부이다.
+                    synchronized (this.syncMonitor) {
+                        target = this.writtenSequence;
+                    }
+                    this.abandonSegment();
+                }
+            }
+            synchronized (this.syncMonitor) {
+                if (failure != null) {
+                    this.failedSequences.put(this.syncedSequence, target);
+                    this.syncFailure = failure;
+                }
+                this.syncedSequence = target;
+                this.syncMonitor.notifyAll();
+            }
+            if (failure != null) {
+                // 한 번의 실패로 멈추면 이후의 모든 저장이 영원히 기다리게 되므로, 이번 기록들만 실패시키고 계속한다.
+                LOGGER.error("Failed to sync journal. records up to sequence {} are lost", target, failure);
+                try {
+                    Thread.sleep(SYNC_RETRY_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+}
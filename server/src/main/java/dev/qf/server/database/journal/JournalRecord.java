@@ -0,0 +1,99 @@
+package dev.qf.server.database.journal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32C;
+
+/**
+ * 저널과 스냅샷에 기록되는 변경 하나. <br>
+ * 파일에는 <code>[본문 길이 int][본문 CRC32C int][본문]</code> 형태로 기록되며, 본문은
+ * <code>[op byte][레지스트리 ID][요소 ID][payload 길이 int][payload]</code> 이다.
+ * @param payload {@link #PUT}인 경우 {@link common.network.encoding.BinaryOps}로 인코딩한 요소. 그 외에는 빈 배열
+ */
+public record JournalRecord(byte op, String registryId, String id, byte[] payload) {
+    public static final byte PUT = 1;
+    public static final byte REMOVE = 2;
+    /**
+     * 스냅샷의 끝. 이 기록이 없는 스냅샷은 완전히 기록되지 않은 것이다.
+     */
+    public static final byte END = 3;
+    static final int HEADER_SIZE = Integer.BYTES * 2;
+    /**
+     * 손상된 길이 값 때문에 거대한 배열을 할당하지 않도록 제한한다.
+     */
+    static final int MAX_BODY_SIZE = 16 * 1024 * 1024;
+    private static final byte[] EMPTY = new byte[0];
+
+    public static JournalRecord put(String registryId, String id, byte[] payload) {
+        return new JournalRecord(PUT, registryId, id, payload);
+    }
+
+    public static JournalRecord remove(String registryId, String id) {
+        return new JournalRecord(REMOVE, registryId, id, EMPTY);
+    }
+
+    public static JournalRecord end() {
+        return new JournalRecord(END, "", "", EMPTY);
+    }
+
+    /**
+     * 헤더를 포함한 기록 전체를 만든다.
+     */
+    public byte[] encode() {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(this.payload.length + this.registryId.length() + this.id.length() + 16);
+        try (DataOutputStream out = new DataOutputStream(body)) {
+            out.writeByte(this.op);
+            out.writeUTF(this.registryId);
+            out.writeUTF(this.id);
+            out.writeInt(this.payload.length);
+            out.write(this.payload);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] bytes = body.toByteArray();
+        CRC32C crc = new CRC32C();
+        crc.update(bytes);
+        return ByteBuffer.allocate(HEADER_SIZE + bytes.length)
+                .putInt(bytes.length)
+                .putInt((int) crc.getValue())
+                .put(bytes)
+                .array();
+    }
+
+    /**
+     * 다음 기록을 읽는다.
+     * @return 파일의 끝이거나, 끝까지 기록되지 않았거나, 체크섬이 맞지 않는 기록이라면 null
+     */
+    public static JournalRecord read(DataInputStream in) throws IOException {
+        byte[] header = in.readNBytes(HEADER_SIZE);
+        if (header.length < HEADER_SIZE) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(header);
+        int length = buffer.getInt();
+        int checksum = buffer.getInt();
+        if (length <= 0 || length > MAX_BODY_SIZE) {
+            return null;
+        }
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length < length) {
+            return null;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(bytes);
+        if ((int) crc.getValue() != checksum) {
+            return null;
+        }
+        try (DataInputStream body = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            byte op = body.readByte();
+            String registryId = body.readUTF();
+            String id = body.readUTF();
+            byte[] payload = body.readNBytes(body.readInt());
+            return new JournalRecord(op, registryId, id, payload);
+        }
+    }
+}
@@ -6,8 +6,12 @@ import common.util.KioskLoggerFactory;
 import common.network.Connection;
 import common.network.packet.Serializable;
 import common.network.SerializableManager;
+import common.network.handler.PreEncodedPacket;
 import common.network.handler.SerializableHandler;
 import common.network.packet.SidedPacket;
+import common.network.packet.UpdateDataPacket;
+import common.registry.Registry;
+import common.registry.RegistryTransaction;
 import common.util.Container;
 import dev.qf.server.network.encrypt.ServerNetworkEncryptionUtils;
 import io.netty.bootstrap.ServerBootstrap;
@@ -29,6 +33,7 @@ public final class KioskNettyServer implements Connection {
     private KeyPair keyPair;
     public static final Logger LOGGER = KioskLoggerFactory.getLogger();
     private final List<SerializableHandler> connections = Collections.synchronizedList(Lists.newArrayList());
+    private final SnapshotCache snapshotCache = new SnapshotCache();
 
     public KioskNettyServer() {
         if (Container.get(Connection.class) != null) {
@@ -82,6 +87,8 @@ public final class KioskNettyServer implements Connection {
             }
         });
 
+        this.snapshotCache.clear();
+
         if (!BOSS.isShuttingDown() && !BOSS.isShutdown()) {
             BOSS.shutdownGracefully().syncUninterruptibly();
         }
@@ -122,7 +129,63 @@ public final class KioskNettyServer implements Connection {
         return ImmutableList.copyOf(this.connections);
     }
 
+    /**
+     * 모든 클라이언트에게 패킷을 전송한다. 패킷은 송신 형식 별로 한번만 인코딩 되며, 각 채널은 프레이밍과 암호화만 수행한다.
+     */
     public void broadCast(Serializable<?> serializable) {
-        this.connections.forEach(handler -> handler.send(serializable));
+        PreEncodedPacket packet = new PreEncodedPacket(serializable);
+        try {
+            this.getHandlers().forEach(handler -> handler.send(packet));
+        } finally {
+            packet.release();
+        }
+    }
+
+    /**
+     * 레지스트리의 전체 스냅샷을 청크로 나눠 모든 클라이언트에게 전송한다. 인코딩 결과는 레지스트리 버전 별로 캐싱된다.
+     * @see UpdateDataPacket#splitSnapshot(Registry)
+     * @see SnapshotCache
+     */
+    public void broadCastSnapshot(Registry<?> registry) {
+        this.snapshotCache.send(registry, this.getHandlers());
+    }
+
+    /**
+     * 주어진 버전 이후의 변경 사항만 모든 클라이언트에게 전송한다. 변경 기록으로 따라잡을 수 없는 경우 전체 스냅샷을 전송한다.
+     * @param registry 변경된 레지스트리
+     * @param sinceVersion 변경 직전의 {@link Registry#getVersion()}
+     * @see UpdateDataPacket#createDelta(Registry, long)
+     */
+    public void broadCastChanges(Registry<?> registry, long sinceVersion) {
+        if (registry.getVersion() == sinceVersion) {
+            return;
+        }
+        UpdateDataPacket.createDelta(registry, sinceVersion).ifPresentOrElse(this::broadCast, () -> this.broadCastSnapshot(registry));
+    }
+
+    /**
+     * 트랜잭션에서 바뀐 레지스트리들의 변경 사항을 한 패킷으로 모든 클라이언트에게 전송한다.
+     * 변경 기록으로 따라잡을 수 없는 경우 바뀐 레지스트리마다 전체 스냅샷을 전송한다.
+     * @param result 커밋 결과
+     * @see UpdateDataPacket#createTransaction(RegistryTransaction.Result)
+     */
+    public void broadCastTransaction(RegistryTransaction.Result result) {
+        UpdateDataPacket.createTransaction(result).ifPresentOrElse(packet -> {
+            if (!packet.deltas().isEmpty()) {
+                this.broadCast(packet);
+            }
+        }, () -> result.fromVersions().forEach((registry, version) -> {
+            if (registry.getVersion() != version) {
+                this.broadCastSnapshot(registry);
+            }
+        }));
+    }
+
+    /**
+     * 레지스트리의 전체 스냅샷을 한 클라이언트에게 전송한다.
+     * @see #broadCastSnapshot(Registry)
+     */
+    public void sendSnapshot(SerializableHandler handler, Registry<?> registry) {
+        this.snapshotCache.send(registry, List.of(handler));
     }
 }
@@ -4,25 +4,25 @@ import com.google.common.primitives.Ints;
 import common.Order;
 import common.Category;
 import common.Menu;
-import common.network.SynchronizeData;
-import common.network.encryption.NetworkEncryptionUtils;
+import common.network.encryption.EncryptionMode;
 import common.network.packet.*;
 import common.registry.Registry;
+import common.registry.RegistryChange;
 import common.registry.RegistryManager;
+import common.registry.RegistryTransaction;
 import common.util.KioskLoggerFactory;
 import common.network.handler.SerializableHandler;
 import common.network.handler.listener.ServerPacketListener;
 import dev.qf.server.Main;
+import dev.qf.server.database.OrderIdLeaseManager;
 import org.jetbrains.annotations.ApiStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.crypto.Cipher;
 import javax.crypto.SecretKey;
 import java.security.PrivateKey;
 import java.util.*;
 import java.util.random.RandomGenerator;
-import java.util.stream.Collectors;
 
 @ApiStatus.Internal
 public class ServerPacketListenerImpl implements ServerPacketListener {
@@ -30,9 +30,6 @@ public class ServerPacketListenerImpl implements ServerPacketListener {
     private Logger logger = LoggerFactory.getLogger("ServerPacketListenerImpl");
     private final byte[] nonce;
 
-    //백업 저장소
-    private final Map<String, List<Menu>> categoryMenuBackup = new HashMap<>();
-
     public ServerPacketListenerImpl(SerializableHandler handler) {
         this.handler = handler;
         this.nonce = Ints.toByteArray(RandomGenerator.of("Xoroshiro128PlusPlus").nextInt());
@@ -42,9 +39,10 @@ public class ServerPacketListenerImpl implements ServerPacketListener {
     public void onHandShake(HandShakeC2SInfo packet) {
         handler.setId(packet.id());
         this.logger = LoggerFactory.getLogger("PacketListener - " + packet.id());
-        logger.info("HandShake received");
+        logger.info("HandShake received. packet format : {}", packet.packetFormat().asString());
+        handler.setPacketFormat(packet.packetFormat());
         KioskNettyServer server = (KioskNettyServer) handler.connection;
-        this.handler.send(new HelloS2CPacket(server.getKeyPair().getPublic().getEncoded(), nonce));
+        this.handler.send(new HelloS2CPacket(server.getKeyPair().getPublic().getEncoded(), nonce, EncryptionMode.PREFERRED));
         logger.info("Hello sent nonce : {}", nonce);
     }
 
@@ -53,24 +51,39 @@ public class ServerPacketListenerImpl implements ServerPacketListener {
         if (!this.handler.isEncrypted()) {
             throw new IllegalStateException("Client is not encrypted");
         }
-        Registry<?> registry = RegistryManager.getAsId(packet.registryId());
-
+        List<Registry<?>> registries;
         if (packet.registryId().equalsIgnoreCase("all")) {
-            RegistryManager.entries().forEach(entry -> {
-                List<SynchronizeData<?>> data = new ArrayList<>(entry.getAll());
-                this.handler.send(new UpdateDataPacket.ResponseDataS2CPacket(entry.getRegistryId(), data));
-            });
-            return;
+            registries = RegistryManager.entries();
+        } else {
+            Registry<?> registry = RegistryManager.getAsId(packet.registryId());
+            if (registry == null) {
+                logger.warn("Registry {} not found", packet.registryId());
+                logger.warn("skipping this packet...");
+                return;
+            }
+            registries = List.of(registry);
         }
-        if (registry == null) {
-            logger.warn("Registry {} not found", packet.registryId());
-            logger.warn("skipping this packet...");
-            return;
+
+        List<String> unchanged = new ArrayList<>();
+        for (Registry<?> registry : registries) {
+            Long knownVersion = packet.knownVersions().get(registry.getRegistryId());
+            if (knownVersion == null) {
+                this.sendSnapshot(registry);
+            } else if (knownVersion == registry.getVersion()) {
+                unchanged.add(registry.getRegistryId());
+            } else {
+                UpdateDataPacket.createDelta(registry, knownVersion)
+                        .ifPresentOrElse(this.handler::send, () -> this.sendSnapshot(registry));
+            }
+        }
+        if (!unchanged.isEmpty()) {
+            logger.debug("Registries not modified : {}", unchanged);
+            this.handler.send(new UpdateDataPacket.RegistryUnchangedS2CPacket(unchanged));
         }
+    }
 
-        List<SynchronizeData<?>> data = new ArrayList<>(registry.getAll());
-        UpdateDataPacket.ResponseDataS2CPacket response = new UpdateDataPacket.ResponseDataS2CPacket(packet.registryId(), data);
-        this.handler.send(response);
+    private void sendSnapshot(Registry<?> registry) {
+        ((KioskNettyServer) this.handler.connection).sendSnapshot(this.handler, registry);
     }
 
     @Override
@@ -82,29 +95,43 @@ public class ServerPacketListenerImpl implements ServerPacketListener {
                 throw new IllegalStateException("Invalid nonce");
             }
 
-            SecretKey secretKey = packet.decryptSecretKey(privateKey);
-            Cipher encryptCipher = NetworkEncryptionUtils.cipherFromKey(Cipher.ENCRYPT_MODE, secretKey);
-            Cipher decryptCipher = NetworkEncryptionUtils.cipherFromKey(Cipher.DECRYPT_MODE, secretKey);
+            // 고른 방식은 nonce 와 함께 검증되었으므로, 서버가 알린 방식인지만 확인한다.
+            EncryptionMode mode = packet.getEncryptionMode();
+            if (!EncryptionMode.PREFERRED.contains(mode)) {
+                throw new IllegalStateException("Encryption mode " + mode.asString() + " was not offered");
+            }
+            if (mode.requiresIv() && !isValidIvPair(packet.getClientIv(), packet.getServerIv())) {
+                throw new IllegalStateException("Invalid IV for encryption mode " + mode.asString());
+            }
+            logger.info("Encryption mode : {}", mode.asString());
 
-            this.handler.encrypt(encryptCipher, decryptCipher);
-            this.handler.send(new EncryptCompleteS2CPacket(System.currentTimeMillis()));
+            SecretKey secretKey = packet.decryptSecretKey(privateKey);
+            this.handler.encrypt(mode, secretKey, packet.getServerIv(), packet.getClientIv());
+            this.handler.send(new EncryptCompleteS2CPacket(System.currentTimeMillis(), EncryptionMode.PREFERRED));
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * 두 방향의 IV 가 올바른 길이인지, 그리고 서로 다른지 확인한다. 같은 IV 를 사용하면 두 방향의 프레임 nonce 가 겹친다.
+     */
+    private static boolean isValidIvPair(byte[] clientIv, byte[] serverIv) {
+        return clientIv.length == EncryptionMode.IV_LENGTH
+                && serverIv.length == EncryptionMode.IV_LENGTH
+                && !Arrays.equals(clientIv, serverIv);
+    }
+
     @Override
     public void onUpdateReceived(DataAddedC2SPacket packet) {
         Registry<?> registry = RegistryManager.getAsId(packet.registryId());
+        long version = registry.getVersion();
         registry.unfreeze();
         registry.add(packet.data().getRegistryElementId(), packet.data());
         registry.freeze();
         KioskNettyServer server = (KioskNettyServer) handler.connection;
 
-        server.broadCast(new UpdateDataPacket.ResponseDataS2CPacket(
-                registry.getRegistryId(),
-                (List<SynchronizeData<?>>) registry.getAll()
-        ));
+        server.broadCastChanges(registry, version);
 
         Main.getManager().saveSpecificRegistry(registry, packet.data());
     }
@@ -124,201 +151,16 @@ public class ServerPacketListenerImpl implements ServerPacketListener {
             } else {
                 logger.warn("Deletion not supported for registry: {}", registryId);
             }
-            Registry<?> registry = RegistryManager.getAsId(registryId);
-            Main.getManager().removeSpecificRegistry(registry, packet.dataId());
-
         } catch (Exception e) {
             logger.error("Failed to process deletion request", e);
         }
     }
 
-    // 백업 관련
-
-    private void backupCurrentMenuCategoryRelations() {
-        logger.info("=== Backing up current menu-category relations ===");
-        categoryMenuBackup.clear();
-
-        for (Category category : RegistryManager.CATEGORIES.getAll()) {
-            List<Menu> menusCopy = new ArrayList<>(category.menus());
-            categoryMenuBackup.put(category.cateId(), menusCopy);
-
-            logger.info("Backed up category '{}' ({}) with {} menus:",
-                    category.cateName(), category.cateId(), menusCopy.size());
-
-            for (Menu menu : menusCopy) {
-                logger.debug("  - {} ({})", menu.name(), menu.id());
-            }
-        }
-
-        logger.info("Backup completed. Total categories backed up: {}", categoryMenuBackup.size());
-        logger.info("=== Backup Summary ===");
-        for (Map.Entry<String, List<Menu>> entry : categoryMenuBackup.entrySet()) {
-            logger.info("Category {}: {} menus", entry.getKey(), entry.getValue().size());
-        }
-    }
-
-    private void restoreOrphanMenusFromBackup() {
-        if (categoryMenuBackup.isEmpty()) {
-            logger.debug("No backup data available for orphan menu restoration");
-            return;
-        }
-
-        logger.info("=== Checking for orphan menus ===");
-
-        // 현재 존재하는 모든 메뉴 ID
-        Set<String> currentMenuIds = RegistryManager.MENUS.getAll().stream()
-                .map(Menu::id)
-                .collect(Collectors.toSet());
-
-        logger.info("Current menus in registry: {}", currentMenuIds);
-
-        // 현재 카테고리들에 속한 메뉴 ID들
-        Set<String> assignedMenuIds = RegistryManager.CATEGORIES.getAll().stream()
-                .flatMap(category -> category.menus().stream())
-                .map(Menu::id)
-                .collect(Collectors.toSet());
-
-        logger.info("Menus currently assigned to categories: {}", assignedMenuIds);
-
-        Set<String> orphanMenuIds = new HashSet<>(currentMenuIds);
-        orphanMenuIds.removeAll(assignedMenuIds);
-
-        if (orphanMenuIds.isEmpty()) {
-            logger.info("No orphan menus found");
-            return;
-        }
-
-        logger.warn("Found {} orphan menus: {}", orphanMenuIds.size(), orphanMenuIds);
-
-        int restoredCount = 0;
-        for (String orphanMenuId : orphanMenuIds) {
-            String originalCategoryId = findOriginalCategoryFromBackup(orphanMenuId);
-            if (originalCategoryId != null) {
-                if (restoreMenuToCategory(orphanMenuId, originalCategoryId)) {
-                    restoredCount++;
-                }
-            } else {
-                handleUnmappedOrphanMenu(orphanMenuId);
-            }
-        }
-
-        logger.info("Orphan menu restoration completed. Restored: {}, Total orphans: {}",
-                restoredCount, orphanMenuIds.size());
-    }
-
-    private String findOriginalCategoryFromBackup(String menuId) {
-        logger.debug("Searching for original category of menu: {}", menuId);
-
-        for (Map.Entry<String, List<Menu>> entry : categoryMenuBackup.entrySet()) {
-            String categoryId = entry.getKey();
-            List<Menu> menus = entry.getValue();
-
-            boolean foundInCategory = menus.stream()
-                    .anyMatch(menu -> menu.id().equals(menuId));
-
-            if (foundInCategory) {
-                logger.info("Found original category for menu '{}': '{}'", menuId, categoryId);
-                return categoryId;
-            }
-        }
-
-        logger.warn("Could not find original category for menu '{}' in backup", menuId);
-        return null;
-    }
-
-    private boolean restoreMenuToCategory(String menuId, String categoryId) {
-        Optional<Menu> menuOpt = RegistryManager.MENUS.getById(menuId);
-        Optional<Category> categoryOpt = RegistryManager.CATEGORIES.getById(categoryId);
-
-        if (menuOpt.isEmpty()) {
-            logger.warn("Menu '{}' not found in registry for restoration", menuId);
-            return false;
-        }
-
-        if (categoryOpt.isEmpty()) {
-            logger.warn("Target category '{}' not found for menu restoration", categoryId);
-            return false;
-        }
-
-        Menu menu = menuOpt.get();
-        Category category = categoryOpt.get();
-
-        // 카테고리에 메뉴가 이미 있는지 확인
-        boolean alreadyExists = category.menus().stream()
-                .anyMatch(existingMenu -> existingMenu.id().equals(menuId));
-
-        if (alreadyExists) {
-            logger.debug("Menu '{}' already exists in category '{}'", menu.name(), category.cateName());
-            return true;
-        }
-
-        // 카테고리에 메뉴 추가
-        List<Menu> updatedMenus = new ArrayList<>(category.menus());
-        updatedMenus.add(menu);
-
-        Category updatedCategory = new Category(
-                category.cateId(),
-                category.cateName(),
-                updatedMenus
-        );
-
-        try(var categoryRegistry = RegistryManager.CATEGORIES) {
-            categoryRegistry.unfreeze();
-            categoryRegistry.add(categoryId, updatedCategory);
-        }
-        logger.info("Restored menu '{}' to category '{}'", menu.name(), category.cateName());
-        return true;
-    }
-
-    private void handleUnmappedOrphanMenu(String menuId) {
-        Optional<Menu> menuOpt = RegistryManager.MENUS.getById(menuId);
-        if (menuOpt.isPresent()) {
-            Menu menu = menuOpt.get();
-            logger.warn("Could not find original category for orphan menu: '{}' ({})",
-                    menu.name(), menuId);
-            assignToDefaultCategory(menu);
-        }
-    }
-
-    private void assignToDefaultCategory(Menu menu) {
-        String defaultCategoryId = "uncategorized";
-        Optional<Category> defaultCategoryOpt = RegistryManager.CATEGORIES.getById(defaultCategoryId);
-
-        Category defaultCategory;
-        if (defaultCategoryOpt.isEmpty()) {
-            // 미분류 카테고리 생성
-            defaultCategory = new Category(defaultCategoryId, "미분류", new ArrayList<>());
-            try(RegistryManager.CATEGORIES) {
-                RegistryManager.CATEGORIES.unfreeze();
-                RegistryManager.CATEGORIES.add(defaultCategoryId, defaultCategory);
-            }
-
-            logger.info("Created default category: 미분류");
-        } else {
-            defaultCategory = defaultCategoryOpt.get();
-        }
-
-        // 메뉴를 미분류 카테고리에 추가
-        List<Menu> updatedMenus = new ArrayList<>(defaultCategory.menus());
-        updatedMenus.add(menu);
-
-        Category updatedCategory = new Category(
-                defaultCategory.cateId(),
-                defaultCategory.cateName(),
-                updatedMenus
-        );
-
-        try(RegistryManager.CATEGORIES) {
-            RegistryManager.CATEGORIES.unfreeze();
-            RegistryManager.CATEGORIES.add(defaultCategoryId, updatedCategory);
-        }
-        logger.info("📁 Assigned orphan menu '{}' to default category '미분류'", menu.name());
-    }
-
     /**
      * rewrited by @biryeongtrain.
      * check at <a href="https://github.com/DEU-CS-Softward-Architecutre-25-1/Cafeteria-Kiosk/pull/24/commits/91d62557278169dc67518ca64b19baab4e427cd4">original code</a>
-     *
+     * <br>
+     * 메뉴 삭제와 카테고리 갱신은 한 트랜잭션으로 반영되고 한 패킷으로 전송된다.
      *
      * @param menuId target menu
      */
@@ -333,44 +175,19 @@ public class ServerPacketListenerImpl implements ServerPacketListener {
             Menu menu = menuToDelete.get();
             logger.info("Deleting menu: {} ({})", menu.name(), menuId);
 
-            // Registry에서 메뉴 삭제
-            try(RegistryManager.MENUS){
-                RegistryManager.MENUS.unfreeze();
-                boolean menuRemoved = RegistryManager.MENUS.remove(menuId);
-                logger.info("Menu removed from registry: {}", menuRemoved);
-            }
-
+            RegistryTransaction transaction = RegistryManager.transaction()
+                    .remove(RegistryManager.MENUS, menuId);
             // 모든 카테고리에서 해당 메뉴 제거
-            boolean isCategoryDirty = false;
-            for (Category category : RegistryManager.CATEGORIES.getAll()) {
-                List<Menu> menuList = new ArrayList<>(category.menus());
-                if (menuList.removeIf(m -> m.id().equals(menuId))) {
-                    logger.info("Menu '{}' removed from category '{}'", menu.name(), category.cateName());
-                    try(RegistryManager.CATEGORIES) {
-                        RegistryManager.CATEGORIES.unfreeze();
-                        RegistryManager.CATEGORIES.add(category.cateId(), new Category(category.cateId(), category.cateName(), menuList));
-                    }
-                    isCategoryDirty = true;
-                }
+            for (String categoryId : RegistryManager.CATEGORIES.getCategoryIds(menuId)) {
+                transaction.update(RegistryManager.CATEGORIES, categoryId, category -> category.withoutMenu(menuId));
+                logger.info("Menu '{}' removed from category '{}'", menu.name(), categoryId);
             }
+            RegistryTransaction.Result result = transaction.commit();
+            persist(result);
 
             // 클라이언트들에게 업데이트된 데이터 전송
             KioskNettyServer server = (KioskNettyServer) handler.connection;
-
-            // 메뉴 레지스트리 전체 전송 (삭제된 메뉴 제외)
-            List<SynchronizeData<?>> menuData = new ArrayList<>(RegistryManager.MENUS.getAll());
-            server.broadCast(new UpdateDataPacket.ResponseDataS2CPacket(
-                    RegistryManager.MENUS.getRegistryId(),
-                    menuData));
-
-            // 업데이트된 카테고리들만 전송
-            if (isCategoryDirty) {
-                List<SynchronizeData<?>> categoryData = new ArrayList<>(RegistryManager.CATEGORIES.getAll());
-                server.broadCast(new UpdateDataPacket.ResponseDataS2CPacket(
-                        RegistryManager.CATEGORIES.getRegistryId(),
-                        categoryData
-                ));
-            }
+            server.broadCastTransaction(result);
 
             logger.info("Menu deletion completed: {}", menu.name());
 
@@ -379,10 +196,12 @@ public class ServerPacketListenerImpl implements ServerPacketListener {
         }
     }
 
+    /**
+     * 카테고리와 그에 속한 메뉴들을 한 트랜잭션으로 삭제한다. 삭제된 메뉴가 다른 카테고리에도 속해 있었다면 그 카테고리에서도 제거된다.
+     * 반영 중 실패하면 트랜잭션이 되돌려지므로 고아 메뉴가 생기지 않는다.
+     */
     private void handleCategoryDeletion(String categoryId) {
         try {
-            backupCurrentMenuCategoryRelations();
-
             Optional<Category> categoryToDelete = RegistryManager.CATEGORIES.getById(categoryId);
             if (categoryToDelete.isEmpty()) {
                 logger.warn("Category not found for deletion: {}", categoryId);
@@ -391,50 +210,65 @@ public class ServerPacketListenerImpl implements ServerPacketListener {
 
             Category category = categoryToDelete.get();
             logger.info("Deleting category: {} ({})", category.cateName(), categoryId);
-            try(RegistryManager.MENUS) {
-                RegistryManager.MENUS.unfreeze();
-                // 카테고리에 속한 메뉴들 먼저 삭제
-                for (Menu menu : category.menus()) {
-                    RegistryManager.MENUS.remove(menu.id());
-                    logger.info("Deleted menu: {} from category deletion", menu.name());
-                }
+
+            RegistryTransaction transaction = RegistryManager.transaction();
+            Set<String> otherCategories = new HashSet<>();
+            // 카테고리에 속한 메뉴들 먼저 삭제
+            for (String menuId : category.menuIds()) {
+                transaction.remove(RegistryManager.MENUS, menuId);
+                otherCategories.addAll(RegistryManager.CATEGORIES.getCategoryIds(menuId));
             }
-            // 카테고리 삭제
-            try(RegistryManager.CATEGORIES) {
-                RegistryManager.CATEGORIES.unfreeze();
-                boolean categoryRemoved = RegistryManager.CATEGORIES.remove(categoryId);
-                logger.info("Category removed from registry: {}", categoryRemoved);
+            otherCategories.remove(categoryId);
+            for (String otherCategoryId : otherCategories) {
+                transaction.update(RegistryManager.CATEGORIES, otherCategoryId, other -> {
+                    Category updated = other;
+                    for (String menuId : category.menuIds()) {
+                        updated = updated.withoutMenu(menuId);
+                    }
+                    return updated;
+                });
             }
+            // 카테고리 삭제
+            transaction.remove(RegistryManager.CATEGORIES, categoryId);
+            RegistryTransaction.Result result = transaction.commit();
+            persist(result);
+            logger.info("Deleted category {} with {} menus", category.cateName(), category.menuIds().size());
 
             // 클라이언트들에게 업데이트 전송
             KioskNettyServer server = (KioskNettyServer) handler.connection;
-
-            List<SynchronizeData<?>> menuData = new ArrayList<>(RegistryManager.MENUS.getAll());
-            List<SynchronizeData<?>> categoryData = new ArrayList<>(RegistryManager.CATEGORIES.getAll());
-
-            server.broadCast(new UpdateDataPacket.ResponseDataS2CPacket(
-                    RegistryManager.MENUS.getRegistryId(),
-                    menuData
-            ));
-            server.broadCast(new UpdateDataPacket.ResponseDataS2CPacket(
-                    RegistryManager.CATEGORIES.getRegistryId(),
-                    categoryData
-            ));
-
+            server.broadCastTransaction(result);
 
             logger.info("Category deletion completed: {}", category.cateName());
 
         } catch (Exception e) {
             logger.error("Failed to handle category deletion", e);
-            try {
-                logger.info("Attempting to restore orphan menus due to deletion error...");
-                restoreOrphanMenusFromBackup();
-            } catch (Exception restoreException) {
-                logger.error("Failed to restore orphan menus from backup", restoreException);
-            }
         }
     }
 
+    /**
+     * 커밋된 트랜잭션이 바꾼 모든 요소를 저장소에 반영한다. 제거된 요소는 지우고, 추가되거나 고쳐진 요소는 저장한다. <br>
+     * 변경 기록이 이미 잘려 나간 레지스트리는 전체를 저장한다.
+     */
+    private void persist(RegistryTransaction.Result result) {
+        result.fromVersions().forEach((registry, version) -> registry.getChangesSince(version).ifPresentOrElse(changes -> {
+            // 같은 요소가 여러 번 바뀌었다면 마지막 변경만 반영한다.
+            Map<String, RegistryChange<?>> latest = new LinkedHashMap<>();
+            for (RegistryChange<?> change : changes) {
+                latest.put(change.id(), change);
+            }
+            for (RegistryChange<?> change : latest.values()) {
+                if (change.isRemoval()) {
+                    Main.getManager().removeSpecificRegistry(registry, change.id());
+                } else {
+                    Main.getManager().saveSpecificRegistry(registry, change.entry());
+                }
+            }
+        }, () -> {
+            logger.warn("Change log of registry {} is no longer available. Saving whole registry", registry.getRegistryId());
+            Main.getManager().saveSpecificRegistry(registry);
+        }));
+    }
+
     @Override
     public void onRequestVerify(VerifyPurchasePackets.VerifyPurchasePacketC2S packet) {
         if (!this.handler.isEncrypted()) {
@@ -449,12 +283,31 @@ public class ServerPacketListenerImpl implements ServerPacketListener {
             throw new IllegalStateException("Client is not encrypted");
         }
         Order order = packet.order();
+        long version = RegistryManager.ORDERS.getVersion();
         try(RegistryManager.ORDERS) {
             RegistryManager.ORDERS.unfreeze();
             RegistryManager.ORDERS.addOrder(order);
         }
         KioskNettyServer server = (KioskNettyServer) handler.connection;
-        server.broadCast(new OrderUpdatedS2CPacket(order));
+        server.broadCastChanges(RegistryManager.ORDERS, version);
+    }
+
+    @Override
+    public void onOrderIdsRequested(OrderIdLeasePackets.RequestOrderIdsC2SPacket packet) {
+        if (!this.handler.isEncrypted()) {
+            throw new IllegalStateException("Client is not encrypted");
+        }
+        // high-water mark 를 디스크에 기록하는 동안 네트워크 스레드를 막지 않는다.
+        Main.getOrderIdLeases().leaseAsync(packet.size()).whenComplete((lease, error) -> {
+            if (error != null) {
+                // 빈 구간을 보내 클라이언트가 다음 발급 때 다시 요청할 수 있도록 한다.
+                logger.error("Failed to lease order ids to {}", this.handler.getId(), error);
+                this.handler.send(new OrderIdLeasePackets.OrderIdsLeasedS2CPacket(0, 0));
+                return;
+            }
+            logger.info("Leased order ids [{}, {}) to {}", lease.start(), lease.end(), this.handler.getId());
+            this.handler.send(new OrderIdLeasePackets.OrderIdsLeasedS2CPacket(lease.start(), lease.end()));
+        });
     }
 
     @Override
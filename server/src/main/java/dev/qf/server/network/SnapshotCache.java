@@ -0,0 +1,67 @@
+package dev.qf.server.network;
+
+import common.network.handler.PreEncodedPacket;
+import common.network.handler.SerializableHandler;
+import common.network.packet.UpdateDataPacket;
+import common.registry.Registry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 레지스트리의 청크 스냅샷을 {@link Registry#getVersion()} 별로 미리 인코딩 해 둔다. <br>
+ * 레지스트리가 바뀌지 않았다면 <code>RequestDataC2SPacket("all")</code>이 몇 번 들어오든 Codec 을 다시 실행하지 않고
+ * 같은 버퍼를 전송한다.
+ */
+public class SnapshotCache {
+    private final Map<String, CachedSnapshot> cache = new HashMap<>();
+
+    /**
+     * 레지스트리의 스냅샷을 주어진 핸들러들에게 전송한다.
+     * @param registry 대상 레지스트리
+     * @param handlers 전송할 핸들러들
+     */
+    public void send(Registry<?> registry, Collection<SerializableHandler> handlers) {
+        List<PreEncodedPacket> packets = this.retain(registry);
+        try {
+            for (SerializableHandler handler : handlers) {
+                packets.forEach(handler::send);
+            }
+        } finally {
+            packets.forEach(PreEncodedPacket::release);
+        }
+    }
+
+    /**
+     * 현재 버전의 청크들을 참조 카운트를 올려 반환한다. 캐시가 갱신되어 이전 버전이 해제되더라도 전송 중인 패킷은 유효하다.
+     */
+    private synchronized List<PreEncodedPacket> retain(Registry<?> registry) {
+        CachedSnapshot cached = this.cache.get(registry.getRegistryId());
+        // 버전을 먼저 읽어야 한다. 내용을 읽는 사이에 바뀌더라도 다음 요청에서 다시 만들어 질 뿐이다.
+        long version = registry.getVersion();
+        if (cached == null || cached.version != version) {
+            if (cached != null) {
+                cached.packets.forEach(PreEncodedPacket::release);
+            }
+            List<PreEncodedPacket> packets = new ArrayList<>();
+            for (UpdateDataPacket.ResponseDataChunkS2CPacket chunk : UpdateDataPacket.splitSnapshot(registry)) {
+                packets.add(new PreEncodedPacket(chunk));
+            }
+            cached = new CachedSnapshot(version, packets);
+            this.cache.put(registry.getRegistryId(), cached);
+        }
+        cached.packets.forEach(PreEncodedPacket::retain);
+        return cached.packets;
+    }
+
+    public synchronized void clear() {
+        this.cache.values().forEach(cached -> cached.packets.forEach(PreEncodedPacket::release));
+        this.cache.clear();
+    }
+
+    private record CachedSnapshot(long version, List<PreEncodedPacket> packets) {
+    }
+}
@@ -0,0 +1,58 @@
+import common.Option;
+import common.registry.RegistryManager;
+import dev.qf.server.database.DirtyTracker;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class DirtyTrackerTest {
+    @Test
+    public void drainNeverLosesConcurrentMarks() throws InterruptedException {
+        DirtyTracker tracker = new DirtyTracker();
+        int count = 100_000;
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                tracker.markDirty(RegistryManager.OPTIONS, "dirty_" + (i % 1000));
+            }
+        });
+        Set<String> drained = new HashSet<>();
+        writer.start();
+        while (writer.isAlive()) {
+            drained.addAll(tracker.drain(RegistryManager.OPTIONS));
+        }
+        writer.join();
+        drained.addAll(tracker.drain(RegistryManager.OPTIONS));
+
+        Assertions.assertEquals(1000, drained.size());
+        Assertions.assertEquals(0, tracker.size());
+    }
+
+    @Test
+    public void persistedMarkIsClearedOnlyForCurrentValue() {
+        DirtyTracker tracker = new DirtyTracker();
+        tracker.register();
+        Option first = new Option("dirty_option", "옵션", 100);
+        Option second = new Option(first.id(), first.name(), 200);
+        try {
+            RegistryManager.OPTIONS.add(first.id(), first);
+            Assertions.assertTrue(tracker.isDirty(RegistryManager.OPTIONS, first.id()));
+            tracker.markPersisted(RegistryManager.OPTIONS, first.id(), first);
+            Assertions.assertFalse(tracker.isDirty(RegistryManager.OPTIONS, first.id()));
+
+            // 기록한 뒤 다시 바뀌었다면 이전 값을 기록한 것으로는 지워지지 않는다.
+            RegistryManager.OPTIONS.add(second.id(), second);
+            tracker.markPersisted(RegistryManager.OPTIONS, first.id(), first);
+            Assertions.assertTrue(tracker.isDirty(RegistryManager.OPTIONS, first.id()));
+
+            RegistryManager.OPTIONS.remove(first.id());
+            tracker.markPersisted(RegistryManager.OPTIONS, first.id(), second);
+            Assertions.assertTrue(tracker.isDirty(RegistryManager.OPTIONS, first.id()));
+            tracker.markPersisted(RegistryManager.OPTIONS, first.id(), null);
+            Assertions.assertFalse(tracker.isDirty(RegistryManager.OPTIONS, first.id()));
+        } finally {
+            RegistryManager.OPTIONS.remove(first.id());
+        }
+    }
+}
@@ -0,0 +1,229 @@
+import common.Cart;
+import common.Menu;
+import common.Option;
+import common.OptionGroup;
+import common.Order;
+import common.OrderItem;
+import common.OrderStatus;
+import common.network.SynchronizeData;
+import common.registry.Registry;
+import common.registry.RegistryManager;
+import dev.qf.server.database.JdbcStorage;
+import dev.qf.server.database.io.BinaryEntries;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 레지스트리를 거치지 않고 요소 테이블을 직접 읽어 기록된 내용을 확인한다. <br>
+ * 주문은 옵션과 옵션 그룹을 ID 로 참조하므로, 두 레지스트리의 내용을 보관했다가 되돌린다.
+ */
+public class JdbcStorageTest {
+    private static final LocalDateTime MARCH = LocalDateTime.of(2025, 3, 14, 12, 0);
+    private static final LocalDateTime APRIL = LocalDateTime.of(2025, 4, 2, 9, 30);
+    private static final Option SHOT = new Option("jdbc_shot", "샷 추가", 500);
+    private static final OptionGroup EXTRA = new OptionGroup("jdbc_extra", "추가", false, List.of(SHOT));
+    private static final Menu LATTE = new Menu("jdbc_latte", "라떼", 3000, Path.of(""), "", List.of(EXTRA));
+    private static final Menu TEA = new Menu("jdbc_tea", "홍차", 2500, Path.of(""), "", List.of());
+
+    @TempDir
+    Path root;
+    private Path path;
+    private JdbcStorage storage;
+    private final List<List<SynchronizeData<?>>> original = new ArrayList<>();
+    private final List<Boolean> frozen = new ArrayList<>();
+
+    @BeforeEach
+    public void open() {
+        for (Registry<?> registry : List.of(RegistryManager.OPTIONS, RegistryManager.OPTION_GROUPS)) {
+            this.original.add(List.copyOf(registry.getAll()));
+            this.frozen.add(registry.isFrozen());
+        }
+        fill(RegistryManager.OPTIONS, List.of(SHOT));
+        fill(RegistryManager.OPTION_GROUPS, List.of(EXTRA));
+
+        this.path = this.root.resolve("kiosk.sqlite");
+        this.storage = new JdbcStorage(this.path);
+        this.storage.initialize();
+    }
+
+    @AfterEach
+    public void close() {
+        this.storage.internalClose();
+        List<Registry<?>> registries = List.of(RegistryManager.OPTIONS, RegistryManager.OPTION_GROUPS);
+        for (int i = 0; i < registries.size(); i++) {
+            fill(registries.get(i), this.original.get(i));
+            if (!this.frozen.get(i)) {
+                registries.get(i).unfreeze();
+            }
+        }
+    }
+
+    private static void fill(Registry<?> registry, List<? extends SynchronizeData<?>> entries) {
+        registry.unfreeze();
+        registry.replaceAll(List.copyOf(entries));
+        registry.freeze();
+    }
+
+    private static Order order(int orderId, LocalDateTime time, OrderStatus status, OrderItem... items) {
+        return new Order(orderId, "kiosk", time, status, new Cart(List.of(items)));
+    }
+
+    private static OrderItem latte(Option shot, int quantity) {
+        return new OrderItem(LATTE, Map.of(EXTRA, shot), quantity);
+    }
+
+    private static List<Integer> ids(List<Order> orders) {
+        return orders.stream().map(Order::orderId).toList();
+    }
+
+    private static List<Option> options(int count, int extraCost) {
+        List<Option> options = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            options.add(new Option("jdbc_option_" + i, "샷 추가 " + i, extraCost + i));
+        }
+        return options;
+    }
+
+    private Map<String, Option> rows() throws SQLException {
+        Map<String, Option> rows = new HashMap<>();
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + this.path.toAbsolutePath());
+             Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT id, payload FROM registry_options")) {
+            while (result.next()) {
+                rows.put(result.getString(1), (Option) BinaryEntries.decode(RegistryManager.OPTIONS, result.getBytes(2)));
+            }
+        }
+        return rows;
+    }
+
+    @Test
+    public void upsertReplacesExistingRows() throws SQLException {
+        this.storage.saveBatch(RegistryManager.OPTIONS, options(3, 100), List.of());
+        this.storage.saveBatch(RegistryManager.OPTIONS, List.of(new Option("jdbc_option_1", "샷 두 번", 900)), List.of());
+
+        Map<String, Option> rows = this.rows();
+        Assertions.assertEquals(3, rows.size());
+        Assertions.assertEquals(new Option("jdbc_option_0", "샷 추가 0", 100), rows.get("jdbc_option_0"));
+        Assertions.assertEquals(new Option("jdbc_option_1", "샷 두 번", 900), rows.get("jdbc_option_1"));
+    }
+
+    @Test
+    public void removalsDeleteRows() throws SQLException {
+        this.storage.saveBatch(RegistryManager.OPTIONS, options(3, 100), List.of());
+        this.storage.removeSpecificRegistry(RegistryManager.OPTIONS, "jdbc_option_0");
+        // 같은 배치에서 지운 뒤 다시 저장한 요소는 남는다.
+        this.storage.saveBatch(RegistryManager.OPTIONS, List.of(new Option("jdbc_option_1", "샷 두 번", 900)), List.of("jdbc_option_1", "jdbc_option_2"));
+
+        Map<String, Option> rows = this.rows();
+        Assertions.assertEquals(List.of("jdbc_option_1"), List.copyOf(rows.keySet()));
+        Assertions.assertEquals(900, rows.get("jdbc_option_1").extraCost());
+    }
+
+    @Test
+    public void largeBatchesAreSplitIntoStatements() throws SQLException {
+        int count = JdbcStorage.ROWS_PER_STATEMENT * 2 + 1;
+        this.storage.saveBatch(RegistryManager.OPTIONS, options(count, 100), List.of());
+        Assertions.assertEquals(count, this.rows().size());
+
+        // 한 문에 딱 맞는 크기와, 나머지만 있는 크기 모두 기존 행을 갱신한다.
+        this.storage.saveBatch(RegistryManager.OPTIONS, options(JdbcStorage.ROWS_PER_STATEMENT, 5000), List.of());
+        this.storage.saveBatch(RegistryManager.OPTIONS, options(1, 7000), List.of());
+
+        Map<String, Option> rows = this.rows();
+        Assertions.assertEquals(count, rows.size());
+        Assertions.assertEquals(7000, rows.get("jdbc_option_0").extraCost());
+        Assertions.assertEquals(5000 + JdbcStorage.ROWS_PER_STATEMENT - 1, rows.get("jdbc_option_" + (JdbcStorage.ROWS_PER_STATEMENT - 1)).extraCost());
+        Assertions.assertEquals(100 + count - 1, rows.get("jdbc_option_" + (count - 1)).extraCost());
+    }
+
+    @Test
+    public void failedBatchIsRolledBack() throws SQLException {
+        this.storage.saveBatch(RegistryManager.OPTIONS, options(2, 100), List.of());
+
+        // 첫 문이 실행되고 삭제까지 끝난 뒤, 마지막 요소를 인코딩하다 실패한다.
+        List<SynchronizeData<?>> upserts = new ArrayList<>(options(JdbcStorage.ROWS_PER_STATEMENT, 5000));
+        upserts.add(new Menu("jdbc_menu", "라떼", 4000, Path.of(""), "", List.of()));
+        Assertions.assertThrows(RuntimeException.class,
+                () -> this.storage.saveBatch(RegistryManager.OPTIONS, upserts, List.of("jdbc_option_1")));
+
+        Map<String, Option> rows = this.rows();
+        Assertions.assertEquals(2, rows.size());
+        Assertions.assertEquals(100, rows.get("jdbc_option_0").extraCost());
+        Assertions.assertEquals(101, rows.get("jdbc_option_1").extraCost());
+    }
+
+    @Test
+    public void ordersBetweenAreNewestFirst() {
+        this.storage.saveBatch(RegistryManager.ORDERS, List.of(
+                order(1, MARCH, OrderStatus.ACCEPTED, latte(SHOT, 1)),
+                order(2, MARCH.plusHours(1), OrderStatus.PENDING, new OrderItem(TEA, Map.of(), 1)),
+                order(3, MARCH.plusHours(1), OrderStatus.ACCEPTED, new OrderItem(TEA, Map.of(), 2)),
+                order(4, APRIL, OrderStatus.ACCEPTED, latte(SHOT, 1))
+        ), List.of());
+
+        // 시작 시각은 포함하고 끝 시각은 제외한다. 같은 시각이면 주문 번호가 큰 주문이 먼저 온다.
+        Assertions.assertEquals(List.of(3, 2, 1), ids(this.storage.getOrdersBetween(MARCH, APRIL)));
+        Assertions.assertEquals(List.of(4, 3, 2), ids(this.storage.getOrdersBetween(MARCH.plusMinutes(1), APRIL.plusMinutes(1))));
+        Assertions.assertTrue(this.storage.getOrdersBetween(APRIL.plusMinutes(1), APRIL.plusDays(1)).isEmpty());
+
+        Order restored = this.storage.getOrdersBetween(MARCH, MARCH.plusMinutes(1)).getFirst();
+        Assertions.assertEquals(OrderStatus.ACCEPTED, restored.status());
+        Assertions.assertEquals(SHOT, restored.cart().getItems().getFirst().getSelectedOptions().get(EXTRA));
+
+        this.storage.removeSpecificRegistry(RegistryManager.ORDERS, "3");
+        Assertions.assertEquals(List.of(2, 1), ids(this.storage.getOrdersBetween(MARCH, APRIL)));
+    }
+
+    @Test
+    public void menuSalesAreGroupedByMenu() {
+        this.storage.saveBatch(RegistryManager.ORDERS, List.of(
+                order(1, MARCH, OrderStatus.ACCEPTED, latte(SHOT, 2), new OrderItem(TEA, Map.of(), 1)),
+                order(2, MARCH.plusHours(1), OrderStatus.ACCEPTED, new OrderItem(TEA, Map.of(), 3)),
+                order(3, MARCH.plusHours(2), OrderStatus.CANCELED, latte(SHOT, 5)),
+                order(4, APRIL, OrderStatus.ACCEPTED, latte(SHOT, 5))
+        ), List.of());
+
+        // 라떼 2잔 (3000 + 500) = 7000, 홍차 4잔 2500 = 10000
+        Assertions.assertEquals(List.of(
+                new JdbcStorage.MenuSales("jdbc_tea", 4, 10000),
+                new JdbcStorage.MenuSales("jdbc_latte", 2, 7000)
+        ), this.storage.getMenuSales(MARCH, APRIL, OrderStatus.ACCEPTED));
+        Assertions.assertEquals(List.of(new JdbcStorage.MenuSales("jdbc_latte", 5, 17500)),
+                this.storage.getMenuSales(MARCH, APRIL, OrderStatus.CANCELED));
+        Assertions.assertTrue(this.storage.getMenuSales(MARCH, APRIL, OrderStatus.PENDING).isEmpty());
+    }
+
+    @Test
+    public void menuSalesKeepOptionCostAtOrderTime() {
+        this.storage.saveBatch(RegistryManager.ORDERS, List.of(order(1, MARCH, OrderStatus.PENDING, latte(SHOT, 2))), List.of());
+
+        // 옵션 가격이 바뀐 뒤 다시 읽은 주문은 새 가격을 가지지만, 상태만 바뀌어 다시 저장되어도 기록된 금액은 그대로다.
+        Option expensive = new Option(SHOT.id(), SHOT.name(), 900);
+        fill(RegistryManager.OPTIONS, List.of(expensive));
+        this.storage.saveBatch(RegistryManager.ORDERS, List.of(order(1, MARCH, OrderStatus.ACCEPTED, latte(expensive, 2))), List.of());
+
+        Assertions.assertEquals(List.of(new JdbcStorage.MenuSales("jdbc_latte", 2, 7000)),
+                this.storage.getMenuSales(MARCH, APRIL, OrderStatus.ACCEPTED));
+        Assertions.assertTrue(this.storage.getMenuSales(MARCH, APRIL, OrderStatus.PENDING).isEmpty());
+
+        // 지웠다가 다시 기록한 주문은 새 금액으로 기록된다.
+        this.storage.saveBatch(RegistryManager.ORDERS, List.of(order(1, MARCH, OrderStatus.ACCEPTED, latte(expensive, 2))), List.of("1"));
+        Assertions.assertEquals(List.of(new JdbcStorage.MenuSales("jdbc_latte", 2, 7800)),
+                this.storage.getMenuSales(MARCH, APRIL, OrderStatus.ACCEPTED));
+    }
+}
@@ -0,0 +1,137 @@
+import common.Option;
+import common.network.SynchronizeData;
+import common.registry.RegistryManager;
+import dev.qf.server.database.JournaledStorage;
+import dev.qf.server.database.journal.Journal;
+import dev.qf.server.database.journal.JournalRecord;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class JournalTest {
+    private static final long SEGMENT_SIZE = 1024 * 1024;
+
+    @TempDir
+    Path root;
+
+    private static JournalRecord record(int i) {
+        return JournalRecord.put("test", "id_" + i, new byte[]{(byte) i, 1, 2, 3});
+    }
+
+    /**
+     * 기록 세 개를 쓰고 닫은 뒤 세그먼트 파일을 반환한다.
+     */
+    private Path writeThree() throws IOException {
+        try (Journal journal = new Journal(this.root, SEGMENT_SIZE)) {
+            journal.open();
+            journal.awaitDurable(journal.append(List.of(record(0), record(1), record(2))));
+        }
+        try (Stream<Path> files = Files.list(this.root)) {
+            return files.findFirst().orElseThrow();
+        }
+    }
+
+    private List<String> replay(Journal journal, List<Boolean> clean) throws IOException {
+        List<String> ids = new ArrayList<>();
+        clean.add(journal.replay(journal.listSegments().getFirst(), record -> ids.add(record.id())));
+        return ids;
+    }
+
+    @Test
+    public void replayReadsEveryRecord() throws IOException {
+        this.writeThree();
+        List<Boolean> clean = new ArrayList<>();
+        Assertions.assertEquals(List.of("id_0", "id_1", "id_2"), this.replay(new Journal(this.root, SEGMENT_SIZE), clean));
+        Assertions.assertEquals(List.of(true), clean);
+    }
+
+    @Test
+    public void truncatedTailIsIgnored() throws IOException {
+        Path segment = this.writeThree();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        List<Boolean> clean = new ArrayList<>();
+        Assertions.assertEquals(List.of("id_0", "id_1"), this.replay(new Journal(this.root, SEGMENT_SIZE), clean));
+        Assertions.assertEquals(List.of(false), clean);
+    }
+
+    @Test
+    public void badChecksumStopsTheSegment() throws IOException {
+        Path segment = this.writeThree();
+        // 두 번째 기록의 본문 한 바이트를 바꾼다.
+        long offset = record(0).encode().length + 8 + 1;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1);
+            channel.read(buffer, offset);
+            buffer.put(0, (byte) (buffer.get(0) ^ 0xFF));
+            buffer.rewind();
+            channel.write(buffer, offset);
+        }
+
+        List<Boolean> clean = new ArrayList<>();
+        Assertions.assertEquals(List.of("id_0"), this.replay(new Journal(this.root, SEGMENT_SIZE), clean));
+        Assertions.assertEquals(List.of(false), clean);
+    }
+
+    @Test
+    public void restartOpensNewSegment() throws IOException {
+        this.writeThree();
+        try (Journal journal = new Journal(this.root, SEGMENT_SIZE)) {
+            journal.open();
+            Assertions.assertEquals(List.of(0L, 1L), journal.listSegments());
+        }
+    }
+
+    @Test
+    public void replayAfterCompaction() throws IOException {
+        List<SynchronizeData<?>> original = List.copyOf(RegistryManager.OPTIONS.getAll());
+        boolean frozen = RegistryManager.OPTIONS.isFrozen();
+        Option hot = new Option("journal_hot", "뜨겁게", 0);
+        Option shot = new Option("journal_shot", "샷 추가", 500);
+        Option syrup = new Option("journal_syrup", "시럽", 300);
+        try {
+            RegistryManager.OPTIONS.unfreeze();
+            RegistryManager.OPTIONS.replaceAll(List.of(hot, shot));
+            JournaledStorage storage = new JournaledStorage(this.root);
+            storage.initialize();
+            storage.saveSpecificRegistry(RegistryManager.OPTIONS);
+            storage.compact();
+
+            // 스냅샷 이후의 변경은 새 세그먼트에만 있다.
+            RegistryManager.OPTIONS.remove(hot.id());
+            RegistryManager.OPTIONS.add(syrup.id(), syrup);
+            RegistryManager.OPTIONS.add(shot.id(), new Option(shot.id(), shot.name(), 700));
+            storage.saveSpecificRegistry(RegistryManager.OPTIONS);
+            storage.internalClose();
+
+            RegistryManager.OPTIONS.replaceAll(List.of());
+            JournaledStorage restarted = new JournaledStorage(this.root);
+            restarted.initialize();
+            restarted.loadSpecificRegistry(RegistryManager.OPTIONS);
+            restarted.internalClose();
+
+            Assertions.assertTrue(RegistryManager.OPTIONS.getById(hot.id()).isEmpty());
+            Assertions.assertEquals(syrup, RegistryManager.OPTIONS.getById(syrup.id()).orElseThrow());
+            Assertions.assertEquals(700, RegistryManager.OPTIONS.getById(shot.id()).orElseThrow().extraCost());
+            Assertions.assertEquals(2, RegistryManager.OPTIONS.size());
+        } finally {
+            RegistryManager.OPTIONS.unfreeze();
+            RegistryManager.OPTIONS.replaceAll(original);
+            if (frozen) {
+                RegistryManager.OPTIONS.freeze();
+            }
+        }
+    }
+}
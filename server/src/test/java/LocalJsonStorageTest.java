@@ -0,0 +1,59 @@
+import common.Option;
+import common.network.SynchronizeData;
+import common.registry.RegistryManager;
+import dev.qf.server.database.LocalJsonStorage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * 전역 옵션 레지스트리를 채우므로, 테스트 전의 내용을 보관했다가 되돌린다.
+ */
+public class LocalJsonStorageTest {
+    private static final Option SHOT = new Option("json_shot", "샷 추가", 500);
+    private static final Option SYRUP = new Option("json_syrup", "시럽 추가", 300);
+
+    @TempDir
+    Path root;
+    private List<SynchronizeData<?>> original;
+    private boolean frozen;
+
+    @BeforeEach
+    public void saveOptions() {
+        this.original = List.copyOf(RegistryManager.OPTIONS.getAll());
+        this.frozen = RegistryManager.OPTIONS.isFrozen();
+    }
+
+    @AfterEach
+    public void restoreOptions() {
+        RegistryManager.OPTIONS.unfreeze();
+        RegistryManager.OPTIONS.replaceAll(this.original);
+        if (this.frozen) {
+            RegistryManager.OPTIONS.freeze();
+        }
+    }
+
+    @Test
+    public void brokenFilesAreSkipped() throws IOException {
+        LocalJsonStorage storage = new LocalJsonStorage(this.root);
+        storage.saveSpecificRegistry(RegistryManager.OPTIONS, SHOT);
+        storage.saveSpecificRegistry(RegistryManager.OPTIONS, SYRUP);
+        Path directory = this.root.resolve(RegistryManager.OPTIONS.getRegistryId());
+        Files.writeString(directory.resolve("broken.json"), "{\"id\": ");
+        Files.writeString(directory.resolve("wrong.json"), "{\"id\": \"json_wrong\"}");
+
+        storage.loadSpecificRegistry(RegistryManager.OPTIONS);
+
+        Assertions.assertEquals(2, RegistryManager.OPTIONS.getAll().size());
+        Assertions.assertEquals(SHOT, RegistryManager.OPTIONS.getById(SHOT.id()).orElseThrow());
+        Assertions.assertEquals(SYRUP, RegistryManager.OPTIONS.getById(SYRUP.id()).orElseThrow());
+        Assertions.assertTrue(RegistryManager.OPTIONS.isFrozen());
+    }
+}
@@ -0,0 +1,206 @@
+import common.Cart;
+import common.Menu;
+import common.Option;
+import common.OptionGroup;
+import common.Order;
+import common.OrderItem;
+import common.OrderStatus;
+import common.network.SynchronizeData;
+import common.registry.OrderRegistry;
+import common.registry.Registry;
+import common.registry.RegistryTransaction;
+import dev.qf.server.database.ExternalDataManager;
+import dev.qf.server.database.archive.OrderArchive;
+import dev.qf.server.database.archive.OrderArchiver;
+import dev.qf.server.database.archive.OrderHistory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public class OrderArchiveTest {
+    private static final LocalDateTime MARCH = LocalDateTime.of(2025, 3, 14, 12, 0);
+    private static final LocalDateTime APRIL = LocalDateTime.of(2025, 4, 2, 9, 30);
+
+    @TempDir
+    Path root;
+
+    /**
+     * 레지스트리에 등록되지 않은 옵션을 가진 주문. 보관된 주문은 레지스트리 없이 읽혀야 한다.
+     */
+    private static Order order(int orderId, LocalDateTime time, OrderStatus status) {
+        OptionGroup size = new OptionGroup("archive_size", "사이즈", true, List.of());
+        Option large = new Option("archive_large", "라지", 500);
+        Menu menu = new Menu("archive_latte", "라떼", 4000, Path.of(""), "", List.of(size));
+        return new Order(orderId, "kiosk", time, status, new Cart(List.of(new OrderItem(menu, Map.of(size, large), 2))));
+    }
+
+    private static List<Integer> ids(List<Order> orders) {
+        return orders.stream().map(Order::orderId).toList();
+    }
+
+    @Test
+    public void archivedOrdersAreSelfContained() throws IOException {
+        OrderArchive archive = new OrderArchive(this.root);
+        archive.initialize();
+        archive.archive(List.of(order(1, MARCH, OrderStatus.ACCEPTED), order(2, APRIL, OrderStatus.CANCELED)));
+
+        // 다시 열어도 헤더만으로 세그먼트를 찾는다.
+        OrderArchive reopened = new OrderArchive(this.root);
+        reopened.initialize();
+        Assertions.assertEquals(List.of(YearMonth.of(2025, 3), YearMonth.of(2025, 4)), reopened.getPartitions());
+
+        Order restored = reopened.getOrder(1).orElseThrow();
+        Assertions.assertEquals(MARCH, restored.orderTime());
+        OrderItem item = restored.cart().getItems().getFirst();
+        Assertions.assertEquals("라떼", item.getMenuItem().name());
+        Assertions.assertEquals(4000, item.getMenuItem().price());
+        Assertions.assertEquals(2, item.getQuantity());
+        Option option = item.getSelectedOptions().values().iterator().next();
+        Assertions.assertEquals("라지", option.name());
+        Assertions.assertEquals(500, option.extraCost());
+
+        Assertions.assertTrue(reopened.getOrder(3).isEmpty());
+        Assertions.assertEquals(List.of(2, 1), ids(reopened.getOrdersBetween(MARCH, APRIL.plusDays(1))));
+        Assertions.assertEquals(List.of(1), ids(reopened.getOrdersBetween(MARCH, APRIL)));
+    }
+
+    @Test
+    public void eachRunAppendsAndLaterValueWins() throws IOException {
+        OrderArchive archive = new OrderArchive(this.root);
+        archive.initialize();
+        archive.archive(List.of(order(1, MARCH, OrderStatus.ACCEPTED)));
+        Path first;
+        try (Stream<Path> files = Files.list(this.root)) {
+            first = files.findFirst().orElseThrow();
+        }
+        long modified = Files.getLastModifiedTime(first).toMillis();
+
+        archive.archive(List.of(order(1, MARCH, OrderStatus.CANCELED), order(2, MARCH, OrderStatus.ACCEPTED)));
+
+        // 이전 세그먼트는 다시 쓰지 않는다.
+        Assertions.assertEquals(modified, Files.getLastModifiedTime(first).toMillis());
+        try (Stream<Path> files = Files.list(this.root)) {
+            Assertions.assertEquals(2, files.count());
+        }
+        Assertions.assertEquals(OrderStatus.CANCELED, archive.getOrder(1).orElseThrow().status());
+        Assertions.assertEquals(List.of(2, 1), ids(archive.getOrdersBetween(MARCH, MARCH.plusHours(1))));
+    }
+
+    @Test
+    public void segmentsOfAMonthAreMerged() throws IOException {
+        OrderArchive archive = new OrderArchive(this.root);
+        archive.initialize();
+        for (int i = 0; i <= OrderArchive.MAX_SEGMENTS_PER_MONTH; i++) {
+            archive.archive(List.of(order(i, MARCH.plusMinutes(i), OrderStatus.ACCEPTED)));
+        }
+
+        try (Stream<Path> files = Files.list(this.root)) {
+            Assertions.assertEquals(1, files.count());
+        }
+        OrderArchive reopened = new OrderArchive(this.root);
+        reopened.initialize();
+        Assertions.assertEquals(OrderArchive.MAX_SEGMENTS_PER_MONTH + 1, reopened.getOrdersBetween(MARCH, MARCH.plusDays(1)).size());
+        Assertions.assertTrue(reopened.getOrder(OrderArchive.MAX_SEGMENTS_PER_MONTH).isPresent());
+    }
+
+    @Test
+    public void archiverMovesOnlyOldCompletedOrders() throws IOException {
+        LocalDateTime now = LocalDateTime.now();
+        OrderRegistry registry = new OrderRegistry();
+        registry.addOrder(order(1, now.minusDays(30), OrderStatus.ACCEPTED));
+        registry.addOrder(order(2, now.minusDays(30), OrderStatus.PENDING));
+        registry.addOrder(order(3, now.minusMinutes(1), OrderStatus.ACCEPTED));
+        OrderArchive archive = new OrderArchive(this.root);
+        archive.initialize();
+        RecordingStorage storage = new RecordingStorage();
+        List<RegistryTransaction.Result> broadcasts = new ArrayList<>();
+
+        new OrderArchiver(registry, archive, storage, broadcasts::add, Duration.ofDays(7)).run();
+
+        Assertions.assertEquals(List.of(3, 2), ids(registry.getAll()));
+        Assertions.assertTrue(archive.getOrder(1).isPresent());
+        Assertions.assertEquals(List.of("1"), storage.removed);
+        Assertions.assertEquals(1, broadcasts.size());
+
+        // 두 저장소에 나뉘어 있어도 한 번씩만 조회된다.
+        OrderHistory history = new OrderHistory(registry, archive);
+        Assertions.assertEquals(List.of(3, 2, 1), ids(history.getOrdersBetween(now.minusDays(31), now.plusDays(1))));
+        Assertions.assertEquals(OrderStatus.ACCEPTED, history.getOrder(1).orElseThrow().status());
+        Assertions.assertEquals(OrderStatus.PENDING, history.getOrder(2).orElseThrow().status());
+    }
+
+    @Test
+    public void archiverKeepsOrdersWhenArchiveFails() throws IOException {
+        LocalDateTime now = LocalDateTime.now();
+        OrderRegistry registry = new OrderRegistry();
+        registry.addOrder(order(1, now.minusDays(30), OrderStatus.ACCEPTED));
+        // 보관 디렉토리 자리에 파일이 있어 세그먼트를 쓸 수 없다.
+        Path blocked = Files.createFile(this.root.resolve("blocked"));
+        OrderArchive archive = new OrderArchive(blocked);
+        RecordingStorage storage = new RecordingStorage();
+
+        new OrderArchiver(registry, archive, storage, result -> Assertions.fail("nothing should be broadcast"), Duration.ofDays(7)).run();
+
+        Assertions.assertEquals(List.of(1), ids(registry.getAll()));
+        Assertions.assertTrue(storage.removed.isEmpty());
+    }
+
+    @Test
+    public void archiverSurvivesRuntimeFailures() throws IOException {
+        LocalDateTime now = LocalDateTime.now();
+        OrderRegistry registry = new OrderRegistry();
+        registry.addOrder(order(1, now.minusDays(30), OrderStatus.ACCEPTED));
+        OrderArchive archive = new OrderArchive(this.root);
+        archive.initialize();
+        RecordingStorage storage = new RecordingStorage() {
+            @Override
+            public void saveBatch(Registry<?> registry, List<? extends SynchronizeData<?>> upserts, List<String> removals) {
+                throw new IllegalStateException("storage is down");
+            }
+        };
+
+        Assertions.assertDoesNotThrow(new OrderArchiver(registry, archive, storage, result -> {}, Duration.ofDays(7))::run);
+        // 세그먼트에 먼저 기록하므로 주문은 사라지지 않는다.
+        Assertions.assertTrue(archive.getOrder(1).isPresent());
+    }
+
+    private static class RecordingStorage implements ExternalDataManager {
+        private final List<String> removed = new ArrayList<>();
+
+        @Override
+        public void internalClose() {
+        }
+
+        @Override
+        public void initialize() {
+        }
+
+        @Override
+        public void loadSpecificRegistry(Registry<?> registry) {
+        }
+
+        @Override
+        public void saveSpecificRegistry(Registry<?> registry) {
+        }
+
+        @Override
+        public void removeSpecificRegistry(Registry<?> registry, String targetId) {
+            this.removed.add(targetId);
+        }
+
+        @Override
+        public void saveSpecificRegistry(Registry<?> registry, SynchronizeData<?> data) {
+        }
+    }
+}
@@ -0,0 +1,60 @@
+import dev.qf.server.database.OrderIdLeaseManager;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletionException;
+
+public class OrderIdLeaseManagerTest {
+    @TempDir
+    Path root;
+
+    @Test
+    public void leasesSurviveRestart() throws IOException {
+        Path path = this.root.resolve("order_ids");
+        OrderIdLeaseManager leases = new OrderIdLeaseManager(path);
+        leases.initialize(-1);
+        OrderIdLeaseManager.Lease first = leases.lease(10);
+        OrderIdLeaseManager.Lease second = leases.leaseAsync(5).join();
+        Assertions.assertEquals(first.end(), second.start());
+        Assertions.assertEquals(Integer.toString(second.end()), Files.readString(path));
+        Assertions.assertFalse(Files.exists(this.root.resolve("order_ids.tmp")));
+
+        OrderIdLeaseManager restarted = new OrderIdLeaseManager(path);
+        restarted.initialize(-1);
+        Assertions.assertEquals(second.end(), restarted.lease(1).start());
+    }
+
+    @Test
+    public void existingOrdersAreNeverLeasedAgain() {
+        OrderIdLeaseManager leases = new OrderIdLeaseManager(this.root.resolve("order_ids"));
+        leases.initialize(5000);
+        Assertions.assertEquals(5001, leases.lease(1).start());
+    }
+
+    @Test
+    public void leaseSizeIsClamped() {
+        OrderIdLeaseManager leases = new OrderIdLeaseManager(this.root.resolve("order_ids"));
+        leases.initialize(-1);
+        OrderIdLeaseManager.Lease empty = leases.lease(0);
+        Assertions.assertEquals(OrderIdLeaseManager.MIN_LEASE_SIZE, empty.end() - empty.start());
+        OrderIdLeaseManager.Lease huge = leases.lease(Integer.MAX_VALUE);
+        Assertions.assertEquals(OrderIdLeaseManager.MAX_LEASE_SIZE, huge.end() - huge.start());
+    }
+
+    @Test
+    public void failedWriteLeasesNothing() throws IOException {
+        // 기록할 디렉토리 자리에 파일이 있다.
+        Path blocked = Files.createFile(this.root.resolve("blocked"));
+        OrderIdLeaseManager leases = new OrderIdLeaseManager(blocked.resolve("order_ids"));
+        leases.initialize(-1);
+
+        CompletionException error = Assertions.assertThrows(CompletionException.class, () -> leases.leaseAsync(10).join());
+        Assertions.assertInstanceOf(UncheckedIOException.class, error.getCause());
+        Assertions.assertThrows(UncheckedIOException.class, () -> leases.lease(10));
+    }
+}
@@ -0,0 +1,143 @@
+import common.Category;
+import common.Menu;
+import common.Option;
+import common.OptionGroup;
+import common.network.SynchronizeData;
+import common.registry.Registry;
+import common.registry.RegistryManager;
+import dev.qf.server.database.ParallelRegistryLoader;
+import dev.qf.server.database.io.BinaryEntries;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 요소를 {@link BinaryEntries}로 인코딩해 두고 읽는다. 옵션 그룹과 메뉴는 참조하는 요소가 레지스트리에 없으면 디코딩에 실패한다. <br>
+ * 로더는 전역 레지스트리를 채우므로, 테스트 전의 내용을 보관했다가 되돌린다.
+ */
+public class ParallelRegistryLoaderTest {
+    private static final Option SHOT = new Option("loader_shot", "샷 추가", 500);
+    private static final Option SYRUP = new Option("loader_syrup", "시럽 추가", 300);
+    private static final OptionGroup EXTRA = new OptionGroup("loader_extra", "추가", false, List.of(SHOT, SYRUP));
+    private static final Menu LATTE = new Menu("loader_latte", "라떼", 3000, Path.of(""), "", List.of(EXTRA));
+    private static final Menu TEA = new Menu("loader_tea", "홍차", 2500, Path.of(""), "", List.of());
+    private static final Category COFFEE = new Category("loader_coffee", "커피", List.of(LATTE.id()));
+
+    private final List<List<SynchronizeData<?>>> original = new ArrayList<>();
+    private final List<Boolean> frozen = new ArrayList<>();
+    private final Map<Registry<?>, List<byte[]>> stored = new HashMap<>();
+
+    @BeforeEach
+    public void saveRegistries() {
+        for (Registry<?> registry : RegistryManager.entries()) {
+            this.original.add(List.copyOf(registry.getAll()));
+            this.frozen.add(registry.isFrozen());
+            fill(registry, List.of());
+        }
+        this.store(RegistryManager.OPTIONS, SHOT, SYRUP);
+        this.store(RegistryManager.OPTION_GROUPS, EXTRA);
+        this.store(RegistryManager.MENUS, LATTE);
+        this.store(RegistryManager.CATEGORIES, COFFEE);
+    }
+
+    @AfterEach
+    public void restoreRegistries() {
+        List<Registry<?>> registries = RegistryManager.entries();
+        for (int i = 0; i < registries.size(); i++) {
+            fill(registries.get(i), this.original.get(i));
+            if (!this.frozen.get(i)) {
+                registries.get(i).unfreeze();
+            }
+        }
+    }
+
+    private static void fill(Registry<?> registry, List<? extends SynchronizeData<?>> entries) {
+        registry.unfreeze();
+        registry.replaceAll(List.copyOf(entries));
+        registry.freeze();
+    }
+
+    private void store(Registry<?> registry, SynchronizeData<?>... entries) {
+        List<byte[]> payloads = new ArrayList<>();
+        for (SynchronizeData<?> entry : entries) {
+            payloads.add(BinaryEntries.encode(registry, entry));
+        }
+        this.stored.put(registry, payloads);
+    }
+
+    private List<byte[]> read(Registry<?> registry) {
+        return this.stored.getOrDefault(registry, List.of());
+    }
+
+    @Test
+    public void dependenciesArePublishedBeforeDependentsDecode() {
+        new ParallelRegistryLoader<byte[]>(registry -> {
+            // 옵션을 가장 늦게 읽어도, 옵션 그룹과 메뉴는 옵션이 채워진 뒤에 디코딩된다.
+            if (registry == RegistryManager.OPTIONS) {
+                Thread.sleep(200);
+            }
+            return this.read(registry);
+        }, BinaryEntries::decode).loadAll();
+
+        Assertions.assertEquals(List.of(SHOT, SYRUP), RegistryManager.OPTIONS.getAll());
+        Assertions.assertEquals(List.of(EXTRA), RegistryManager.OPTION_GROUPS.getAll());
+        Assertions.assertEquals(List.of(LATTE), RegistryManager.MENUS.getAll());
+        Assertions.assertEquals(List.of(COFFEE), RegistryManager.CATEGORIES.getAll());
+        for (Registry<?> registry : RegistryManager.entries()) {
+            Assertions.assertTrue(registry.isFrozen());
+        }
+    }
+
+    @Test
+    public void failedReadLeavesRegistryUntouched() {
+        fill(RegistryManager.MENUS, List.of(TEA));
+
+        new ParallelRegistryLoader<byte[]>(registry -> {
+            if (registry == RegistryManager.MENUS) {
+                throw new IOException("storage is down");
+            }
+            return this.read(registry);
+        }, BinaryEntries::decode).loadAll();
+
+        Assertions.assertEquals(List.of(TEA), RegistryManager.MENUS.getAll());
+        Assertions.assertTrue(RegistryManager.MENUS.isFrozen());
+        // 읽지 못한 레지스트리에 의존하는 레지스트리도 읽는다.
+        Assertions.assertEquals(List.of(COFFEE), RegistryManager.CATEGORIES.getAll());
+        Assertions.assertEquals(List.of(EXTRA), RegistryManager.OPTION_GROUPS.getAll());
+    }
+
+    @Test
+    public void decodeFailuresAreSkipped() {
+        List<byte[]> options = new ArrayList<>(this.read(RegistryManager.OPTIONS));
+        options.add(1, new byte[]{1, 2, 3});
+        this.stored.put(RegistryManager.OPTIONS, options);
+        // 없는 옵션을 참조하는 옵션 그룹은 디코딩에 실패한다.
+        this.store(RegistryManager.OPTION_GROUPS,
+                new OptionGroup("loader_missing", "없음", false, List.of(new Option("loader_unknown", "없는 옵션", 0))), EXTRA);
+
+        new ParallelRegistryLoader<byte[]>(this::read, BinaryEntries::decode).loadAll();
+
+        Assertions.assertEquals(List.of(SHOT, SYRUP), RegistryManager.OPTIONS.getAll());
+        Assertions.assertEquals(List.of(EXTRA), RegistryManager.OPTION_GROUPS.getAll());
+        Assertions.assertEquals(List.of(LATTE), RegistryManager.MENUS.getAll());
+    }
+
+    @Test
+    public void publishFailuresSurfaceFromLoadAll() {
+        // 레지스트리의 타입과 맞지 않는 요소는 디코딩이 아니라 채우는 중에 거부된다.
+        ParallelRegistryLoader<byte[]> loader = new ParallelRegistryLoader<>(this::read, (registry, raw) ->
+                registry == RegistryManager.MENUS ? SHOT : BinaryEntries.decode(registry, raw));
+
+        IllegalStateException e = Assertions.assertThrows(IllegalStateException.class, loader::loadAll);
+        Assertions.assertInstanceOf(IllegalArgumentException.class, e.getCause());
+        Assertions.assertTrue(RegistryManager.MENUS.isFrozen());
+    }
+}
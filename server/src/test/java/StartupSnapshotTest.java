@@ -0,0 +1,169 @@
+import common.Cart;
+import common.Menu;
+import common.Option;
+import common.OptionGroup;
+import common.Order;
+import common.OrderItem;
+import common.OrderStatus;
+import common.network.SynchronizeData;
+import common.registry.Registry;
+import common.registry.RegistryManager;
+import dev.qf.server.database.StartupSnapshot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 스냅샷은 전역 레지스트리를 채우므로, 테스트 전의 내용을 보관했다가 되돌린다.
+ */
+public class StartupSnapshotTest {
+    private static final Option SHOT = new Option("snapshot_shot", "샷 추가", 500);
+    private static final OptionGroup EXTRA = new OptionGroup("snapshot_extra", "추가", false, List.of(SHOT));
+    private static final Menu LATTE = new Menu("snapshot_latte", "라떼", 3000, Path.of("images", "latte.png"), "에스프레소와 우유", List.of(EXTRA));
+
+    @TempDir
+    Path root;
+    private final List<List<SynchronizeData<?>>> original = new ArrayList<>();
+    private final List<Boolean> frozen = new ArrayList<>();
+
+    @BeforeEach
+    public void saveRegistries() {
+        for (Registry<?> registry : RegistryManager.entries()) {
+            this.original.add(List.copyOf(registry.getAll()));
+            this.frozen.add(registry.isFrozen());
+        }
+    }
+
+    @AfterEach
+    public void restoreRegistries() {
+        List<Registry<?>> registries = RegistryManager.entries();
+        for (int i = 0; i < registries.size(); i++) {
+            fill(registries.get(i), this.original.get(i));
+            if (!this.frozen.get(i)) {
+                registries.get(i).unfreeze();
+            }
+        }
+    }
+
+    private static void fill(Registry<?> registry, List<? extends SynchronizeData<?>> entries) {
+        registry.unfreeze();
+        registry.replaceAll(List.copyOf(entries));
+        registry.freeze();
+    }
+
+    /**
+     * 옵션 그룹은 옵션을, 메뉴는 옵션 그룹을, 주문은 메뉴와 옵션을 ID 로 참조한다.
+     */
+    private static void fillDependentRegistries() {
+        fill(RegistryManager.OPTIONS, List.of(SHOT));
+        fill(RegistryManager.OPTION_GROUPS, List.of(EXTRA));
+        fill(RegistryManager.MENUS, List.of(LATTE));
+        Cart cart = new Cart();
+        cart.addItem(new OrderItem(LATTE, Map.of(EXTRA, SHOT), 2));
+        fill(RegistryManager.ORDERS, List.of(new Order(1000, "kiosk", LocalDateTime.of(2025, 3, 14, 12, 0), OrderStatus.ACCEPTED, cart)));
+    }
+
+    private static void clearAll() {
+        for (Registry<?> registry : RegistryManager.entries().reversed()) {
+            fill(registry, List.of());
+        }
+    }
+
+    @Test
+    public void dependentRegistriesRoundTrip() throws IOException {
+        Path path = this.root.resolve("startup_snapshot.bin");
+        fillDependentRegistries();
+        new StartupSnapshot(path).write();
+        clearAll();
+
+        Assertions.assertTrue(new StartupSnapshot(path).load());
+
+        Assertions.assertEquals(SHOT, RegistryManager.OPTIONS.getById(SHOT.id()).orElseThrow());
+        Assertions.assertEquals(EXTRA, RegistryManager.OPTION_GROUPS.getById(EXTRA.id()).orElseThrow());
+        Assertions.assertEquals(LATTE, RegistryManager.MENUS.getById(LATTE.id()).orElseThrow());
+        Order order = RegistryManager.ORDERS.getOrderById(1000);
+        Assertions.assertNotNull(order);
+        Assertions.assertEquals(2 * (3000 + 500), order.cart().calculateCartTotal());
+        Assertions.assertTrue(RegistryManager.OPTIONS.isFrozen());
+        // 스냅샷은 한 번만 사용된다.
+        Assertions.assertFalse(Files.exists(path));
+    }
+
+    @Test
+    public void corruptedSnapshotLeavesRegistriesUntouched() throws IOException {
+        Path path = this.root.resolve("startup_snapshot.bin");
+        fillDependentRegistries();
+        new StartupSnapshot(path).write();
+        // 마지막 바이트를 바꾼다.
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.read(last, channel.size() - 1);
+            last.put(0, (byte) (last.get(0) ^ 0xFF)).rewind();
+            channel.write(last, channel.size() - 1);
+        }
+        fill(RegistryManager.OPTIONS, List.of());
+
+        Assertions.assertFalse(new StartupSnapshot(path).load());
+        Assertions.assertTrue(RegistryManager.OPTIONS.getById(SHOT.id()).isEmpty());
+        Assertions.assertEquals(LATTE, RegistryManager.MENUS.getById(LATTE.id()).orElseThrow());
+        Assertions.assertFalse(Files.exists(path));
+    }
+
+    @Test
+    public void invalidateRemovesStaleSnapshot() throws IOException {
+        Path path = this.root.resolve("startup_snapshot.bin");
+        fillDependentRegistries();
+        new StartupSnapshot(path).write();
+
+        new StartupSnapshot(path).invalidate();
+        Assertions.assertFalse(Files.exists(path));
+        Assertions.assertFalse(new StartupSnapshot(path).load());
+    }
+
+    @Test
+    public void snapshotIsConsumedOnce() throws IOException {
+        Path path = this.root.resolve("startup_snapshot.bin");
+        fillDependentRegistries();
+        new StartupSnapshot(path).write();
+        clearAll();
+        StartupSnapshot snapshot = new StartupSnapshot(path);
+        Assertions.assertTrue(snapshot.load());
+
+        // 스냅샷 이후의 변경은 다시 읽은 스냅샷에 덮어써지지 않는다.
+        fill(RegistryManager.OPTIONS, List.of(SHOT, new Option("snapshot_syrup", "시럽 추가", 300)));
+        Assertions.assertFalse(snapshot.load());
+        Assertions.assertFalse(new StartupSnapshot(path).load());
+        Assertions.assertEquals(2, RegistryManager.OPTIONS.getAll().size());
+        try (var files = Files.list(this.root)) {
+            Assertions.assertEquals(List.of(), files.toList());
+        }
+    }
+
+    @Test
+    public void consumedSnapshotIsNeverRead() throws IOException {
+        Path path = this.root.resolve("startup_snapshot.bin");
+        fillDependentRegistries();
+        new StartupSnapshot(path).write();
+        // 읽는 도중 종료되어 이름만 바뀐 스냅샷이 남은 경우
+        Path consumed = this.root.resolve("startup_snapshot.bin.consumed");
+        Files.move(path, consumed);
+        fill(RegistryManager.OPTIONS, List.of());
+
+        Assertions.assertFalse(new StartupSnapshot(path).load());
+        Assertions.assertTrue(RegistryManager.OPTIONS.getAll().isEmpty());
+        Assertions.assertFalse(Files.exists(consumed));
+    }
+}
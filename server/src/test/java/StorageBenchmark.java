@@ -0,0 +1,104 @@
+import common.Option;
+import common.network.SynchronizeData;
+import common.registry.Registry;
+import common.registry.RegistryManager;
+import dev.qf.server.database.CommonDBManager;
+import dev.qf.server.database.ExternalDataManager;
+import dev.qf.server.database.JdbcStorage;
+import dev.qf.server.database.LocalJsonStorage;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 저장소 별로 전체 저장, 전체 읽기, 요소 단위 저장 시간을 비교한다. 모든 저장소는 임시 디렉토리에 기록한다. <br>
+ * 일반 테스트에서는 실행되지 않으며 <code>./gradlew benchmark</code>로 실행한다.
+ */
+@Tag("benchmark")
+public class StorageBenchmark {
+    private static final int ENTRY_COUNT = 5_000;
+    private static final int SINGLE_SAVES = 500;
+    private static final Registry<Option> REGISTRY = RegistryManager.OPTIONS;
+
+    @TempDir
+    static Path tempDir;
+    private static List<SynchronizeData<?>> original;
+    private static boolean frozen;
+
+    @BeforeAll
+    public static void setUp() {
+        original = List.copyOf(REGISTRY.getAll());
+        frozen = REGISTRY.isFrozen();
+        fill();
+    }
+
+    private static void fill() {
+        REGISTRY.unfreeze();
+        List<SynchronizeData<?>> options = new ArrayList<>(ENTRY_COUNT);
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            options.add(new Option("benchmark_option_" + i, "샷 추가 " + i, i * 100));
+        }
+        REGISTRY.replaceAll(options);
+        REGISTRY.freeze();
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        REGISTRY.unfreeze();
+        REGISTRY.replaceAll(original);
+        if (frozen) {
+            REGISTRY.freeze();
+        }
+    }
+
+    private static void measure(String name, Supplier<ExternalDataManager> factory) {
+        ExternalDataManager storage = factory.get();
+        storage.initialize();
+        try {
+            long start = System.nanoTime();
+            storage.saveSpecificRegistry(REGISTRY);
+            long save = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < SINGLE_SAVES; i++) {
+                storage.saveSpecificRegistry(REGISTRY, new Option("benchmark_option_" + i, "샷 추가 " + i, i * 100 + 1));
+            }
+            long single = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            storage.loadSpecificRegistry(REGISTRY);
+            long load = System.nanoTime() - start;
+
+            System.out.printf("%-8s %d entries : save all %7.1f ms, load all %7.1f ms, single save %6.3f ms/op%n",
+                    name, ENTRY_COUNT, save / 1e6, load / 1e6, single / 1e6 / SINGLE_SAVES);
+            Assertions.assertEquals(ENTRY_COUNT, REGISTRY.size());
+            Assertions.assertEquals(1, REGISTRY.getById("benchmark_option_0").orElseThrow().extraCost());
+        } finally {
+            storage.internalClose();
+            fill();
+        }
+    }
+
+    @Test
+    public void jdbc() {
+        measure("jdbc", () -> new JdbcStorage(tempDir.resolve("kiosk.sqlite")));
+    }
+
+    @Test
+    public void json() {
+        measure("json", () -> new LocalJsonStorage(tempDir.resolve("json")));
+    }
+
+    @Test
+    public void sqlib() {
+        measure("sqlib", () -> new CommonDBManager(tempDir.resolve("sqlib")));
+    }
+}
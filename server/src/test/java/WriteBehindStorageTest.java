@@ -0,0 +1,223 @@
+import common.Option;
+import common.network.SynchronizeData;
+import common.registry.Registry;
+import common.registry.RegistryManager;
+import dev.qf.server.database.ExternalDataManager;
+import dev.qf.server.database.WriteBehindStorage;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class WriteBehindStorageTest {
+    private static final long LONG_INTERVAL_MINUTES = 60;
+
+    private static Option option(int i, int extraCost) {
+        return new Option("write_behind_" + i, "옵션 " + i, extraCost);
+    }
+
+    private static WriteBehindStorage start(ExternalDataManager delegate, WriteBehindStorage.Durability durability, long interval, TimeUnit unit) {
+        WriteBehindStorage storage = new WriteBehindStorage(delegate, durability, interval, unit);
+        storage.initialize();
+        return storage;
+    }
+
+    @Test
+    public void changesToOneEntryAreCoalesced() {
+        RecordingStorage delegate = new RecordingStorage();
+        WriteBehindStorage storage = start(delegate, WriteBehindStorage.Durability.INTERVAL, LONG_INTERVAL_MINUTES, TimeUnit.MINUTES);
+
+        storage.saveSpecificRegistry(RegistryManager.OPTIONS, option(1, 100));
+        storage.saveSpecificRegistry(RegistryManager.OPTIONS, option(1, 200));
+        storage.removeSpecificRegistry(RegistryManager.OPTIONS, "write_behind_2");
+        WriteBehindStorage.Metrics metrics = storage.getMetrics();
+        Assertions.assertEquals(2, metrics.queueDepth());
+        Assertions.assertEquals(3, metrics.enqueued());
+        Assertions.assertEquals(1, metrics.coalesced());
+
+        storage.internalClose();
+        Assertions.assertEquals(List.of(option(1, 200)), delegate.upserts());
+        Assertions.assertEquals(List.of("write_behind_2"), delegate.removals());
+        Assertions.assertTrue(delegate.closed);
+    }
+
+    @Test
+    public void fullQueueDoesNotBlockTheCaller() {
+        RecordingStorage delegate = new RecordingStorage();
+        WriteBehindStorage storage = start(delegate, WriteBehindStorage.Durability.INTERVAL, LONG_INTERVAL_MINUTES, TimeUnit.MINUTES);
+
+        Assertions.assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            for (int i = 0; i <= WriteBehindStorage.CAPACITY; i++) {
+                storage.saveSpecificRegistry(RegistryManager.OPTIONS, option(i, 0));
+            }
+        });
+        WriteBehindStorage.Metrics metrics = storage.getMetrics();
+        Assertions.assertEquals(WriteBehindStorage.CAPACITY, metrics.queueDepth());
+        Assertions.assertEquals(1, metrics.overflowed());
+
+        // 넘친 요소는 레지스트리에 없으므로 전체 저장에서 삭제로 기록된다.
+        storage.close();
+        Assertions.assertEquals(WriteBehindStorage.CAPACITY, delegate.upserts().size());
+        Assertions.assertEquals(List.of("write_behind_" + WriteBehindStorage.CAPACITY), delegate.removals());
+    }
+
+    @Test
+    public void closeFlushesQueuedChanges() {
+        RecordingStorage delegate = new RecordingStorage();
+        WriteBehindStorage storage = start(delegate, WriteBehindStorage.Durability.INTERVAL, LONG_INTERVAL_MINUTES, TimeUnit.MINUTES);
+        for (int i = 0; i < 3; i++) {
+            storage.saveSpecificRegistry(RegistryManager.OPTIONS, option(i, i));
+        }
+        Assertions.assertTrue(delegate.upserts().isEmpty());
+
+        storage.close();
+        Assertions.assertEquals(List.of(option(0, 0), option(1, 1), option(2, 2)), delegate.upserts());
+        Assertions.assertTrue(delegate.closed);
+        // 닫힌 뒤의 변경은 호출한 스레드에서 바로 기록된다.
+        storage.saveSpecificRegistry(RegistryManager.OPTIONS, option(3, 3));
+        Assertions.assertEquals(4, delegate.upserts().size());
+    }
+
+    @Test
+    public void commitModeWritesWithoutWaitingForInterval() throws InterruptedException {
+        RecordingStorage delegate = new RecordingStorage();
+        WriteBehindStorage storage = start(delegate, WriteBehindStorage.Durability.COMMIT, LONG_INTERVAL_MINUTES, TimeUnit.MINUTES);
+        storage.saveSpecificRegistry(RegistryManager.OPTIONS, option(1, 0));
+
+        Assertions.assertTrue(delegate.written.await(10, TimeUnit.SECONDS));
+        Assertions.assertEquals(List.of(option(1, 0)), delegate.upserts());
+        storage.internalClose();
+    }
+
+    @Test
+    public void intervalModeBatchesChanges() throws InterruptedException {
+        RecordingStorage delegate = new RecordingStorage();
+        WriteBehindStorage storage = start(delegate, WriteBehindStorage.Durability.INTERVAL, 200, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < 3; i++) {
+            storage.saveSpecificRegistry(RegistryManager.OPTIONS, option(i, i));
+        }
+
+        Assertions.assertTrue(delegate.written.await(10, TimeUnit.SECONDS));
+        storage.internalClose();
+        Assertions.assertEquals(1, storage.getMetrics().batches());
+        Assertions.assertEquals(3, delegate.upserts().size());
+    }
+
+    @Test
+    public void queuedWriteIsNotRepeatedBySaveAll() throws InterruptedException {
+        RecordingStorage delegate = new RecordingStorage();
+        WriteBehindStorage storage = start(delegate, WriteBehindStorage.Durability.COMMIT, LONG_INTERVAL_MINUTES, TimeUnit.MINUTES);
+        Option option = option(1, 0);
+        try {
+            // 패킷 처리처럼 레지스트리를 바꾼 뒤 요소를 저장한다.
+            RegistryManager.OPTIONS.add(option.id(), option);
+            storage.saveSpecificRegistry(RegistryManager.OPTIONS, option);
+            Assertions.assertTrue(delegate.written.await(10, TimeUnit.SECONDS));
+
+            storage.saveAll();
+            Assertions.assertEquals(List.of(option), delegate.upserts());
+            Assertions.assertEquals(0, storage.getDirtyCount());
+        } finally {
+            RegistryManager.OPTIONS.remove(option.id());
+            storage.internalClose();
+        }
+    }
+
+    @Test
+    public void removalsArePersistedAsDeletes() {
+        RecordingStorage delegate = new RecordingStorage();
+        WriteBehindStorage storage = start(delegate, WriteBehindStorage.Durability.INTERVAL, LONG_INTERVAL_MINUTES, TimeUnit.MINUTES);
+        Option option = option(1, 0);
+        // 저장소를 거치지 않은 변경도 전체 저장에서 기록된다.
+        RegistryManager.OPTIONS.add(option.id(), option);
+        RegistryManager.OPTIONS.remove(option.id());
+
+        storage.saveAll();
+        Assertions.assertTrue(delegate.upserts().isEmpty());
+        Assertions.assertEquals(List.of(option.id()), delegate.removals());
+        storage.internalClose();
+    }
+
+    @Test
+    public void failedBatchIsMarkedAgain() {
+        RecordingStorage delegate = new RecordingStorage();
+        delegate.failures = 1;
+        WriteBehindStorage storage = start(delegate, WriteBehindStorage.Durability.INTERVAL, LONG_INTERVAL_MINUTES, TimeUnit.MINUTES);
+        Option option = option(1, 0);
+        try {
+            RegistryManager.OPTIONS.add(option.id(), option);
+
+            storage.saveAll();
+            Assertions.assertTrue(delegate.upserts().isEmpty());
+            Assertions.assertEquals(1, storage.getDirtyCount());
+
+            storage.saveAll();
+            Assertions.assertEquals(List.of(option), delegate.upserts());
+            Assertions.assertEquals(0, storage.getDirtyCount());
+        } finally {
+            RegistryManager.OPTIONS.remove(option.id());
+            storage.internalClose();
+        }
+    }
+
+    private static class RecordingStorage implements ExternalDataManager {
+        private final List<SynchronizeData<?>> upserts = new ArrayList<>();
+        private final List<String> removals = new ArrayList<>();
+        private final CountDownLatch written = new CountDownLatch(1);
+        private volatile boolean closed;
+        /**
+         * 이 횟수만큼 기록에 실패한다.
+         */
+        private int failures;
+
+        private synchronized List<SynchronizeData<?>> upserts() {
+            return List.copyOf(this.upserts);
+        }
+
+        private synchronized List<String> removals() {
+            return List.copyOf(this.removals);
+        }
+
+        @Override
+        public synchronized void saveBatch(Registry<?> registry, List<? extends SynchronizeData<?>> upserts, List<String> removals) {
+            if (this.failures > 0) {
+                this.failures--;
+                throw new IllegalStateException("storage is down");
+            }
+            this.upserts.addAll(upserts);
+            this.removals.addAll(removals);
+            this.written.countDown();
+        }
+
+        @Override
+        public void internalClose() {
+            this.closed = true;
+        }
+
+        @Override
+        public void initialize() {
+        }
+
+        @Override
+        public void loadSpecificRegistry(Registry<?> registry) {
+        }
+
+        @Override
+        public void saveSpecificRegistry(Registry<?> registry) {
+        }
+
+        @Override
+        public void removeSpecificRegistry(Registry<?> registry, String targetId) {
+            this.saveBatch(registry, List.of(), List.of(targetId));
+        }
+
+        @Override
+        public void saveSpecificRegistry(Registry<?> registry, SynchronizeData<?> data) {
+            this.saveBatch(registry, List.of(data), List.of());
+        }
+    }
+}